@@ -30,9 +30,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
 
@@ -118,65 +121,73 @@ public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
     @Override
     public RecordIterator<KeyValueEntry> getSlice(KVQuery query, StoreTransaction txh) throws BackendException {
         log.trace("beginning db={}, op=getSlice, tx={}", name, txh);
-        final Transaction tx = getTransaction(txh);
-        final StaticBuffer keyStart = query.getStart();
-        final StaticBuffer keyEnd = query.getEnd();
-        final KeySelector selector = query.getKeySelector();
-        final List<KeyValueEntry> result = new ArrayList<>();
-        final DatabaseEntry foundKey = keyStart.as(ENTRY_FACTORY);
-        final DatabaseEntry foundData = new DatabaseEntry();
-
-        try (final Cursor cursor = db.openCursor(tx, null)) {
-            OperationStatus status = cursor.getSearchKeyRange(foundKey, foundData, getLockMode(txh));
-            //Iterate until given condition is satisfied or end of records
-            while (status == OperationStatus.SUCCESS) {
-                StaticBuffer key = getBuffer(foundKey);
-
-                if (key.compareTo(keyEnd) >= 0)
-                    break;
+        final Cursor cursor = openCursor(txh);
+        return new CursorIterator(cursor, query, txh);
+    }
 
-                if (selector.include(key)) {
-                    result.add(new KeyValueEntry(key, getBuffer(foundData)));
+    /**
+     * Answers all queries with a single cursor. The queries are visited in order of their start key so that the
+     * cursor only ever moves forward; a query whose range begins at or before the record the cursor is already
+     * resting on is served without another search.
+     */
+    @Override
+    public Map<KVQuery,RecordIterator<KeyValueEntry>> getSlices(List<KVQuery> queries, StoreTransaction txh) throws BackendException {
+        log.trace("beginning db={}, op=getSlices, tx={}, querycount={}", name, txh, queries.size());
+        final List<KVQuery> sorted = new ArrayList<>(queries);
+        sorted.sort(Comparator.comparing(KVQuery::getStart));
+        final Map<KVQuery,RecordIterator<KeyValueEntry>> results = new HashMap<>(queries.size());
+        final Cursor cursor = openCursor(txh);
+        try {
+            DatabaseEntry foundKey = new DatabaseEntry();
+            final DatabaseEntry foundData = new DatabaseEntry();
+            //The cursor rests on the first record at or after restBound, or past the last record if restKey is null
+            StaticBuffer restBound = null;
+            StaticBuffer restKey = null;
+            for (KVQuery query : sorted) {
+                final StaticBuffer keyStart = query.getStart();
+                final StaticBuffer keyEnd = query.getEnd();
+                final KeySelector selector = query.getKeySelector();
+                final List<KeyValueEntry> entries = new ArrayList<>();
+
+                OperationStatus status;
+                if (restBound != null && restBound.compareTo(keyStart) <= 0
+                        && (restKey == null || restKey.compareTo(keyStart) >= 0)) {
+                    status = restKey == null ? OperationStatus.NOTFOUND : OperationStatus.SUCCESS;
+                } else {
+                    foundKey = keyStart.as(ENTRY_FACTORY);
+                    status = cursor.getSearchKeyRange(foundKey, foundData, getLockMode(txh));
                 }
+                restBound = null;
+                while (status == OperationStatus.SUCCESS) {
+                    StaticBuffer key = getBuffer(foundKey);
 
-                if (selector.reachedLimit())
-                    break;
+                    if (key.compareTo(keyEnd) >= 0) {
+                        restBound = keyEnd;
+                        restKey = key;
+                        break;
+                    }
 
-                status = cursor.getNext(foundKey, foundData, getLockMode(txh));
-            }
-        } catch (Exception e) {
-            throw new PermanentBackendException(e);
-        }
+                    if (selector.include(key)) {
+                        entries.add(new KeyValueEntry(key, getBuffer(foundData)));
+                    }
 
-        log.trace("db={}, op=getSlice, tx={}, resultcount={}", name, txh, result.size());
+                    if (selector.reachedLimit())
+                        break;
 
-        return new RecordIterator<KeyValueEntry>() {
-            private final Iterator<KeyValueEntry> entries = result.iterator();
-
-            @Override
-            public boolean hasNext() {
-                return entries.hasNext();
-            }
-
-            @Override
-            public KeyValueEntry next() {
-                return entries.next();
-            }
-
-            @Override
-            public void close() {
-            }
-
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException();
+                    status = cursor.getNext(foundKey, foundData, getLockMode(txh));
+                }
+                if (status != OperationStatus.SUCCESS) {
+                    restBound = keyEnd;
+                    restKey = null;
+                }
+                results.put(query, new EntryListIterator(entries));
             }
-        };
-    }
-
-    @Override
-    public Map<KVQuery,RecordIterator<KeyValueEntry>> getSlices(List<KVQuery> queries, StoreTransaction txh) throws BackendException {
-        throw new UnsupportedOperationException();
+        } catch (DatabaseException e) {
+            throw new PermanentBackendException(e);
+        } finally {
+            ((BerkeleyJETx) txh).closeCursor(cursor);
+        }
+        return results;
     }
 
     @Override
@@ -224,6 +235,16 @@ public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
         }
     }
 
+    private Cursor openCursor(StoreTransaction txh) throws BackendException {
+        try {
+            final Cursor cursor = db.openCursor(getTransaction(txh), null);
+            ((BerkeleyJETx) txh).registerCursor(cursor);
+            return cursor;
+        } catch (DatabaseException e) {
+            throw new PermanentBackendException(e);
+        }
+    }
+
     private static StaticBuffer getBuffer(DatabaseEntry entry) {
         return new StaticArrayBuffer(entry.getData(),entry.getOffset(),entry.getOffset()+entry.getSize());
     }
@@ -231,4 +252,117 @@ public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
     private static LockMode getLockMode(StoreTransaction txh) {
         return ((BerkeleyJETx)txh).getLockMode();
     }
+
+    /**
+     * Lazily walks a {@link Cursor} over the key range of a {@link KVQuery}. Only the current entry is held in memory
+     * and the cursor is released as soon as the range is exhausted, the limit is reached or the iterator is closed.
+     */
+    private class CursorIterator implements RecordIterator<KeyValueEntry> {
+
+        private final Cursor cursor;
+        private final StoreTransaction txh;
+        private final StaticBuffer keyEnd;
+        private final KeySelector selector;
+        private final DatabaseEntry foundKey;
+        private final DatabaseEntry foundData = new DatabaseEntry();
+
+        private boolean positioned = false;
+        private boolean exhausted = false;
+        private KeyValueEntry current = null;
+        private int count = 0;
+
+        private CursorIterator(Cursor cursor, KVQuery query, StoreTransaction txh) {
+            this.cursor = cursor;
+            this.txh = txh;
+            this.keyEnd = query.getEnd();
+            this.selector = query.getKeySelector();
+            this.foundKey = query.getStart().as(ENTRY_FACTORY);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (current == null && !exhausted) {
+                try {
+                    current = advance();
+                } catch (DatabaseException e) {
+                    close();
+                    throw new RuntimeException(new PermanentBackendException(e));
+                }
+                if (current == null) close();
+            }
+            return current != null;
+        }
+
+        @Override
+        public KeyValueEntry next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            final KeyValueEntry next = current;
+            current = null;
+            return next;
+        }
+
+        private KeyValueEntry advance() {
+            while (!selector.reachedLimit()) {
+                final OperationStatus status;
+                if (positioned) {
+                    status = cursor.getNext(foundKey, foundData, getLockMode(txh));
+                } else {
+                    status = cursor.getSearchKeyRange(foundKey, foundData, getLockMode(txh));
+                    positioned = true;
+                }
+                if (status != OperationStatus.SUCCESS) break;
+
+                final StaticBuffer key = getBuffer(foundKey);
+                if (key.compareTo(keyEnd) >= 0) break;
+
+                if (selector.include(key)) {
+                    count++;
+                    return new KeyValueEntry(key, getBuffer(foundData));
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            if (exhausted) return;
+            exhausted = true;
+            current = null;
+            ((BerkeleyJETx) txh).closeCursor(cursor);
+            log.trace("db={}, op=getSlice, tx={}, resultcount={}", name, txh, count);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class EntryListIterator implements RecordIterator<KeyValueEntry> {
+
+        private final Iterator<KeyValueEntry> entries;
+
+        private EntryListIterator(List<KeyValueEntry> entries) {
+            this.entries = entries.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public KeyValueEntry next() {
+            return entries.next();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
@@ -50,8 +50,31 @@ public class BerkeleyJETx extends AbstractStoreTransaction {
         return tx;
     }
 
-    private void closeOpenIterators() {
-        openCursors.forEach(Cursor::close);
+    void registerCursor(Cursor cursor) {
+        Preconditions.checkArgument(cursor != null);
+        synchronized (openCursors) {
+            openCursors.add(cursor);
+        }
+    }
+
+    void closeCursor(Cursor cursor) {
+        synchronized (openCursors) {
+            if (openCursors.remove(cursor)) {
+                cursor.close();
+            }
+        }
+    }
+
+    private void closeOpenIterators() throws BackendException {
+        synchronized (openCursors) {
+            try {
+                openCursors.forEach(Cursor::close);
+            } catch (DatabaseException e) {
+                throw new PermanentBackendException(e);
+            } finally {
+                openCursors.clear();
+            }
+        }
     }
 
     LockMode getLockMode() {
@@ -61,11 +84,11 @@ public class BerkeleyJETx extends AbstractStoreTransaction {
     @Override
     public synchronized void rollback() throws BackendException {
         super.rollback();
+        closeOpenIterators();
         if (tx == null) return;
         if (log.isTraceEnabled())
             log.trace("{} rolled back", this.toString(), new TransactionClose(this.toString()));
         try {
-            closeOpenIterators();
             tx.abort();
             tx = null;
         } catch (DatabaseException e) {
@@ -76,12 +99,12 @@ public class BerkeleyJETx extends AbstractStoreTransaction {
     @Override
     public synchronized void commit() throws BackendException {
         super.commit();
+        closeOpenIterators();
         if (tx == null) return;
         if (log.isTraceEnabled())
             log.trace("{} committed", this.toString(), new TransactionClose(this.toString()));
 
         try {
-            closeOpenIterators();
             tx.commit();
             tx = null;
         } catch (DatabaseException e) {
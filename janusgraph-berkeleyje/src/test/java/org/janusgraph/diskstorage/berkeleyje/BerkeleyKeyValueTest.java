@@ -17,7 +17,17 @@ package org.janusgraph.diskstorage.berkeleyje;
 import org.janusgraph.BerkeleyStorageSetup;
 import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.KeyValueStoreTest;
+import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.KVQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.KeyValueEntry;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.OrderedKeyValueStoreManager;
+import org.janusgraph.diskstorage.util.RecordIterator;
+import org.janusgraph.diskstorage.BackendTransaction;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 
 public class BerkeleyKeyValueTest extends KeyValueStoreTest {
@@ -27,5 +37,18 @@ public class BerkeleyKeyValueTest extends KeyValueStoreTest {
         return new BerkeleyJEStoreManager(BerkeleyStorageSetup.getBerkeleyJEConfiguration());
     }
 
+    @Test
+    public void partialScanReleasesCursor() throws BackendException, IOException {
+        String[] values = generateValues();
+        loadValues(values);
+        RecordIterator<KeyValueEntry> iterator = store.getSlice(new KVQuery(BackendTransaction.EDGESTORE_MIN_KEY, BackendTransaction.EDGESTORE_MAX_KEY), tx);
+        assertTrue(iterator.hasNext());
+        iterator.next();
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        // the store must remain fully usable within the same transaction after the cursor was released
+        checkValues(values);
+    }
+
 
 }
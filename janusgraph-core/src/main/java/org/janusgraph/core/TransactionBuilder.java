@@ -69,6 +69,16 @@ public interface TransactionBuilder {
      */
     TransactionBuilder dirtyVertexSize(int size);
 
+    /**
+     * Configures the maximum size in bytes of the relation slices which the vertices of the transaction cache
+     * after loading them from the storage backend. The least recently used slices are evicted when this size is exceeded.
+     * A size of 0 does not bound the cache.
+     *
+     * @param size maximum size in bytes of the cached relation slices
+     * @return
+     */
+    TransactionBuilder relationCacheSize(long size);
+
     /**
      * Enables/disables checks that verify that each vertex actually exists in the underlying data store when it is retrieved.
      * This might be useful to address common data degradation issues but has adverse impacts on performance due to
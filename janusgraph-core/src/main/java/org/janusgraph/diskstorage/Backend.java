@@ -19,6 +19,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.janusgraph.core.JanusGraphConfigurationException;
 import org.janusgraph.core.JanusGraphException;
 import org.janusgraph.core.schema.JanusGraphManagement;
@@ -26,10 +27,12 @@ import org.janusgraph.diskstorage.configuration.*;
 import org.janusgraph.diskstorage.idmanagement.ConsistentKeyIDAuthority;
 import org.janusgraph.diskstorage.indexing.*;
 import org.janusgraph.diskstorage.keycolumnvalue.*;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.AdaptiveCacheBudget;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.ExpirationKCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.NoKCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.OffHeapKCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.*;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScanner;
 import org.janusgraph.diskstorage.locking.Locker;
@@ -42,11 +45,13 @@ import org.janusgraph.diskstorage.log.kcvs.KCVSLog;
 import org.janusgraph.diskstorage.log.kcvs.KCVSLogManager;
 import org.janusgraph.diskstorage.util.BackendOperation;
 import org.janusgraph.diskstorage.configuration.backend.KCVSConfiguration;
+import org.janusgraph.diskstorage.util.MetricInstrumentedStore;
 import org.janusgraph.diskstorage.util.MetricInstrumentedStoreManager;
 import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
 import org.janusgraph.diskstorage.util.time.TimestampProvider;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
 import org.janusgraph.graphdb.transaction.TransactionConfiguration;
+import org.janusgraph.util.stats.MetricManager;
 import org.janusgraph.util.system.ConfigurationUtil;
 
 import org.apache.commons.lang.StringUtils;
@@ -111,9 +116,11 @@ public class Backend implements LockerProvider, AutoCloseable {
     private KCVSCache edgeStore;
     private KCVSCache indexStore;
     private KCVSCache txLogStore;
+    private AdaptiveCacheBudget cacheBudget;
     private IDAuthority idAuthority;
     private KCVSConfiguration systemConfig;
     private KCVSConfiguration userConfig;
+    private KCVSConfiguration scanCheckpoints;
     private boolean hasAttemptedClose;
 
     private final StandardScanner scanner;
@@ -126,10 +133,12 @@ public class Backend implements LockerProvider, AutoCloseable {
     private final Map<String, IndexProvider> indexes;
 
     private final int bufferSize;
+    private final int batchPipelineDepth;
     private final Duration maxWriteTime;
     private final Duration maxReadTime;
     private final boolean cacheEnabled;
     private final ExecutorService threadPool;
+    private final ExecutorService flushExecutor;
 
     private final Function<String, Locker> lockerCreator;
     private final ConcurrentHashMap<String, Locker> lockers = new ConcurrentHashMap<>();
@@ -160,6 +169,7 @@ public class Backend implements LockerProvider, AutoCloseable {
         if (!storeFeatures.hasBatchMutation()) {
             bufferSize = Integer.MAX_VALUE;
         } else bufferSize = bufferSizeTmp;
+        batchPipelineDepth = configuration.get(STORAGE_BATCH_PIPELINE_DEPTH);
 
         maxWriteTime = configuration.get(STORAGE_WRITE_WAITTIME);
         maxReadTime = configuration.get(STORAGE_READ_WAITTIME);
@@ -179,6 +189,13 @@ public class Backend implements LockerProvider, AutoCloseable {
             threadPool = null;
         }
 
+        if (batchPipelineDepth > 0) {
+            flushExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Backend-flush-%d").build());
+        } else {
+            flushExecutor = null;
+        }
+
         final String lockBackendName = configuration.get(LOCK_BACKEND);
         if (REGISTERED_LOCKERS.containsKey(lockBackendName)) {
             lockerCreator = REGISTERED_LOCKERS.get(lockBackendName);
@@ -258,8 +275,20 @@ public class Backend implements LockerProvider, AutoCloseable {
                 long edgeStoreCacheSize = Math.round(cacheSizeBytes * EDGESTORE_CACHE_PERCENT);
                 long indexStoreCacheSize = Math.round(cacheSizeBytes * INDEXSTORE_CACHE_PERCENT);
 
-                edgeStore = new ExpirationKCVSCache(edgeStoreRaw,getMetricsCacheName(EDGESTORE_NAME),expirationTime,cleanWaitTime,edgeStoreCacheSize);
-                indexStore = new ExpirationKCVSCache(indexStoreRaw,getMetricsCacheName(INDEXSTORE_NAME),expirationTime,cleanWaitTime,indexStoreCacheSize);
+                String metricsGroup = configuration.get(METRICS_PREFIX);
+                final ExpirationKCVSCache edgeStoreCache, indexStoreCache;
+                if (configuration.get(DB_CACHE_OFF_HEAP)) {
+                    edgeStoreCache = new OffHeapKCVSCache(edgeStoreRaw,metricsGroup,getMetricsCacheName(EDGESTORE_NAME),expirationTime,cleanWaitTime,edgeStoreCacheSize);
+                    indexStoreCache = new OffHeapKCVSCache(indexStoreRaw,metricsGroup,getMetricsCacheName(INDEXSTORE_NAME),expirationTime,cleanWaitTime,indexStoreCacheSize);
+                } else {
+                    edgeStoreCache = new ExpirationKCVSCache(edgeStoreRaw,metricsGroup,getMetricsCacheName(EDGESTORE_NAME),expirationTime,cleanWaitTime,edgeStoreCacheSize);
+                    indexStoreCache = new ExpirationKCVSCache(indexStoreRaw,metricsGroup,getMetricsCacheName(INDEXSTORE_NAME),expirationTime,cleanWaitTime,indexStoreCacheSize);
+                }
+                if (configuration.get(DB_CACHE_ADAPTIVE_SPLIT)) {
+                    cacheBudget = new AdaptiveCacheBudget(edgeStoreCache,indexStoreCache,cacheSizeBytes,EDGESTORE_CACHE_PERCENT,configuration.get(DB_CACHE_ADAPTIVE_SPLIT_INTERVAL));
+                }
+                edgeStore = edgeStoreCache;
+                indexStore = indexStoreCache;
             } else {
                 edgeStore = new NoKCVSCache(edgeStoreRaw);
                 indexStore = new NoKCVSCache(indexStoreRaw);
@@ -297,6 +326,17 @@ public class Backend implements LockerProvider, AutoCloseable {
                     //Do nothing, storeManager is closed explicitly by Backend
                 }
             },systemConfigStore,USER_CONFIGURATION_IDENTIFIER,configuration);
+            scanCheckpoints = getConfiguration(new BackendOperation.TransactionalProvider() {
+                @Override
+                public StoreTransaction openTx() throws BackendException {
+                    return storeManagerLocking.beginTransaction(StandardBaseTransactionConfig.of(configuration.get(TIMESTAMP_PROVIDER)));
+                }
+
+                @Override
+                public void close() throws BackendException {
+                    //Do nothing, storeManager is closed explicitly by Backend
+                }
+            },systemConfigStore,SCAN_CHECKPOINT_IDENTIFIER,configuration);
 
         } catch (BackendException e) {
             throw new JanusGraphException("Could not initialize backend", e);
@@ -346,13 +386,29 @@ public class Backend implements LockerProvider, AutoCloseable {
         TimestampProvider provider = configuration.get(TIMESTAMP_PROVIDER);
         ModifiableConfiguration jobConfig = GraphDatabaseConfiguration.buildJobConfiguration();
         jobConfig.set(JOB_START_TIME,provider.getTime().toEpochMilli());
-        return scanner.build()
+        jobConfig.set(JOB_THROTTLE_ROWS,configuration.get(SCAN_ROWS_PER_SECOND));
+        jobConfig.set(JOB_THROTTLE_BYTES,configuration.get(SCAN_BYTES_PER_SECOND));
+        jobConfig.set(JOB_THROTTLE_MAX_READ_LATENCY,configuration.get(SCAN_MAX_READ_LATENCY));
+        StandardScanner.Builder builder = scanner.build()
                 .setStoreName(storeName)
                 .setTimestampProvider(provider)
                 .setJobConfiguration(jobConfig)
                 .setGraphConfiguration(configuration)
                 .setNumProcessingThreads(1)
+                .setNumSegments(configuration.get(SCAN_SEGMENTS))
                 .setWorkBlockSize(10000);
+        Duration checkpointInterval = configuration.get(SCAN_CHECKPOINT_INTERVAL);
+        if (!checkpointInterval.isZero()) builder.setCheckpointStore(scanCheckpoints, checkpointInterval);
+        if (configuration.get(BASIC_METRICS)) {
+            //Reads of the graph's transactions, the reads of the scan itself are not instrumented
+            String metricsStoreName = configuration.get(METRICS_MERGE_STORES) ? METRICS_MERGED_STORE : storeName;
+            String metricsPrefix = configuration.get(METRICS_PREFIX);
+            builder.setReadLatencyMetric(MetricManager.INSTANCE.getTimer(metricsPrefix,
+                    metricsStoreName, MetricInstrumentedStore.M_GET_SLICE, MetricInstrumentedStore.M_TIME),
+                    MetricManager.INSTANCE.getCounter(metricsPrefix,
+                    metricsStoreName, MetricInstrumentedStore.M_GET_SLICE, MetricInstrumentedStore.M_TIME_TOTAL));
+        }
+        return builder;
     }
 
     public JanusGraphManagement.IndexJobFuture getScanJobStatus(Object jobId) {
@@ -528,7 +584,8 @@ public class Backend implements LockerProvider, AutoCloseable {
         StoreTransaction tx = storeManagerLocking.beginTransaction(configuration);
 
         // Cache
-        CacheTransaction cacheTx = new CacheTransaction(tx, storeManagerLocking, bufferSize, maxWriteTime, configuration.hasEnabledBatchLoading());
+        CacheTransaction cacheTx = new CacheTransaction(tx, storeManagerLocking, bufferSize, maxWriteTime,
+            configuration.hasEnabledBatchLoading(), 2, batchPipelineDepth, flushExecutor);
 
         // Index transactions
         final Map<String, IndexTransaction> indexTx = new HashMap<>(indexes.size());
@@ -549,15 +606,18 @@ public class Backend implements LockerProvider, AutoCloseable {
             userLogManager.close();
 
             scanner.close();
+            if (cacheBudget != null) cacheBudget.close();
             if (edgeStore != null) edgeStore.close();
             if (indexStore != null) indexStore.close();
             if (idAuthority != null) idAuthority.close();
             if (systemConfig != null) systemConfig.close();
             if (userConfig != null) userConfig.close();
+            if (scanCheckpoints != null) scanCheckpoints.close();
             storeManager.close();
             if(threadPool != null) {
             	threadPool.shutdown();
             }
+            if (flushExecutor != null) flushExecutor.shutdown();
             //Indexes
             for (IndexProvider index : indexes.values()) index.close();
         } else {
@@ -580,13 +640,16 @@ public class Backend implements LockerProvider, AutoCloseable {
             userLogManager.close();
 
             scanner.close();
+            if (cacheBudget != null) cacheBudget.close();
             edgeStore.close();
             indexStore.close();
             idAuthority.close();
             systemConfig.close();
             userConfig.close();
+            scanCheckpoints.close();
             storeManager.clearStorage();
             storeManager.close();
+            if (flushExecutor != null) flushExecutor.shutdown();
             //Indexes
             for (IndexProvider index : indexes.values()) {
                 index.clearStorage();
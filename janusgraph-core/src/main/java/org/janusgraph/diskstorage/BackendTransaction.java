@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,6 +48,9 @@ import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
 import org.janusgraph.diskstorage.util.BackendOperation;
 import org.janusgraph.diskstorage.util.BufferUtil;
 import org.janusgraph.graphdb.database.serialize.DataOutput;
+import org.janusgraph.util.stats.MetricManager;
+
+import com.codahale.metrics.Timer;
 
 /**
  * Bundles all storage/index transactions and provides a proxy for some of their
@@ -63,6 +67,11 @@ public class BackendTransaction implements LoggableTransaction {
 
     public static final int MIN_TASKS_TO_PARALLELIZE = 2;
 
+    private static final String M_INDEX = "index";
+    private static final String M_COMMIT = "commit";
+    private static final String M_TIME = "time";
+    private static final String M_EXCEPTIONS = "exceptions";
+
     //Assumes 64 bit key length as specified in IDManager
     public static final StaticBuffer EDGESTORE_MIN_KEY = BufferUtil.zeroBuffer(8);
     public static final StaticBuffer EDGESTORE_MAX_KEY = BufferUtil.oneBuffer(8);
@@ -115,6 +124,14 @@ public class BackendTransaction implements LoggableTransaction {
         return txConfig;
     }
 
+    /**
+     * Returns the executor for backend operations that can be executed in parallel, or null if parallel backend
+     * operations are disabled.
+     */
+    public Executor getExecutor() {
+        return threadPool;
+    }
+
     public IndexTransaction getIndexTransaction(String index) {
         Preconditions.checkArgument(StringUtils.isNotBlank(index));
         IndexTransaction itx = indexTx.get(index);
@@ -134,22 +151,86 @@ public class BackendTransaction implements LoggableTransaction {
         storeTx.commit();
     }
 
+    /**
+     * Commits all index transactions and returns the exceptions thrown by the failed ones, keyed by index name.
+     * The index transactions are independent of each other and are therefore committed in parallel when a thread
+     * pool is configured, so that the commit only takes as long as the slowest index.
+     */
     public Map<String,Throwable> commitIndexes() {
-        final Map<String,Throwable> exceptions = new HashMap<>(indexTx.size());
+        if (threadPool == null || indexTx.size() < MIN_TASKS_TO_PARALLELIZE) {
+            final Map<String,Throwable> exceptions = new HashMap<>(indexTx.size());
+            for (Map.Entry<String,IndexTransaction> indexTransactionEntry : indexTx.entrySet()) {
+                try {
+                    commitIndex(indexTransactionEntry.getKey(), indexTransactionEntry.getValue());
+                } catch (Throwable e) {
+                    exceptions.put(indexTransactionEntry.getKey(),e);
+                }
+            }
+            return exceptions;
+        }
+
+        final Map<String,Throwable> exceptions = new ConcurrentHashMap<>(indexTx.size());
+        final Map<String,Boolean> completed = new ConcurrentHashMap<>(indexTx.size());
+        final CountDownLatch doneSignal = new CountDownLatch(indexTx.size());
         for (Map.Entry<String,IndexTransaction> indexTransactionEntry : indexTx.entrySet()) {
+            final String index = indexTransactionEntry.getKey();
             try {
-                indexTransactionEntry.getValue().commit();
-            } catch (Throwable e) {
-                exceptions.put(indexTransactionEntry.getKey(),e);
+                threadPool.execute(() -> {
+                    try {
+                        commitIndex(index, indexTransactionEntry.getValue());
+                    } catch (Throwable e) {
+                        exceptions.put(index,e);
+                    } finally {
+                        completed.put(index,Boolean.TRUE);
+                        doneSignal.countDown();
+                    }
+                });
+            } catch (RuntimeException e) {
+                //Thread pool is shut down or saturated
+                exceptions.put(index,e);
+                completed.put(index,Boolean.TRUE);
+                doneSignal.countDown();
+            }
+        }
+        try {
+            doneSignal.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            //Report all index transactions whose commit has not completed yet as failed
+            for (String index : indexTx.keySet()) {
+                if (!completed.containsKey(index)) exceptions.putIfAbsent(index,e);
             }
         }
-        return exceptions;
+        return new HashMap<>(exceptions);
+    }
+
+    private void commitIndex(String index, IndexTransaction itx) throws BackendException {
+        if (!txConfig.hasGroupName()) {
+            itx.commit();
+            return;
+        }
+        final MetricManager mgr = MetricManager.INSTANCE;
+        final Timer.Context tc = mgr.getTimer(txConfig.getGroupName(), M_INDEX, index, M_COMMIT, M_TIME).time();
+        try {
+            itx.commit();
+        } catch (BackendException | RuntimeException e) {
+            mgr.getCounter(txConfig.getGroupName(), M_INDEX, index, M_COMMIT, M_EXCEPTIONS).inc();
+            throw e;
+        } finally {
+            tc.stop();
+        }
     }
 
     @Override
     public void commit() throws BackendException {
         storeTx.commit();
-        for (IndexTransaction itx : indexTx.values()) itx.commit();
+        final Map<String,Throwable> exceptions = commitIndexes();
+        if (!exceptions.isEmpty()) {
+            final Throwable exception = exceptions.values().iterator().next();
+            if (exception instanceof BackendException) throw (BackendException)exception;
+            else if (exception instanceof RuntimeException) throw (RuntimeException)exception;
+            else throw new PermanentBackendException("Unexpected exception",exception);
+        }
     }
 
     /**
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.locks.Lock;
 
 import org.janusgraph.diskstorage.*;
 import org.janusgraph.diskstorage.util.*;
@@ -33,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Striped;
 
 import org.janusgraph.diskstorage.configuration.Configuration;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
@@ -100,6 +102,12 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
 
     private final Random random = new Random();
 
+    /**
+     * Serializes block applications on the same partition and id namespace within this instance, so that
+     * applications on different partitions and namespaces do not wait for each other.
+     */
+    private final Striped<Lock> applicationLocks = Striped.lock(64);
+
     public ConsistentKeyIDAuthority(KeyColumnValueStore idStore, StoreManager manager, Configuration config) throws BackendException {
         super(config);
         Preconditions.checkArgument(manager.getFeatures().isKeyConsistent());
@@ -204,10 +212,21 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
     }
 
     @Override
-    public synchronized IDBlock getIDBlock(final int partition, final int idNamespace, Duration timeout) throws BackendException {
+    public IDBlock getIDBlock(final int partition, final int idNamespace, Duration timeout) throws BackendException {
         Preconditions.checkArgument(partition>=0 && partition<(1<< partitionBitWidth),"Invalid partition id [%s] for bit width [%s]",partition, partitionBitWidth);
         Preconditions.checkArgument(idNamespace>=0); //can be any non-negative value
 
+        final Lock applicationLock = applicationLocks.get((((long) partition) << Integer.SIZE) | idNamespace);
+        applicationLock.lock();
+        try {
+            return applyForIDBlock(partition, idNamespace, timeout);
+        } finally {
+            applicationLock.unlock();
+        }
+    }
+
+    private IDBlock applyForIDBlock(final int partition, final int idNamespace, Duration timeout) throws BackendException {
+
         final Timer methodTime = times.getTimer().start();
 
         final long blockSize = getBlockSize(idNamespace);
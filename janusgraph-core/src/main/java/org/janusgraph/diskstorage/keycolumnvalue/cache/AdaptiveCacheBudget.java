@@ -0,0 +1,204 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Shares one byte budget between two {@link ExpirationKCVSCache}s, e.g. the caches of the edge store and the index
+ * store, and periodically moves capacity between them to maximize the combined hit rate.
+ * <p/>
+ * The split is adapted by hill climbing: after each sample period, in which enough retrievals have been made, the
+ * split is moved by a step. The first step goes toward the cache that missed more often. If the combined hit rate got
+ * worse in the last period, the direction is reversed. The step size decays so that the split settles, and is reset
+ * when the hit rate changes sharply, which indicates a change of the workload.
+ * <p/>
+ * A cache only shrinks or grows to its new capacity as its entries are replaced. Until both caches have settled at
+ * their capacity, or hold everything that is read from them, the retrievals are not counted toward a sample period,
+ * so that each step is judged by the hit rate of the split it made rather than of an earlier one.
+ *
+ * @see ExpirationKCVSCache#setMaximumByteSize(long)
+ */
+public class AdaptiveCacheBudget implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveCacheBudget.class);
+
+    private static final double MIN_SHARE = 0.05;
+    private static final double INITIAL_STEP = 0.0625;
+    private static final double STEP_DECAY = 0.98;
+    private static final double RESTART_THRESHOLD = 0.05;
+    //Relative deviation from its capacity up to which a cache counts as settled
+    private static final double SETTLE_TOLERANCE = 0.1;
+    //Number of retrievals a sample period needs for its hit rate to be meaningful
+    private static final long MIN_SAMPLE_SIZE = 1000;
+
+    private final ExpirationKCVSCache first;
+    private final ExpirationKCVSCache second;
+    private final long totalByteSize;
+    private final RebalanceThread rebalanceThread;
+
+    private double share;
+    private double step = 0.0;
+    private double previousHitRate = Double.NaN;
+    private long previousRetrievals;
+    private long previousMisses;
+    private long previousFirstByteSize;
+    private long previousSecondByteSize;
+
+    /**
+     * @param first the first cache
+     * @param second the second cache
+     * @param totalByteSize the number of bytes both caches may hold together
+     * @param initialShare the fraction of the budget initially assigned to the first cache
+     * @param interval the time between adjustments of the split, or {@link Duration#ZERO} to only adjust it on calls to {@link #rebalance()}
+     */
+    public AdaptiveCacheBudget(ExpirationKCVSCache first, ExpirationKCVSCache second, long totalByteSize, double initialShare, Duration interval) {
+        Preconditions.checkArgument(first != null && second != null && first != second);
+        Preconditions.checkArgument(totalByteSize > 0, "Invalid cache size: %s", totalByteSize);
+        Preconditions.checkArgument(initialShare > 0.0 && initialShare < 1.0, "Invalid cache share: %s", initialShare);
+        Preconditions.checkArgument(interval != null && !interval.isNegative(), "Invalid interval: %s", interval);
+        this.first = first;
+        this.second = second;
+        this.totalByteSize = totalByteSize;
+        this.previousRetrievals = first.getRetrievalCount() + second.getRetrievalCount();
+        this.previousMisses = first.getMissCount() + second.getMissCount();
+        this.previousFirstByteSize = first.getByteSize();
+        this.previousSecondByteSize = second.getByteSize();
+        setShare(initialShare);
+        if (interval.isZero()) {
+            rebalanceThread = null;
+        } else {
+            rebalanceThread = new RebalanceThread(interval.toMillis());
+            rebalanceThread.start();
+        }
+    }
+
+    /**
+     * Returns the fraction of the budget currently assigned to the first cache.
+     */
+    public synchronized double getShare() {
+        return share;
+    }
+
+    /**
+     * Adjusts the split if both caches have settled at their capacity and enough retrievals have been made since.
+     *
+     * @return whether the split was adjusted
+     */
+    public synchronized boolean rebalance() {
+        final long firstRetrievals = first.getRetrievalCount(), firstMisses = first.getMissCount();
+        final long secondRetrievals = second.getRetrievalCount(), secondMisses = second.getMissCount();
+        if (!isSettled()) {
+            //Start the sample period over once the caches reflect the current split
+            previousRetrievals = firstRetrievals + secondRetrievals;
+            previousMisses = firstMisses + secondMisses;
+            log.debug("Waiting for caches to settle at share {} of first cache", share);
+            return false;
+        }
+        final long retrievals = firstRetrievals + secondRetrievals - previousRetrievals;
+        final long misses = firstMisses + secondMisses - previousMisses;
+        if (retrievals < MIN_SAMPLE_SIZE) return false;
+        final double hitRate = 1.0 - ((double) misses) / retrievals;
+
+        if (Double.isNaN(previousHitRate)) {
+            //Move toward the cache that had the higher miss rate over its lifetime so far
+            step = getMissRate(firstMisses, firstRetrievals) >= getMissRate(secondMisses, secondRetrievals) ? INITIAL_STEP : -INITIAL_STEP;
+        } else {
+            final double delta = hitRate - previousHitRate;
+            if (delta < 0) step = -step;
+            if (Math.abs(delta) >= RESTART_THRESHOLD) step = Math.signum(step) * INITIAL_STEP;
+            else step *= STEP_DECAY;
+        }
+        previousHitRate = hitRate;
+        previousRetrievals = firstRetrievals + secondRetrievals;
+        previousMisses = firstMisses + secondMisses;
+
+        setShare(share + step);
+        log.debug("Cache hit rate {} in last period, moved share of first cache to {}", hitRate, share);
+        return true;
+    }
+
+    private void setShare(double newShare) {
+        share = Math.max(MIN_SHARE, Math.min(1.0 - MIN_SHARE, newShare));
+        final long firstByteSize = Math.round(totalByteSize * share);
+        first.setMaximumByteSize(firstByteSize);
+        second.setMaximumByteSize(totalByteSize - firstByteSize);
+    }
+
+    private boolean isSettled() {
+        final long firstByteSize = first.getByteSize(), secondByteSize = second.getByteSize();
+        final boolean settled = isSettled(first, firstByteSize, previousFirstByteSize)
+            && isSettled(second, secondByteSize, previousSecondByteSize);
+        previousFirstByteSize = firstByteSize;
+        previousSecondByteSize = secondByteSize;
+        return settled;
+    }
+
+    private static boolean isSettled(ExpirationKCVSCache cache, long byteSize, long previousByteSize) {
+        final long capacity = cache.getMaximumByteSize();
+        //Still evicting the entries that exceed a reduced capacity
+        if (byteSize > capacity * (1.0 + SETTLE_TOLERANCE)) return false;
+        //Full, or no longer growing because it holds everything that is read from it
+        return byteSize >= capacity * (1.0 - SETTLE_TOLERANCE) || byteSize <= previousByteSize;
+    }
+
+    private static double getMissRate(long misses, long retrievals) {
+        return retrievals == 0 ? 0.0 : ((double) misses) / retrievals;
+    }
+
+    @Override
+    public void close() {
+        if (rebalanceThread != null) rebalanceThread.stopThread();
+    }
+
+    private class RebalanceThread extends Thread {
+
+        private final long intervalMS;
+        private volatile boolean stop = false;
+
+        private RebalanceThread(long intervalMS) {
+            this.intervalMS = intervalMS;
+            this.setDaemon(true);
+            this.setName("AdaptiveCacheBudget-" + getId());
+        }
+
+        @Override
+        public void run() {
+            while (!stop) {
+                try {
+                    Thread.sleep(intervalMS);
+                } catch (InterruptedException e) {
+                    if (stop) return;
+                    else throw new RuntimeException("Rebalance thread got interrupted", e);
+                }
+                try {
+                    rebalance();
+                } catch (RuntimeException e) {
+                    log.error("Could not rebalance cache budget", e);
+                }
+            }
+        }
+
+        void stopThread() {
+            stop = true;
+            this.interrupt();
+        }
+    }
+
+}
@@ -31,6 +31,9 @@ import org.janusgraph.graphdb.database.serialize.DataOutput;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -43,8 +46,12 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
     private final int persistChunkSize;
     private final Duration maxWriteTime;
 
+    private final int flushPipelineDepth;
+    private final Executor flushExecutor;
+
     private int numMutations;
-    private final Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations;
+    private Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations;
+    private FlushPipeline flushPipeline;
 
     public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager,
                              int persistChunkSize, Duration maxWriteTime, boolean batchLoading) {
@@ -53,7 +60,23 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
 
     public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager, int persistChunkSize,
                             Duration maxWriteTime, boolean batchLoading, int expectedNumStores) {
+        this(tx, manager, persistChunkSize, maxWriteTime, batchLoading, expectedNumStores, 0, null);
+    }
+
+    /**
+     * @param flushPipelineDepth when batch loading, the number of full mutation chunks that are persisted in the
+     *                           background while the transaction keeps collecting mutations. If 0, chunks are
+     *                           persisted synchronously.
+     * @param flushExecutor      the executor, shared across transactions, that persists chunks in the background.
+     *                           Required if the pipeline depth is positive.
+     */
+    public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager, int persistChunkSize,
+                            Duration maxWriteTime, boolean batchLoading, int expectedNumStores,
+                            int flushPipelineDepth, Executor flushExecutor) {
         Preconditions.checkArgument(tx != null && manager != null && persistChunkSize > 0);
+        Preconditions.checkArgument(flushPipelineDepth >= 0, "Invalid pipeline depth: %s", flushPipelineDepth);
+        Preconditions.checkArgument(flushPipelineDepth == 0 || flushExecutor != null,
+            "Need an executor to persist mutations in the background");
         this.tx = tx;
         this.manager = manager;
         this.batchLoading = batchLoading;
@@ -61,6 +84,8 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         this.persistChunkSize = persistChunkSize;
         this.maxWriteTime = maxWriteTime;
         this.mutations = new HashMap<>(expectedNumStores);
+        this.flushPipelineDepth = flushPipelineDepth;
+        this.flushExecutor = flushExecutor;
     }
 
     public StoreTransaction getWrappedTransaction() {
@@ -83,7 +108,8 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         numMutations += m.getTotalMutations();
 
         if (batchLoading && numMutations >= persistChunkSize) {
-            flushInternal();
+            if (flushPipelineDepth > 0) flushAsync();
+            else flushInternal();
         }
     }
 
@@ -114,52 +140,68 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
 
     private void flushInternal() throws BackendException {
         if (numMutations > 0) {
-            //Consolidate all mutations prior to persistence to ensure that no addition accidentally gets swallowed by a delete
-            for (Map<StaticBuffer, KCVEntryMutation> store : mutations.values()) {
-                for (KCVEntryMutation mut : store.values()) mut.consolidate();
-            }
+            flush(mutations);
+            clear();
+        }
+    }
 
-            //Chunk up mutations
-            final Map<String, Map<StaticBuffer, KCVMutation>> subMutations = new HashMap<>(mutations.size());
-            int numSubMutations = 0;
-            for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
-                final Map<StaticBuffer, KCVMutation> sub = new HashMap<>();
-                subMutations.put(storeMutations.getKey().getName(),sub);
-                for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
-                    if (mutationsForKey.getValue().isEmpty()) continue;
-                    sub.put(mutationsForKey.getKey(), convert(mutationsForKey.getValue()));
-                    numSubMutations+=mutationsForKey.getValue().getTotalMutations();
-                    if (numSubMutations>= persistChunkSize) {
-                        numSubMutations = persist(subMutations);
-                        sub.clear();
-                        subMutations.put(storeMutations.getKey().getName(),sub);
-                    }
+    /**
+     * Hands the collected mutations over to the background writer, which blocks if it is already behind by the
+     * configured number of chunks, and starts collecting a new set of mutations.
+     */
+    private void flushAsync() throws BackendException {
+        if (flushPipeline == null) flushPipeline = new FlushPipeline(flushPipelineDepth, flushExecutor);
+        final Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> pending = mutations;
+        mutations = new HashMap<>(pending.size());
+        numMutations = 0;
+        flushPipeline.submit(pending);
+    }
+
+    private void flush(final Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations) throws BackendException {
+        //Consolidate all mutations prior to persistence to ensure that no addition accidentally gets swallowed by a delete
+        for (Map<StaticBuffer, KCVEntryMutation> store : mutations.values()) {
+            for (KCVEntryMutation mut : store.values()) mut.consolidate();
+        }
+
+        //Chunk up mutations
+        final Map<String, Map<StaticBuffer, KCVMutation>> subMutations = new HashMap<>(mutations.size());
+        int numSubMutations = 0;
+        for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
+            final Map<StaticBuffer, KCVMutation> sub = new HashMap<>();
+            subMutations.put(storeMutations.getKey().getName(),sub);
+            for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                if (mutationsForKey.getValue().isEmpty()) continue;
+                sub.put(mutationsForKey.getKey(), convert(mutationsForKey.getValue()));
+                numSubMutations+=mutationsForKey.getValue().getTotalMutations();
+                if (numSubMutations>= persistChunkSize) {
+                    numSubMutations = persist(subMutations);
+                    sub.clear();
+                    subMutations.put(storeMutations.getKey().getName(),sub);
                 }
             }
-            if (numSubMutations>0) persist(subMutations);
-
-
-            for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
-                final KCVSCache cache = storeMutations.getKey();
-                for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
-                    if (cache.hasValidateKeysOnly()) {
-                        cache.invalidate(mutationsForKey.getKey(), Collections.EMPTY_LIST);
-                    } else {
-                        final KCVEntryMutation m = mutationsForKey.getValue();
-                        final List<CachableStaticBuffer> entries = new ArrayList<>(m.getTotalMutations());
-                        for (final Entry e : m.getAdditions()) {
-                            assert e instanceof CachableStaticBuffer;
-                            entries.add((CachableStaticBuffer)e);
-                        }
-                        for (final StaticBuffer e : m.getDeletions()) {
-                            assert e instanceof CachableStaticBuffer;
-                            entries.add((CachableStaticBuffer)e);
-                        }
-                        cache.invalidate(mutationsForKey.getKey(),entries);
+        }
+        if (numSubMutations>0) persist(subMutations);
+
+
+        for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
+            final KCVSCache cache = storeMutations.getKey();
+            for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                if (cache.hasValidateKeysOnly()) {
+                    cache.invalidate(mutationsForKey.getKey(), Collections.EMPTY_LIST);
+                } else {
+                    final KCVEntryMutation m = mutationsForKey.getValue();
+                    final List<CachableStaticBuffer> entries = new ArrayList<>(m.getTotalMutations());
+                    for (final Entry e : m.getAdditions()) {
+                        assert e instanceof CachableStaticBuffer;
+                        entries.add((CachableStaticBuffer)e);
+                    }
+                    for (final StaticBuffer e : m.getDeletions()) {
+                        assert e instanceof CachableStaticBuffer;
+                        entries.add((CachableStaticBuffer)e);
                     }
+                    cache.invalidate(mutationsForKey.getKey(),entries);
                 }
             }
-            clear();
         }
     }
 
@@ -193,12 +235,14 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
 
     @Override
     public void commit() throws BackendException {
+        if (flushPipeline != null) flushPipeline.close();
         flushInternal();
         tx.commit();
     }
 
     @Override
     public void rollback() throws BackendException {
+        if (flushPipeline != null) flushPipeline.abort();
         clear();
         tx.rollback();
     }
@@ -208,4 +252,116 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         return tx.getConfiguration();
     }
 
+    /**
+     * Persists chunks of mutations on the shared flush executor in the order in which they were submitted. At most
+     * {@code depth} chunks can be pending, after which {@link #submit(Map)} blocks until the oldest chunk is persisted.
+     * At most one chunk of this transaction is persisted at any time, so that the wrapped transaction is never used by
+     * two background threads at once. The first failure is reported on the next call to {@link #submit(Map)} or
+     * {@link #close()}.
+     */
+    private class FlushPipeline {
+
+        private final Semaphore permits;
+        private final Executor executor;
+        private final Deque<Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>>> pending = new ArrayDeque<>();
+        private boolean running = false;
+        private volatile Throwable failure = null;
+        private volatile boolean aborted = false;
+
+        private FlushPipeline(int depth, Executor executor) {
+            this.permits = new Semaphore(depth);
+            this.executor = executor;
+        }
+
+        private void submit(final Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> chunk) throws BackendException {
+            checkFailure();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PermanentBackendException("Interrupted while waiting for pending mutations to be persisted", e);
+            }
+            synchronized (this) {
+                pending.add(chunk);
+                if (running) return;
+                running = true;
+                try {
+                    executor.execute(this::persistNext);
+                } catch (RejectedExecutionException e) {
+                    discardPending();
+                    throw new PermanentBackendException("Could not persist mutations", e);
+                }
+            }
+        }
+
+        private void persistNext() {
+            final Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> chunk;
+            synchronized (this) {
+                chunk = pending.poll();
+            }
+            try {
+                if (!aborted && failure == null) flush(chunk);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                permits.release();
+            }
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    running = false;
+                    notifyAll();
+                    return;
+                }
+                //Reschedule rather than loop so that other transactions get their turn on the shared executor
+                try {
+                    executor.execute(this::persistNext);
+                } catch (RejectedExecutionException e) {
+                    if (failure == null) failure = e;
+                    discardPending();
+                }
+            }
+        }
+
+        private synchronized void discardPending() {
+            permits.release(pending.size());
+            pending.clear();
+            running = false;
+            notifyAll();
+        }
+
+        private synchronized void awaitIdle() throws BackendException {
+            try {
+                while (running) wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PermanentBackendException("Interrupted while waiting for pending mutations to be persisted", e);
+            }
+        }
+
+        /**
+         * Waits until all submitted chunks are persisted and rethrows the first failure, if any.
+         */
+        private void close() throws BackendException {
+            awaitIdle();
+            checkFailure();
+        }
+
+        /**
+         * Discards all chunks that have not started persisting yet and waits for the current one to finish, so that
+         * the wrapped transaction is no longer in use once this method returns.
+         */
+        private void abort() throws BackendException {
+            aborted = true;
+            awaitIdle();
+        }
+
+        private void checkFailure() throws BackendException {
+            final Throwable e = failure;
+            if (e == null) return;
+            if (e instanceof BackendException) throw (BackendException) e;
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            throw new PermanentBackendException("Could not persist mutations", e);
+        }
+    }
+
 }
@@ -17,18 +17,26 @@ package org.janusgraph.diskstorage.keycolumnvalue.cache;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
 import org.janusgraph.core.JanusGraphException;
 import org.janusgraph.diskstorage.*;
 import org.janusgraph.diskstorage.keycolumnvalue.*;
 import org.janusgraph.diskstorage.util.CacheMetricsAction;
+import org.janusgraph.util.stats.MetricManager;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 import static org.janusgraph.util.datastructures.ByteSize.*;
 
@@ -43,11 +51,24 @@ public class ExpirationKCVSCache extends KCVSCache {
 
     private static final int INVALIDATE_KEY_FRACTION_PENALTY = 1000;
     private static final int PENALTY_THRESHOLD = 5;
+    //Lower bound on how often the cleanup thread wakes up to remove expired entries when there are no invalidations
+    private static final long MIN_CLEANUP_INTERVAL_MS = 1000;
+
+    public static final String METRICS_CLEANUP = "cleanup";
+    public static final String METRICS_INVALIDATED = "invalidated";
 
     private volatile CountDownLatch penaltyCountdown;
 
     private final Cache<KeySliceQuery,EntryList> cache;
     private final ConcurrentHashMap<StaticBuffer,Long> expiredKeys;
+    //Secondary index of the cached queries per key, so that invalidating a key only touches the entries of that key
+    private final ConcurrentHashMap<StaticBuffer,Set<KeySliceQuery>> keyIndex;
+
+    private final String metricsGroup;
+
+    private volatile long maximumByteSize;
+    private final LongAdder retrievals = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     private final long cacheTimeMS;
     private final long invalidationGracePeriodMS;
@@ -55,28 +76,123 @@ public class ExpirationKCVSCache extends KCVSCache {
 
 
     public ExpirationKCVSCache(final KeyColumnValueStore store, String metricsName, final long cacheTimeMS, final long invalidationGracePeriodMS, final long maximumByteSize) {
+        this(store, null, metricsName, cacheTimeMS, invalidationGracePeriodMS, maximumByteSize);
+    }
+
+    public ExpirationKCVSCache(final KeyColumnValueStore store, String metricsGroup, String metricsName, final long cacheTimeMS, final long invalidationGracePeriodMS, final long maximumByteSize) {
+        this(store, metricsGroup, metricsName, cacheTimeMS, invalidationGracePeriodMS, maximumByteSize,
+            (expirationMS, concurrencyLevel, capacity, removalListener) -> {
+                final long initialCapacity = capacity.getAsLong();
+                return CacheBuilder.newBuilder()
+                    .maximumWeight(initialCapacity)
+                    .concurrencyLevel(concurrencyLevel)
+                    .initialCapacity(1000)
+                    .expireAfterWrite(expirationMS, TimeUnit.MILLISECONDS)
+                    .weigher((KeySliceQuery keySliceQuery, EntryList entries) ->
+                        scaleWeight(GUAVA_CACHE_ENTRY_SIZE + KEY_QUERY_SIZE + entries.getByteSize(), initialCapacity, capacity.getAsLong()))
+                    .removalListener((RemovalNotification<KeySliceQuery,EntryList> notification) -> {
+                        if (notification.getCause() != RemovalCause.REPLACED) removalListener.accept(notification.getKey());
+                    })
+                    .build();
+            });
+    }
+
+    /**
+     * Constructs a cache whose entries are held in the {@link Cache} built by the given factory, e.g. to store them
+     * outside of the heap.
+     */
+    protected ExpirationKCVSCache(final KeyColumnValueStore store, String metricsGroup, String metricsName, final long cacheTimeMS, final long invalidationGracePeriodMS, final long maximumByteSize, final CacheFactory cacheFactory) {
         super(store, metricsName);
+        this.metricsGroup = metricsGroup;
         Preconditions.checkArgument(cacheTimeMS > 0, "Cache expiration must be positive: %s", cacheTimeMS);
         Preconditions.checkArgument(System.currentTimeMillis()+1000L*3600*24*365*100+cacheTimeMS>0,"Cache expiration time too large, overflow may occur: %s",cacheTimeMS);
         this.cacheTimeMS = cacheTimeMS;
         final int concurrencyLevel = Runtime.getRuntime().availableProcessors();
         Preconditions.checkArgument(invalidationGracePeriodMS >=0,"Invalid expiration grace period: %s", invalidationGracePeriodMS);
         this.invalidationGracePeriodMS = invalidationGracePeriodMS;
-        CacheBuilder<KeySliceQuery,EntryList> cachebuilder = CacheBuilder.newBuilder()
-                .maximumWeight(maximumByteSize)
-                .concurrencyLevel(concurrencyLevel)
-                .initialCapacity(1000)
-                .expireAfterWrite(cacheTimeMS, TimeUnit.MILLISECONDS)
-                .weigher((keySliceQuery, entries) -> GUAVA_CACHE_ENTRY_SIZE + KEY_QUERY_SIZE + entries.getByteSize());
-
-        cache = cachebuilder.build();
+        Preconditions.checkArgument(maximumByteSize > 0, "Invalid cache size: %s", maximumByteSize);
+        this.maximumByteSize = maximumByteSize;
+
+        cache = cacheFactory.build(cacheTimeMS, concurrencyLevel, this::getMaximumByteSize, this::unindexQuery);
         expiredKeys = new ConcurrentHashMap<>(50, 0.75f, concurrencyLevel);
+        keyIndex = new ConcurrentHashMap<>(1000, 0.75f, concurrencyLevel);
         penaltyCountdown = new CountDownLatch(PENALTY_THRESHOLD);
 
         cleanupThread = new CleanupThread();
         cleanupThread.start();
     }
 
+    /**
+     * Builds the cache holding the query results. The cache must expire entries after the given time since they were
+     * written and must notify the removal listener of every entry that is removed for any reason other than being
+     * replaced. The cache must not hold more bytes than the capacity supplier returns, which may change over time.
+     */
+    @FunctionalInterface
+    protected interface CacheFactory {
+
+        Cache<KeySliceQuery,EntryList> build(long cacheTimeMS, int concurrencyLevel, LongSupplier maximumByteSize, Consumer<KeySliceQuery> removalListener);
+
+    }
+
+    /*
+     * Guava fixes the maximum weight when the cache is built. A different capacity is emulated by scaling the weight of
+     * the entries written from then on, so that the cache converges to the new capacity as its entries are replaced.
+     */
+    private static int scaleWeight(long byteSize, long initialCapacity, long capacity) {
+        final double weight = initialCapacity == capacity ? byteSize : Math.ceil(byteSize * ((double) initialCapacity / capacity));
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, weight));
+    }
+
+    /**
+     * Changes the number of bytes this cache holds at most.
+     */
+    public void setMaximumByteSize(long maximumByteSize) {
+        Preconditions.checkArgument(maximumByteSize > 0, "Invalid cache size: %s", maximumByteSize);
+        this.maximumByteSize = maximumByteSize;
+        cache.cleanUp();
+    }
+
+    public long getMaximumByteSize() {
+        return maximumByteSize;
+    }
+
+    /**
+     * Returns the number of bytes the cached results currently take up. After the maximum byte size changed, this only
+     * converges to it as entries are replaced.
+     */
+    public long getByteSize() {
+        long byteSize = 0;
+        for (EntryList entries : cache.asMap().values()) {
+            byteSize += GUAVA_CACHE_ENTRY_SIZE + KEY_QUERY_SIZE + entries.getByteSize();
+        }
+        return byteSize;
+    }
+
+    /**
+     * Returns the number of retrievals from this cache since it was opened, including those that missed.
+     */
+    public long getRetrievalCount() {
+        return retrievals.sum();
+    }
+
+    /**
+     * Returns the number of retrievals from this cache since it was opened that had to be answered by the store.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    protected Cache<KeySliceQuery,EntryList> getCache() {
+        return cache;
+    }
+
+    /**
+     * Whether the given query is currently held in the cache. This must not count as an access to the entry.
+     */
+    protected boolean isCached(final KeySliceQuery query) {
+        return cache.asMap().containsKey(query);
+    }
+
     @Override
     public EntryList getSlice(final KeySliceQuery query, final StoreTransaction txh) throws BackendException {
         incActionBy(1, CacheMetricsAction.RETRIEVAL,txh);
@@ -86,10 +202,14 @@ public class ExpirationKCVSCache extends KCVSCache {
         }
 
         try {
-            return cache.get(query, () -> {
+            final boolean[] loaded = {false};
+            final EntryList result = cache.get(query, () -> {
                 incActionBy(1, CacheMetricsAction.MISS,txh);
+                loaded[0] = true;
                 return store.getSlice(query, unwrapTx(txh));
             });
+            if (loaded[0]) indexQuery(query);
+            return result;
         } catch (Exception e) {
             if (e instanceof JanusGraphException) throw (JanusGraphException)e;
             else if (e.getCause() instanceof JanusGraphException) throw (JanusGraphException)e.getCause();
@@ -122,17 +242,28 @@ public class ExpirationKCVSCache extends KCVSCache {
                 EntryList subresult = subresults.get(key);
                 if (subresult!=null) {
                     results.put(key,subresult);
-                    if (ksqs[i]!=null) cache.put(ksqs[i],subresult);
+                    if (ksqs[i]!=null) {
+                        cache.put(ksqs[i],subresult);
+                        indexQuery(ksqs[i]);
+                    }
                 }
             }
         }
         return results;
     }
 
+    @Override
+    protected void incActionBy(int by, CacheMetricsAction action, StoreTransaction txh) {
+        super.incActionBy(by, action, txh);
+        if (action == CacheMetricsAction.RETRIEVAL) retrievals.add(by);
+        else if (action == CacheMetricsAction.MISS) misses.add(by);
+    }
+
     @Override
     public void clearCache() {
         cache.invalidateAll();
         expiredKeys.clear();
+        keyIndex.clear();
         penaltyCountdown = new CountDownLatch(PENALTY_THRESHOLD);
     }
 
@@ -149,6 +280,41 @@ public class ExpirationKCVSCache extends KCVSCache {
         super.close();
     }
 
+    /*
+     * The index entry is added after the query has been put into the cache, and removal re-checks the cache after
+     * dropping the entry. Hence an entry that is in the cache is always indexed, even when the removal notification of
+     * a previous entry for an equal query races with its replacement. At worst, an index entry outlives its cache
+     * entry, which only makes a later invalidation a no-op. Queries the cache did not retain, e.g. because it
+     * declined to admit them, are dropped from the index right away.
+     */
+    private void indexQuery(final KeySliceQuery query) {
+        addToIndex(query);
+        if (!isCached(query)) unindexQuery(query);
+    }
+
+    private void unindexQuery(final KeySliceQuery query) {
+        keyIndex.computeIfPresent(query.getKey(), (key, queries) -> {
+            queries.remove(query);
+            return queries.isEmpty() ? null : queries;
+        });
+        if (isCached(query)) addToIndex(query);
+    }
+
+    private void addToIndex(final KeySliceQuery query) {
+        keyIndex.compute(query.getKey(), (key, queries) -> {
+            if (queries == null) queries = new HashSet<>();
+            queries.add(query);
+            return queries;
+        });
+    }
+
+    private int invalidateKey(final StaticBuffer key) {
+        final Set<KeySliceQuery> queries = keyIndex.remove(key);
+        if (queries == null) return 0;
+        cache.invalidateAll(queries);
+        return queries.size();
+    }
+
     private boolean isExpired(final KeySliceQuery query) {
         Long until = expiredKeys.get(query.getKey());
         if (until==null) return false;
@@ -175,6 +341,12 @@ public class ExpirationKCVSCache extends KCVSCache {
         return age;
     }
 
+    private void recordCleanup(long durationNS, int invalidated) {
+        if (metricsGroup == null || metricsName == null) return;
+        MetricManager.INSTANCE.getTimer(metricsGroup, metricsName, METRICS_CLEANUP).update(durationNS, TimeUnit.NANOSECONDS);
+        if (invalidated > 0) MetricManager.INSTANCE.getCounter(metricsGroup, metricsName, METRICS_INVALIDATED).inc(invalidated);
+    }
+
     private class CleanupThread extends Thread {
 
         private boolean stop = false;
@@ -188,14 +360,16 @@ public class ExpirationKCVSCache extends KCVSCache {
         public void run() {
             while (true) {
                 if (stop) return;
+                final CountDownLatch countdown = penaltyCountdown;
                 try {
-
-                    penaltyCountdown.await();
+                    //Also wake up once per expiration time so that expired entries are removed from an idle cache
+                    countdown.await(Math.max(cacheTimeMS, MIN_CLEANUP_INTERVAL_MS), TimeUnit.MILLISECONDS);
                 } catch (InterruptedException e) {
                     if (stop) return;
                     else throw new RuntimeException("Cleanup thread got interrupted",e);
                 }
                 //Do clean up work by invalidating all entries for expired keys
+                final long start = System.nanoTime();
                 final Map<StaticBuffer,Long> expiredKeysCopy = new HashMap<>(expiredKeys.size());
                 for (Map.Entry<StaticBuffer,Long> expKey : expiredKeys.entrySet()) {
                     if (isBeyondExpirationTime(expKey.getValue()))
@@ -203,13 +377,17 @@ public class ExpirationKCVSCache extends KCVSCache {
                     else if (getAge(expKey.getValue())>= invalidationGracePeriodMS)
                         expiredKeysCopy.put(expKey.getKey(),expKey.getValue());
                 }
-                for (KeySliceQuery ksq : cache.asMap().keySet()) {
-                    if (expiredKeysCopy.containsKey(ksq.getKey())) cache.invalidate(ksq);
+                int invalidated = 0;
+                for (StaticBuffer key : expiredKeysCopy.keySet()) {
+                    invalidated += invalidateKey(key);
                 }
-                penaltyCountdown = new CountDownLatch(PENALTY_THRESHOLD);
+                if (countdown.getCount() == 0) penaltyCountdown = new CountDownLatch(PENALTY_THRESHOLD);
                 for (Map.Entry<StaticBuffer,Long> expKey : expiredKeysCopy.entrySet()) {
                     expiredKeys.remove(expKey.getKey(),expKey.getValue());
                 }
+                //Reclaims the space of expired entries, which caches that hold entries off-heap only release here
+                cache.cleanUp();
+                recordCleanup(System.nanoTime() - start, invalidated);
             }
         }
 
@@ -33,7 +33,7 @@ public abstract class KCVSCache extends KCVSProxy {
 
     public static final List<Entry> NO_DELETIONS = ImmutableList.of();
 
-    private final String metricsName;
+    protected final String metricsName;
 
     protected KCVSCache(KeyColumnValueStore store, String metricsName) {
         super(store);
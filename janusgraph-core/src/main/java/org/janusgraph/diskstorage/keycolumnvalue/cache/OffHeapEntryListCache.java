@@ -0,0 +1,587 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.AbstractCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.util.StaticArrayEntryList;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link com.google.common.cache.Cache} that holds query results serialized in direct (off-heap) memory, so that
+ * the cached data does not add to the heap the garbage collector has to trace. Only the keys and a small amount of
+ * bookkeeping per entry remain on the heap. Each read deserializes a fresh {@link EntryList}.
+ * <p/>
+ * The cache is split into independently locked segments. Each segment allocates its memory lazily in pages that are
+ * carved into slots of power-of-two size classes. Within a size class entries are evicted in LRU order, but a new
+ * entry is only admitted in place of the eviction victim if it has been requested more often recently (TinyLFU), so
+ * that a one-off scan does not flush the frequently accessed entries. Entries that do not fit into a single page are
+ * not cached.
+ * <p/>
+ * Entries expire the given time after they were written. Concurrent loads of the same key are not coalesced.
+ *
+ * @see FrequencySketch
+ */
+public class OffHeapEntryListCache extends AbstractCache<KeySliceQuery,EntryList> {
+
+    private static final int MIN_SLOT_SIZE = 64;
+    private static final int MAX_PAGE_SIZE = 1 << 20;
+    private static final int MIN_SEGMENT_SIZE = 1 << 16;
+    //Used to estimate the number of entries a segment holds, which determines the width of the frequency sketch
+    private static final int AVERAGE_ENTRY_SIZE = 256;
+    private static final long HASH_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long expireAfterWriteNS;
+    private final Consumer<KeySliceQuery> removalListener;
+    private final LongSupplier capacity;
+
+    public OffHeapEntryListCache(final long maximumByteSize, final long expireAfterWriteMS, final int concurrencyLevel,
+                                 final Consumer<KeySliceQuery> removalListener) {
+        this(() -> maximumByteSize, expireAfterWriteMS, concurrencyLevel, removalListener);
+    }
+
+    /**
+     * Constructs a cache whose capacity may change over time. When the capacity shrinks, the cache releases the excess
+     * memory on the next call to {@link #cleanUp()}.
+     */
+    public OffHeapEntryListCache(final LongSupplier capacity, final long expireAfterWriteMS, final int concurrencyLevel,
+                                 final Consumer<KeySliceQuery> removalListener) {
+        final long maximumByteSize = capacity.getAsLong();
+        Preconditions.checkArgument(maximumByteSize >= MIN_SEGMENT_SIZE, "Cache size is too small: %s", maximumByteSize);
+        Preconditions.checkArgument(expireAfterWriteMS > 0, "Cache expiration must be positive: %s", expireAfterWriteMS);
+        Preconditions.checkArgument(concurrencyLevel > 0, "Invalid concurrency level: %s", concurrencyLevel);
+        Preconditions.checkNotNull(removalListener);
+        int numSegments = Integer.highestOneBit(concurrencyLevel);
+        if (numSegments < concurrencyLevel) numSegments <<= 1;
+        while (numSegments > 1 && maximumByteSize / numSegments < MIN_SEGMENT_SIZE) numSegments >>= 1;
+        this.segments = new Segment[numSegments];
+        this.segmentMask = numSegments - 1;
+        for (int i = 0; i < numSegments; i++) segments[i] = new Segment(maximumByteSize / numSegments);
+        this.expireAfterWriteNS = TimeUnit.MILLISECONDS.toNanos(expireAfterWriteMS);
+        this.removalListener = removalListener;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public EntryList getIfPresent(Object key) {
+        if (!(key instanceof KeySliceQuery)) return null;
+        final List<KeySliceQuery> removed = new ArrayList<>(1);
+        final int hash = hash((KeySliceQuery) key);
+        final EntryList result = segmentFor(hash).get((KeySliceQuery) key, hash, System.nanoTime(), removed);
+        notifyRemovals(removed);
+        return result;
+    }
+
+    @Override
+    public EntryList get(KeySliceQuery key, Callable<? extends EntryList> loader) throws ExecutionException {
+        EntryList result = getIfPresent(key);
+        if (result != null) return result;
+        try {
+            result = loader.call();
+        } catch (RuntimeException e) {
+            throw new UncheckedExecutionException(e);
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        } catch (Error e) {
+            throw new ExecutionError(e);
+        }
+        Preconditions.checkNotNull(result, "Loader returned null for key: %s", key);
+        put(key, result);
+        return result;
+    }
+
+    /**
+     * Adds the entry to the cache unless it is rejected by the admission policy or too large. In either case a
+     * previously cached result for the key is removed.
+     */
+    @Override
+    public void put(KeySliceQuery key, EntryList value) {
+        Preconditions.checkNotNull(key);
+        Preconditions.checkNotNull(value);
+        if (!value.isEmpty() && !(value instanceof StaticArrayEntryList)) value = StaticArrayEntryList.of(value);
+        final List<KeySliceQuery> removed = new ArrayList<>(1);
+        final int hash = hash(key);
+        segmentFor(hash).put(key, hash, value, System.nanoTime(), removed);
+        notifyRemovals(removed);
+    }
+
+    @Override
+    public void invalidate(Object key) {
+        if (!(key instanceof KeySliceQuery)) return;
+        if (segmentFor(hash((KeySliceQuery) key)).remove((KeySliceQuery) key)) removalListener.accept((KeySliceQuery) key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : segments) notifyRemovals(segment.clear());
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) size += segment.size();
+        return size;
+    }
+
+    /**
+     * Removes all expired entries and releases the memory exceeding the current capacity.
+     */
+    @Override
+    public void cleanUp() {
+        final long now = System.nanoTime();
+        for (Segment segment : segments) {
+            notifyRemovals(segment.removeExpired(now));
+            notifyRemovals(segment.releasePages());
+        }
+    }
+
+    /**
+     * Whether a result for the given query is cached, without counting as an access.
+     */
+    public boolean contains(KeySliceQuery key) {
+        return segmentFor(hash(key)).contains(key);
+    }
+
+    /**
+     * Returns the number of bytes of direct memory currently allocated by this cache.
+     */
+    public long getAllocatedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) bytes += segment.getAllocatedBytes();
+        return bytes;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 16) & segmentMask];
+    }
+
+    /*
+     * The hash code of StaticBuffer is a 31-polynomial over the bytes, for which keys that are close to each other
+     * collide frequently, e.g. the integers x and x+225. Such collisions would let the keys of a scan inherit the
+     * frequency of hot keys in the admission sketch, so the query is hashed with a 64-bit multiplier instead.
+     */
+    private static int hash(KeySliceQuery query) {
+        long h = hash(query.getKey(), 0);
+        h = hash(query.getSliceStart(), h);
+        h = hash(query.getSliceEnd(), h);
+        h = (h + query.getLimit()) * HASH_MULTIPLIER;
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return (int) h;
+    }
+
+    private static long hash(StaticBuffer buffer, long h) {
+        for (int i = 0; i < buffer.length(); i++) h = (h + buffer.getByte(i)) * HASH_MULTIPLIER;
+        return (h + buffer.length()) * HASH_MULTIPLIER;
+    }
+
+    private void notifyRemovals(List<KeySliceQuery> removed) {
+        for (KeySliceQuery key : removed) removalListener.accept(key);
+    }
+
+    private static final class Slot {
+
+        private final KeySliceQuery key;
+        private final int hash;
+        private final int sizeClass;
+        private final long address;
+        private long writeTime;
+        private Slot prev;
+        private Slot next;
+        //Neighbours in the write order of the segment, which is the order in which the entries expire
+        private Slot olderWrite;
+        private Slot newerWrite;
+
+        private Slot(KeySliceQuery key, int hash, int sizeClass, long address, long writeTime) {
+            this.key = key;
+            this.hash = hash;
+            this.sizeClass = sizeClass;
+            this.address = address;
+            this.writeTime = writeTime;
+        }
+    }
+
+    private static long getAddress(int page, int offset) {
+        return (((long) page) << 32) | offset;
+    }
+
+    private static int getPage(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int getOffset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * The slots of one size class: a stack of free slot addresses and a doubly linked list of the used slots in access
+     * order, from the most recently used (head) to the eviction victim (tail).
+     */
+    private static final class SizeClass {
+
+        private final int slotSize;
+        private long[] free = new long[16];
+        private int numFree = 0;
+        private int numPages = 0;
+        private Slot head;
+        private Slot tail;
+
+        private SizeClass(int slotSize) {
+            this.slotSize = slotSize;
+        }
+
+        private void pushFree(long address) {
+            if (numFree == free.length) {
+                long[] newFree = new long[free.length * 2];
+                System.arraycopy(free, 0, newFree, 0, numFree);
+                free = newFree;
+            }
+            free[numFree++] = address;
+        }
+
+        private long popFree() {
+            assert numFree > 0;
+            return free[--numFree];
+        }
+
+        private void removeFree(int page) {
+            int pos = 0;
+            for (int i = 0; i < numFree; i++) {
+                if (getPage(free[i]) != page) free[pos++] = free[i];
+            }
+            numFree = pos;
+        }
+
+        private void addFirst(Slot slot) {
+            slot.prev = null;
+            slot.next = head;
+            if (head != null) head.prev = slot;
+            head = slot;
+            if (tail == null) tail = slot;
+        }
+
+        private void unlink(Slot slot) {
+            if (slot.prev != null) slot.prev.next = slot.next;
+            else head = slot.next;
+            if (slot.next != null) slot.next.prev = slot.prev;
+            else tail = slot.prev;
+            slot.prev = null;
+            slot.next = null;
+        }
+
+        private void moveToFront(Slot slot) {
+            if (head == slot) return;
+            unlink(slot);
+            addFirst(slot);
+        }
+    }
+
+    private final class Segment {
+
+        private final HashMap<KeySliceQuery,Slot> slots = new HashMap<>();
+        //Released pages are null and their index is reused by the next allocated page
+        private final List<ByteBuffer> pages = new ArrayList<>();
+        private final Deque<Integer> releasedPages = new ArrayDeque<>();
+        //The size class each page is carved into
+        private final List<Integer> pageClasses = new ArrayList<>();
+        private final SizeClass[] classes;
+        private final FrequencySketch sketch;
+        private final int pageSize;
+        private int allocatedPages = 0;
+        //The entries of all size classes in the order they were written, from the first to expire to the last
+        private Slot oldestWrite;
+        private Slot newestWrite;
+
+        private Segment(long capacity) {
+            pageSize = (int) Math.min(MAX_PAGE_SIZE, Long.highestOneBit(Math.max(capacity / 16, MIN_SLOT_SIZE)));
+            classes = new SizeClass[Integer.numberOfTrailingZeros(pageSize / MIN_SLOT_SIZE) + 1];
+            for (int i = 0; i < classes.length; i++) classes[i] = new SizeClass(MIN_SLOT_SIZE << i);
+            sketch = new FrequencySketch(capacity / AVERAGE_ENTRY_SIZE);
+        }
+
+        private synchronized EntryList get(KeySliceQuery key, int hash, long now, List<KeySliceQuery> removed) {
+            sketch.increment(hash);
+            final Slot slot = slots.get(key);
+            if (slot == null) return null;
+            if (isExpired(slot, now)) {
+                removeSlot(slot);
+                removed.add(key);
+                return null;
+            }
+            classes[slot.sizeClass].moveToFront(slot);
+            return StaticArrayEntryList.readFrom(slice(slot.address));
+        }
+
+        private synchronized void put(KeySliceQuery key, int hash, EntryList value, long now, List<KeySliceQuery> removed) {
+            final Slot existing = slots.get(key);
+            final int size = StaticArrayEntryList.getSerializedSize(value);
+            final int sizeClass = getSizeClass(size);
+            if (existing != null && existing.sizeClass == sizeClass) {
+                //Overwrite in place
+                StaticArrayEntryList.writeTo(value, slice(existing.address));
+                existing.writeTime = now;
+                unlinkWrite(existing);
+                appendWrite(existing);
+                classes[sizeClass].moveToFront(existing);
+                return;
+            }
+            if (existing != null) removeSlot(existing);
+            final long address = sizeClass < 0 ? -1 : allocate(sizeClass, hash, now, removed);
+            if (address < 0) {
+                if (existing != null) removed.add(key);
+                return;
+            }
+            StaticArrayEntryList.writeTo(value, slice(address));
+            final Slot slot = new Slot(key, hash, sizeClass, address, now);
+            slots.put(key, slot);
+            appendWrite(slot);
+            classes[sizeClass].addFirst(slot);
+        }
+
+        private synchronized boolean remove(KeySliceQuery key) {
+            final Slot slot = slots.get(key);
+            if (slot == null) return false;
+            removeSlot(slot);
+            return true;
+        }
+
+        private synchronized boolean contains(KeySliceQuery key) {
+            return slots.containsKey(key);
+        }
+
+        private synchronized int size() {
+            return slots.size();
+        }
+
+        private synchronized long getAllocatedBytes() {
+            return ((long) allocatedPages) * pageSize;
+        }
+
+        /**
+         * Removes all entries and releases the allocated pages.
+         */
+        private synchronized List<KeySliceQuery> clear() {
+            if (slots.isEmpty() && pages.isEmpty()) return Collections.emptyList();
+            final List<KeySliceQuery> removed = new ArrayList<>(slots.keySet());
+            slots.clear();
+            pages.clear();
+            releasedPages.clear();
+            pageClasses.clear();
+            allocatedPages = 0;
+            oldestWrite = null;
+            newestWrite = null;
+            for (int i = 0; i < classes.length; i++) classes[i] = new SizeClass(MIN_SLOT_SIZE << i);
+            return removed;
+        }
+
+        /**
+         * Removes the expired entries from the old end of the write order, so that the cost is proportional to the
+         * number of expired entries rather than the size of the segment. Entries written concurrently can be slightly
+         * out of order, in which case an expired entry is left to the next call or removed when it is accessed.
+         */
+        private synchronized List<KeySliceQuery> removeExpired(long now) {
+            final List<KeySliceQuery> removed = new ArrayList<>();
+            while (oldestWrite != null && isExpired(oldestWrite, now)) {
+                final Slot slot = oldestWrite;
+                removeSlot(slot);
+                removed.add(slot.key);
+            }
+            return removed;
+        }
+
+        /**
+         * Evicts the entries of as many pages as needed to get back within the capacity, and releases those pages.
+         */
+        private synchronized List<KeySliceQuery> releasePages() {
+            final List<KeySliceQuery> removed = new ArrayList<>();
+            final int maxPages = getMaxPages();
+            while (allocatedPages > maxPages) {
+                final int page = evictPage(getLargestSizeClass(-1), removed);
+                pages.set(page, null);
+                pageClasses.set(page, -1);
+                releasedPages.push(page);
+                allocatedPages--;
+            }
+            return removed;
+        }
+
+        private int getMaxPages() {
+            return (int) Math.min(Integer.MAX_VALUE, capacity.getAsLong() / segments.length / pageSize);
+        }
+
+        private boolean isExpired(Slot slot, long now) {
+            return now - slot.writeTime >= expireAfterWriteNS;
+        }
+
+        private int getSizeClass(int size) {
+            if (size > pageSize) return -1;
+            int sizeClass = 0;
+            while ((MIN_SLOT_SIZE << sizeClass) < size) sizeClass++;
+            return sizeClass;
+        }
+
+        private ByteBuffer slice(long address) {
+            final ByteBuffer buffer = pages.get(getPage(address)).duplicate();
+            buffer.position(getOffset(address));
+            return buffer;
+        }
+
+        /**
+         * Returns the address of a free slot of the given size class for the candidate key, or -1 if the candidate is
+         * not admitted. Evicted entries are added to the removed list.
+         */
+        private long allocate(int sizeClass, int candidateHash, long now, List<KeySliceQuery> removed) {
+            final SizeClass sc = classes[sizeClass];
+            if (sc.numFree == 0 && allocatedPages < getMaxPages()) addPage(sizeClass);
+            if (sc.numFree == 0) {
+                if (sc.tail != null) {
+                    //Evict the least recently used entry of the same size class
+                    final Slot victim = sc.tail;
+                    if (!admit(candidateHash, victim, now)) return -1;
+                    removeSlot(victim);
+                    removed.add(victim.key);
+                } else if (!reassignPage(sizeClass, candidateHash, now, removed)) {
+                    return -1;
+                }
+            }
+            return sc.popFree();
+        }
+
+        /**
+         * Moves a page from the size class holding the most pages to the given size class, which holds none, by
+         * evicting all entries on that page. Without this, a size class that was not used while the segment filled up
+         * could never hold entries.
+         */
+        private boolean reassignPage(int sizeClass, int candidateHash, long now, List<KeySliceQuery> removed) {
+            final int donor = getLargestSizeClass(sizeClass);
+            if (donor < 0) return false;
+            if (classes[donor].tail != null && !admit(candidateHash, classes[donor].tail, now)) return false;
+            carvePage(sizeClass, evictPage(donor, removed));
+            return true;
+        }
+
+        /**
+         * Returns the size class other than the excluded one that holds the most pages, or -1 if there is none.
+         */
+        private int getLargestSizeClass(int excluded) {
+            int largest = -1;
+            for (int i = 0; i < classes.length; i++) {
+                if (i != excluded && classes[i].numPages > 0 && (largest < 0 || classes[i].numPages > classes[largest].numPages)) largest = i;
+            }
+            return largest;
+        }
+
+        /**
+         * Evicts all entries on the last page of the given size class and returns that page, which no longer belongs
+         * to the size class.
+         */
+        private int evictPage(int sizeClass, List<KeySliceQuery> removed) {
+            final SizeClass dc = classes[sizeClass];
+            final int page = pageClasses.lastIndexOf(sizeClass);
+            assert page >= 0;
+            for (Slot slot = dc.head; slot != null; ) {
+                final Slot next = slot.next;
+                if (getPage(slot.address) == page) {
+                    slots.remove(slot.key);
+                    dc.unlink(slot);
+                    unlinkWrite(slot);
+                    removed.add(slot.key);
+                }
+                slot = next;
+            }
+            dc.removeFree(page);
+            dc.numPages--;
+            return page;
+        }
+
+        private void addPage(int sizeClass) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(pageSize);
+            final int page;
+            if (releasedPages.isEmpty()) {
+                page = pages.size();
+                pages.add(buffer);
+                pageClasses.add(sizeClass);
+            } else {
+                page = releasedPages.pop();
+                pages.set(page, buffer);
+            }
+            allocatedPages++;
+            carvePage(sizeClass, page);
+        }
+
+        private void carvePage(int sizeClass, int page) {
+            final SizeClass sc = classes[sizeClass];
+            pageClasses.set(page, sizeClass);
+            sc.numPages++;
+            for (int offset = pageSize - sc.slotSize; offset >= 0; offset -= sc.slotSize) {
+                sc.pushFree(getAddress(page, offset));
+            }
+        }
+
+        private boolean admit(int candidateHash, Slot victim, long now) {
+            return isExpired(victim, now) || sketch.frequency(candidateHash) > sketch.frequency(victim.hash);
+        }
+
+        private void removeSlot(Slot slot) {
+            slots.remove(slot.key);
+            freeSlot(slot);
+        }
+
+        private void freeSlot(Slot slot) {
+            final SizeClass sc = classes[slot.sizeClass];
+            sc.unlink(slot);
+            sc.pushFree(slot.address);
+            unlinkWrite(slot);
+        }
+
+        private void appendWrite(Slot slot) {
+            slot.olderWrite = newestWrite;
+            slot.newerWrite = null;
+            if (newestWrite != null) newestWrite.newerWrite = slot;
+            newestWrite = slot;
+            if (oldestWrite == null) oldestWrite = slot;
+        }
+
+        private void unlinkWrite(Slot slot) {
+            if (slot.olderWrite != null) slot.olderWrite.newerWrite = slot.newerWrite;
+            else oldestWrite = slot.newerWrite;
+            if (slot.newerWrite != null) slot.newerWrite.olderWrite = slot.olderWrite;
+            else newestWrite = slot.olderWrite;
+            slot.olderWrite = null;
+            slot.newerWrite = null;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+
+/**
+ * {@link ExpirationKCVSCache} that holds the cached query results in off-heap memory and only admits new results
+ * that are requested more frequently than the ones they would evict.
+ *
+ * @see OffHeapEntryListCache
+ */
+public class OffHeapKCVSCache extends ExpirationKCVSCache {
+
+    public OffHeapKCVSCache(final KeyColumnValueStore store, String metricsGroup, String metricsName, final long cacheTimeMS, final long invalidationGracePeriodMS, final long maximumByteSize) {
+        super(store, metricsGroup, metricsName, cacheTimeMS, invalidationGracePeriodMS, maximumByteSize,
+            (expirationMS, concurrencyLevel, capacity, removalListener) ->
+                new OffHeapEntryListCache(capacity, expirationMS, concurrencyLevel, removalListener));
+    }
+
+    @Override
+    protected boolean isCached(final KeySliceQuery query) {
+        return getOffHeapCache().contains(query);
+    }
+
+    @Override
+    public long getByteSize() {
+        return getAllocatedBytes();
+    }
+
+    /**
+     * Returns the number of bytes of direct memory currently held by this cache.
+     */
+    public long getAllocatedBytes() {
+        return getOffHeapCache().getAllocatedBytes();
+    }
+
+    @Override
+    public void close() throws BackendException {
+        super.close();
+        //Release the direct memory
+        getCache().invalidateAll();
+    }
+
+    private OffHeapEntryListCache getOffHeapCache() {
+        return (OffHeapEntryListCache) getCache();
+    }
+
+}
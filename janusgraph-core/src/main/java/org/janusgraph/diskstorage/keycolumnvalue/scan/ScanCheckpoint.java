@@ -0,0 +1,81 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.util.Hex;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+
+import java.util.Arrays;
+
+/**
+ * The progress of a scan that is split into segments, recorded as one key per segment from which the scan
+ * of that segment resumes. All keys of a segment that are smaller than its resume key have been processed.
+ * <p>
+ * Checkpoints are persisted as strings so that they can be stored in a
+ * {@link org.janusgraph.diskstorage.configuration.WriteConfiguration}.
+ *
+ * @see StandardScanner.Builder#setCheckpointId(String)
+ */
+public class ScanCheckpoint {
+
+    private static final String SEPARATOR = ":";
+
+    private final StaticBuffer[] resumeKeys;
+
+    public ScanCheckpoint(StaticBuffer[] resumeKeys) {
+        Preconditions.checkArgument(resumeKeys != null && resumeKeys.length > 0, "Need to provide resume keys");
+        for (StaticBuffer key : resumeKeys) Preconditions.checkArgument(key != null && key.length() > 0, "Invalid resume key: %s", key);
+        this.resumeKeys = resumeKeys;
+    }
+
+    public int getNumSegments() {
+        return resumeKeys.length;
+    }
+
+    public StaticBuffer getResumeKey(int segment) {
+        return resumeKeys[segment];
+    }
+
+    /**
+     * Returns the smallest key that is larger than the given key.
+     */
+    public static StaticBuffer successor(StaticBuffer key) {
+        return StaticArrayBuffer.of(Arrays.copyOf(key.as(StaticBuffer.ARRAY_FACTORY), key.length() + 1));
+    }
+
+    public String encode() {
+        StringBuilder s = new StringBuilder();
+        for (StaticBuffer key : resumeKeys) {
+            if (s.length() > 0) s.append(SEPARATOR);
+            s.append(Hex.bytesToHex(key.as(StaticBuffer.ARRAY_FACTORY)));
+        }
+        return s.toString();
+    }
+
+    public static ScanCheckpoint decode(String encoded) {
+        Preconditions.checkArgument(encoded != null && !encoded.isEmpty(), "Invalid checkpoint: %s", encoded);
+        String[] keys = encoded.split(SEPARATOR);
+        StaticBuffer[] resumeKeys = new StaticBuffer[keys.length];
+        for (int i = 0; i < keys.length; i++) resumeKeys[i] = StaticArrayBuffer.of(Hex.hexToBytes(keys[i]));
+        return new ScanCheckpoint(resumeKeys);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
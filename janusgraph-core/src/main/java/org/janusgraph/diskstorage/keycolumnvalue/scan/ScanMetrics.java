@@ -14,6 +14,8 @@
 
 package org.janusgraph.diskstorage.keycolumnvalue.scan;
 
+import java.time.Duration;
+
 /**
  * Counters associated with a {@link ScanJob}.
  * <p>
@@ -78,4 +80,24 @@ public interface ScanMetrics {
      */
     void increment(Metric metric);
 
+    /**
+     * Returns the estimated fraction of the scan that has been processed, between 0 and 1, or a negative number
+     * if the progress cannot be estimated.
+     *
+     * @return the estimated progress of the scan
+     */
+    default double getProgress() {
+        return -1;
+    }
+
+    /**
+     * Returns the estimated time until the scan has been processed based on its progress so far
+     * or null if it cannot be estimated.
+     *
+     * @return the estimated remaining time of the scan
+     */
+    default Duration getEstimatedTimeRemaining() {
+        return null;
+    }
+
 }
@@ -0,0 +1,168 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.RateLimiter;
+import org.janusgraph.diskstorage.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.*;
+
+/**
+ * Limits the number of rows and bytes per second that the processors of a scan job consume by means of token buckets.
+ * <p>
+ * In adaptive mode, the rates are additionally scaled by a factor that is halved whenever the mean latency of the reads
+ * of the storage backend since the last adjustment, as recorded by
+ * {@link org.janusgraph.diskstorage.util.MetricInstrumentedStore}, exceeds the configured target and that recovers step
+ * by step once the latency is below the target again. If no row limit is
+ * configured, the rate at which the job processed rows when it first had to back off is used as row limit.
+ *
+ * @see org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration#JOB_THROTTLE_NS
+ */
+class ScanThrottle {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanThrottle.class);
+
+    private static final double MIN_RATE_FACTOR = 0.01;
+    private static final double RATE_FACTOR_RECOVERY = 0.1;
+    private static final long POLL_MS = 100;
+
+    private final long bytesPerSecond;
+    private final RateLimiter byteLimiter;
+    private final Timer readLatency;
+    private final Counter readTime;
+    private final long maxReadLatencyNanos;
+
+    private volatile RateLimiter rowLimiter;
+    private double rowsPerSecond;
+    private double rateFactor = 1.0;
+
+    private final AtomicLong rows = new AtomicLong(0);
+    private long lastRows = 0;
+    private long lastReads;
+    private long lastReadTime;
+    private long lastAdapted = System.nanoTime();
+
+    ScanThrottle(long rowsPerSecond, long bytesPerSecond, Timer readLatency, Counter readTime, Duration maxReadLatency) {
+        Preconditions.checkArgument(rowsPerSecond>=0 && bytesPerSecond>=0,"Invalid rates: %s, %s",rowsPerSecond,bytesPerSecond);
+        Preconditions.checkArgument((readLatency==null)==(readTime==null),"Need both the read timer and the read time counter");
+        Preconditions.checkArgument(readLatency==null || (maxReadLatency!=null && !maxReadLatency.isZero() && !maxReadLatency.isNegative()),
+                "Need to specify a positive read latency target: %s",maxReadLatency);
+        this.rowsPerSecond = rowsPerSecond;
+        this.bytesPerSecond = bytesPerSecond;
+        this.rowLimiter = rowsPerSecond>0?RateLimiter.create(rowsPerSecond):null;
+        this.byteLimiter = bytesPerSecond>0?RateLimiter.create(bytesPerSecond):null;
+        this.readLatency = readLatency;
+        this.maxReadLatencyNanos = readLatency==null?0:maxReadLatency.toNanos();
+        this.readTime = readTime;
+        this.lastReads = readLatency==null?0:readLatency.getCount();
+        this.lastReadTime = readTime==null?0:readTime.getCount();
+    }
+
+    /**
+     * Returns the throttle configured for a job or null if the job is not throttled.
+     *
+     * @param readLatency timer of the reads of the storage backend or null if not available
+     * @param readTime counter of the total time in nanoseconds spent in the reads counted by {@code readLatency}
+     */
+    static ScanThrottle of(Configuration jobConfiguration, Timer readLatency, Counter readTime) {
+        long rows = jobConfiguration.get(JOB_THROTTLE_ROWS);
+        long bytes = jobConfiguration.get(JOB_THROTTLE_BYTES);
+        Duration maxReadLatency = jobConfiguration.get(JOB_THROTTLE_MAX_READ_LATENCY);
+        boolean measured = readLatency!=null && readTime!=null;
+        if (!maxReadLatency.isZero() && !measured) {
+            log.warn("Cannot adapt the rate of the job to the read latency of the storage backend without basic metrics");
+        }
+        if (maxReadLatency.isZero() || !measured) {
+            readLatency = null;
+            readTime = null;
+        }
+        if (rows==0 && bytes==0 && readLatency==null) return null;
+        return new ScanThrottle(rows, bytes, readLatency, readTime, maxReadLatency);
+    }
+
+    boolean throttlesBytes() {
+        return byteLimiter!=null;
+    }
+
+    /**
+     * Blocks until the row of the given size may be processed.
+     */
+    void acquire(int bytes) throws InterruptedException {
+        rows.incrementAndGet();
+        RateLimiter limiter = rowLimiter;
+        if (limiter!=null) acquire(limiter, 1);
+        if (byteLimiter!=null) acquire(byteLimiter, Math.max(1, bytes));
+    }
+
+    private static void acquire(RateLimiter limiter, int permits) throws InterruptedException {
+        //RateLimiter waits uninterruptibly, hence only wait for short periods so that cancelled jobs stop
+        while (!limiter.tryAcquire(permits, POLL_MS, TimeUnit.MILLISECONDS)) {
+            Thread.sleep(POLL_MS);
+        }
+    }
+
+    /**
+     * Adjusts the rates to the mean read latency of the storage backend since the last invocation, which is derived
+     * from the increase of the read count and of the total read time rather than from the decaying samples of the
+     * timer so that the rates recover as soon as a latency spike is over.
+     * Must be invoked periodically by a single thread.
+     */
+    void adapt() {
+        if (readLatency==null) return;
+        long now = System.nanoTime();
+        //Read the time first so that it never covers reads that are not yet counted
+        long time = readTime.getCount();
+        long processed = rows.get(), reads = readLatency.getCount();
+        //Latencies are only meaningful if there were reads since the last adjustment
+        boolean overloaded = reads>lastReads && (time-lastReadTime)/(reads-lastReads)>maxReadLatencyNanos;
+        double factor = rateFactor;
+        if (overloaded) {
+            if (rowsPerSecond==0) {
+                rowsPerSecond = Math.max(1.0, (processed-lastRows)*1e9/Math.max(1, now-lastAdapted));
+                log.debug("Limiting job to its current rate of {} rows per second",rowsPerSecond);
+            }
+            factor = Math.max(MIN_RATE_FACTOR, factor/2);
+        } else {
+            factor = Math.min(1.0, factor+RATE_FACTOR_RECOVERY);
+        }
+        if (factor!=rateFactor || (rowsPerSecond>0 && rowLimiter==null)) {
+            rateFactor = factor;
+            log.debug("Scaling rate of job by {} due to read latency of storage backend",factor);
+            if (rowsPerSecond>0) {
+                if (rowLimiter==null) rowLimiter = RateLimiter.create(rowsPerSecond*factor);
+                else rowLimiter.setRate(rowsPerSecond*factor);
+            }
+            if (byteLimiter!=null) byteLimiter.setRate(bytesPerSecond*factor);
+        }
+        lastRows = processed;
+        lastReads = reads;
+        lastReadTime = time;
+        lastAdapted = now;
+    }
+
+    double getRateFactor() {
+        return rateFactor;
+    }
+
+}
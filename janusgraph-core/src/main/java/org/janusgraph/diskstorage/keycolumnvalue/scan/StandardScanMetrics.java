@@ -17,6 +17,7 @@ package org.janusgraph.diskstorage.keycolumnvalue.scan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.EnumMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -29,6 +30,10 @@ public class StandardScanMetrics implements ScanMetrics {
 
     private final EnumMap<Metric,AtomicLong> metrics;
     private final ConcurrentMap<String,AtomicLong> customMetrics;
+    private final long startTime;
+
+    private volatile double progress = -1;
+    private volatile double initialProgress = -1;
 
     private static final Logger log =
             LoggerFactory.getLogger(StandardScanMetrics.class);
@@ -39,6 +44,7 @@ public class StandardScanMetrics implements ScanMetrics {
             metrics.put(m,new AtomicLong(0));
         }
         customMetrics = new ConcurrentHashMap<>();
+        startTime = System.nanoTime();
     }
 
     @Override
@@ -84,5 +90,29 @@ public class StandardScanMetrics implements ScanMetrics {
         metrics.get(metric).incrementAndGet();
     }
 
+    @Override
+    public double getProgress() {
+        return progress;
+    }
+
+    /**
+     * Updates the estimated progress of the scan. The first progress that is set is considered as the progress
+     * at which the scan started, e.g. when it resumed from a checkpoint.
+     *
+     * @param progress estimated fraction of the scan that has been processed
+     */
+    public void setProgress(double progress) {
+        if (initialProgress < 0) initialProgress = progress;
+        this.progress = progress;
+    }
+
+    @Override
+    public Duration getEstimatedTimeRemaining() {
+        final double current = progress, initial = initialProgress;
+        if (current < 0 || initial < 0 || current <= initial) return null;
+        final double elapsed = System.nanoTime() - startTime;
+        return Duration.ofNanos((long) (elapsed / (current - initial) * (1 - current)));
+    }
+
 
 }
@@ -14,6 +14,8 @@
 
 package org.janusgraph.diskstorage.keycolumnvalue.scan;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import org.janusgraph.core.schema.JanusGraphManagement;
 import org.janusgraph.diskstorage.BackendException;
@@ -25,6 +27,7 @@ import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
 import org.janusgraph.diskstorage.util.time.TimestampProvider;
 import org.apache.commons.lang.StringUtils;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -86,6 +89,7 @@ public class StandardScanner  {
 
         private ScanJob job;
         private int numProcessingThreads;
+        private int numSegments;
         private int workBlockSize;
         private TimestampProvider times;
         private Configuration graphConfiguration;
@@ -93,9 +97,15 @@ public class StandardScanner  {
         private String dbName;
         private Consumer<ScanMetrics> finishJob;
         private Object jobId;
+        private WriteConfiguration checkpointStore;
+        private Duration checkpointInterval;
+        private String checkpointId;
+        private Timer readLatency;
+        private Counter readTime;
 
         private Builder() {
             numProcessingThreads = 1;
+            numSegments = 1;
             workBlockSize = DEFAULT_WORKBLOCK_SIZE;
             job = null;
             times = null;
@@ -113,6 +123,17 @@ public class StandardScanner  {
             return this;
         }
 
+        /**
+         * Sets the number of key ranges of the store that are read in parallel. Stores which do not support
+         * ordered scans are always read as a single key range.
+         */
+        public Builder setNumSegments(int numSegments) {
+            Preconditions.checkArgument(numSegments>0,
+                    "Need to specify a positive number of segments: %s",numSegments);
+            this.numSegments = numSegments;
+            return this;
+        }
+
         public Builder setWorkBlockSize(int size) {
             Preconditions.checkArgument(size>0, "Need to specify a positive work block size: %s",size);
             this.workBlockSize = size;
@@ -163,6 +184,48 @@ public class StandardScanner  {
             return this.jobConfiguration;
         }
 
+        /**
+         * Configures where the checkpoints of jobs are persisted and how often they are recorded.
+         * Checkpoints are only recorded for jobs with a checkpoint id.
+         *
+         * @see #setCheckpointId(String)
+         */
+        public Builder setCheckpointStore(WriteConfiguration store, Duration interval) {
+            Preconditions.checkArgument(store!=null);
+            Preconditions.checkArgument(interval!=null && !interval.isNegative() && !interval.isZero(),
+                    "Need to specify a positive checkpoint interval: %s",interval);
+            this.checkpointStore = store;
+            this.checkpointInterval = interval;
+            return this;
+        }
+
+        /**
+         * Sets the id under which the progress of this job is recorded in the checkpoint store. If a checkpoint
+         * with this id exists, the job resumes from it instead of scanning the entire store. The checkpoint is
+         * removed once the job has processed the entire store.
+         * <p>
+         * Jobs can only be checkpointed and resumed on stores with ordered scans and must be executed with the same
+         * number of segments to resume from a checkpoint.
+         */
+        public Builder setCheckpointId(String checkpointId) {
+            Preconditions.checkArgument(StringUtils.isNotBlank(checkpointId),"Invalid checkpoint id: %s",checkpointId);
+            this.checkpointId = checkpointId;
+            return this;
+        }
+
+        /**
+         * Sets the timer of the reads of the storage backend and the counter of their total time in nanoseconds
+         * against which the job adapts its rate if adaptive throttling is configured for the job.
+         *
+         * @see org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration#JOB_THROTTLE_MAX_READ_LATENCY
+         */
+        public Builder setReadLatencyMetric(Timer readLatency, Counter readTime) {
+            Preconditions.checkArgument(readLatency!=null && readTime!=null);
+            this.readLatency = readLatency;
+            this.readTime = readTime;
+            return this;
+        }
+
         public Builder setFinishJob(Consumer<ScanMetrics> finishJob) {
             Preconditions.checkArgument(finishJob != null);
             this.finishJob = finishJob;
@@ -207,7 +270,8 @@ public class StandardScanner  {
             openStores.add(kcvs);
             try {
                 StandardScannerExecutor executor = new StandardScannerExecutor(job, finishJob, kcvs, storeTx,
-                        manager.getFeatures(), numProcessingThreads, workBlockSize, jobConfiguration, graphConfiguration);
+                        manager.getFeatures(), numProcessingThreads, numSegments, workBlockSize, jobConfiguration, graphConfiguration,
+                        checkpointStore, checkpointId, checkpointInterval, readLatency, readTime);
                 addJob(jobId,executor);
                 new Thread(executor).start();
                 return executor;
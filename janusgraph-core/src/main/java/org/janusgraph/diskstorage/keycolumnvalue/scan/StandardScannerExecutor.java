@@ -14,11 +14,14 @@
 
 package org.janusgraph.diskstorage.keycolumnvalue.scan;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.AbstractFuture;
 import org.janusgraph.core.schema.JanusGraphManagement;
 import org.janusgraph.diskstorage.*;
 import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
 import org.janusgraph.diskstorage.keycolumnvalue.*;
 import org.janusgraph.diskstorage.util.BufferUtil;
 import org.janusgraph.diskstorage.util.RecordIterator;
@@ -29,6 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
@@ -45,6 +49,7 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
     private static final int QUEUE_SIZE = 1000;
     private static final int TIMEOUT_MS = 180000; // 60 seconds
     private static final int MAX_KEY_LENGTH = 128; //in bytes
+    private static final long PROGRESS_INTERVAL_MS = 1000;
 
     private final ScanJob job;
     private final Consumer<ScanMetrics> finishJob;
@@ -52,43 +57,154 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
     private final StoreTransaction storeTx;
     private final KeyColumnValueStore store;
     private final int numProcessors;
+    private final int numSegments;
     private final int workBlockSize;
     private final Configuration jobConfiguration;
     private final Configuration graphConfiguration;
-    private final ScanMetrics metrics;
+    private final WriteConfiguration checkpointStore;
+    private final String checkpointId;
+    private final Duration checkpointInterval;
+    private final Timer readLatency;
+    private final Counter readTime;
+    private final StandardScanMetrics metrics;
 
     private boolean hasCompleted = false;
-    private boolean interrupted = false;
+    private volatile boolean interrupted = false;
+    private boolean checkpointFinished = false;
 
-    private List<BlockingQueue<SliceResult>> dataQueues;
-    private DataPuller[] pullThreads;
+    private List<Segment> segments;
+    private ScanThrottle throttle;
 
     StandardScannerExecutor(final ScanJob job, final Consumer<ScanMetrics> finishJob,
                             final KeyColumnValueStore store, final StoreTransaction storeTx,
                             final StoreFeatures storeFeatures,
-                            final int numProcessors, final int workBlockSize,
+                            final int numProcessors, final int numSegments, final int workBlockSize,
                             final Configuration jobConfiguration,
-                            final Configuration graphConfiguration) throws BackendException {
+                            final Configuration graphConfiguration,
+                            final WriteConfiguration checkpointStore, final String checkpointId,
+                            final Duration checkpointInterval, final Timer readLatency,
+                            final Counter readTime) throws BackendException {
         this.job = job;
         this.finishJob = finishJob;
         this.store = store;
         this.storeTx = storeTx;
         this.storeFeatures = storeFeatures;
         this.numProcessors = numProcessors;
+        this.numSegments = numSegments;
         this.workBlockSize = workBlockSize;
         this.jobConfiguration = jobConfiguration;
         this.graphConfiguration = graphConfiguration;
+        this.checkpointStore = checkpointStore;
+        this.checkpointId = checkpointId;
+        this.checkpointInterval = checkpointInterval;
+        this.readLatency = readLatency;
+        this.readTime = readTime;
 
         metrics = new StandardScanMetrics();
 
     }
 
-    private DataPuller addDataPuller(SliceQuery sq, StoreTransaction stx) throws BackendException {
+    /**
+     * Splits the key space into the given number of contiguous key ranges of equal width based on the
+     * leading bytes of the keys. The first range starts with the smallest key and the last range ends with the largest
+     * key that can be scanned.
+     */
+    static List<KeyRange> getKeyRanges(int numSegments) {
+        Preconditions.checkArgument(numSegments>0,"Invalid number of segments: %s",numSegments);
+        List<KeyRange> ranges = new ArrayList<>(numSegments);
+        StaticBuffer start = BufferUtil.zeroBuffer(1);
+        for (int i = 1; i < numSegments; i++) {
+            StaticBuffer end = BufferUtil.getIntBuffer((int) ((1L << Integer.SIZE) * i / numSegments));
+            ranges.add(new KeyRange(start, end));
+            start = end;
+        }
+        ranges.add(new KeyRange(start, BufferUtil.oneBuffer(MAX_KEY_LENGTH)));
+        return ranges;
+    }
+
+    /**
+     * Returns the key under which the checkpoint of a scan is persisted
+     */
+    static String getCheckpointKey(String checkpointId) {
+        return "scan-checkpoint." + checkpointId;
+    }
+
+    private boolean isCheckpointing() {
+        return checkpointStore!=null && checkpointId!=null;
+    }
+
+    private ScanCheckpoint readCheckpoint() {
+        String encoded = checkpointStore.get(getCheckpointKey(checkpointId), String.class);
+        if (encoded==null) return null;
+        ScanCheckpoint checkpoint = ScanCheckpoint.decode(encoded);
+        if (checkpoint.getNumSegments()!=numSegments) {
+            log.warn("Ignoring checkpoint of scan [{}] since it was recorded for {} instead of {} segments",
+                    checkpointId,checkpoint.getNumSegments(),numSegments);
+            return null;
+        }
+        return checkpoint;
+    }
+
+    private void writeCheckpoint() {
+        StaticBuffer[] resumeKeys = new StaticBuffer[segments.size()];
+        for (int i = 0; i < resumeKeys.length; i++) resumeKeys[i] = segments.get(i).getResumeKey();
+        ScanCheckpoint checkpoint = new ScanCheckpoint(resumeKeys);
+        try {
+            checkpointStore.set(getCheckpointKey(checkpointId), checkpoint.encode());
+            log.debug("Recorded checkpoint of scan [{}]: {}",checkpointId,checkpoint);
+        } catch (Throwable e) {
+            log.warn("Could not record checkpoint of scan ["+checkpointId+"]", e);
+        }
+    }
+
+    private void removeCheckpoint() {
+        try {
+            checkpointStore.remove(getCheckpointKey(checkpointId));
+        } catch (Throwable e) {
+            log.warn("Could not remove checkpoint of scan ["+checkpointId+"]", e);
+        }
+    }
+
+    private void finishCheckpoint(boolean processed) {
+        if (!isCheckpointing() || !storeFeatures.hasOrderedScan() || checkpointFinished) return;
+        checkpointFinished = true;
+        //Completed scans start from scratch when executed again
+        if (processed) removeCheckpoint();
+        else writeCheckpoint();
+    }
+
+    private void updateProgress() {
+        double progress = 0;
+        for (Segment segment : segments) {
+            double segmentProgress = segment.getProgress();
+            if (segmentProgress<0) return; //Progress of unordered scans is unknown
+            progress += segmentProgress;
+        }
+        metrics.setProgress(progress/segments.size());
+    }
+
+    /**
+     * Returns the position of the key within the key space based on its leading bytes
+     */
+    private static long getPosition(StaticBuffer key) {
+        long position = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            position = (position << Byte.SIZE) + (i < key.length() ? key.getByte(i) & 0xFF : 0);
+        }
+        return position;
+    }
+
+    private DataPuller addDataPuller(Segment segment, SliceQuery sq, StoreTransaction stx) throws BackendException {
         final BlockingQueue<SliceResult> queue = new LinkedBlockingQueue<>(QUEUE_SIZE);
-        dataQueues.add(queue);
+        segment.dataQueues.add(queue);
 
-        DataPuller dp = new DataPuller(sq, queue,
-                KCVSUtil.getKeys(store,sq,storeFeatures,MAX_KEY_LENGTH,stx),job.getKeyFilter());
+        final KeyIterator keyIterator;
+        if (segment.keyRange==null) {
+            keyIterator = KCVSUtil.getKeys(store,sq,storeFeatures,MAX_KEY_LENGTH,stx);
+        } else {
+            keyIterator = store.getKeys(new KeyRangeQuery(segment.resumeKey,segment.keyRange.getEnd(),sq),stx);
+        }
+        DataPuller dp = new DataPuller(sq, queue, keyIterator, job.getKeyFilter());
         dp.start();
         return dp;
     }
@@ -113,12 +229,30 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
                 Preconditions.checkArgument(end.equals(BufferUtil.oneBuffer(end.length())),
                         "Expected end of first query to be all 1s: %s",end);
             }
-            dataQueues = new ArrayList<>(numQueries);
-            pullThreads = new DataPuller[numQueries];
-
-            for (int pos = 0; pos< numQueries; pos++) {
-                pullThreads[pos]=addDataPuller(queries.get(pos),storeTx);
+            //Key ranges can only be scanned in parallel or resumed when the store supports ordered scans
+            final List<KeyRange> keyRanges;
+            ScanCheckpoint checkpoint = null;
+            if (storeFeatures.hasOrderedScan()) {
+                keyRanges = getKeyRanges(numSegments);
+                if (isCheckpointing()) checkpoint = readCheckpoint();
+            } else {
+                if (numSegments>1) log.info("Store [{}] does not support ordered scans, scanning it in a single segment",store.getName());
+                if (isCheckpointing()) log.warn("Store [{}] does not support ordered scans, scan [{}] cannot be checkpointed",store.getName(),checkpointId);
+                keyRanges = Collections.singletonList(null);
+            }
+            if (checkpoint!=null) log.info("Resuming scan [{}] from checkpoint {}",checkpointId,checkpoint);
+            segments = new ArrayList<>(keyRanges.size());
+            for (int i = 0; i < keyRanges.size(); i++) {
+                KeyRange keyRange = keyRanges.get(i);
+                Segment segment = new Segment(keyRange, checkpoint==null?null:checkpoint.getResumeKey(i), queries);
+                segments.add(segment);
+                if (segment.isComplete()) continue;
+                for (SliceQuery query : queries) {
+                    segment.pullThreads.add(addDataPuller(segment, query, storeTx));
+                }
             }
+            updateProgress();
+            throttle = ScanThrottle.of(jobConfiguration, readLatency, readTime);
         }  catch (Throwable e) {
             log.error("Exception trying to setup the job:", e);
             cleanupSilent();
@@ -135,52 +269,31 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
             processors[i].start();
         }
 
+        boolean processed = false;
         try {
-            SliceResult[] currentResults = new SliceResult[numQueries];
-            while (!interrupted) {
-                for (int i = 0; i < numQueries; i++) {
-                    if (currentResults[i]!=null) continue;
-                    BlockingQueue<SliceResult> queue = dataQueues.get(i);
-
-                    SliceResult qr = queue.poll(10,TimeUnit.MILLISECONDS); //Try very short time to see if we are done
-                    if (qr==null) {
-                        if (pullThreads[i].isFinished()) continue; //No more data to be expected
-                        qr = queue.poll(TIMEOUT_MS,TimeUnit.MILLISECONDS); //otherwise, give it more time
-                        if (qr==null && !pullThreads[i].isFinished())
-                            throw new TemporaryBackendException("Timed out waiting for next row data - storage error likely");
-                    }
-                    currentResults[i]=qr;
-                }
-                SliceResult conditionQuery = currentResults[0];
-                if (conditionQuery==null) break; //Termination condition - primary query has no more data
-                final StaticBuffer key = conditionQuery.key;
-
-                Map<SliceQuery,EntryList> queryResults = new HashMap<>(numQueries);
-                for (int i=0;i<currentResults.length;i++) {
-                    SliceQuery query = queries.get(i);
-                    EntryList entries = EntryList.EMPTY_LIST;
-                    if (currentResults[i]!=null && currentResults[i].key.equals(key)) {
-                        assert query.equals(currentResults[i].query);
-                        entries = currentResults[i].entries;
-                        currentResults[i]=null;
+            for (Segment segment : segments) segment.start(processorQueue);
+            long lastCheckpoint = System.currentTimeMillis();
+            for (Segment segment : segments) {
+                while (!segment.awaitRows(PROGRESS_INTERVAL_MS)) {
+                    updateProgress();
+                    if (throttle!=null) throttle.adapt();
+                    if (isCheckpointing() && System.currentTimeMillis()-lastCheckpoint>=checkpointInterval.toMillis()) {
+                        writeCheckpoint();
+                        lastCheckpoint = System.currentTimeMillis();
                     }
-                    queryResults.put(query,entries);
                 }
-                processorQueue.put(new Row(key, queryResults));
             }
 
-            for (int i = 0; i < pullThreads.length; i++) {
-                pullThreads[i].join(10);
-                if (pullThreads[i].isAlive()) {
-                    log.warn("Data pulling thread [{}] did not terminate. Forcing termination",i);
-                    pullThreads[i].interrupt();
-                }
-            }
+            for (Segment segment : segments) segment.joinPullThreads();
 
             for (Processor processor : processors) {
                 processor.finish();
             }
             if (!Threads.waitForCompletion(processors,TIMEOUT_MS)) log.error("Processor did not terminate in time");
+            else processed = !interrupted && allRowsCommitted();
+            updateProgress();
+            //Record the final state before the job completes so that it can be resumed right away
+            finishCheckpoint(processed);
 
             cleanup();
             try {
@@ -202,10 +315,22 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
             setException(e);
         } finally {
             Threads.terminate(processors);
+            for (Segment segment : segments) segment.interruptReader();
+            finishCheckpoint(false);
             cleanupSilent();
         }
     }
 
+    /**
+     * Whether every row that was read has been processed and committed, i.e. no row failed
+     */
+    private boolean allRowsCommitted() {
+        for (Segment segment : segments) {
+            if (segment.hasUncommittedRows()) return false;
+        }
+        return true;
+    }
+
     @Override
     protected void interruptTask() {
         interrupted = true;
@@ -214,10 +339,12 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
     private void cleanup() throws BackendException {
         if (!hasCompleted) {
             hasCompleted = true;
-            if (pullThreads!=null) {
-                for (DataPuller pullThread : pullThreads) {
-                    if (pullThread.isAlive()) {
-                        pullThread.interrupt();
+            if (segments!=null) {
+                for (Segment segment : segments) {
+                    for (DataPuller pullThread : segment.pullThreads) {
+                        if (pullThread.isAlive()) {
+                            pullThread.interrupt();
+                        }
                     }
                 }
             }
@@ -242,19 +369,186 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
 
         final StaticBuffer key;
         final Map<SliceQuery,EntryList> entries;
+        final Segment segment;
+        final long position;
 
-        private Row(StaticBuffer key, Map<SliceQuery, EntryList> entries) {
+        private Row(StaticBuffer key, Map<SliceQuery, EntryList> entries, Segment segment, long position) {
             this.key = key;
             this.entries = entries;
+            this.segment = segment;
+            this.position = position;
+        }
+
+        /**
+         * Returns the number of bytes of the key, columns and values of this row
+         */
+        private int getSize() {
+            int size = key.length();
+            for (EntryList entryList : entries.values()) {
+                for (Entry entry : entryList) size += entry.length();
+            }
+            return size;
         }
     }
 
 
 
+    /**
+     * A contiguous range of keys for which a data puller per query retrieves the rows. The rows retrieved for the
+     * individual queries are aligned by key within the segment.
+     * <p>
+     * The rows of a segment are tracked in the order in which they were read until the work block that processed them
+     * has been committed so that the segment knows the key up to which all rows have been committed. Rows that failed
+     * to be processed or whose work block failed to commit are never released and hence scanned again on resume.
+     */
+    private class Segment {
+
+        private final KeyRange keyRange;
+        private final StaticBuffer resumeKey;
+        private final List<SliceQuery> queries;
+        private final List<BlockingQueue<SliceResult>> dataQueues;
+        private final List<DataPuller> pullThreads;
+        private final ConcurrentNavigableMap<Long,StaticBuffer> processing;
+
+        private long numRows = 0;
+        private volatile StaticBuffer lastKey = null;
+        private volatile boolean complete;
+
+        private Thread reader;
+        private volatile Throwable failure;
+
+        private Segment(KeyRange keyRange, StaticBuffer resumeKey, List<SliceQuery> queries) {
+            this.keyRange = keyRange;
+            this.resumeKey = resumeKey!=null?resumeKey:(keyRange!=null?keyRange.getStart():null);
+            this.queries = queries;
+            this.dataQueues = new ArrayList<>(queries.size());
+            this.pullThreads = new ArrayList<>(queries.size());
+            this.processing = new ConcurrentSkipListMap<>();
+            this.complete = keyRange!=null && this.resumeKey.compareTo(keyRange.getEnd())>=0;
+        }
+
+        private boolean isComplete() {
+            return complete;
+        }
+
+        private void committed(long position) {
+            processing.remove(position);
+        }
+
+        private boolean hasUncommittedRows() {
+            return !processing.isEmpty();
+        }
+
+        /**
+         * Returns the key from which this segment has to be scanned again to commit all of its rows
+         */
+        private StaticBuffer getResumeKey() {
+            assert keyRange!=null;
+            //Read in reverse order of the updates by the reader
+            final StaticBuffer last = lastKey;
+            final boolean readAll = complete;
+            Map.Entry<Long,StaticBuffer> first = processing.firstEntry();
+            if (first!=null) return first.getValue();
+            if (readAll) return keyRange.getEnd();
+            if (last!=null) return ScanCheckpoint.successor(last);
+            return resumeKey;
+        }
+
+        private double getProgress() {
+            if (keyRange==null) return complete?1:-1;
+            final StaticBuffer key = getResumeKey();
+            if (key.compareTo(keyRange.getEnd())>=0) return 1;
+            final long start = getPosition(keyRange.getStart()), end = getPosition(keyRange.getEnd());
+            if (end<=start) return 0;
+            return Math.max(0, Math.min(1, (double) (getPosition(key) - start) / (end - start)));
+        }
+
+        private void readRows(BlockingQueue<Row> processorQueue) throws BackendException, InterruptedException {
+            final int numQueries = queries.size();
+            SliceResult[] currentResults = new SliceResult[numQueries];
+            while (!interrupted) {
+                for (int i = 0; i < numQueries; i++) {
+                    if (currentResults[i]!=null) continue;
+                    BlockingQueue<SliceResult> queue = dataQueues.get(i);
+
+                    SliceResult qr = queue.poll(10,TimeUnit.MILLISECONDS); //Try very short time to see if we are done
+                    if (qr==null) {
+                        if (pullThreads.get(i).isFinished()) continue; //No more data to be expected
+                        qr = queue.poll(TIMEOUT_MS,TimeUnit.MILLISECONDS); //otherwise, give it more time
+                        if (qr==null && !pullThreads.get(i).isFinished())
+                            throw new TemporaryBackendException("Timed out waiting for next row data - storage error likely");
+                    }
+                    currentResults[i]=qr;
+                }
+                SliceResult conditionQuery = currentResults[0];
+                if (conditionQuery==null) break; //Termination condition - primary query has no more data
+                final StaticBuffer key = conditionQuery.key;
+
+                Map<SliceQuery,EntryList> queryResults = new HashMap<>(numQueries);
+                for (int i=0;i<currentResults.length;i++) {
+                    SliceQuery query = queries.get(i);
+                    EntryList entries = EntryList.EMPTY_LIST;
+                    if (currentResults[i]!=null && currentResults[i].key.equals(key)) {
+                        assert query.equals(currentResults[i].query);
+                        entries = currentResults[i].entries;
+                        currentResults[i]=null;
+                    }
+                    queryResults.put(query,entries);
+                }
+                final long position = numRows++;
+                processing.put(position, key);
+                lastKey = key;
+                processorQueue.put(new Row(key, queryResults, this, position));
+            }
+            if (!interrupted) complete = true;
+        }
+
+        private void start(BlockingQueue<Row> processorQueue) {
+            if (complete) return;
+            reader = new Thread(() -> {
+                try {
+                    readRows(processorQueue);
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            });
+            reader.start();
+        }
+
+        /**
+         * Waits up to the given time for this segment to be read completely.
+         *
+         * @return whether all rows of this segment have been read
+         */
+        private boolean awaitRows(long timeoutMs) throws Throwable {
+            if (reader==null) return true;
+            reader.join(timeoutMs);
+            if (failure!=null) throw failure;
+            return !reader.isAlive();
+        }
+
+        private void interruptReader() {
+            if (reader!=null && reader.isAlive()) reader.interrupt();
+        }
+
+        private void joinPullThreads() throws InterruptedException {
+            for (int i = 0; i < pullThreads.size(); i++) {
+                DataPuller pullThread = pullThreads.get(i);
+                pullThread.join(10);
+                if (pullThread.isAlive()) {
+                    log.warn("Data pulling thread [{}] of key range [{}] did not terminate. Forcing termination",i,keyRange);
+                    pullThread.interrupt();
+                }
+            }
+        }
+    }
+
     private class Processor extends Thread {
 
         private ScanJob job;
         private final BlockingQueue<Row> processorQueue;
+        //Rows of the current work block that were processed successfully and are pending its commit
+        private final List<Row> block = new ArrayList<>();
 
         private volatile boolean finished;
         private int numProcessed;
@@ -277,14 +571,16 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
                     while ((row=processorQueue.poll(100,TimeUnit.MILLISECONDS))!=null) {
                         if (numProcessed>=workBlockSize) {
                             //Setup new chunk of work
-                            job.workerIterationEnd(metrics);
+                            endBlock();
                             job = job.clone();
                             job.workerIterationStart(jobConfiguration, graphConfiguration, metrics);
                             numProcessed=0;
                         }
+                        if (throttle!=null) throttle.acquire(throttle.throttlesBytes()?row.getSize():0);
                         try {
                             job.process(row.key,row.entries,metrics);
                             metrics.increment(ScanMetrics.Metric.SUCCESS);
+                            block.add(row);
                         } catch (Throwable ex) {
                             log.error("Exception processing row ["+row.key+"]: ",ex);
                             metrics.increment(ScanMetrics.Metric.FAILURE);
@@ -297,8 +593,22 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
             } catch (Throwable e) {
                 log.error("Unexpected error processing data: {}",e);
             } finally {
+                endBlock();
+            }
+        }
+
+        /**
+         * Ends the current work block and releases its rows to their segments once the block has been committed
+         */
+        private void endBlock() {
+            try {
                 job.workerIterationEnd(metrics);
+            } catch (RuntimeException e) {
+                block.clear();
+                throw e;
             }
+            for (Row row : block) row.segment.committed(row.position);
+            block.clear();
         }
 
         public void finish() {
@@ -27,8 +27,8 @@ import java.time.Instant;
  */
 public class ConsistentKeyLockStatus implements LockStatus {
 
-    private final Instant write;
-    private final Instant expire;
+    private Instant write;
+    private Instant expire;
     private boolean checked;
 
     public ConsistentKeyLockStatus(Instant written, Instant expire) {
@@ -47,6 +47,22 @@ public class ConsistentKeyLockStatus implements LockStatus {
         return write;
     }
 
+    /**
+     * Whether the lock claim has been written to the store. A status without
+     * a write timestamp stands for a claim that a batching locker has not
+     * written yet.
+     *
+     * @return true if the claim has been written
+     */
+    public boolean isWritten() {
+        return null != write;
+    }
+
+    void setWritten(Instant written, Instant expire) {
+        this.write = written;
+        this.expire = expire;
+    }
+
     public boolean isChecked() {
         return checked;
     }
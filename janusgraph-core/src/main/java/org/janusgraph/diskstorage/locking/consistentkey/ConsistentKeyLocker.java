@@ -16,6 +16,7 @@ package org.janusgraph.diskstorage.locking.consistentkey;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import org.janusgraph.core.JanusGraphConfigurationException;
 
@@ -29,6 +30,7 @@ import org.janusgraph.diskstorage.keycolumnvalue.*;
 import org.janusgraph.diskstorage.locking.*;
 import org.janusgraph.diskstorage.util.*;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.util.stats.MetricManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +39,10 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.janusgraph.util.encoding.StringEncoding.UTF8_CHARSET;
 
@@ -120,6 +125,17 @@ import static org.janusgraph.util.encoding.StringEncoding.UTF8_CHARSET;
  * {@code rid} is only unique at the process level.  Without a mediator, distinct
  * threads could write lock columns with the same {@code rid} and be unable to
  * tell their lock claims apart.
+ * <p/>
+ * <h4>Batch locking</h4>
+ * <p/>
+ * When batch locking is enabled, {@link #writeLock(KeyColumn, StoreTransaction)}
+ * only takes the inter-thread lock and defers the steps above to
+ * {@link #checkLocks(StoreTransaction)}. That call writes the claims for all
+ * locks of the transaction with a single timestamp in one
+ * {@link KeyColumnValueStoreManager#mutateMany(Map, StoreTransaction)} call,
+ * waits for {@code lockWait} once and then reads all claims back in one
+ * multi-key slice query, provided the store supports batch mutations and
+ * multi-key queries respectively.
  */
 public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus> implements Locker {
 
@@ -137,6 +153,11 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
     private final int lockRetryCount;
 
+    /**
+     * Whether lock claims are written and checked in batches when checking locks.
+     */
+    private final boolean batchLocking;
+
     /**
      * Expired lock cleaner in charge of {@link #store}.
      */
@@ -176,6 +197,14 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
     private static final Logger log = LoggerFactory.getLogger(ConsistentKeyLocker.class);
 
+    private static final String M_LOCKS = "locks";
+    private static final String M_WRITE = "write";
+    private static final String M_CHECK = "check";
+    private static final String M_TIME = "time";
+    private static final String M_RETRIES = "retries";
+    private static final String M_CONTENTION = "contention";
+    private static final String M_EXPIRED = "expired";
+
     public static class Builder extends AbstractLocker.Builder<ConsistentKeyLockStatus, Builder> {
         // Required (no default)
         private final KeyColumnValueStore store;
@@ -184,6 +213,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         // Optional (has default)
         private Duration lockWait;
         private int lockRetryCount;
+        private boolean batchLocking;
 
         private enum CleanerConfig {
             NONE,
@@ -211,6 +241,11 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             return self();
         }
 
+        public Builder batchLocking(boolean batchLocking) {
+            this.batchLocking = batchLocking;
+            return self();
+        }
+
         public Builder standardCleaner() {
             this.cleanerConfig = CleanerConfig.STANDARD;
             this.customCleanerService = null;
@@ -240,6 +275,8 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
             lockExpire(config.get(GraphDatabaseConfiguration.LOCK_EXPIRE));
 
+            batchLocking(config.get(GraphDatabaseConfiguration.LOCK_BATCH));
+
             if (config.get(GraphDatabaseConfiguration.LOCK_CLEAN_EXPIRED)) {
                 standardCleaner();
             }
@@ -269,6 +306,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
                     serializer, llm,
                     lockWait,
                     lockRetryCount,
+                    batchLocking,
                     lockExpire,
                     lockState, cleaner);
         }
@@ -291,7 +329,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
     private ConsistentKeyLocker(KeyColumnValueStore store, StoreManager manager, StaticBuffer rid,
                                 TimestampProvider times, ConsistentKeyLockerSerializer serializer,
                                 LocalLockMediator<StoreTransaction> llm, Duration lockWait,
-                                int lockRetryCount, Duration lockExpire,
+                                int lockRetryCount, boolean batchLocking, Duration lockExpire,
                                 LockerState<ConsistentKeyLockStatus> lockState,
                                 LockCleanerService cleanerService) {
         super(rid, times, serializer, llm, lockState, lockExpire, log);
@@ -299,6 +337,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         this.manager = manager;
         this.lockWait = lockWait;
         this.lockRetryCount = lockRetryCount;
+        this.batchLocking = batchLocking;
         this.cleanerService = cleanerService;
     }
 
@@ -311,6 +350,9 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
      * the retry limit. If the store throws anything else, such as an unchecked
      * exception or a {@link org.janusgraph.diskstorage.PermanentBackendException}, then we'll try to
      * delete whatever we added and return without further retries.
+     * <p/>
+     * With batch locking, nothing is written here. The returned status has no
+     * write timestamp and the claim is written by {@link #checkLocks(Map, StoreTransaction)}.
      *
      * @param lockID lock to acquire
      * @param txh    transaction
@@ -323,11 +365,16 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
     @Override
     protected ConsistentKeyLockStatus writeSingleLock(KeyColumn lockID, StoreTransaction txh) throws Throwable {
 
+        if (batchLocking) {
+            return new ConsistentKeyLockStatus(null, times.getTime().plus(lockExpire));
+        }
+
         final StaticBuffer lockKey = serializer.toLockKey(lockID.getKey(), lockID.getColumn());
         StaticBuffer oldLockCol = null;
 
         for (int i = 0; i < lockRetryCount; i++) {
             WriteResult wr = tryWriteLockOnce(lockKey, oldLockCol, txh);
+            recordTime(txh, wr.getDuration(), M_WRITE);
             if (wr.isSuccessful() && wr.getDuration().compareTo(lockWait) <= 0) {
                 final Instant writeInstant = wr.getWriteTimestamp();
                 final Instant expireInstant = writeInstant.plus(lockExpire);
@@ -335,6 +382,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             }
             oldLockCol = wr.getLockCol();
             handleMutationFailure(lockID, lockKey, wr, txh);
+            incrementCounter(txh, M_WRITE, M_RETRIES);
         }
         tryDeleteLockOnce(lockKey, oldLockCol, txh);
         // TODO log exception or successful too-slow write here
@@ -431,6 +479,138 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             LOCK_COL_END);
         List<Entry> claimEntries = getSliceWithRetries(ksq, tx);
 
+        checkClaims(kc, ls, claimEntries, now, tx);
+    }
+
+    /**
+     * With batch locking, write all claims that have not been written yet,
+     * wait once until {@code lockWait} has passed since the most recent
+     * write and read all claims back at once. Otherwise, check each lock on
+     * its own.
+     */
+    @Override
+    protected void checkLocks(Map<KeyColumn, ConsistentKeyLockStatus> locks, StoreTransaction tx) throws Throwable {
+        if (!batchLocking) {
+            super.checkLocks(locks, tx);
+            return;
+        }
+
+        final Map<KeyColumn, ConsistentKeyLockStatus> unchecked = new HashMap<>(locks.size());
+        final Map<KeyColumn, ConsistentKeyLockStatus> unwritten = new HashMap<>(locks.size());
+        for (final Map.Entry<KeyColumn, ConsistentKeyLockStatus> entry : locks.entrySet()) {
+            if (entry.getValue().isChecked()) continue;
+            unchecked.put(entry.getKey(), entry.getValue());
+            if (!entry.getValue().isWritten()) unwritten.put(entry.getKey(), entry.getValue());
+        }
+        if (unchecked.isEmpty()) return;
+        if (!unwritten.isEmpty()) writeLocks(unwritten, tx);
+
+        Instant lastWrite = null;
+        for (final ConsistentKeyLockStatus ls : unchecked.values()) {
+            if (null == lastWrite || lastWrite.isBefore(ls.getWriteTimestamp())) lastWrite = ls.getWriteTimestamp();
+        }
+        final Instant now = times.sleepPast(lastWrite.plus(lockWait));
+
+        final Map<StaticBuffer, KeyColumn> lockKeys = new HashMap<>(unchecked.size());
+        for (final KeyColumn kc : unchecked.keySet()) {
+            lockKeys.put(serializer.toLockKey(kc.getKey(), kc.getColumn()), kc);
+        }
+        final Map<StaticBuffer, ? extends List<Entry>> claims = getSlicesWithRetries(new ArrayList<>(lockKeys.keySet()), tx);
+        for (final Map.Entry<StaticBuffer, KeyColumn> entry : lockKeys.entrySet()) {
+            final List<Entry> claimEntries = claims.get(entry.getKey());
+            checkClaims(entry.getValue(), unchecked.get(entry.getValue()),
+                null == claimEntries ? Collections.emptyList() : claimEntries, now, tx);
+        }
+    }
+
+    /**
+     * Write the claims for all given locks with a single timestamp, retrying
+     * with a new timestamp like {@link #writeSingleLock(KeyColumn, StoreTransaction)}
+     * does if the write fails temporarily or takes longer than {@code lockWait}.
+     * On success, the write and expiration timestamps of the given statuses are set.
+     */
+    private void writeLocks(Map<KeyColumn, ConsistentKeyLockStatus> locks, StoreTransaction tx) throws Throwable {
+        final List<StaticBuffer> lockKeys = new ArrayList<>(locks.size());
+        for (final KeyColumn kc : locks.keySet()) {
+            lockKeys.add(serializer.toLockKey(kc.getKey(), kc.getColumn()));
+        }
+        StaticBuffer oldLockCol = null;
+
+        for (int i = 0; i < lockRetryCount; i++) {
+            final Timer writeTimer = times.getTimer().start();
+            final StaticBuffer newLockCol = serializer.toLockCol(writeTimer.getStartTime(), rid, times);
+            final List<Entry> additions = Collections.singletonList(StaticArrayEntry.of(newLockCol, zeroBuf));
+            final List<StaticBuffer> deletions = null == oldLockCol ?
+                KeyColumnValueStore.NO_DELETIONS : Collections.singletonList(oldLockCol);
+            Throwable error = null;
+            try {
+                mutateLocks(lockKeys, additions, deletions, overrideTimestamp(tx, writeTimer.getStartTime()));
+            } catch (BackendException e) {
+                log.debug("Batch lock write attempt failed with exception", e);
+                error = e;
+            }
+            writeTimer.stop();
+            recordTime(tx, writeTimer.elapsed(), M_WRITE);
+
+            if (null == error && writeTimer.elapsed().compareTo(lockWait) <= 0) {
+                final Instant writeInstant = writeTimer.getStartTime();
+                for (final ConsistentKeyLockStatus ls : locks.values()) {
+                    ls.setWritten(writeInstant, writeInstant.plus(lockExpire));
+                }
+                log.debug("Wrote {} lock claims with timestamp {}", locks.size(), writeInstant);
+                return;
+            }
+            if (null == error) {
+                log.warn("Batch lock write succeeded but took too long: duration {} exceeded limit {}",
+                    writeTimer.elapsed(), lockWait);
+            } else if (error instanceof TemporaryBackendException) {
+                log.warn("Temporary exception during batch lock write", error);
+            } else {
+                log.error("Fatal exception encountered during attempted batch lock write", error);
+                tryDeleteLocksOnce(lockKeys, newLockCol, tx);
+                throw error;
+            }
+            oldLockCol = newLockCol;
+            incrementCounter(tx, M_WRITE, M_RETRIES);
+        }
+        tryDeleteLocksOnce(lockKeys, oldLockCol, tx);
+        throw new TemporaryBackendException("Lock write retry count exceeded");
+    }
+
+    private void tryDeleteLocksOnce(List<StaticBuffer> lockKeys, StaticBuffer col, StoreTransaction tx) {
+        try {
+            mutateLocks(lockKeys, ImmutableList.of(), Collections.singletonList(col), overrideTimestamp(tx, times.getTime()));
+        } catch (BackendException e) {
+            log.warn("Failed to delete batch lock write: abandoning potentially-unreleased locks", e);
+        }
+    }
+
+    /**
+     * Apply the same additions and deletions to all given lock keys, in a
+     * single batch mutation if the store manager supports it.
+     */
+    private void mutateLocks(List<StaticBuffer> lockKeys, List<Entry> additions, List<StaticBuffer> deletions,
+                             StoreTransaction tx) throws BackendException {
+        if (manager instanceof KeyColumnValueStoreManager && manager.getFeatures().hasBatchMutation()) {
+            final Map<StaticBuffer, KCVMutation> mutations = new HashMap<>(lockKeys.size());
+            for (final StaticBuffer lockKey : lockKeys) {
+                mutations.put(lockKey, new KCVMutation(additions, deletions));
+            }
+            ((KeyColumnValueStoreManager) manager).mutateMany(ImmutableMap.of(store.getName(), mutations), tx);
+        } else {
+            for (final StaticBuffer lockKey : lockKeys) {
+                store.mutate(lockKey, additions, deletions, tx);
+            }
+        }
+    }
+
+    /**
+     * Check the claims read for a single lock: discard expired claims and
+     * verify that our claim is the most senior one.
+     */
+    private void checkClaims(KeyColumn kc, ConsistentKeyLockStatus ls, List<Entry> claimEntries, Instant now,
+                             StoreTransaction tx) throws BackendException {
+
         // Extract timestamp and rid from the column in each returned Entry...
         final Iterable<TimestampRid> iterable = Iterables.transform(claimEntries,
             e -> serializer.fromLockColumn(e.getColumnAs(StaticBuffer.STATIC_FACTORY), times));
@@ -441,6 +621,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             final Instant cutoffTime = now.minus(lockExpire);
             if (tr.getTimestamp().isBefore(cutoffTime)) {
                 log.warn("Discarded expired claim on {} with timestamp {}", kc, tr.getTimestamp());
+                incrementCounter(tx, M_CHECK, M_EXPIRED);
                 if (null != cleanerService)
                     cleanerService.clean(kc, cutoffTime, tx);
                 // Locks that this instance wrote that have now expired should not only log
@@ -457,22 +638,42 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             unexpiredTRs.add(tr);
         }
 
-        checkSeniority(kc, ls, unexpiredTRs);
+        checkSeniority(kc, ls, unexpiredTRs, tx);
         ls.setChecked();
     }
 
     private List<Entry> getSliceWithRetries(KeySliceQuery ksq, StoreTransaction tx) throws BackendException {
+        return readWithRetries(() -> store.getSlice(ksq, tx), tx);
+    }
+
+    private Map<StaticBuffer, ? extends List<Entry>> getSlicesWithRetries(List<StaticBuffer> lockKeys,
+                                                                       StoreTransaction tx) throws BackendException {
+        if (manager.getFeatures().hasMultiQuery()) {
+            return readWithRetries(() -> store.getSlice(lockKeys, new SliceQuery(LOCK_COL_START, LOCK_COL_END), tx), tx);
+        }
+        final Map<StaticBuffer, List<Entry>> claims = new HashMap<>(lockKeys.size());
+        for (final StaticBuffer lockKey : lockKeys) {
+            claims.put(lockKey, getSliceWithRetries(new KeySliceQuery(lockKey, LOCK_COL_START, LOCK_COL_END), tx));
+        }
+        return claims;
+    }
+
+    private <T> T readWithRetries(StorageCallable<T> read, StoreTransaction tx) throws BackendException {
 
         for (int i = 0; i < lockRetryCount; i++) {
             // TODO either make this like writeLock so that it handles all Throwable types (and pull that logic out
             // into a shared method) or make writeLock like this in that it only handles Temporary/PermanentSE
+            final long start = System.nanoTime();
             try {
-                return store.getSlice(ksq, tx);
+                return read.call();
             } catch (PermanentBackendException e) {
                 log.error("Failed to check locks", e);
                 throw new PermanentLockingException(e);
             } catch (TemporaryBackendException e) {
                 log.warn("Temporary storage failure while checking locks", e);
+                incrementCounter(tx, M_CHECK, M_RETRIES);
+            } finally {
+                recordTime(tx, Duration.ofNanos(System.nanoTime() - start), M_CHECK);
             }
         }
 
@@ -480,7 +681,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
     }
 
     private void checkSeniority(KeyColumn target, ConsistentKeyLockStatus ls,
-                                Iterable<TimestampRid> claimTRs) throws BackendException {
+                                Iterable<TimestampRid> claimTRs, StoreTransaction tx) throws BackendException {
 
         int trCount = 0;
 
@@ -490,6 +691,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             if (!rid.equals(tr.getRid())) {
                 final String msg = "Lock on " + target + " already held by " + tr.getRid() + " (we are " + rid + ")";
                 log.debug(msg);
+                incrementCounter(tx, M_CHECK, M_CONTENTION);
                 throw new TemporaryLockingException(msg);
             }
 
@@ -537,6 +739,9 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
     @Override
     protected void deleteSingleLock(KeyColumn kc, ConsistentKeyLockStatus ls, StoreTransaction tx) {
+        if (!ls.isWritten()) {
+            return; // the claim of a batch lock was never written
+        }
         List<StaticBuffer> deletions = ImmutableList.of(serializer.toLockCol(ls.getWriteTimestamp(), rid, times));
         for (int i = 0; i < lockRetryCount; i++) {
             try {
@@ -553,6 +758,20 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         }
     }
 
+    private void incrementCounter(StoreTransaction tx, String operation, String name) {
+        final String groupName = tx.getConfiguration().getGroupName();
+        if (null != groupName) {
+            MetricManager.INSTANCE.getCounter(groupName, M_LOCKS, operation, name).inc();
+        }
+    }
+
+    private void recordTime(StoreTransaction tx, Duration duration, String operation) {
+        final String groupName = tx.getConfiguration().getGroupName();
+        if (null != groupName) {
+            MetricManager.INSTANCE.getTimer(groupName, M_LOCKS, operation, M_TIME).update(duration.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
     private StoreTransaction overrideTimestamp(final StoreTransaction tx,
                                                final Instant commitTime) throws BackendException {
         StandardBaseTransactionConfig newCfg = new StandardBaseTransactionConfig.Builder(tx.getConfiguration())
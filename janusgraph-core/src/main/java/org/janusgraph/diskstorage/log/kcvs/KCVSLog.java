@@ -33,7 +33,7 @@ import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.*;
 
 import org.janusgraph.graphdb.configuration.PreInitializeConfigOptions;
 import org.janusgraph.graphdb.database.serialize.DataOutput;
-import org.janusgraph.util.system.BackgroundThread;
+import org.janusgraph.util.stats.MetricManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,8 +65,11 @@ import java.util.concurrent.atomic.AtomicLong;
  * message id (which is auto-incrementing). These three data points comprise the column of a log message. The actual content of the message
  * is written into the value.
  * </p>
+ * Messages are sent through the associated {@link KCVSLogManager} which batches the messages of all its open logs into one
+ * mutation against the storage backend. </br>
  * When {@link MessageReader} are registered, one reader thread per partition id and bucket is created which periodically (as configured) checks for
- * new messages in the storage backend and invokes the reader. </br>
+ * new messages in the storage backend and invokes the reader. If {@link #LOG_ADAPTIVE_READ_INTERVAL} is enabled, a reader checks again after
+ * {@link #LOG_MIN_READ_INTERVAL} when it found messages and doubles its interval up to the configured read interval when it did not. </br>
  * Read-markers are maintained (for each partition-id & bucket id combination) under a dedicated key in the same {@link KeyColumnValueStoreManager} as the
  * log messages. The read markers are updated to the current position before each new iteration of reading messages from the log. If the system fails
  * while reading a batch of messages, a subsequently restarted log reader may therefore read messages twice. Hence, {@link MessageReader} implementations
@@ -100,6 +103,15 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
             "Whether to require consistency for log reading and writing messages to the storage backend",
             ConfigOption.Type.MASKABLE, false);
 
+    public static final ConfigOption<Boolean> LOG_ADAPTIVE_READ_INTERVAL = new ConfigOption<>(LOG_NS, "adaptive-read-interval",
+            "Whether log readers check for new messages more frequently while messages arrive. When enabled, readers check again " +
+                    "after the minimum read interval when they found messages and back off to the read interval otherwise",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Duration> LOG_MIN_READ_INTERVAL = new ConfigOption<>(LOG_NS, "min-read-interval",
+            "Minimum time in ms between message readings from the backend when the read interval is adaptive",
+            ConfigOption.Type.MASKABLE, Duration.ofMillis(100L));
+
     //########## INTERNAL CONSTANTS #############
 
     /**
@@ -110,30 +122,11 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
      */
     public static final long TIMESLICE_INTERVAL = 100L * 1000 * 1000 ; //100 seconds
 
-    /**
-     * For batch sending to make sense against a KCVS, the maximum send/delivery delay must be at least
-     * this number. If the delivery delay is configured to be smaller than this time interval, messages
-     * will be send immediately since batching will likely be ineffective.
-     */
-    private final static Duration MIN_DELIVERY_DELAY = Duration.ofMillis(10L);
-
-    /**
-     * Multiplier for the maximum number of messages to hold in the outgoing message queue before producing back pressure.
-     * Multiplied with the message sending batch size.
-     * If back pressure is a regular occurrence, decrease the sending interval or increase the sending batch size
-     */
-    private final static int BATCH_SIZE_MULTIPLIER = 10;
-    /**
-     * Wait time after close() is called for all ongoing jobs to finish and shut down.
-     */
-    private final static Duration CLOSE_DOWN_WAIT = Duration.ofSeconds(10L);
     /**
      * Time before a registered reader starts processing messages
      */
     private final static Duration INITIAL_READER_DELAY = Duration.ofMillis(100L);
 
-    private final static Duration FOREVER = Duration.ofNanos(Long.MAX_VALUE); // TODO remove this
-
     //########## INTERNAL SETTING MANAGEMENT #############
 
     /**
@@ -160,6 +153,12 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
     private static final Duration TWO_MICROSECONDS =
             Duration.of(2L, ChronoUnit.MICROS);
 
+    static final String M_LOG = "log";
+    static final String M_SEND = "send";
+    static final String M_READ = "read";
+    static final String M_MESSAGES = "messages";
+    static final String M_LAG = "lag";
+
     /**
      * Associated {@link LogManager}
      */
@@ -182,25 +181,20 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
      * the reads and writes to the log.
      */
     private final int numBuckets;
-    private final boolean keyConsistentOperations;
 
-    private final int sendBatchSize;
-    private final Duration maxSendDelay;
     private final Duration maxWriteTime;
-    /**
-     * Used for batch addition of messages to the log. Newly added entries are buffered in this queue before being written in batch
-     */
-    private final ArrayBlockingQueue<MessageEnvelope> outgoingMsg;
-    /**
-     * Background thread which periodically writes out the queued up messages. TODO: consider batching messages across ALL logs
-     */
-    private final SendThread sendThread;
 
     private final int numReadThreads;
     private final int maxReadMsg;
     private final Duration readPollingInterval;
+    private final boolean adaptiveReadInterval;
+    private final Duration minReadInterval;
     private final Duration readLagTime;
     private final Duration maxReadTime;
+    /**
+     * Prefix of the metrics recording the messages sent and read by this log or null if metrics are disabled
+     */
+    private final String metricsPrefix;
 
     /**
      * Thread pool to read messages in the specified interval from the various keys in a time slice AND to process
@@ -240,28 +234,20 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
         this.store=store;
 
         this.times = config.get(TIMESTAMP_PROVIDER);
-        this.keyConsistentOperations = config.get(LOG_KEY_CONSISTENT);
         this.numBuckets = config.get(LOG_NUM_BUCKETS);
         Preconditions.checkArgument(numBuckets>=1 && numBuckets<=Integer.MAX_VALUE);
 
-        sendBatchSize = config.get(LOG_SEND_BATCH_SIZE);
-        maxSendDelay = config.get(LOG_SEND_DELAY);
         maxWriteTime = config.get(LOG_MAX_WRITE_TIME);
 
         numReadThreads = config.get(LOG_READ_THREADS);
         maxReadMsg = config.get(LOG_READ_BATCH_SIZE);
         readPollingInterval = config.get(LOG_READ_INTERVAL);
-        readLagTime = config.get(LOG_READ_LAG_TIME).plus(maxSendDelay);
+        adaptiveReadInterval = config.get(LOG_ADAPTIVE_READ_INTERVAL);
+        minReadInterval = config.get(LOG_MIN_READ_INTERVAL).compareTo(readPollingInterval) < 0 ?
+                config.get(LOG_MIN_READ_INTERVAL) : readPollingInterval;
+        readLagTime = config.get(LOG_READ_LAG_TIME).plus(config.get(LOG_SEND_DELAY));
         maxReadTime = config.get(LOG_MAX_READ_TIME);
-
-        if (MIN_DELIVERY_DELAY.compareTo(maxSendDelay) <= 0) { // No need to locally queue messages since they will be sent immediately
-            outgoingMsg = new ArrayBlockingQueue<>(sendBatchSize * BATCH_SIZE_MULTIPLIER);
-            sendThread = new SendThread();
-            sendThread.start();
-        } else {
-            outgoingMsg = null;
-            sendThread = null;
-        }
+        metricsPrefix = config.get(BASIC_METRICS) ? config.get(METRICS_PREFIX) : null;
 
         //These will be initialized when the first readers are registered (see below)
         readExecutor = null;
@@ -287,8 +273,17 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
     public synchronized void close() throws BackendException {
         if (!isOpen) return;
         this.isOpen = false;
-        if (readExecutor!=null) readExecutor.shutdown();
-        if (sendThread!=null) sendThread.close(CLOSE_DOWN_WAIT);
+        if (readExecutor!=null) {
+            for (MessagePuller puller : msgPullers) {
+                puller.cancel();
+            }
+            readExecutor.shutdown();
+        }
+        try {
+            manager.flushMessages();
+        } catch (JanusGraphException e) {
+            log.error("Could not send all messages of KCVSLog "+name+" before closing it",e);
+        }
         if (readExecutor!=null) {
             try {
                 readExecutor.awaitTermination(1,TimeUnit.SECONDS);
@@ -311,13 +306,7 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
 
     @Override
     public StoreTransaction openTx() throws BackendException {
-        StandardBaseTransactionConfig config;
-        if (keyConsistentOperations) {
-            config = StandardBaseTransactionConfig.of(times,manager.storeManager.getFeatures().getKeyConsistentTxConfig());
-        } else {
-            config = StandardBaseTransactionConfig.of(times);
-        }
-        return manager.storeManager.beginTransaction(config);
+        return manager.openTx();
     }
 
     /**
@@ -417,7 +406,7 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
         FutureMessage futureMessage = new FutureMessage(msg);
 
         StaticBuffer key=getLogKey(partitionId,(int)(numBucketCounter.incrementAndGet()%numBuckets),getTimeSlice(timestamp));
-        MessageEnvelope envelope = new MessageEnvelope(futureMessage,key,writeMessage(msg));
+        MessageEnvelope envelope = new MessageEnvelope(name,futureMessage,key,writeMessage(msg));
 
         if (persistor!=null) {
             try {
@@ -427,15 +416,9 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
                 envelope.message.failed(e);
                 throw e;
             }
-        } else if (outgoingMsg==null) {
-            sendMessages(ImmutableList.of(envelope));
         } else {
-            try {
-                outgoingMsg.put(envelope); //Produces back pressure when full
-                log.debug("Enqueued {} for partition {}", envelope, partitionId);
-            } catch (InterruptedException e) {
-                throw new JanusGraphException("Got interrupted waiting to send message",e);
-            }
+            manager.send(envelope);
+            log.debug("Sent or enqueued {} for partition {}", envelope, partitionId);
         }
         return futureMessage;
     }
@@ -443,13 +426,15 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
     /**
      * Helper class to hold the message and its serialization for writing
      */
-    private static class MessageEnvelope {
+    static class MessageEnvelope {
 
+        final String logName;
         final FutureMessage<KCVSMessage> message;
         final StaticBuffer key;
         final Entry entry;
 
-        private MessageEnvelope(FutureMessage<KCVSMessage> message, StaticBuffer key, Entry entry) {
+        private MessageEnvelope(String logName, FutureMessage<KCVSMessage> message, StaticBuffer key, Entry entry) {
+            this.logName = logName;
             this.message = message;
             this.key = key;
             this.entry = entry;
@@ -457,137 +442,11 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
 
         @Override
         public String toString() {
-            return "MessageEnvelope[message=" + message + ",key=" + key
+            return "MessageEnvelope[log=" + logName + ",message=" + message + ",key=" + key
                     + ",entry=" + entry + "]";
         }
     }
 
-    /**
-     * Sends a batch of messages by persisting them to the storage backend.
-     *
-     * @param msgEnvelopes
-     */
-    private void sendMessages(final List<MessageEnvelope> msgEnvelopes) {
-        try {
-            boolean success=BackendOperation.execute(new BackendOperation.Transactional<Boolean>() {
-                @Override
-                public Boolean call(StoreTransaction txh) throws BackendException {
-                    ListMultimap<StaticBuffer,Entry> mutations = ArrayListMultimap.create();
-                    for (MessageEnvelope env : msgEnvelopes) {
-                        mutations.put(env.key,env.entry);
-                        long ts = env.entry.getColumn().getLong(0);
-                        log.debug("Preparing to write {} to storage with column/timestamp {}", env, times.getTime(ts));
-                    }
-
-                    final Map<StaticBuffer,KCVMutation> muts = new HashMap<>(mutations.keySet().size());
-                    for (StaticBuffer key : mutations.keySet()) {
-                        muts.put(key,new KCVMutation(mutations.get(key),KeyColumnValueStore.NO_DELETIONS));
-                        log.debug("Built mutation on key {} with {} additions", key, mutations.get(key).size());
-                    }
-                    manager.storeManager.mutateMany(ImmutableMap.of(store.getName(),muts),txh);
-                    log.debug("Wrote {} total envelopes with operation timestamp {}", msgEnvelopes.size(), txh.getConfiguration().getCommitTime());
-                    return Boolean.TRUE;
-                }
-                @Override
-                public String toString() {
-                    return "messageSending";
-                }
-            },this, times, maxWriteTime);
-            Preconditions.checkState(success);
-            log.debug("Wrote {} messages to backend",msgEnvelopes.size());
-            for (MessageEnvelope msgEnvelope : msgEnvelopes)
-                msgEnvelope.message.delivered();
-        } catch (JanusGraphException e) {
-            for (MessageEnvelope msgEnvelope : msgEnvelopes)
-                msgEnvelope.message.failed(e);
-            throw e;
-        }
-    }
-
-    /**
-     * This background thread only gets started when messages are locally queued for up to a maximum number of microseconds
-     * or until the maximum number of local messages is reached.
-     * This thread waits for either event and then triggers {@link #sendMessages(java.util.List)} call to persist the messages.
-     */
-    private class SendThread extends BackgroundThread {
-
-        private final List<MessageEnvelope> toSend;
-
-        public SendThread() {
-            super("KCVSLogSend"+name, false);
-            toSend = new ArrayList<>(sendBatchSize * 3 / 2);
-        }
-
-        private Duration timeSinceFirstMsg() {
-
-            Duration sinceFirst =  Duration.ZERO;
-
-            if (!toSend.isEmpty()) {
-                Instant firstTimestamp = toSend.get(0).message.getMessage().getTimestamp();
-                Instant nowTimestamp   = times.getTime();
-
-                if (firstTimestamp.compareTo(nowTimestamp) < 0) {
-                    sinceFirst = Duration.between(firstTimestamp, nowTimestamp);
-                }
-            }
-
-            return sinceFirst;
-        }
-
-        private Duration maxWaitTime() {
-            if (!toSend.isEmpty()) {
-                return maxSendDelay.minus(timeSinceFirstMsg());
-            }
-
-            return FOREVER;
-        }
-
-        @Override
-        protected void waitCondition() throws InterruptedException {
-
-            MessageEnvelope msg = outgoingMsg.poll(maxWaitTime().toNanos(), TimeUnit.NANOSECONDS);
-            if (msg!=null) toSend.add(msg);
-        }
-
-        @Override
-        protected void action() {
-            MessageEnvelope msg;
-            //Opportunistically drain the queue for up to the batch-send-size number of messages before evaluating condition
-            while (toSend.size()<sendBatchSize && (msg=outgoingMsg.poll())!=null) {
-                toSend.add(msg);
-            }
-            //Evaluate send condition: 1) Is the oldest message waiting longer than the delay? or 2) Do we have enough messages to send?
-            if (!toSend.isEmpty() && (maxSendDelay.compareTo(timeSinceFirstMsg()) <= 0 || toSend.size() >= sendBatchSize)) {
-                try {
-                    sendMessages(toSend);
-                } finally {
-                    toSend.clear();
-                }
-            }
-        }
-
-        @Override
-        protected void cleanup() {
-            //Send all remaining messages
-            if (!toSend.isEmpty() || !outgoingMsg.isEmpty()) {
-                //There are still messages waiting to be sent
-                toSend.addAll(outgoingMsg);
-                for (int i=0;i<toSend.size();i=i+sendBatchSize) {
-                    List<MessageEnvelope> subset = toSend.subList(i,Math.min(toSend.size(),i+sendBatchSize));
-                    try {
-                        sendMessages(subset);
-                    } catch (RuntimeException e) {
-                        //Fail all remaining messages
-                        for (int j=i+sendBatchSize;j<toSend.size();j++) {
-                            toSend.get(j).message.failed(e);
-                        }
-                        throw e;
-                    }
-                }
-            }
-        }
-    }
-
     /**
      * ###################################
      *  Message Reading
@@ -622,12 +481,17 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
                 for (int bucketId = 0; bucketId < numBuckets; bucketId++) {
                     msgPullers[pos]=new MessagePuller(partitionId,bucketId);
 
-                    log.debug("Creating log read executor: initialDelay={} delay={} unit={}", INITIAL_READER_DELAY.toNanos(), readPollingInterval.toNanos(), TimeUnit.NANOSECONDS);
-                    readExecutor.scheduleWithFixedDelay(
-                            msgPullers[pos],
-                            INITIAL_READER_DELAY.toNanos(),
-                            readPollingInterval.toNanos(),
-                            TimeUnit.NANOSECONDS);
+                    if (adaptiveReadInterval) {
+                        log.debug("Creating adaptive log read executor: initialDelay={} minDelay={} maxDelay={} unit={}", INITIAL_READER_DELAY.toNanos(), minReadInterval.toNanos(), readPollingInterval.toNanos(), TimeUnit.NANOSECONDS);
+                        msgPullers[pos].schedule(INITIAL_READER_DELAY);
+                    } else {
+                        log.debug("Creating log read executor: initialDelay={} delay={} unit={}", INITIAL_READER_DELAY.toNanos(), readPollingInterval.toNanos(), TimeUnit.NANOSECONDS);
+                        readExecutor.scheduleWithFixedDelay(
+                                msgPullers[pos],
+                                INITIAL_READER_DELAY.toNanos(),
+                                readPollingInterval.toNanos(),
+                                TimeUnit.NANOSECONDS);
+                    }
                     pos++;
                 }
             }
@@ -659,6 +523,7 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
      * or current timestamp minus the configured read lag time {@link #LOG_READ_LAG_TIME}.
      * The read marker is used to initialize the start time to read from. If a read marker is configured, then
      * the read marker time is looked up for initialization.
+     * With an adaptive read interval, the puller schedules its next execution itself.
      */
     private class MessagePuller implements Runnable {
 
@@ -667,14 +532,44 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
 
         private Instant messageTimeStart;
 
+        private Duration readInterval;
+        private ScheduledFuture<?> nextRead;
+
         private MessagePuller(final int partitionId, final int bucketId) {
             this.bucketId = bucketId;
             this.partitionId = partitionId;
+            this.readInterval = minReadInterval;
             initializeTimepoint();
         }
 
         @Override
         public void run() {
+            final int numMessages = pullMessages();
+            if (adaptiveReadInterval) {
+                if (numMessages > 0) {
+                    readInterval = minReadInterval;
+                } else {
+                    final Duration backoff = readInterval.multipliedBy(2);
+                    readInterval = backoff.compareTo(readPollingInterval) < 0 ? backoff : readPollingInterval;
+                }
+                schedule(readInterval);
+            }
+        }
+
+        private synchronized void schedule(Duration delay) {
+            if (isOpen) nextRead = readExecutor.schedule(this, delay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private synchronized void cancel() {
+            if (nextRead != null) nextRead.cancel(false);
+        }
+
+        /**
+         * Reads the messages of the next time window and submits them for processing.
+         *
+         * @return the number of messages read
+         */
+        private int pullMessages() {
             try {
                 setReadMarker();
 
@@ -713,7 +608,7 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
                         log.debug("MessagePuller configured with ReadMarker timestamp slightly ahead of read lag time; waiting for the clock to catch up");
                     }
 
-                    return;
+                    return 0;
                 }
                 Preconditions.checkState(messageTimeStart.compareTo(messageTimeEnd) < 0);
                 Preconditions.checkState(messageTimeEnd.compareTo(currentTime) <= 0, "Attempting to read messages from the future: messageTimeEnd=% vs currentTime=%s", messageTimeEnd, currentTime);
@@ -725,6 +620,7 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
 
                 List<Entry> entries= BackendOperation.execute(getOperation(query),KCVSLog.this,times,maxReadTime);
                 prepareMessageProcessing(entries);
+                int numMessages = entries.size();
                 if (entries.size()>=maxReadMsg) {
                     /*Read another set of messages to ensure that we have exhausted all messages to the next timestamp.
                     Since we have reached the request limit, it may be possible that there are additional messages
@@ -738,10 +634,13 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
                     log.debug("Converted extended MessagePuller time window to {}", query);
                     List<Entry> extraEntries = BackendOperation.execute(getOperation(query),KCVSLog.this,times,maxReadTime);
                     prepareMessageProcessing(extraEntries);
+                    numMessages += extraEntries.size();
                 }
                 messageTimeStart = messageTimeEnd;
+                return numMessages;
             } catch (Throwable e) {
                 log.warn("Could not read messages for timestamp ["+messageTimeStart+"] (this read will be retried)",e);
+                return 0;
             }
         }
 
@@ -759,9 +658,17 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
         }
 
         private void prepareMessageProcessing(List<Entry> entries) {
+            if (null != metricsPrefix && !entries.isEmpty()) {
+                MetricManager.INSTANCE.getCounter(metricsPrefix, M_LOG, name, M_READ, M_MESSAGES).inc(entries.size());
+            }
+            final Instant now = times.getTime();
             for (Entry entry : entries) {
                 KCVSMessage message = parseMessage(entry);
                 log.debug("Parsed message {}, about to submit this message to the reader executor", message);
+                if (null != metricsPrefix) {
+                    MetricManager.INSTANCE.getHistogram(metricsPrefix, M_LOG, name, M_READ, M_LAG)
+                        .update(Duration.between(message.getTimestamp(), now).toMillis());
+                }
                 for (MessageReader reader : readers) {
                     readExecutor.submit(new ProcessMessageJob(message,reader));
                 }
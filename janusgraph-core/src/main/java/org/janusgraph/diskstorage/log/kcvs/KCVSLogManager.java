@@ -15,8 +15,12 @@
 package org.janusgraph.diskstorage.log.kcvs;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import org.janusgraph.core.JanusGraphException;
 import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.StoreMetaData;
 import org.janusgraph.diskstorage.configuration.ConfigOption;
 import org.janusgraph.diskstorage.configuration.Configuration;
@@ -24,24 +28,40 @@ import org.janusgraph.diskstorage.keycolumnvalue.*;
 import org.janusgraph.diskstorage.keycolumnvalue.ttl.TTLKCVSManager;
 import org.janusgraph.diskstorage.log.Log;
 import org.janusgraph.diskstorage.log.LogManager;
+import org.janusgraph.diskstorage.log.kcvs.KCVSLog.MessageEnvelope;
+import org.janusgraph.diskstorage.util.BackendOperation;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.time.TimestampProvider;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
 import org.janusgraph.graphdb.configuration.PreInitializeConfigOptions;
 import org.janusgraph.graphdb.database.idassigner.placement.PartitionIDRange;
 import org.janusgraph.graphdb.database.serialize.StandardSerializer;
 import org.janusgraph.util.encoding.ConversionHelper;
+import org.janusgraph.util.stats.MetricManager;
 import org.janusgraph.util.stats.NumberUtil;
+import org.janusgraph.util.system.BackgroundThread;
 import org.janusgraph.util.system.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.*;
 
 /**
  * Implementation of {@link LogManager} against an arbitrary {@link KeyColumnValueStoreManager}. Issues {@link Log} instances
  * which wrap around a {@link KeyColumnValueStore}.
+ * <p>
+ * Messages added to the logs opened by this manager are queued up by a single send thread for up to the configured
+ * send delay and persisted together with one {@link KeyColumnValueStoreManager#mutateMany(Map, StoreTransaction)} call,
+ * regardless of which of these logs they belong to. Logs of different managers are never batched together, e.g.
+ * {@link org.janusgraph.diskstorage.Backend} uses separate managers for the transaction log and the user logs.
  *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
@@ -68,6 +88,26 @@ public class KCVSLogManager implements LogManager {
      */
     public static final int CLUSTER_SIZE_DIVIDER = 8;
 
+    /**
+     * For batch sending to make sense against a KCVS, the maximum send/delivery delay must be at least
+     * this number. If the delivery delay is configured to be smaller than this time interval, messages
+     * will be send immediately since batching will likely be ineffective.
+     */
+    private final static Duration MIN_DELIVERY_DELAY = Duration.ofMillis(10L);
+
+    /**
+     * Multiplier for the maximum number of messages to hold in the outgoing message queue before producing back pressure.
+     * Multiplied with the message sending batch size.
+     * If back pressure is a regular occurrence, decrease the sending interval or increase the sending batch size
+     */
+    private final static int BATCH_SIZE_MULTIPLIER = 10;
+    /**
+     * Wait time after the last log is closed for the send thread to send all queued messages and shut down.
+     */
+    private final static Duration CLOSE_DOWN_WAIT = Duration.ofSeconds(10L);
+
+    private final static Duration FOREVER = Duration.ofNanos(Long.MAX_VALUE); // TODO remove this
+
 
     /**
      * Configuration of this log manager
@@ -110,6 +150,21 @@ public class KCVSLogManager implements LogManager {
      */
     private final int indexStoreTTL;
 
+    private final TimestampProvider times;
+    private final boolean keyConsistentOperations;
+    private final int sendBatchSize;
+    private final Duration maxSendDelay;
+    private final Duration maxWriteTime;
+    /**
+     * Prefix of the metrics recording the messages sent by the open logs or null if metrics are disabled
+     */
+    private final String metricsPrefix;
+    /**
+     * Background thread which periodically writes out the queued up messages of all open logs or null if messages are
+     * sent immediately or no log is open
+     */
+    private volatile SendThread sendThread;
+
     /**
      * Opens a log manager against the provided KCVS store with the given configuration.
      * @param storeManager
@@ -202,6 +257,13 @@ public class KCVSLogManager implements LogManager {
         }
 
         this.serializer = new StandardSerializer();
+
+        this.times = config.get(TIMESTAMP_PROVIDER);
+        this.keyConsistentOperations = config.get(KCVSLog.LOG_KEY_CONSISTENT);
+        this.sendBatchSize = config.get(LOG_SEND_BATCH_SIZE);
+        this.maxSendDelay = config.get(LOG_SEND_DELAY);
+        this.maxWriteTime = config.get(KCVSLog.LOG_MAX_WRITE_TIME);
+        this.metricsPrefix = config.get(BASIC_METRICS) ? config.get(METRICS_PREFIX) : null;
     }
 
     private static void checkValidPartitionId(int partitionId, int partitionBitWidth) {
@@ -217,6 +279,10 @@ public class KCVSLogManager implements LogManager {
         }
         KCVSLog log = new KCVSLog(name,this,storeManager.openDatabase(name, storeOptions),configuration);
         openLogs.put(name,log);
+        if (sendThread==null && MIN_DELIVERY_DELAY.compareTo(maxSendDelay) <= 0) { // No need to locally queue messages since they will be sent immediately
+            sendThread = new SendThread();
+            sendThread.start();
+        }
         return log;
     }
 
@@ -228,6 +294,236 @@ public class KCVSLogManager implements LogManager {
     synchronized void closedLog(KCVSLog log) {
         KCVSLog l = openLogs.remove(log.getName());
         assert l==log;
+        if (openLogs.isEmpty() && sendThread!=null) {
+            sendThread.close(CLOSE_DOWN_WAIT);
+            sendThread = null;
+        }
+    }
+
+    StoreTransaction openTx() throws BackendException {
+        StandardBaseTransactionConfig config;
+        if (keyConsistentOperations) {
+            config = StandardBaseTransactionConfig.of(times,storeManager.getFeatures().getKeyConsistentTxConfig());
+        } else {
+            config = StandardBaseTransactionConfig.of(times);
+        }
+        return storeManager.beginTransaction(config);
+    }
+
+    /**
+     * ###################################
+     *  Message Sending
+     * ###################################
+     */
+
+    /**
+     * Sends the message immediately or enqueues it with the send thread if messages are sent in batches.
+     *
+     * @param envelope
+     */
+    void send(MessageEnvelope envelope) {
+        final SendThread sender = sendThread;
+        if (sender==null) {
+            sendMessages(ImmutableList.of(envelope));
+        } else {
+            sender.add(envelope);
+        }
+    }
+
+    /**
+     * Sends all queued messages. Must be called by a {@link KCVSLog} before it is closed so that its messages
+     * are persisted before its store is closed.
+     */
+    void flushMessages() {
+        final SendThread sender = sendThread;
+        if (sender!=null) sender.flush();
+    }
+
+    /**
+     * Sends a batch of messages by persisting them to the storage backend.
+     *
+     * @param msgEnvelopes
+     */
+    private void sendMessages(final List<MessageEnvelope> msgEnvelopes) {
+        try {
+            boolean success=BackendOperation.execute(new BackendOperation.Transactional<Boolean>() {
+                @Override
+                public Boolean call(StoreTransaction txh) throws BackendException {
+                    final Map<String,Map<StaticBuffer,List<Entry>>> additions = new HashMap<>();
+                    for (MessageEnvelope env : msgEnvelopes) {
+                        additions.computeIfAbsent(env.logName, k -> new HashMap<>())
+                                .computeIfAbsent(env.key, k -> new ArrayList<>()).add(env.entry);
+                        long ts = env.entry.getColumn().getLong(0);
+                        log.debug("Preparing to write {} to storage with column/timestamp {}", env, times.getTime(ts));
+                    }
+
+                    final Map<String,Map<StaticBuffer,KCVMutation>> mutations = new HashMap<>(additions.size());
+                    for (Map.Entry<String,Map<StaticBuffer,List<Entry>>> logAdditions : additions.entrySet()) {
+                        final Map<StaticBuffer,KCVMutation> muts = new HashMap<>(logAdditions.getValue().size());
+                        for (Map.Entry<StaticBuffer,List<Entry>> keyAdditions : logAdditions.getValue().entrySet()) {
+                            muts.put(keyAdditions.getKey(),new KCVMutation(keyAdditions.getValue(),KeyColumnValueStore.NO_DELETIONS));
+                            log.debug("Built mutation on key {} with {} additions", keyAdditions.getKey(), keyAdditions.getValue().size());
+                        }
+                        mutations.put(logAdditions.getKey(),muts);
+                    }
+                    storeManager.mutateMany(mutations,txh);
+                    log.debug("Wrote {} total envelopes of {} logs with operation timestamp {}", msgEnvelopes.size(), mutations.size(), txh.getConfiguration().getCommitTime());
+                    return Boolean.TRUE;
+                }
+                @Override
+                public String toString() {
+                    return "messageSending";
+                }
+            },new BackendOperation.TransactionalProvider() {
+                @Override
+                public StoreTransaction openTx() throws BackendException {
+                    return KCVSLogManager.this.openTx();
+                }
+                @Override
+                public void close() {
+                    //Do nothing, the store manager is closed by the owner of this log manager
+                }
+            }, times, maxWriteTime);
+            Preconditions.checkState(success);
+            log.debug("Wrote {} messages to backend",msgEnvelopes.size());
+            for (MessageEnvelope msgEnvelope : msgEnvelopes)
+                msgEnvelope.message.delivered();
+            if (metricsPrefix!=null) {
+                final Map<String,Integer> numMessages = new HashMap<>();
+                for (MessageEnvelope msgEnvelope : msgEnvelopes) numMessages.merge(msgEnvelope.logName, 1, Integer::sum);
+                numMessages.forEach((logName, num) -> MetricManager.INSTANCE.getCounter(metricsPrefix,
+                        KCVSLog.M_LOG, logName, KCVSLog.M_SEND, KCVSLog.M_MESSAGES).inc(num));
+            }
+        } catch (JanusGraphException e) {
+            for (MessageEnvelope msgEnvelope : msgEnvelopes)
+                msgEnvelope.message.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * This background thread only gets started when messages are locally queued for up to a maximum number of microseconds
+     * or until the maximum number of local messages is reached.
+     * This thread waits for either event and then triggers {@link #sendMessages(java.util.List)} call to persist the messages
+     * of all open logs.
+     */
+    private class SendThread extends BackgroundThread {
+
+        /**
+         * Used for batch addition of messages to the logs. Newly added entries are buffered in this queue before being written in batch
+         */
+        private final ArrayBlockingQueue<MessageEnvelope> outgoingMsg;
+        /**
+         * Messages taken from the queue which are about to be sent. Also guards sending so that logs can flush concurrently
+         * to this thread.
+         */
+        private final List<MessageEnvelope> toSend;
+        /**
+         * Signals newly added messages to this thread, which only takes them off the queue while holding the lock on
+         * {@link #toSend}. Otherwise {@link #flush()} could miss a message that is in transit between the two.
+         */
+        private final Semaphore added = new Semaphore(0);
+
+        public SendThread() {
+            super("KCVSLogSend", false);
+            outgoingMsg = new ArrayBlockingQueue<>(sendBatchSize * BATCH_SIZE_MULTIPLIER);
+            toSend = new ArrayList<>(sendBatchSize * 3 / 2);
+        }
+
+        private void add(MessageEnvelope envelope) {
+            try {
+                outgoingMsg.put(envelope); //Produces back pressure when full
+                added.release();
+            } catch (InterruptedException e) {
+                throw new JanusGraphException("Got interrupted waiting to send message",e);
+            }
+        }
+
+        private Duration timeSinceFirstMsg() {
+
+            Duration sinceFirst =  Duration.ZERO;
+
+            if (!toSend.isEmpty()) {
+                Instant firstTimestamp = toSend.get(0).message.getMessage().getTimestamp();
+                Instant nowTimestamp   = times.getTime();
+
+                if (firstTimestamp.compareTo(nowTimestamp) < 0) {
+                    sinceFirst = Duration.between(firstTimestamp, nowTimestamp);
+                }
+            }
+
+            return sinceFirst;
+        }
+
+        private Duration maxWaitTime() {
+            synchronized (toSend) {
+                if (!toSend.isEmpty()) {
+                    return maxSendDelay.minus(timeSinceFirstMsg());
+                }
+            }
+
+            return FOREVER;
+        }
+
+        @Override
+        protected void waitCondition() throws InterruptedException {
+
+            if (!outgoingMsg.isEmpty()) return;
+            if (added.tryAcquire(maxWaitTime().toNanos(), TimeUnit.NANOSECONDS)) {
+                //The messages are taken off the queue in action()
+                added.drainPermits();
+            }
+        }
+
+        @Override
+        protected void action() {
+            synchronized (toSend) {
+                MessageEnvelope msg;
+                //Opportunistically drain the queue for up to the batch-send-size number of messages before evaluating condition
+                while (toSend.size()<sendBatchSize && (msg=outgoingMsg.poll())!=null) {
+                    toSend.add(msg);
+                }
+                //Evaluate send condition: 1) Is the oldest message waiting longer than the delay? or 2) Do we have enough messages to send?
+                if (!toSend.isEmpty() && (maxSendDelay.compareTo(timeSinceFirstMsg()) <= 0 || toSend.size() >= sendBatchSize)) {
+                    try {
+                        sendMessages(toSend);
+                    } finally {
+                        toSend.clear();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sends all messages which are queued up at this point in batches of at most the send batch size.
+         */
+        private void flush() {
+            synchronized (toSend) {
+                outgoingMsg.drainTo(toSend);
+                try {
+                    for (int i=0;i<toSend.size();i=i+sendBatchSize) {
+                        List<MessageEnvelope> subset = toSend.subList(i,Math.min(toSend.size(),i+sendBatchSize));
+                        try {
+                            sendMessages(subset);
+                        } catch (RuntimeException e) {
+                            //Fail all remaining messages
+                            for (int j=i+sendBatchSize;j<toSend.size();j++) {
+                                toSend.get(j).message.failed(e);
+                            }
+                            throw e;
+                        }
+                    }
+                } finally {
+                    toSend.clear();
+                }
+            }
+        }
+
+        @Override
+        protected void cleanup() {
+            //Send all remaining messages
+            flush();
+        }
     }
 
     @Override
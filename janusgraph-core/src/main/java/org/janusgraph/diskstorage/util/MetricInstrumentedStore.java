@@ -40,6 +40,9 @@ import org.janusgraph.util.stats.MetricManager;
  * calling {@link MetricRegistry#name(Class, String...)},
  * where methodName is the exact name of the method including capitalization,
  * and identifier is "time", "calls", or "exceptions".
+ * The total runtime in nanoseconds is additionally counted with the identifier
+ * "time-total" so that the mean latency of any period can be derived from two
+ * readings of it and of the call count of the Timer.
  * <p/>
  * In addition to the three standard metrics, {@code getSlice} and
  * {@code getKeys} have some additional metrics related to their return values.
@@ -81,12 +84,13 @@ public class MetricInstrumentedStore implements KeyColumnValueStore {
 
     public static final String M_CALLS = "calls";
     public static final String M_TIME = "time";
+    public static final String M_TIME_TOTAL = "time-total";
     public static final String M_EXCEPTIONS = "exceptions";
     public static final String M_ENTRIES_COUNT = "entries-returned";
     public static final String M_ENTRIES_HISTO = "entries-histogram";
 
     public static final List<String> EVENT_NAMES =
-            ImmutableList.of(M_CALLS,M_TIME,M_EXCEPTIONS,M_ENTRIES_COUNT,M_ENTRIES_HISTO);
+            ImmutableList.of(M_CALLS,M_TIME,M_TIME_TOTAL,M_EXCEPTIONS,M_ENTRIES_COUNT,M_ENTRIES_HISTO);
 
     public static final String M_ITERATOR = "iterator";
 
@@ -206,7 +210,7 @@ public class MetricInstrumentedStore implements KeyColumnValueStore {
             mgr.getCounter(prefix, storeName, name, M_EXCEPTIONS).inc();
             throw e;
         } finally {
-            tc.stop();
+            mgr.getCounter(prefix, storeName, name, M_TIME_TOTAL).inc(tc.stop());
         }
     }
 
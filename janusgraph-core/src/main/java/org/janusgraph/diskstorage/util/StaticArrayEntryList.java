@@ -451,6 +451,65 @@ public class StaticArrayEntryList extends AbstractList<Entry> implements EntryLi
         return newData;
     }
 
+    /* #########################################
+            Serialization
+     ########################################### */
+
+    /*
+     * Serialized format: [int numEntries][byte schemaLength][schema ordinals][long limitAndValuePos * numEntries][data]
+     * An empty list is written as a single zero int. Relation caches are transient and not written.
+     */
+
+    /**
+     * Returns the number of bytes {@link #writeTo(EntryList, ByteBuffer)} writes for the given list, which must
+     * either be empty or a {@link StaticArrayEntryList}.
+     */
+    public static int getSerializedSize(EntryList entries) {
+        if (entries.isEmpty()) return 4;
+        Preconditions.checkArgument(entries instanceof StaticArrayEntryList, "Unsupported entry list: %s", entries.getClass());
+        StaticArrayEntryList list = (StaticArrayEntryList)entries;
+        return 4 + 1 + list.metaDataSchema.length + 8 * list.limitAndValuePos.length + list.getDataLength();
+    }
+
+    /**
+     * Writes the given list, which must either be empty or a {@link StaticArrayEntryList}, to the buffer
+     * starting at its current position. The list can be read back with {@link #readFrom(ByteBuffer)}.
+     */
+    public static void writeTo(EntryList entries, ByteBuffer out) {
+        if (entries.isEmpty()) {
+            out.putInt(0);
+            return;
+        }
+        Preconditions.checkArgument(entries instanceof StaticArrayEntryList, "Unsupported entry list: %s", entries.getClass());
+        StaticArrayEntryList list = (StaticArrayEntryList)entries;
+        out.putInt(list.limitAndValuePos.length);
+        out.put((byte)list.metaDataSchema.length);
+        for (EntryMetaData meta : list.metaDataSchema) out.put((byte)meta.ordinal());
+        for (long lvp : list.limitAndValuePos) out.putLong(lvp);
+        out.put(list.data, 0, list.getDataLength());
+    }
+
+    /**
+     * Reads a list that was written by {@link #writeTo(EntryList, ByteBuffer)} from the buffer starting at its
+     * current position.
+     */
+    public static EntryList readFrom(ByteBuffer in) {
+        int num = in.getInt();
+        if (num==0) return EMPTY_LIST;
+        Preconditions.checkArgument(num>0, "Invalid number of entries: %s", num);
+        EntryMetaData[] schema = new EntryMetaData[in.get()];
+        for (int i=0;i<schema.length;i++) schema[i]=EntryMetaData.values()[in.get()];
+        long[] limitAndValuePos = new long[num];
+        for (int i=0;i<num;i++) limitAndValuePos[i]=in.getLong();
+        byte[] data = new byte[getLimit(limitAndValuePos[num-1])];
+        in.get(data);
+        return new StaticArrayEntryList(data,limitAndValuePos,schema);
+    }
+
+    private int getDataLength() {
+        return getLimit(limitAndValuePos[limitAndValuePos.length-1]);
+    }
+
     /* #########################################
             Meta Data Management
      ########################################### */
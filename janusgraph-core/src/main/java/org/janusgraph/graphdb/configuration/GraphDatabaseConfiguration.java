@@ -204,6 +204,24 @@ public class GraphDatabaseConfiguration {
     public static final ConfigOption<Long> JOB_START_TIME = new ConfigOption<>(JOB_NS,"start-time",
             "Timestamp (ms since epoch) when the job started. Automatically set.", ConfigOption.Type.LOCAL, Long.class).hide();
 
+    public static final ConfigNamespace JOB_THROTTLE_NS = new ConfigNamespace(JOB_NS,"throttle",
+            "Limits the rate at which scan jobs read the storage backend");
+
+    public static final ConfigOption<Long> JOB_THROTTLE_ROWS = new ConfigOption<>(JOB_THROTTLE_NS,"rows-per-second",
+            "Maximum number of rows per second that the job processes. Set to 0 to not limit the number of rows.",
+            ConfigOption.Type.LOCAL, 0L, l -> l!=null && l>=0);
+
+    public static final ConfigOption<Long> JOB_THROTTLE_BYTES = new ConfigOption<>(JOB_THROTTLE_NS,"bytes-per-second",
+            "Maximum number of bytes per second that the job processes, counting the keys, columns and values of its rows. " +
+            "Set to 0 to not limit the number of bytes.",
+            ConfigOption.Type.LOCAL, 0L, l -> l!=null && l>=0);
+
+    public static final ConfigOption<Duration> JOB_THROTTLE_MAX_READ_LATENCY = new ConfigOption<>(JOB_THROTTLE_NS,"max-read-latency",
+            "Target for the mean read latency of the storage backend observed by the graph's transactions. While the latency exceeds " +
+            "the target, the job halves its rate and it recovers gradually once the latency is below the target again. " +
+            "Requires basic metrics to be enabled. Set to 0 to disable adaptive throttling.",
+            ConfigOption.Type.LOCAL, Duration.ZERO, d -> d!=null && !d.isNegative());
+
 
     public static final ConfigNamespace COMPUTER_NS = new ConfigNamespace(ROOT_NS,"computer",
             "GraphComputer related configuration");
@@ -273,6 +291,18 @@ public class GraphDatabaseConfiguration {
                     "performance improvement if there is a non-trivial latency to the backend.",
             ConfigOption.Type.MASKABLE, false);
 
+    public static final ConfigOption<Integer> MULTIQUERY_BATCH_SIZE = new ConfigOption<>(QUERY_NS,"batch-size",
+            "Maximum number of vertices whose relations are retrieved in one batch when traversal queries are batched " +
+                    "(see query.batch). Larger batches need fewer round-trips to the storage backend, but more memory and " +
+                    "time until the first result is returned.",
+            ConfigOption.Type.MASKABLE, 2500, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Boolean> PARALLEL_INDEX_INTERSECTION = new ConfigOption<>(QUERY_NS,"parallel-index-intersection",
+            "Whether the index queries of a graph query that is answered by intersecting several indexes are executed " +
+                    "concurrently on the thread pool of the storage backend (see storage.parallel-backend-ops). Only enable " +
+                    "this if all index backends in use support concurrent queries within the same transaction.",
+            ConfigOption.Type.MASKABLE, false);
+
     // ################ SCHEMA #######################
     // ################################################
 
@@ -357,6 +387,32 @@ public class GraphDatabaseConfiguration {
             "triggers eviction when set to 0).",
             ConfigOption.Type.GLOBAL_OFFLINE, 10000L);
 
+    /**
+     * Whether the database level cache holds its entries serialized in off-heap memory rather than as objects on the
+     * heap. Off-heap entries do not add to garbage collection pauses, but have to be deserialized on every read.
+     */
+    public static final ConfigOption<Boolean> DB_CACHE_OFF_HEAP = new ConfigOption<>(CACHE_NS,"db-cache-off-heap",
+            "Whether to hold the entries of the database-level cache serialized in off-heap memory instead of on the JVM heap. " +
+            "Off-heap entries are only admitted if they are accessed more often than the entries they would evict, so that " +
+            "large scans do not flush frequently accessed data.  An absolute db-cache-size is recommended in this mode, and " +
+            "the JVM's direct memory limit (-XX:MaxDirectMemorySize) must accommodate it.",
+            ConfigOption.Type.MASKABLE, false);
+
+    /**
+     * Whether the split of the database level cache between the edge store and the index store adapts to the
+     * workload instead of assigning a fixed 80% of the cache size to the edge store.
+     */
+    public static final ConfigOption<Boolean> DB_CACHE_ADAPTIVE_SPLIT = new ConfigOption<>(CACHE_NS,"db-cache-adaptive-split",
+            "Whether to periodically move capacity of the database-level cache between the edge store and the index store " +
+            "toward whichever improves the combined hit rate.  When disabled, the edge store gets 80% and the index store " +
+            "20% of the cache size.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Duration> DB_CACHE_ADAPTIVE_SPLIT_INTERVAL = new ConfigOption<>(CACHE_NS,"db-cache-adaptive-split-interval",
+            "Time (in ms) between adjustments of the database-level cache split when db-cache-adaptive-split is enabled. " +
+            "Must be positive.",
+            ConfigOption.Type.MASKABLE, Duration.ofSeconds(10), d -> d!=null && !d.isNegative() && !d.isZero());
+
     /**
      * Configures the maximum number of recently-used vertices cached by a transaction. The smaller the cache size, the
      * less memory a transaction can consume at maximum. For many concurrent, long running transactions in memory constraint
@@ -385,6 +441,17 @@ public class GraphDatabaseConfiguration {
           "If set, it should roughly match the median vertices modified per transaction.",
           ConfigOption.Type.MASKABLE, Integer.class);
 
+    /**
+     * Configures the maximum size in bytes of the relation slices which the vertices of a transaction keep in memory after
+     * loading them from the storage backend. When the cached slices exceed this size, the least recently used slices are
+     * evicted and are read from the storage backend again if they are queried later in the transaction.
+     * A value of 0 does not bound the size.
+     */
+    public static final ConfigOption<Long> TX_RELATION_CACHE_SIZE = new ConfigOption<>(CACHE_NS, "tx-relation-cache-size",
+            "Maximum size in bytes of the relation slices cached by the vertices of a transaction. The least recently used " +
+            "slices are evicted when this size is exceeded. A value of 0 does not bound the size.",
+            ConfigOption.Type.MASKABLE, 0L, size -> size != null && size >= 0);
+
     /**
      * The default value of {@link #TX_DIRTY_SIZE} when batch loading is disabled.
      * This value is only considered if the user does not specify a value for
@@ -454,6 +521,12 @@ public class GraphDatabaseConfiguration {
             "Whether to enable batch loading into the storage backend",
             ConfigOption.Type.LOCAL, false);
 
+    public static final ConfigOption<Integer> STORAGE_BATCH_PIPELINE_DEPTH = new ConfigOption<>(STORAGE_NS,"batch-loading-pipeline-depth",
+            "When batch loading is enabled, the number of full mutation batches (see buffer-size) that are persisted " +
+            "in the background while the transaction keeps adding mutations. If set to 0, batches are persisted " +
+            "synchronously. Requires a storage backend whose transactions can be used by multiple threads.",
+            ConfigOption.Type.MASKABLE, 0, ConfigOption.nonnegativeInt());
+
     /**
      * Enables transactions on storage backends that support them
      */
@@ -573,6 +646,38 @@ public class GraphDatabaseConfiguration {
             "up to this many elements.",
             ConfigOption.Type.MASKABLE, 100);
 
+    /**
+     * Number of key ranges into which scans over the entire storage backend (e.g. by the graph computer or by
+     * reindexing) are split. The key ranges are read in parallel.
+     */
+    public static final ConfigOption<Integer> SCAN_SEGMENTS = new ConfigOption<>(STORAGE_NS,"scan-segments",
+            "Number of key ranges into which full scans of the storage backend are split and read in parallel. " +
+            "Key ranges are only supported by storage backends with ordered scans (e.g. hbase and berkeleyje), " +
+            "other backends are always scanned as a single key range.",
+            ConfigOption.Type.MASKABLE, 1, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Duration> SCAN_CHECKPOINT_INTERVAL = new ConfigOption<>(STORAGE_NS,"scan-checkpoint-interval",
+            "How often reindexing and index removal jobs record the keys up to which they have processed the storage backend. " +
+            "A job that was interrupted resumes from its last checkpoint when it is started again. " +
+            "Checkpoints are only supported by storage backends with ordered scans. Set to 0 to disable checkpoints.",
+            ConfigOption.Type.MASKABLE, Duration.ZERO, d -> d!=null && !d.isNegative());
+
+    public static final ConfigOption<Long> SCAN_ROWS_PER_SECOND = new ConfigOption<>(STORAGE_NS,"scan-rows-per-second",
+            "Maximum number of rows per second that reindexing and index removal jobs process. " +
+            "Set to 0 to not limit the number of rows.",
+            ConfigOption.Type.MASKABLE, 0L, l -> l!=null && l>=0);
+
+    public static final ConfigOption<Long> SCAN_BYTES_PER_SECOND = new ConfigOption<>(STORAGE_NS,"scan-bytes-per-second",
+            "Maximum number of bytes per second that reindexing and index removal jobs read from the storage backend. " +
+            "Set to 0 to not limit the number of bytes.",
+            ConfigOption.Type.MASKABLE, 0L, l -> l!=null && l>=0);
+
+    public static final ConfigOption<Duration> SCAN_MAX_READ_LATENCY = new ConfigOption<>(STORAGE_NS,"scan-max-read-latency",
+            "Target for the mean read latency of the storage backend. Reindexing and index removal jobs slow down while " +
+            "the read latency observed by the graph's transactions exceeds this target. " +
+            "Requires basic metrics to be enabled. Set to 0 to disable adaptive throttling.",
+            ConfigOption.Type.MASKABLE, Duration.ZERO, d -> d!=null && !d.isNegative());
+
     public static final ConfigOption<Boolean> DROP_ON_CLEAR = new ConfigOption<>(STORAGE_NS, "drop-on-clear",
         "Whether to drop the graph database (true) or delete rows (false) when clearing storage. " +
             "Note that some backends always drop the graph database when clearing storage. Also note that indices are " +
@@ -613,6 +718,16 @@ public class GraphDatabaseConfiguration {
             "that no correctly held applications are expired pre-maturely and as small as possible to avoid dead lock.",
             ConfigOption.Type.GLOBAL_OFFLINE, Duration.ofMillis(300 * 1000L));
 
+    /**
+     * Whether to write and check all locks of a transaction in batches. When enabled, lock claims are only written
+     * when the locks are checked at commit time, all in a single batch mutation followed by a single wait of
+     * {@link #LOCK_WAIT} and a single multi-key read, instead of one write, wait and read per lock.
+     */
+    public static final ConfigOption<Boolean> LOCK_BATCH = new ConfigOption<>(LOCK_NS, "batch-locking",
+            "Whether to write and verify the lock claims of a transaction in batches when the locks are checked, " +
+            "instead of one storage backend round-trip per lock write and lock check",
+            ConfigOption.Type.MASKABLE, false);
+
     /**
      * Whether to attempt to delete expired locks from the storage backend. True
      * will attempt to delete expired locks in a background daemon thread. False
@@ -742,6 +857,33 @@ public class GraphDatabaseConfiguration {
             "This helps avoid transaction commits waiting on ID reservation even if the block size is relatively small.",
             ConfigOption.Type.MASKABLE, 0.3);
 
+    /**
+     * The number of id blocks that each id pool keeps reserved ahead of the block it is currently using. More
+     * blocks avoid waiting for id block reservation under bursty load but leave more ids unused on shutdown.
+     */
+    public static final ConfigOption<Integer> IDS_PREFETCH_BLOCKS = new ConfigOption<>(IDS_NS,"prefetch-blocks",
+            "The number of ID blocks that each ID pool reserves ahead of the block it is currently using. Raising this " +
+            "avoids waiting on ID block reservation under bursty load, at the cost of more unused IDs on shutdown.",
+            ConfigOption.Type.MASKABLE, 1, ConfigOption.positiveInt());
+
+    /**
+     * The number of threads shared by all id pools of a graph instance to reserve id blocks.
+     */
+    public static final ConfigOption<Integer> IDS_PREFETCH_THREADS = new ConfigOption<>(IDS_NS,"prefetch-threads",
+            "The number of threads shared by all ID pools to reserve ID blocks in the background when " +
+            "prefetch-blocks is greater than 1. Otherwise each ID pool reserves its blocks on its own thread.",
+            ConfigOption.Type.MASKABLE, 8, ConfigOption.positiveInt());
+
+    /**
+     * Whether the size of reserved id blocks adapts to the rate at which ids are consumed. Block sizes grow
+     * whenever an id pool has to wait for a new block and shrink again when blocks last long.
+     */
+    public static final ConfigOption<Boolean> IDS_ADAPTIVE_BLOCK_SIZE = new ConfigOption<>(IDS_NS,"adaptive-block-size",
+            "Whether to adapt the size of reserved ID blocks to the rate at which IDs are consumed. When enabled, the " +
+            "block size grows up to 16 times the configured block size while ID pools have to wait for new " +
+            "blocks and shrinks back when blocks last long.",
+            ConfigOption.Type.MASKABLE, false);
+
     // ################ IDAUTHORITY ###################
     // ################################################
 
@@ -1209,6 +1351,7 @@ public class GraphDatabaseConfiguration {
     public static final String SYSTEM_PROPERTIES_STORE_NAME = "system_properties";
     public static final String SYSTEM_CONFIGURATION_IDENTIFIER = "configuration";
     public static final String USER_CONFIGURATION_IDENTIFIER = "userconfig";
+    public static final String SCAN_CHECKPOINT_IDENTIFIER = "scancheckpoints";
     private static final String INCOMPATIBLE_VERSION_EXCEPTION = "StorageBackend version is incompatible with current JanusGraph version: storage [%1s] vs. runtime [%2s]";
 
     private final Configuration configuration;
@@ -1222,11 +1365,14 @@ public class GraphDatabaseConfiguration {
     private boolean batchLoading;
     private int txVertexCacheSize;
     private int txDirtyVertexSize;
+    private long txRelationCacheSize;
     private DefaultSchemaMaker defaultSchemaMaker;
     private boolean hasDisabledSchemaConstraints;
     private Boolean propertyPrefetching;
     private boolean adjustQueryLimit;
     private Boolean useMultiQuery;
+    private int multiQueryBatchSize;
+    private boolean parallelIndexIntersection;
     private boolean allowVertexIdSetting;
     private boolean logTransactions;
     private String metricsPrefix;
@@ -1535,6 +1681,7 @@ public class GraphDatabaseConfiguration {
         hasDisabledSchemaConstraints = !configuration.get(SCHEMA_CONSTRAINTS);
 
         txVertexCacheSize = configuration.get(TX_CACHE_SIZE);
+        txRelationCacheSize = configuration.get(TX_RELATION_CACHE_SIZE);
         //Check for explicit dirty vertex cache size first, then fall back on batch-loading-dependent default
         if (configuration.has(TX_DIRTY_SIZE)) {
             txDirtyVertexSize = configuration.get(TX_DIRTY_SIZE);
@@ -1546,6 +1693,8 @@ public class GraphDatabaseConfiguration {
 
         propertyPrefetching = configuration.get(PROPERTY_PREFETCHING);
         useMultiQuery = configuration.get(USE_MULTIQUERY);
+        multiQueryBatchSize = configuration.get(MULTIQUERY_BATCH_SIZE);
+        parallelIndexIntersection = configuration.get(PARALLEL_INDEX_INTERSECTION);
         adjustQueryLimit = configuration.get(ADJUST_LIMIT);
         allowVertexIdSetting = configuration.get(ALLOW_SETTING_VERTEX_ID);
         logTransactions = configuration.get(SYSTEM_LOG_TRANSACTIONS);
@@ -1660,6 +1809,10 @@ public class GraphDatabaseConfiguration {
         return txDirtyVertexSize;
     }
 
+    public long getTxRelationCacheSize() {
+        return txRelationCacheSize;
+    }
+
     public boolean isBatchLoading() {
         return batchLoading;
     }
@@ -1704,6 +1857,14 @@ public class GraphDatabaseConfiguration {
         return useMultiQuery;
     }
 
+    public int getMultiQueryBatchSize() {
+        return multiQueryBatchSize;
+    }
+
+    public boolean useParallelIndexIntersection() {
+        return parallelIndexIntersection;
+    }
+
     public boolean adjustQueryLimit() {
         return adjustQueryLimit;
     }
@@ -30,6 +30,7 @@ public class MetricInstrumentedSchemaCache implements SchemaCache {
 
     public static final String METRICS_TYPENAME = "name";
     public static final String METRICS_RELATIONS = "relations";
+    public static final String METRICS_DEFINITIONS = "definitions";
 
     private final SchemaCache cache;
 
@@ -65,6 +66,24 @@ public class MetricInstrumentedSchemaCache implements SchemaCache {
         return cache.getSchemaRelations(schemaId, type, dir);
     }
 
+    @Override
+    public SchemaDefinition getSchemaDefinition(long schemaId) {
+        incAction(METRICS_DEFINITIONS,CacheMetricsAction.RETRIEVAL);
+        final SchemaDefinition definition = cache.getSchemaDefinition(schemaId);
+        if (definition==null) incAction(METRICS_DEFINITIONS,CacheMetricsAction.MISS);
+        return definition;
+    }
+
+    @Override
+    public long getSchemaVersion() {
+        return cache.getSchemaVersion();
+    }
+
+    @Override
+    public void putSchemaDefinition(long schemaId, SchemaDefinition definition, long version) {
+        cache.putSchemaDefinition(schemaId, definition, version);
+    }
+
     @Override
     public void expireSchemaElement(long schemaId) {
         cache.expireSchemaElement(schemaId);
@@ -27,6 +27,7 @@ import org.apache.tinkerpop.gremlin.structure.Direction;
  * <ul>
  *     <li>Retrieving a type by its name (index lookup)</li>
  *     <li>Retrieving the relations of a schema vertex for predefined {@link org.janusgraph.graphdb.types.system.SystemRelationType}s</li>
+ *     <li>Retrieving the parsed {@link SchemaDefinition} of a schema vertex which is shared by all transactions</li>
  * </ul>
  *
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -37,6 +38,24 @@ public interface SchemaCache {
 
     EntryList getSchemaRelations(long schemaId, BaseRelationType type, final Direction dir);
 
+    /**
+     * Returns the shared definition of the schema element with the given id or null if it has not been added
+     * since the element was last expired.
+     */
+    SchemaDefinition getSchemaDefinition(final long schemaId);
+
+    /**
+     * Returns the current version of this cache which changes whenever a schema element is expired.
+     */
+    long getSchemaVersion();
+
+    /**
+     * Adds the definition of a schema element unless a schema element was expired since the given version
+     * was retrieved via {@link #getSchemaVersion()}, in which case the definition may have been parsed from
+     * stale schema relations.
+     */
+    void putSchemaDefinition(final long schemaId, final SchemaDefinition definition, final long version);
+
     void expireSchemaElement(final long schemaId);
 
     interface StoreRetrieval {
@@ -0,0 +1,87 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableListMultimap;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.janusgraph.graphdb.types.TypeDefinitionCategory;
+import org.janusgraph.graphdb.types.TypeDefinitionMap;
+
+/**
+ * The parsed name, definition and related schema elements of a schema vertex as persisted in the storage backend.
+ * <p>
+ * Instances are immutable and shared by all transactions through the {@link SchemaCache} so that the schema
+ * relations of a schema vertex are only parsed once instead of once per transaction. The returned
+ * {@link TypeDefinitionMap} must therefore be treated as read-only.
+ * Related schema elements are referenced by id since schema vertices are bound to a transaction.
+ *
+ * @see org.janusgraph.graphdb.types.vertices.JanusGraphSchemaVertex
+ */
+public class SchemaDefinition {
+
+    private final String name;
+    private final TypeDefinitionMap definition;
+    private final ImmutableListMultimap<TypeDefinitionCategory, Related> outRelated;
+    private final ImmutableListMultimap<TypeDefinitionCategory, Related> inRelated;
+
+    public SchemaDefinition(String name, TypeDefinitionMap definition,
+                            ImmutableListMultimap<TypeDefinitionCategory, Related> outRelated,
+                            ImmutableListMultimap<TypeDefinitionCategory, Related> inRelated) {
+        Preconditions.checkNotNull(definition);
+        Preconditions.checkNotNull(outRelated);
+        Preconditions.checkNotNull(inRelated);
+        this.name = name;
+        this.definition = definition;
+        this.outRelated = outRelated;
+        this.inRelated = inRelated;
+    }
+
+    /**
+     * @return the persisted name of the schema element or null if it does not have one
+     */
+    public String getName() {
+        return name;
+    }
+
+    public TypeDefinitionMap getDefinition() {
+        return definition;
+    }
+
+    public ImmutableListMultimap<TypeDefinitionCategory, Related> getRelated(Direction dir) {
+        assert dir==Direction.OUT || dir==Direction.IN;
+        return dir==Direction.OUT?outRelated:inRelated;
+    }
+
+    public static class Related {
+
+        private final long schemaId;
+        private final Object modifier;
+
+        public Related(long schemaId, Object modifier) {
+            this.schemaId = schemaId;
+            this.modifier = modifier;
+        }
+
+        public long getSchemaId() {
+            return schemaId;
+        }
+
+        public Object getModifier() {
+            return modifier;
+        }
+    }
+
+}
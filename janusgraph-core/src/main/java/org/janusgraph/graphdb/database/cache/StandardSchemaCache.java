@@ -61,6 +61,10 @@ public class StandardSchemaCache implements SchemaCache {
     private volatile ConcurrentMap<Long,EntryList> schemaRelations;
     private final Cache<Long,EntryList> schemaRelationsBackup;
 
+    private volatile ConcurrentMap<Long,SchemaDefinition> schemaDefinitions;
+    private final Cache<Long,SchemaDefinition> schemaDefinitionsBackup;
+    private volatile long schemaVersion = 0;
+
     public StandardSchemaCache(final StoreRetrieval retriever) {
         this(MAX_CACHED_TYPES_DEFAULT,retriever);
     }
@@ -82,6 +86,11 @@ public class StandardSchemaCache implements SchemaCache {
                 .maximumSize(maxCachedRelations).build();
 //        typeRelations = new ConcurrentHashMap<Long, EntryList>(INITIAL_CAPACITY*CACHE_RELATION_MULTIPLIER,0.75f,CONCURRENCY_LEVEL);
         schemaRelations = new NonBlockingHashMapLong<>(INITIAL_CAPACITY * CACHE_RELATION_MULTIPLIER); //TODO: Is this data structure safe or should we go with ConcurrentHashMap (line above)?
+
+        schemaDefinitionsBackup = CacheBuilder.newBuilder()
+                .concurrencyLevel(CONCURRENCY_LEVEL).initialCapacity(INITIAL_CACHE_SIZE)
+                .maximumSize(maxCachedTypes).build();
+        schemaDefinitions = new NonBlockingHashMapLong<>(INITIAL_CAPACITY);
     }
 
 
@@ -175,6 +184,34 @@ public class StandardSchemaCache implements SchemaCache {
         return entries;
     }
 
+    @Override
+    public SchemaDefinition getSchemaDefinition(final long schemaId) {
+        ConcurrentMap<Long,SchemaDefinition> definitions = schemaDefinitions;
+        if (definitions==null) return schemaDefinitionsBackup.getIfPresent(schemaId);
+        else return definitions.get(schemaId);
+    }
+
+    @Override
+    public long getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    @Override
+    public synchronized void putSchemaDefinition(final long schemaId, final SchemaDefinition definition, final long version) {
+        Preconditions.checkNotNull(definition);
+        if (version!=schemaVersion) return; //Definition might have been parsed from expired relations
+        ConcurrentMap<Long,SchemaDefinition> definitions = schemaDefinitions;
+        if (definitions==null) {
+            schemaDefinitionsBackup.put(schemaId, definition);
+        } else if (definitions.size()> maxCachedTypes) {
+            //Same safe guard as for the other maps
+            schemaDefinitions = null;
+            schemaDefinitionsBackup.put(schemaId, definition);
+        } else {
+            definitions.put(schemaId, definition);
+        }
+    }
+
 //    @Override
 //    public void expireSchemaName(final String name) {
 //        ConcurrentMap<String,Long> types = typeNames;
@@ -201,6 +238,13 @@ public class StandardSchemaCache implements SchemaCache {
         for (Map.Entry<String,Long> entry : typeNamesBackup.asMap().entrySet()) {
             if (entry.getValue().equals(schemaId)) typeNamesBackup.invalidate(entry.getKey());
         }
+        //3) expire definitions - last, so that definitions parsed from the expired relations are not added anymore
+        synchronized (this) {
+            schemaVersion++;
+            ConcurrentMap<Long,SchemaDefinition> definitions = schemaDefinitions;
+            if (definitions!=null) definitions.remove(schemaId);
+            schemaDefinitionsBackup.invalidate(schemaId);
+        }
     }
 
 }
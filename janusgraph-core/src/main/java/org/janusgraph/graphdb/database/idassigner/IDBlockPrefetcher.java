@@ -0,0 +1,149 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.idassigner;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.janusgraph.diskstorage.IDBlock;
+import org.janusgraph.util.stats.MetricManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Determines how many blocks each {@link StandardIDPool} of a {@link VertexIDAssigner} keeps queued ahead of its
+ * current block. If that is more than one, the blocks of all pools are retrieved on a shared executor. Otherwise
+ * each pool keeps retrieving its blocks on its own thread.
+ * <p>
+ * When adaptive block sizes are enabled, the block size of an id namespace grows whenever a pool had to wait
+ * for its next block and shrinks again when blocks of that namespace last long.
+ *
+ * @see StandardIDPool
+ */
+public class IDBlockPrefetcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IDBlockPrefetcher.class);
+
+    /**
+     * Upper bound on the factor by which adaptive block sizes exceed the configured block size
+     */
+    static final int MAX_BLOCK_SIZE_MULTIPLIER = 16;
+
+    /**
+     * Blocks that last longer than this are considered too large when block sizes are adaptive
+     */
+    static final Duration LONG_BLOCK_LIFETIME = Duration.ofMinutes(1);
+
+    private static final String M_IDS = "ids";
+    private static final String M_STALL = "stall";
+    private static final String M_TIME = "time";
+
+    private final ExecutorService executor;
+    private final int prefetchBlocks;
+    private final boolean adaptiveBlockSize;
+    private final String metricsPrefix;
+    private final ConcurrentMap<Integer, AtomicInteger> blockSizeMultipliers;
+
+    /**
+     * @param numThreads        number of threads retrieving id blocks if they are shared among pools
+     * @param prefetchBlocks    number of id blocks each pool keeps queued ahead of its current block
+     * @param adaptiveBlockSize whether block sizes adapt to the rate at which ids are consumed
+     * @param metricsPrefix     prefix of the metric recording how long pools wait for id blocks or null to
+     *                          disable the metric
+     */
+    public IDBlockPrefetcher(int numThreads, int prefetchBlocks, boolean adaptiveBlockSize, String metricsPrefix) {
+        Preconditions.checkArgument(numThreads > 0, "Invalid number of threads: %s", numThreads);
+        Preconditions.checkArgument(prefetchBlocks > 0, "Invalid number of prefetched blocks: %s", prefetchBlocks);
+        this.executor = prefetchBlocks > 1 ? Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+            .setDaemon(true).setNameFormat("JanusGraphID-prefetch-%d").build()) : null;
+        this.prefetchBlocks = prefetchBlocks;
+        this.adaptiveBlockSize = adaptiveBlockSize;
+        this.metricsPrefix = metricsPrefix;
+        this.blockSizeMultipliers = new ConcurrentHashMap<>();
+    }
+
+    public int getPrefetchBlocks() {
+        return prefetchBlocks;
+    }
+
+    /**
+     * Whether id blocks are retrieved on threads shared among pools rather than on a thread of each pool.
+     */
+    boolean sharesThreads() {
+        return null != executor;
+    }
+
+    Future<IDBlock> submit(Callable<IDBlock> blockGetter) {
+        Preconditions.checkState(sharesThreads(), "Id blocks are retrieved by each pool");
+        return executor.submit(blockGetter);
+    }
+
+    /**
+     * Returns the size of the next id block for the given namespace.
+     *
+     * @param idNamespace    the id namespace
+     * @param baseBlockSize  the configured block size of the namespace
+     * @param blockSizeLimit exclusive upper bound on the block size
+     * @return the block size
+     */
+    public long getBlockSize(int idNamespace, long baseBlockSize, long blockSizeLimit) {
+        if (!adaptiveBlockSize) return baseBlockSize;
+        final long blockSize = baseBlockSize * getMultiplier(idNamespace).get();
+        return blockSize < blockSizeLimit ? blockSize : baseBlockSize;
+    }
+
+    /**
+     * Called when a pool had to wait for the next id block of the given namespace.
+     */
+    public void stalled(int idNamespace, Duration stallTime) {
+        if (null != metricsPrefix) {
+            MetricManager.INSTANCE.getTimer(metricsPrefix, M_IDS, M_STALL, M_TIME).update(stallTime.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (adaptiveBlockSize) {
+            final int multiplier = getMultiplier(idNamespace).accumulateAndGet(2,
+                (current, factor) -> Math.min(current * factor, MAX_BLOCK_SIZE_MULTIPLIER));
+            log.debug("Waited {} for id block in namespace {}, block size multiplier is {}", stallTime, idNamespace, multiplier);
+        }
+    }
+
+    /**
+     * Called when a pool has used up an id block of the given namespace.
+     */
+    public void blockConsumed(int idNamespace, Duration lifetime) {
+        if (adaptiveBlockSize && lifetime.compareTo(LONG_BLOCK_LIFETIME) > 0) {
+            final int multiplier = getMultiplier(idNamespace).accumulateAndGet(2,
+                (current, factor) -> Math.max(current / factor, 1));
+            log.debug("Id block in namespace {} lasted {}, block size multiplier is {}", idNamespace, lifetime, multiplier);
+        }
+    }
+
+    private AtomicInteger getMultiplier(int idNamespace) {
+        return blockSizeMultipliers.computeIfAbsent(idNamespace, k -> new AtomicInteger(1));
+    }
+
+    @Override
+    public void close() {
+        if (null != executor) executor.shutdownNow();
+    }
+}
@@ -16,9 +16,11 @@ package org.janusgraph.graphdb.database.idassigner;
 
 import java.time.Duration;
 import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -39,6 +41,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * An {@link IDPool} that hands out the ids of the current {@link IDBlock} and retrieves the next blocks from the
+ * {@link IDAuthority} in the background. Blocks are retrieved on a thread owned by the pool unless an
+ * {@link IDBlockPrefetcher} is given that queues more than one block ahead, in which case the prefetcher's threads
+ * are shared among all pools. The renew timeout only starts once the retrieval of a block starts running.
+ *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
@@ -90,15 +97,22 @@ public class StandardIDPool implements IDPool {
 //    private long renewBufferID;
 
     private volatile IDBlock nextBlock;
-    private Future<IDBlock> idBlockFuture;
-    private IDBlockGetter idBlockGetter;
+    private final Deque<IDBlockGetter> idBlockGetters;
     private final ThreadPoolExecutor exec;
+    private final IDBlockPrefetcher prefetcher;
+    private final int prefetchBlocks;
+    private long blockStart;
 
     private volatile boolean closed;
 
     private final Queue<Future<?>> closeBlockers;
 
     public StandardIDPool(IDAuthority idAuthority, int partition, int idNamespace, long idUpperBound, Duration renewTimeout, double renewBufferPercentage) {
+        this(idAuthority, partition, idNamespace, idUpperBound, renewTimeout, renewBufferPercentage, null);
+    }
+
+    public StandardIDPool(IDAuthority idAuthority, int partition, int idNamespace, long idUpperBound, Duration renewTimeout,
+                          double renewBufferPercentage, IDBlockPrefetcher prefetcher) {
         Preconditions.checkArgument(idUpperBound > 0);
         this.idAuthority = idAuthority;
         Preconditions.checkArgument(partition>=0);
@@ -117,15 +131,22 @@ public class StandardIDPool implements IDPool {
 
         nextBlock = null;
 
-        // daemon=true would probably be fine too
-        exec = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
-                        .setDaemon(false)
-                        .setNameFormat("JanusGraphID(" + partition + ")("+idNamespace+")[%d]")
-                        .build());
-        //exec.allowCoreThreadTimeOut(false);
-        //exec.prestartCoreThread();
-        idBlockFuture = null;
+        this.prefetcher = prefetcher;
+        if (null == prefetcher || !prefetcher.sharesThreads()) {
+            // daemon=true would probably be fine too
+            exec = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+                            .setDaemon(false)
+                            .setNameFormat("JanusGraphID(" + partition + ")("+idNamespace+")[%d]")
+                            .build());
+            //exec.allowCoreThreadTimeOut(false);
+            //exec.prestartCoreThread();
+            prefetchBlocks = 1;
+        } else {
+            exec = null;
+            prefetchBlocks = prefetcher.getPrefetchBlocks();
+        }
+        idBlockGetters = new ArrayDeque<>(prefetchBlocks);
 
         closeBlockers = new ArrayDeque<>(4);
 
@@ -134,9 +155,14 @@ public class StandardIDPool implements IDPool {
 
     private synchronized void waitForIDBlockGetter() throws InterruptedException {
         Stopwatch sw = Stopwatch.createStarted();
-        if (null != idBlockFuture) {
+        final IDBlockGetter idBlockGetter = idBlockGetters.poll();
+        if (null != idBlockGetter) {
+            final Future<IDBlock> idBlockFuture = idBlockGetter.future;
             try {
-                nextBlock = idBlockFuture.get(renewTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                // Time spent queued behind the renewals of other pools does not count towards the timeout
+                idBlockGetter.awaitStart();
+                final long remaining = renewTimeout.toNanos() - idBlockGetter.runningNanos();
+                nextBlock = idBlockFuture.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
             } catch (ExecutionException e) {
                 String msg = String.format("ID block allocation on partition(%d)-namespace(%d) failed with an exception in %s",
                         partition, idNamespace, sw.stop());
@@ -162,8 +188,6 @@ public class StandardIDPool implements IDPool {
                 String msg = String.format("ID block allocation on partition(%d)-namespace(%d) was cancelled after %s",
                         partition, idNamespace, sw.stop());
                 throw new JanusGraphException(msg, e);
-            } finally {
-                idBlockFuture = null;
             }
             // Allow InterruptedException to propagate up the stack
         }
@@ -174,19 +198,28 @@ public class StandardIDPool implements IDPool {
         Preconditions.checkState(!closed,"ID Pool has been closed for partition(%s)-namespace(%s) - cannot apply for new id block",
                 partition,idNamespace);
 
-        if (null == nextBlock && null == idBlockFuture) {
+        if (null == nextBlock && idBlockGetters.isEmpty()) {
             startIDBlockGetter();
         }
 
         if (null == nextBlock) {
+            final boolean stalled = !idBlockGetters.peek().future.isDone();
+            final long waitStart = System.nanoTime();
             waitForIDBlockGetter();
+            if (stalled && null != prefetcher) {
+                prefetcher.stalled(idNamespace, Duration.ofNanos(System.nanoTime() - waitStart));
+            }
         }
 
         if (nextBlock == ID_POOL_EXHAUSTION)
             throw new IDPoolExhaustedException("Exhausted ID Pool for partition(" + partition+")-namespace("+idNamespace+")");
 
+        if (null != prefetcher && currentBlock != UNINITIALIZED_BLOCK) {
+            prefetcher.blockConsumed(idNamespace, Duration.ofNanos(System.nanoTime() - blockStart));
+        }
         currentBlock = nextBlock;
         currentIndex = 0;
+        blockStart = System.nanoTime();
 
         log.debug("ID partition({})-namespace({}) acquired block: [{}]", partition, idNamespace, currentBlock);
 
@@ -197,6 +230,10 @@ public class StandardIDPool implements IDPool {
         assert RENEW_ID_COUNT>0;
         renewBlockIndex = Math.max(0,currentBlock.numIds()-Math.max(RENEW_ID_COUNT, Math.round(currentBlock.numIds()*renewBufferPercentage)));
         assert renewBlockIndex<currentBlock.numIds() && renewBlockIndex>=currentIndex;
+
+        // Keep all but one of the prefetched blocks queued while the current block is used, the last one is
+        // requested once the current block reaches its renewal index
+        startIDBlockGetters(prefetchBlocks - 1);
     }
 
     @Override
@@ -212,7 +249,7 @@ public class StandardIDPool implements IDPool {
         }
 
         if (currentIndex == renewBlockIndex) {
-            startIDBlockGetter();
+            startIDBlockGetters(prefetchBlocks);
         }
 
         long returnId = currentBlock.getId(currentIndex);
@@ -226,7 +263,7 @@ public class StandardIDPool implements IDPool {
     public synchronized void close() {
         closed=true;
         try {
-            waitForIDBlockGetter();
+            while (!idBlockGetters.isEmpty()) waitForIDBlockGetter();
         } catch (InterruptedException e) {
             throw new JanusGraphException("Interrupted while waiting for id renewer thread to finish", e);
         }
@@ -240,16 +277,22 @@ public class StandardIDPool implements IDPool {
                 log.debug("Runaway ID renewer task completed with exception", e);
             }
         }
-        exec.shutdownNow();
+        if (null != exec) exec.shutdownNow();
+    }
+
+    private synchronized void startIDBlockGetters(int numQueued) {
+        while (idBlockGetters.size() < numQueued && !closed) {
+            startIDBlockGetter();
+        }
     }
 
     private synchronized void startIDBlockGetter() {
-        Preconditions.checkArgument(idBlockFuture == null, idBlockFuture);
         if (closed) return; //Don't renew anymore if closed
         //Renew buffer
         log.debug("Starting id block renewal thread upon {}", currentIndex);
-        idBlockGetter = new IDBlockGetter(idAuthority, partition, idNamespace, renewTimeout);
-        idBlockFuture = exec.submit(idBlockGetter);
+        final IDBlockGetter idBlockGetter = new IDBlockGetter(idAuthority, partition, idNamespace, renewTimeout);
+        idBlockGetter.future = null != exec ? exec.submit(idBlockGetter) : prefetcher.submit(idBlockGetter);
+        idBlockGetters.add(idBlockGetter);
     }
 
     private static class IDBlockGetter implements Callable<IDBlock> {
@@ -259,7 +302,10 @@ public class StandardIDPool implements IDPool {
         private final int partition;
         private final int idNamespace;
         private final Duration renewTimeout;
+        private final CountDownLatch started;
+        private volatile long startTime;
         private volatile boolean stopRequested;
+        private Future<IDBlock> future;
 
         public IDBlockGetter(IDAuthority idAuthority, int partition, int idNamespace, Duration renewTimeout) {
             this.idAuthority = idAuthority;
@@ -267,6 +313,20 @@ public class StandardIDPool implements IDPool {
             this.idNamespace = idNamespace;
             this.renewTimeout = renewTimeout;
             this.alive = Stopwatch.createStarted();
+            this.started = new CountDownLatch(1);
+        }
+
+        /**
+         * Waits until this getter is running or its future completed without running it, e.g. when cancelled.
+         */
+        private void awaitStart() throws InterruptedException {
+            while (!started.await(renewTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                if (future.isDone()) return;
+            }
+        }
+
+        private long runningNanos() {
+            return started.getCount() == 0 ? System.nanoTime() - startTime : 0;
         }
 
         private void stopRequested()
@@ -277,6 +337,8 @@ public class StandardIDPool implements IDPool {
         @Override
         public IDBlock call() {
             Stopwatch running = Stopwatch.createStarted();
+            startTime = System.nanoTime();
+            started.countDown();
 
             try {
                 if (stopRequested) {
@@ -66,6 +66,7 @@ public class VertexIDAssigner implements AutoCloseable {
     final ConcurrentMap<Integer,PartitionIDPool> idPools;
     final StandardIDPool schemaIdPool;
     final StandardIDPool partitionVertexIdPool;
+    private final IDBlockPrefetcher prefetcher;
 
     private final IDAuthority idAuthority;
     private final IDManager idManager;
@@ -94,6 +95,9 @@ public class VertexIDAssigner implements AutoCloseable {
         placementStrategy.injectIDManager(idManager);
         log.debug("Partition IDs? [{}], Local Partitions? [{}]",true,hasLocalPartitions);
 
+        prefetcher = new IDBlockPrefetcher(config.get(IDS_PREFETCH_THREADS), config.get(IDS_PREFETCH_BLOCKS),
+                config.get(IDS_ADAPTIVE_BLOCK_SIZE), config.get(BASIC_METRICS) ? config.get(METRICS_PREFIX) : null);
+
         long baseBlockSize = config.get(IDS_BLOCK_SIZE);
         idAuthority.setIDBlockSizer(new SimpleVertexIDBlockSizer(baseBlockSize));
 
@@ -102,9 +106,9 @@ public class VertexIDAssigner implements AutoCloseable {
 
         idPools = new ConcurrentHashMap<>(partitionIdBound);
         schemaIdPool = new StandardIDPool(idAuthority, IDManager.SCHEMA_PARTITION, PoolType.SCHEMA.getIDNamespace(),
-                IDManager.getSchemaCountBound(), renewTimeoutMS, renewBufferPercentage);
+                IDManager.getSchemaCountBound(), renewTimeoutMS, renewBufferPercentage, prefetcher);
         partitionVertexIdPool = new StandardIDPool(idAuthority, IDManager.PARTITIONED_VERTEX_PARTITION, PoolType.PARTITIONED_VERTEX.getIDNamespace(),
-                PoolType.PARTITIONED_VERTEX.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage);
+                PoolType.PARTITIONED_VERTEX.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage, prefetcher);
         setLocalPartitions(partitionBits);
     }
 
@@ -138,10 +142,12 @@ public class VertexIDAssigner implements AutoCloseable {
 
     public synchronized void close() {
         schemaIdPool.close();
+        partitionVertexIdPool.close();
         for (PartitionIDPool pool : idPools.values()) {
             pool.close();
         }
         idPools.clear();
+        prefetcher.close();
     }
 
     public void assignID(InternalRelation relation) {
@@ -313,7 +319,7 @@ public class VertexIDAssigner implements AutoCloseable {
         } else {
             PartitionIDPool partitionPool = idPools.get(partitionID);
             if (partitionPool == null) {
-                partitionPool = new PartitionIDPool(partitionID, idAuthority, idManager, renewTimeoutMS, renewBufferPercentage);
+                partitionPool = new PartitionIDPool(partitionID, idAuthority, idManager, renewTimeoutMS, renewBufferPercentage, prefetcher);
                 idPools.putIfAbsent(partitionID,partitionPool);
                 partitionPool = idPools.get(partitionID);
             }
@@ -384,21 +390,28 @@ public class VertexIDAssigner implements AutoCloseable {
 
         @Override
         public long getBlockSize(int idNamespace) {
+            final long blockSize;
             switch (PoolType.getPoolType(idNamespace)) {
                 case NORMAL_VERTEX:
-                    return baseBlockSize;
+                    blockSize = baseBlockSize;
+                    break;
                 case UNMODIFIABLE_VERTEX:
-                    return Math.max(10,baseBlockSize/10);
+                    blockSize = Math.max(10,baseBlockSize/10);
+                    break;
                 case PARTITIONED_VERTEX:
-                    return Math.max(10,baseBlockSize/100);
+                    blockSize = Math.max(10,baseBlockSize/100);
+                    break;
                 case RELATION:
-                    return baseBlockSize * 8;
+                    blockSize = baseBlockSize * 8;
+                    break;
                 case SCHEMA:
                     return 50;
 
                 default:
                     throw new IllegalArgumentException("Unrecognized pool type");
             }
+            //Leave room for the unique id bits the id authority may reserve within the upper bound
+            return prefetcher.getBlockSize(idNamespace, blockSize, getIdUpperBound(idNamespace) >> 16);
         }
 
         @Override
@@ -457,11 +470,12 @@ public class VertexIDAssigner implements AutoCloseable {
         private volatile long lastAccess;
         private volatile boolean exhausted;
 
-        PartitionIDPool(int partitionID, IDAuthority idAuthority, IDManager idManager, Duration renewTimeoutMS, double renewBufferPercentage) {
+        PartitionIDPool(int partitionID, IDAuthority idAuthority, IDManager idManager, Duration renewTimeoutMS, double renewBufferPercentage,
+                        IDBlockPrefetcher prefetcher) {
             super(PoolType.class);
             for (PoolType type : PoolType.values()) {
                 if (!type.hasOnePerPartition()) continue;
-                put(type,new StandardIDPool(idAuthority, partitionID, type.getIDNamespace(), type.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage));
+                put(type,new StandardIDPool(idAuthority, partitionID, type.getIDNamespace(), type.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage, prefetcher));
             }
         }
 
@@ -699,6 +699,7 @@ public class ManagementSystem implements JanusGraphManagement {
                 builder = graph.getBackend().buildEdgeScanJob();
                 builder.setFinishJob(indexId.getIndexJobFinisher(graph, SchemaAction.ENABLE_INDEX));
                 builder.setJobId(indexId);
+                builder.setCheckpointId(SchemaAction.REINDEX + ":" + indexId);
                 builder.setJob(VertexJobConverter.convert(graph, new IndexRepairJob(indexId.indexName, indexId.relationTypeName)));
                 try {
                     future = builder.execute();
@@ -730,6 +731,7 @@ public class ManagementSystem implements JanusGraphManagement {
                 }
                 builder.setFinishJob(indexId.getIndexJobFinisher());
                 builder.setJobId(indexId);
+                builder.setCheckpointId(SchemaAction.REMOVE_INDEX + ":" + indexId);
                 builder.setJob(new IndexRemoveJob(graph, indexId.indexName, indexId.relationTypeName));
                 try {
                     future = builder.execute();
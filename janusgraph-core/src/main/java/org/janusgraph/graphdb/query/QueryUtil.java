@@ -14,6 +14,9 @@
 
 package org.janusgraph.graphdb.query;
 
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.cursors.LongCursor;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.*;
 import org.janusgraph.core.*;
@@ -26,6 +29,9 @@ import org.janusgraph.graphdb.predicate.OrJanusPredicate;
 import org.janusgraph.graphdb.query.condition.*;
 import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Utility methods used in query optimization and processing.
@@ -294,10 +300,29 @@ public class QueryUtil {
     }
 
 
-    public static <R> List<R> processIntersectingRetrievals(List<IndexCall<R>> retrievals, final int limit) {
+    public static <R> Set<R> processIntersectingRetrievals(List<IndexCall<R>> retrievals, final int limit) {
+        return processIntersectingRetrievals(retrievals, limit, null);
+    }
+
+    /**
+     * Computes the intersection of the results of the given retrievals, retrieving larger result sets until the
+     * intersection contains at least {@code limit} elements or all retrievals are exhausted.
+     * <p/>
+     * The results are intersected starting with the smallest one, using a primitive hash set if all results are
+     * (vertex) ids. If an executor is given, the retrievals are executed concurrently, hence they must be safe to call
+     * from several threads at once. Otherwise they are executed one after another, ordered by the result sizes observed
+     * in the previous round, and stop as soon as the intersection is empty.
+     *
+     * @param retrievals the retrievals to intersect
+     * @param limit the number of results to retrieve at least, if possible
+     * @param executor executor for concurrent retrievals, or null to run them on the calling thread
+     * @return the intersection of the retrieved results, in the order of the result of the first retrieval
+     */
+    public static <R> Set<R> processIntersectingRetrievals(List<IndexCall<R>> retrievals, final int limit, final Executor executor) {
         Preconditions.checkArgument(!retrievals.isEmpty());
         Preconditions.checkArgument(limit >= 0, "Invalid limit: %s", limit);
-        List<R> results;
+        final boolean concurrent = executor != null && retrievals.size() >= 2;
+        Set<R> results;
         /*
          * Iterate over the clauses in the and collection
          * query.getCondition().getChildren(), taking the intersection
@@ -307,31 +332,154 @@ public class QueryUtil {
         final int multiplier = Math.min(16, (int) Math.pow(2, retrievals.size() - 1));
         int subLimit = Integer.MAX_VALUE;
         if (Integer.MAX_VALUE / multiplier >= limit) subLimit = limit * multiplier;
+        //Order in which the retrievals are intersected, smallest observed result first
+        final Integer[] order = new Integer[retrievals.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        final int[] observedSizes = new int[retrievals.size()];
+        Collection<R> firstResult;
         boolean exhaustedResults;
         do {
             exhaustedResults = true;
             results = null;
-            for (final IndexCall<R> call : retrievals) {
-                Collection<R> subResult;
-                try {
-                    subResult = call.call(subLimit);
-                } catch (final Exception e) {
-                    throw new JanusGraphException("Could not process individual retrieval call ", e);
-                }
-
+            firstResult = null;
+            final List<Collection<R>> subResults = concurrent ? callAll(retrievals, subLimit, executor) : null;
+            for (final int index : order) {
+                final Collection<R> subResult = concurrent ? subResults.get(index) : call(retrievals.get(index), subLimit);
+                observedSizes[index] = subResult.size();
+                if (index == 0) firstResult = subResult;
                 if (subResult.size() >= subLimit) exhaustedResults = false;
-                if (results == null) {
-                    results = Lists.newArrayList(subResult);
-                } else {
-                    final Set<R> subResultSet = ImmutableSet.copyOf(subResult);
-                    results.removeIf(o -> !subResultSet.contains(o));
+                results = results == null ? newResultSet(subResult) : intersect(results, subResult);
+                if (results.isEmpty() && !concurrent) {
+                    //No need to retrieve the other results. The intersection is final if all results so far are complete.
+                    break;
                 }
             }
+            Arrays.sort(order, Comparator.comparingInt(i -> observedSizes[i]));
             subLimit = (int) Math.min(Integer.MAX_VALUE - 1, Math.max(Math.pow(subLimit, 1.5),(subLimit+1)*2));
-        } while (results != null && results.size() < limit && !exhaustedResults);
+        } while (results.size() < limit && !exhaustedResults);
+        //The first result was not retrieved in the last round only if the intersection was empty before
+        return firstResult == null ? results : inOrderOf(firstResult, results);
+    }
+
+    private static <R> Collection<R> call(IndexCall<R> retrieval, int limit) {
+        try {
+            return retrieval.call(limit);
+        } catch (final Exception e) {
+            throw new JanusGraphException("Could not process individual retrieval call ", e);
+        }
+    }
+
+    private static <R> List<Collection<R>> callAll(List<IndexCall<R>> retrievals, int limit, Executor executor) {
+        final List<CompletableFuture<Collection<R>>> futures = new ArrayList<>(retrievals.size() - 1);
+        for (int i = 1; i < retrievals.size(); i++) {
+            final IndexCall<R> retrieval = retrievals.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> call(retrieval, limit), executor));
+        }
+        final List<Collection<R>> results = new ArrayList<>(retrievals.size());
+        //Execute the first retrieval on the calling thread while the others are running
+        results.add(call(retrievals.get(0), limit));
+        try {
+            for (CompletableFuture<Collection<R>> future : futures) results.add(future.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JanusGraphException) throw (JanusGraphException) e.getCause();
+            throw new JanusGraphException("Could not process individual retrieval call ", e.getCause());
+        }
         return results;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <R> Set<R> newResultSet(Collection<R> elements) {
+        for (R element : elements) {
+            if (!(element instanceof Long)) return new HashSet<>(elements);
+        }
+        final LongHashSet ids = new LongHashSet(elements.size());
+        for (R element : elements) ids.add((Long) element);
+        return (Set<R>) new IdSet(ids);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> Set<R> intersect(Set<R> results, Collection<R> subResult) {
+        if (results instanceof IdSet) {
+            final LongHashSet ids = ((IdSet) results).ids;
+            final LongHashSet intersection = new LongHashSet(Math.min(ids.size(), subResult.size()));
+            for (R element : subResult) {
+                if (element instanceof Long && ids.contains((Long) element)) intersection.add((Long) element);
+            }
+            return (Set<R>) new IdSet(intersection);
+        }
+        final Set<R> intersection = new HashSet<>(Math.min(results.size(), subResult.size()));
+        for (R element : subResult) {
+            if (results.contains(element)) intersection.add(element);
+        }
+        return intersection;
+    }
+
+    /*
+     * Orders the intersection like the result of the first retrieval, as the intersection used to be computed by
+     * filtering that result.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> Set<R> inOrderOf(Collection<R> firstResult, Set<R> intersection) {
+        if (intersection instanceof IdSet) {
+            final LongHashSet ids = new LongHashSet(intersection.size());
+            final LongArrayList order = new LongArrayList(intersection.size());
+            for (R element : firstResult) {
+                if (intersection.contains(element) && ids.add((Long) element)) order.add((Long) element);
+            }
+            return (Set<R>) new IdSet(ids, order);
+        }
+        final Set<R> ordered = new LinkedHashSet<>(intersection.size());
+        for (R element : firstResult) {
+            if (intersection.contains(element)) ordered.add(element);
+        }
+        return ordered;
+    }
+
+    /**
+     * Read-only set view of vertex ids backed by a primitive hash set, which iterates over the ids in the given order
+     * if one is given.
+     */
+    private static class IdSet extends AbstractSet<Long> {
+
+        private final LongHashSet ids;
+        private final LongArrayList order;
+
+        private IdSet(LongHashSet ids) {
+            this(ids, null);
+        }
+
+        private IdSet(LongHashSet ids, LongArrayList order) {
+            this.ids = ids;
+            this.order = order;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Long && ids.contains((Long) o);
+        }
+
+        @Override
+        public int size() {
+            return ids.size();
+        }
+
+        @Override
+        public Iterator<Long> iterator() {
+            final Iterator<LongCursor> cursors = order != null ? order.iterator() : ids.iterator();
+            return new Iterator<Long>() {
+                @Override
+                public boolean hasNext() {
+                    return cursors.hasNext();
+                }
+
+                @Override
+                public Long next() {
+                    return cursors.next().value;
+                }
+            };
+        }
+    }
+
 
     public interface IndexCall<R> {
 
@@ -66,6 +66,7 @@ public class JanusGraphLocalQueryOptimizerStrategy extends AbstractTraversalStra
         //If this is a compute graph then we can't apply local traversal optimisation at this stage.
         final StandardJanusGraph janusGraph = graph instanceof StandardJanusGraphTx ? ((StandardJanusGraphTx) graph).getGraph() : (StandardJanusGraph) graph;
         final boolean useMultiQuery = !TraversalHelper.onGraphComputer(traversal) && janusGraph.getConfiguration().useMultiQuery();
+        final int batchSize = janusGraph.getConfiguration().getMultiQueryBatchSize();
 
         /*
                 ====== VERTEX STEP ======
@@ -90,6 +91,7 @@ public class JanusGraphLocalQueryOptimizerStrategy extends AbstractTraversalStra
 
             if (useMultiQuery && !(isChildOf(vertexStep, MULTIQUERY_INCOMPATIBLE_STEPS))) {
                 vertexStep.setUseMultiQuery(true);
+                vertexStep.setBatchSize(batchSize);
             }
         });
 
@@ -111,6 +113,7 @@ public class JanusGraphLocalQueryOptimizerStrategy extends AbstractTraversalStra
 
             if (useMultiQuery && !(isChildOf(propertiesStep, MULTIQUERY_INCOMPATIBLE_STEPS))) {
                 propertiesStep.setUseMultiQuery(true);
+                propertiesStep.setBatchSize(batchSize);
             }
         });
 
@@ -133,7 +136,7 @@ public class JanusGraphLocalQueryOptimizerStrategy extends AbstractTraversalStra
                 HasStepFolder.foldInRange(vertexStep, JanusGraphTraversalUtil.getNextNonIdentityStep(vertexStep), localTraversal, null);
 
 
-                unfoldLocalTraversal(traversal,localStep,localTraversal,vertexStep,useMultiQuery);
+                unfoldLocalTraversal(traversal,localStep,localTraversal,vertexStep,useMultiQuery,batchSize);
             }
 
             if (localStart instanceof PropertiesStep) {
@@ -147,7 +150,7 @@ public class JanusGraphLocalQueryOptimizerStrategy extends AbstractTraversalStra
                 HasStepFolder.foldInRange(propertiesStep, JanusGraphTraversalUtil.getNextNonIdentityStep(propertiesStep), localTraversal, null);
 
 
-                unfoldLocalTraversal(traversal,localStep,localTraversal,propertiesStep,useMultiQuery);
+                unfoldLocalTraversal(traversal,localStep,localTraversal,propertiesStep,useMultiQuery,batchSize);
             }
 
         });
@@ -155,7 +158,7 @@ public class JanusGraphLocalQueryOptimizerStrategy extends AbstractTraversalStra
 
     private static void unfoldLocalTraversal(final Traversal.Admin<?, ?> traversal,
                                              LocalStep<?,?> localStep, Traversal.Admin localTraversal,
-                                             MultiQueriable vertexStep, boolean useMultiQuery) {
+                                             MultiQueriable vertexStep, boolean useMultiQuery, int batchSize) {
         assert localTraversal.asAdmin().getSteps().size() > 0;
         if (localTraversal.asAdmin().getSteps().size() == 1) {
             //Can replace the entire localStep by the vertex step in the outer traversal
@@ -165,6 +168,7 @@ public class JanusGraphLocalQueryOptimizerStrategy extends AbstractTraversalStra
 
             if (useMultiQuery && !(isChildOf(vertexStep, MULTIQUERY_INCOMPATIBLE_STEPS))) {
                 vertexStep.setUseMultiQuery(true);
+                vertexStep.setBatchSize(batchSize);
             }
         }
     }
@@ -30,7 +30,6 @@ import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.step.Profiling;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
-import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
 import org.apache.tinkerpop.gremlin.process.traversal.util.MutableMetrics;
 import org.apache.tinkerpop.gremlin.structure.Element;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
@@ -51,8 +50,8 @@ public class JanusGraphPropertiesStep<E> extends PropertiesStep<E> implements Ha
         this.limit = Query.NO_LIMIT;
     }
 
-    private boolean initialized = false;
     private boolean useMultiQuery = false;
+    private int batchSize = Integer.MAX_VALUE;
     private Map<JanusGraphVertex, Iterable<? extends JanusGraphProperty>> multiQueryResults = null;
     private QueryProfiler queryProfiler = QueryProfiler.NO_OP;
 
@@ -62,6 +61,12 @@ public class JanusGraphPropertiesStep<E> extends PropertiesStep<E> implements Ha
         this.useMultiQuery = useMultiQuery;
     }
 
+    @Override
+    public void setBatchSize(int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "Invalid batch size: %s", batchSize);
+        this.batchSize = batchSize;
+    }
+
     private <Q extends BaseVertexQuery> Q makeQuery(Q query) {
         final String[] keys = getPropertyKeys();
         query.keys(keys);
@@ -82,39 +87,32 @@ public class JanusGraphPropertiesStep<E> extends PropertiesStep<E> implements Ha
         return (Iterator<E>) Iterators.transform(iterable.iterator(), Property::value);
     }
 
-    @SuppressWarnings("deprecation")
-    private void initialize() {
-        assert !initialized;
-        initialized = true;
+    /**
+     * Retrieves the properties of the vertex of the given traverser together with those of the vertices of the next
+     * incoming traversers, up to the batch size, in one multi-query. The other traversers are put back to be processed
+     * next. Only the results of the current batch are held, which bounds the memory needed for large fan-outs.
+     */
+    private void loadBatch(final Traverser.Admin<Element> traverser) {
         assert getReturnType().forProperties() || (orders.isEmpty() && hasContainers.isEmpty());
-
-        if (!starts.hasNext()) throw FastNoSuchElementException.instance();
+        final JanusGraphMultiVertexQuery multiQuery = JanusGraphTraversalUtil.getTx(traversal).multiQuery();
+        multiQuery.addVertex((Vertex) traverser.get());
         final List<Traverser.Admin<Element>> elements = new ArrayList<>();
-        starts.forEachRemaining(elements::add);
-        starts.add(elements.iterator());
-        assert elements.size() > 0;
-
-        useMultiQuery = useMultiQuery && elements.stream().allMatch(e -> e.get() instanceof Vertex);
-
-        if (useMultiQuery) {
-            final JanusGraphMultiVertexQuery multiQuery = JanusGraphTraversalUtil.getTx(traversal).multiQuery();
-            elements.forEach(e -> multiQuery.addVertex((Vertex) e.get()));
-            makeQuery(multiQuery);
-
-            multiQueryResults = multiQuery.properties();
+        while (elements.size() < batchSize - 1 && starts.hasNext()) {
+            final Traverser.Admin<Element> next = starts.next();
+            elements.add(next);
+            //Other elements are not batched
+            if (next.get() instanceof Vertex) multiQuery.addVertex((Vertex) next.get());
         }
-    }
+        starts.add(elements.iterator());
+        makeQuery(multiQuery);
 
-    @Override
-    protected Traverser.Admin<E> processNextStart() {
-        if (!initialized) initialize();
-        return super.processNextStart();
+        multiQueryResults = multiQuery.properties();
     }
 
     @Override
     protected Iterator<E> flatMap(final Traverser.Admin<Element> traverser) {
-        if (useMultiQuery) { //it is guaranteed that all elements are vertices
-            assert multiQueryResults != null;
+        if (useMultiQuery && traverser.get() instanceof Vertex) {
+            if (multiQueryResults == null || !multiQueryResults.containsKey(traverser.get())) loadBatch(traverser);
             return convertIterator(multiQueryResults.get(traverser.get()));
         } else if (traverser.get() instanceof JanusGraphVertex || traverser.get() instanceof WrappedVertex) {
             final JanusGraphVertexQuery query = makeQuery((JanusGraphTraversalUtil.getJanusGraphVertex(traverser)).query());
@@ -140,13 +138,13 @@ public class JanusGraphPropertiesStep<E> extends PropertiesStep<E> implements Ha
     @Override
     public void reset() {
         super.reset();
-        this.initialized = false;
+        this.multiQueryResults = null;
     }
 
     @Override
     public JanusGraphPropertiesStep<E> clone() {
         final JanusGraphPropertiesStep<E> clone = (JanusGraphPropertiesStep<E>) super.clone();
-        clone.initialized = false;
+        clone.multiQueryResults = null;
         return clone;
     }
 
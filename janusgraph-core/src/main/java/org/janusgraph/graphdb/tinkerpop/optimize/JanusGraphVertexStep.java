@@ -30,7 +30,6 @@ import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.step.Profiling;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
-import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
 import org.apache.tinkerpop.gremlin.process.traversal.util.MutableMetrics;
 import org.apache.tinkerpop.gremlin.structure.Element;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
@@ -55,8 +54,8 @@ public class JanusGraphVertexStep<E extends Element> extends VertexStep<E> imple
         this.limit = Query.NO_LIMIT;
     }
 
-    private boolean initialized = false;
     private boolean useMultiQuery = false;
+    private int batchSize = Integer.MAX_VALUE;
     private Map<JanusGraphVertex, Iterable<? extends JanusGraphElement>> multiQueryResults = null;
     private QueryProfiler queryProfiler = QueryProfiler.NO_OP;
 
@@ -65,6 +64,12 @@ public class JanusGraphVertexStep<E extends Element> extends VertexStep<E> imple
         this.useMultiQuery = useMultiQuery;
     }
 
+    @Override
+    public void setBatchSize(int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "Invalid batch size: %s", batchSize);
+        this.batchSize = batchSize;
+    }
+
     public <Q extends BaseVertexQuery> Q makeQuery(Q query) {
         query.labels(getEdgeLabels());
         query.direction(getDirection());
@@ -77,38 +82,30 @@ public class JanusGraphVertexStep<E extends Element> extends VertexStep<E> imple
         return query;
     }
 
-    @SuppressWarnings("deprecation")
-    private void initialize() {
-        assert !initialized;
-        initialized = true;
-        if (useMultiQuery) {
-            if (!starts.hasNext()) {
-                throw FastNoSuchElementException.instance();
-            }
-            final JanusGraphMultiVertexQuery multiQuery = JanusGraphTraversalUtil.getTx(traversal).multiQuery();
-            final List<Traverser.Admin<Vertex>> vertices = new ArrayList<>();
-            starts.forEachRemaining(v -> {
-                vertices.add(v);
-                multiQuery.addVertex(v.get());
-            });
-            starts.add(vertices.iterator());
-            assert vertices.size() > 0;
-            makeQuery(multiQuery);
-
-            multiQueryResults = (Vertex.class.isAssignableFrom(getReturnClass())) ? multiQuery.vertices() : multiQuery.edges();
+    /**
+     * Retrieves the results for the vertex of the given traverser together with those of the next incoming traversers,
+     * up to the batch size, in one multi-query. The other traversers are put back to be processed next. Only the
+     * results of the current batch are held, which bounds the memory needed for large fan-outs.
+     */
+    private void loadBatch(final Traverser.Admin<Vertex> traverser) {
+        final JanusGraphMultiVertexQuery multiQuery = JanusGraphTraversalUtil.getTx(traversal).multiQuery();
+        multiQuery.addVertex(traverser.get());
+        final List<Traverser.Admin<Vertex>> vertices = new ArrayList<>();
+        while (vertices.size() < batchSize - 1 && starts.hasNext()) {
+            final Traverser.Admin<Vertex> next = starts.next();
+            vertices.add(next);
+            multiQuery.addVertex(next.get());
         }
-    }
+        starts.add(vertices.iterator());
+        makeQuery(multiQuery);
 
-    @Override
-    protected Traverser.Admin<E> processNextStart() {
-        if (!initialized) initialize();
-        return super.processNextStart();
+        multiQueryResults = (Vertex.class.isAssignableFrom(getReturnClass())) ? multiQuery.vertices() : multiQuery.edges();
     }
 
     @Override
     protected Iterator<E> flatMap(final Traverser.Admin<Vertex> traverser) {
         if (useMultiQuery) {
-            assert multiQueryResults != null;
+            if (multiQueryResults == null || !multiQueryResults.containsKey(traverser.get())) loadBatch(traverser);
             return (Iterator<E>) multiQueryResults.get(traverser.get()).iterator();
         } else {
             final JanusGraphVertexQuery query = makeQuery((JanusGraphTraversalUtil.getJanusGraphVertex(traverser)).query());
@@ -119,13 +116,13 @@ public class JanusGraphVertexStep<E extends Element> extends VertexStep<E> imple
     @Override
     public void reset() {
         super.reset();
-        this.initialized = false;
+        this.multiQueryResults = null;
     }
 
     @Override
     public JanusGraphVertexStep<E> clone() {
         final JanusGraphVertexStep<E> clone = (JanusGraphVertexStep<E>) super.clone();
-        clone.initialized = false;
+        clone.multiQueryResults = null;
         return clone;
     }
 
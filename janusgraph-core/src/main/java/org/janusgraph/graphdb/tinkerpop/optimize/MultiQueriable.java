@@ -23,4 +23,9 @@ public interface MultiQueriable<S,E> extends Step<S,E> {
 
     void setUseMultiQuery(boolean useMultiQuery);
 
+    /**
+     * Sets the maximum number of incoming traversers whose results are retrieved together in one multi-query.
+     */
+    void setBatchSize(int batchSize);
+
 }
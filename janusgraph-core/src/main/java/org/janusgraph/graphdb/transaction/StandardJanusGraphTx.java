@@ -71,6 +71,7 @@ import org.janusgraph.graphdb.util.SubqueryIterator;
 import org.janusgraph.graphdb.util.VertexCentricEdgeIterable;
 import org.janusgraph.graphdb.vertices.CacheVertex;
 import org.janusgraph.graphdb.vertices.PreloadedVertex;
+import org.janusgraph.graphdb.vertices.RelationSliceBudget;
 import org.janusgraph.graphdb.vertices.StandardVertex;
 import org.janusgraph.util.datastructures.Retriever;
 import org.janusgraph.util.stats.MetricManager;
@@ -129,6 +130,10 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
      * Keeps track of vertices already loaded in memory. Cannot release vertices with added relations.
      */
     private final VertexCache vertexCache;
+    /**
+     * Bounds the size of the relation slices cached by the vertices of this transaction or null if the size is not bounded
+     */
+    private final RelationSliceBudget relationSliceBudget;
 
     //######## Data structures that keep track of new and deleted elements
     //These data structures cannot release elements, since we would loose track of what was added or deleted
@@ -243,6 +248,7 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
         }
 
         vertexCache = new GuavaVertexCache(effectiveVertexCacheSize,concurrencyLevel,config.getDirtyVertexSize());
+        relationSliceBudget = config.getRelationCacheSize() > 0 ? new RelationSliceBudget(config.getRelationCacheSize()) : null;
 
         indexCache = CacheBuilder.newBuilder().weigher((Weigher<JointIndexQuery.Subquery, List<Object>>) (q, r) -> 2 + r.size()).concurrencyLevel(concurrencyLevel).maximumWeight(config.getIndexCacheWeight()).build();
 
@@ -306,6 +312,10 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
         else return (StandardJanusGraphTx) graph.getCurrentThreadTx();
     }
 
+    public RelationSliceBudget getRelationSliceBudget() {
+        return relationSliceBudget;
+    }
+
     public TransactionConfiguration getConfiguration() {
         return config;
     }
@@ -1285,7 +1295,8 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
                     });
                 }
                 iterator = new SubqueryIterator(indexQuery.getQuery(0), indexSerializer, txHandle, indexCache, indexQuery.getLimit(), getConversionFunction(query.getResultType()),
-                        retrievals.isEmpty() ? null: QueryUtil.processIntersectingRetrievals(retrievals, indexQuery.getLimit()));
+                        retrievals.isEmpty() ? null: QueryUtil.processIntersectingRetrievals(retrievals, indexQuery.getLimit(),
+                                graph.getConfiguration().useParallelIndexIntersection() ? txHandle.getExecutor() : null));
             } else {
                 if (config.hasForceIndexUsage()) throw new JanusGraphException("Could not find a suitable index to answer graph query and graph scans are disabled: " + query);
                 log.warn("Query requires iterating over all vertices [{}]. For better performance, use indexes", query.getCondition());
@@ -67,6 +67,8 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
 
     private int dirtyVertexSize;
 
+    private long relationCacheSize;
+
     private long indexCacheWeight;
 
     private String logIdentifier;
@@ -105,6 +107,7 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
         this.customOptions = new MergedConfiguration(writableCustomOptions, graphConfig.getConfiguration());
         vertexCacheSize(graphConfig.getTxVertexCacheSize());
         dirtyVertexSize(graphConfig.getTxDirtyVertexSize());
+        relationCacheSize(graphConfig.getTxRelationCacheSize());
     }
 
     public StandardTransactionBuilder(GraphDatabaseConfiguration graphConfig, StandardJanusGraph graph, Configuration customOptions) {
@@ -124,6 +127,7 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
         this.customOptions = customOptions;
         vertexCacheSize(graphConfig.getTxVertexCacheSize());
         dirtyVertexSize(graphConfig.getTxDirtyVertexSize());
+        relationCacheSize(graphConfig.getTxRelationCacheSize());
     }
 
     public StandardTransactionBuilder threadBound() {
@@ -168,6 +172,13 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
         return this;
     }
 
+    @Override
+    public StandardTransactionBuilder relationCacheSize(long size) {
+        Preconditions.checkArgument(size >= 0);
+        this.relationCacheSize = size;
+        return this;
+    }
+
     @Override
     public StandardTransactionBuilder checkInternalVertexExistence(boolean enabled) {
         this.verifyInternalVertexExistence = enabled;
@@ -237,7 +248,7 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
                 assignIDsImmediately, preloadedData, forceIndexUsage, verifyExternalVertexExistence,
                 verifyInternalVertexExistence, acquireLocks, verifyUniqueness,
                 propertyPrefetching, singleThreaded, threadBound, getTimestampProvider(), userCommitTime,
-                indexCacheWeight, getVertexCacheSize(), getDirtyVertexSize(),
+                indexCacheWeight, getVertexCacheSize(), getDirtyVertexSize(), getRelationCacheSize(),
                 logIdentifier, restrictedPartitions, groupName,
                 defaultSchemaMaker, hasDisabledSchemaConstraints, customOptions);
         return graph.newTransaction(immutable);
@@ -325,6 +336,11 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
         return dirtyVertexSize;
     }
 
+    @Override
+    public final long getRelationCacheSize() {
+        return relationCacheSize;
+    }
+
     @Override
     public final long getIndexCacheWeight() {
         return indexCacheWeight;
@@ -397,6 +413,7 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
         private final long indexCacheWeight;
         private final int vertexCacheSize;
         private final int dirtyVertexSize;
+        private final long relationCacheSize;
         private final String logIdentifier;
         private final int[] restrictedPartitions;
         private final DefaultSchemaMaker defaultSchemaMaker;
@@ -414,7 +431,7 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
                 boolean hasAcquireLocks, boolean hasVerifyUniqueness,
                 boolean hasPropertyPrefetching, boolean isSingleThreaded,
                 boolean isThreadBound, TimestampProvider times, Instant commitTime,
-                long indexCacheWeight, int vertexCacheSize, int dirtyVertexSize, String logIdentifier,
+                long indexCacheWeight, int vertexCacheSize, int dirtyVertexSize, long relationCacheSize, String logIdentifier,
                 int[] restrictedPartitions,
                 String groupName,
                 DefaultSchemaMaker defaultSchemaMaker,
@@ -435,6 +452,7 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
             this.indexCacheWeight = indexCacheWeight;
             this.vertexCacheSize = vertexCacheSize;
             this.dirtyVertexSize = dirtyVertexSize;
+            this.relationCacheSize = relationCacheSize;
             this.logIdentifier = logIdentifier;
             this.restrictedPartitions=restrictedPartitions;
             this.defaultSchemaMaker = defaultSchemaMaker;
@@ -526,6 +544,11 @@ public class StandardTransactionBuilder implements TransactionConfiguration, Tra
             return dirtyVertexSize;
         }
 
+        @Override
+        public long getRelationCacheSize() {
+            return relationCacheSize;
+        }
+
         @Override
         public long getIndexCacheWeight() {
             return indexCacheWeight;
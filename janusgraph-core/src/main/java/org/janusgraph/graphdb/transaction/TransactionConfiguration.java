@@ -145,6 +145,13 @@ public interface TransactionConfiguration extends BaseTransactionConfig {
      */
     int getDirtyVertexSize();
 
+    /**
+     * The maximum size in bytes of the relation slices cached by the vertices of a transaction or 0 if the size is not bounded.
+     *
+     * @return
+     */
+    long getRelationCacheSize();
+
     /**
      * The maximum weight for the index cache store used in this particular transaction
      *
@@ -22,6 +22,9 @@ import org.janusgraph.core.JanusGraphVertexProperty;
 import org.janusgraph.core.JanusGraphVertex;
 import org.janusgraph.core.JanusGraphVertexQuery;
 import org.janusgraph.core.schema.SchemaStatus;
+import org.janusgraph.graphdb.database.cache.SchemaCache;
+import org.janusgraph.graphdb.database.cache.SchemaDefinition;
+import org.janusgraph.graphdb.internal.InternalVertex;
 import org.janusgraph.graphdb.internal.JanusGraphSchemaCategory;
 import org.janusgraph.graphdb.transaction.RelationConstructor;
 import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
@@ -34,6 +37,8 @@ import org.janusgraph.graphdb.vertices.CacheVertex;
 import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 
+import java.util.Map;
+
 public class JanusGraphSchemaVertex extends CacheVertex implements SchemaSource {
 
     public JanusGraphSchemaVertex(StandardJanusGraphTx tx, long id, byte lifecycle) {
@@ -45,17 +50,13 @@ public class JanusGraphSchemaVertex extends CacheVertex implements SchemaSource
     @Override
     public String name() {
         if (name == null) {
-            JanusGraphVertexProperty<String> p;
             if (isLoaded()) {
-                StandardJanusGraphTx tx = tx();
-                p = (JanusGraphVertexProperty) Iterables.getOnlyElement(RelationConstructor.readRelation(this,
-                        tx.getGraph().getSchemaCache().getSchemaRelations(longId(), BaseKey.SchemaName, Direction.OUT),
-                        tx), null);
+                name = getSchemaDefinition().getName();
             } else {
-                p = Iterables.getOnlyElement(query().type(BaseKey.SchemaName).properties(), null);
+                JanusGraphVertexProperty<String> p = Iterables.getOnlyElement(query().type(BaseKey.SchemaName).properties(), null);
+                if (p != null) name = p.value();
             }
-            Preconditions.checkState(p!=null,"Could not find type for id: %s", longId());
-            name = p.value();
+            Preconditions.checkState(name!=null,"Could not find type for id: %s", longId());
         }
         assert name != null;
         return JanusGraphSchemaCategory.getName(name);
@@ -72,20 +73,10 @@ public class JanusGraphSchemaVertex extends CacheVertex implements SchemaSource
     public TypeDefinitionMap getDefinition() {
         TypeDefinitionMap def = definition;
         if (def == null) {
-            def = new TypeDefinitionMap();
-            Iterable<JanusGraphVertexProperty> ps;
             if (isLoaded()) {
-                StandardJanusGraphTx tx = tx();
-                ps = (Iterable)RelationConstructor.readRelation(this,
-                        tx.getGraph().getSchemaCache().getSchemaRelations(longId(), BaseKey.SchemaDefinitionProperty, Direction.OUT),
-                        tx);
+                def = getSchemaDefinition().getDefinition();
             } else {
-                ps = query().type(BaseKey.SchemaDefinitionProperty).properties();
-            }
-            for (JanusGraphVertexProperty property : ps) {
-                TypeDefinitionDescription desc = property.valueOrNull(BaseKey.SchemaDefinitionDesc);
-                Preconditions.checkArgument(desc!=null && desc.getCategory().isProperty());
-                def.setValue(desc.getCategory(), property.value());
+                def = readDefinition(query().type(BaseKey.SchemaDefinitionProperty).properties());
             }
             assert def.size()>0;
             definition = def;
@@ -104,25 +95,20 @@ public class JanusGraphSchemaVertex extends CacheVertex implements SchemaSource
         ListMultimap<TypeDefinitionCategory,Entry> relations = dir==Direction.OUT?outRelations:inRelations;
         if (relations==null) {
             ImmutableListMultimap.Builder<TypeDefinitionCategory,Entry> b = ImmutableListMultimap.builder();
-            Iterable<JanusGraphEdge> edges;
             if (isLoaded()) {
+                //Resolve the shared related schema elements in this transaction
                 StandardJanusGraphTx tx = tx();
-                edges = (Iterable)RelationConstructor.readRelation(this,
-                        tx.getGraph().getSchemaCache().getSchemaRelations(longId(), BaseLabel.SchemaDefinitionEdge, dir),
-                        tx);
+                for (Map.Entry<TypeDefinitionCategory,SchemaDefinition.Related> related : getSchemaDefinition().getRelated(dir).entries()) {
+                    InternalVertex oth = tx.getInternalVertex(related.getValue().getSchemaId());
+                    assert oth instanceof JanusGraphSchemaVertex;
+                    b.put(related.getKey(), new Entry((JanusGraphSchemaVertex) oth, related.getValue().getModifier()));
+                }
             } else {
-                edges = query().type(BaseLabel.SchemaDefinitionEdge).direction(dir).edges();
-            }
-            for (JanusGraphEdge edge: edges) {
-                JanusGraphVertex oth = edge.vertex(dir.opposite());
-                assert oth instanceof JanusGraphSchemaVertex;
-                TypeDefinitionDescription desc = edge.valueOrNull(BaseKey.SchemaDefinitionDesc);
-                Object modifier = null;
-                if (desc.getCategory().hasDataType()) {
-                    assert desc.getModifier()!=null && desc.getModifier().getClass().equals(desc.getCategory().getDataType());
-                    modifier = desc.getModifier();
+                for (JanusGraphEdge edge: query().type(BaseLabel.SchemaDefinitionEdge).direction(dir).edges()) {
+                    JanusGraphVertex oth = edge.vertex(dir.opposite());
+                    assert oth instanceof JanusGraphSchemaVertex;
+                    b.put(getCategory(edge), new Entry((JanusGraphSchemaVertex) oth, getModifier(edge)));
                 }
-                b.put(desc.getCategory(), new Entry((JanusGraphSchemaVertex) oth, modifier));
             }
             relations = b.build();
             if (dir==Direction.OUT) outRelations=relations;
@@ -132,6 +118,75 @@ public class JanusGraphSchemaVertex extends CacheVertex implements SchemaSource
         return relations.get(def);
     }
 
+    private SchemaDefinition schemaDefinition = null;
+
+    /**
+     * Returns the definition of this schema vertex as persisted in the storage backend. The definition is parsed
+     * once and then shared with all transactions through the {@link SchemaCache} until the schema vertex gets expired.
+     * Must only be used when this schema vertex is unmodified in its transaction.
+     */
+    private SchemaDefinition getSchemaDefinition() {
+        assert isLoaded();
+        SchemaDefinition compiled = schemaDefinition;
+        if (compiled == null) {
+            final StandardJanusGraphTx tx = tx();
+            final SchemaCache cache = tx.getGraph().getSchemaCache();
+            compiled = cache.getSchemaDefinition(longId());
+            if (compiled == null) {
+                final long version = cache.getSchemaVersion();
+                compiled = compileSchemaDefinition(tx, cache);
+                cache.putSchemaDefinition(longId(), compiled, version);
+            }
+            schemaDefinition = compiled;
+        }
+        return compiled;
+    }
+
+    private SchemaDefinition compileSchemaDefinition(StandardJanusGraphTx tx, SchemaCache cache) {
+        JanusGraphVertexProperty<String> p = (JanusGraphVertexProperty) Iterables.getOnlyElement(RelationConstructor.readRelation(this,
+                cache.getSchemaRelations(longId(), BaseKey.SchemaName, Direction.OUT), tx), null);
+        TypeDefinitionMap def = readDefinition((Iterable) RelationConstructor.readRelation(this,
+                cache.getSchemaRelations(longId(), BaseKey.SchemaDefinitionProperty, Direction.OUT), tx));
+        return new SchemaDefinition(p == null ? null : p.value(), def,
+                compileRelated(tx, cache, Direction.OUT), compileRelated(tx, cache, Direction.IN));
+    }
+
+    private ImmutableListMultimap<TypeDefinitionCategory,SchemaDefinition.Related> compileRelated(StandardJanusGraphTx tx,
+                                                                                                 SchemaCache cache, Direction dir) {
+        ImmutableListMultimap.Builder<TypeDefinitionCategory,SchemaDefinition.Related> b = ImmutableListMultimap.builder();
+        Iterable<JanusGraphEdge> edges = (Iterable) RelationConstructor.readRelation(this,
+                cache.getSchemaRelations(longId(), BaseLabel.SchemaDefinitionEdge, dir), tx);
+        for (JanusGraphEdge edge: edges) {
+            b.put(getCategory(edge), new SchemaDefinition.Related(edge.vertex(dir.opposite()).longId(), getModifier(edge)));
+        }
+        return b.build();
+    }
+
+    private static TypeDefinitionMap readDefinition(Iterable<JanusGraphVertexProperty> properties) {
+        TypeDefinitionMap def = new TypeDefinitionMap();
+        for (JanusGraphVertexProperty property : properties) {
+            TypeDefinitionDescription desc = property.valueOrNull(BaseKey.SchemaDefinitionDesc);
+            Preconditions.checkArgument(desc!=null && desc.getCategory().isProperty());
+            def.setValue(desc.getCategory(), property.value());
+        }
+        return def;
+    }
+
+    private static TypeDefinitionCategory getCategory(JanusGraphEdge edge) {
+        TypeDefinitionDescription desc = edge.valueOrNull(BaseKey.SchemaDefinitionDesc);
+        return desc.getCategory();
+    }
+
+    private static Object getModifier(JanusGraphEdge edge) {
+        TypeDefinitionDescription desc = edge.valueOrNull(BaseKey.SchemaDefinitionDesc);
+        Object modifier = null;
+        if (desc.getCategory().hasDataType()) {
+            assert desc.getModifier()!=null && desc.getModifier().getClass().equals(desc.getCategory().getDataType());
+            modifier = desc.getModifier();
+        }
+        return modifier;
+    }
+
     /**
      * Resets the internal caches used to speed up lookups on this index type.
      * This is needed when the type gets modified in the {@link org.janusgraph.graphdb.database.management.ManagementSystem}.
@@ -140,6 +195,7 @@ public class JanusGraphSchemaVertex extends CacheVertex implements SchemaSource
   public void resetCache() {
         name = null;
         definition=null;
+        schemaDefinition=null;
         outRelations=null;
         inRelations=null;
     }
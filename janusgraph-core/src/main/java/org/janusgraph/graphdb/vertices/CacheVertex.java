@@ -15,33 +15,65 @@
 package org.janusgraph.graphdb.vertices;
 
 import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
 import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
 import org.janusgraph.util.datastructures.Retriever;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
 public class CacheVertex extends StandardVertex {
-    // We don't try to be smart and match with previous queries
-    // because that would waste more cycles on lookup than save actual memory
     // We use a normal map with synchronization since the likelihood of contention
     // is super low in a single transaction
     protected final Map<SliceQuery, EntryList> queryCache;
+    // Cached queries by slice start so that a superset of a query is only searched among the queries
+    // which start at or before the query, guarded by the lock on queryCache
+    private final TreeMap<StaticBuffer, List<SliceQuery>> queriesByStart;
 
     public CacheVertex(StandardJanusGraphTx tx, long id, byte lifecycle) {
         super(tx, id, lifecycle);
         queryCache = new HashMap<>(4);
+        queriesByStart = new TreeMap<>();
+    }
+
+    /**
+     * Returns the budget which bounds the size of the cached slices or null if they are not bounded.
+     * Slices which cannot be retrieved again must not be subject to a budget.
+     */
+    protected RelationSliceBudget getRelationSliceBudget() {
+        return tx().getRelationSliceBudget();
     }
 
     protected void addToQueryCache(final SliceQuery query, final EntryList entries) {
+        final RelationSliceBudget budget = getRelationSliceBudget();
+        if (budget != null && !budget.admits(entries)) return;
+        synchronized (queryCache) {
+            if (queryCache.put(query, entries) == null) {
+                queriesByStart.computeIfAbsent(query.getSliceStart(), k -> new ArrayList<>(2)).add(query);
+            }
+        }
+        if (budget != null) budget.added(this, query, entries);
+    }
+
+    /**
+     * Removes the given slice from the query cache unless it has been replaced in the meantime
+     */
+    void evictFromQueryCache(final SliceQuery query, final EntryList entries) {
         synchronized (queryCache) {
-            //TODO: become smarter about what to cache and when (e.g. memory pressure)
-            queryCache.put(query, entries);
+            if (queryCache.get(query) != entries) return;
+            queryCache.remove(query);
+            final List<SliceQuery> queries = queriesByStart.get(query.getSliceStart());
+            queries.remove(query);
+            if (queries.isEmpty()) queriesByStart.remove(query.getSliceStart());
         }
     }
 
@@ -70,6 +102,9 @@ public class CacheVertex extends StandardVertex {
             }
             addToQueryCache(query, result);
 
+        } else {
+            final RelationSliceBudget budget = getRelationSliceBudget();
+            if (budget != null) budget.accessed(this, query);
         }
         return result;
     }
@@ -85,8 +120,11 @@ public class CacheVertex extends StandardVertex {
 
         synchronized (queryCache) {
             if (queryCache.size() > 0) {
-                for (Map.Entry<SliceQuery, EntryList> entry : queryCache.entrySet()) {
-                    if (entry.getKey().subsumes(query)) return entry;
+                //Only queries which start at or before the given query can subsume it
+                for (List<SliceQuery> queries : queriesByStart.headMap(query.getSliceStart(), true).descendingMap().values()) {
+                    for (SliceQuery cached : queries) {
+                        if (cached.subsumes(query)) return new AbstractMap.SimpleImmutableEntry<>(cached, queryCache.get(cached));
+                    }
                 }
             }
         }
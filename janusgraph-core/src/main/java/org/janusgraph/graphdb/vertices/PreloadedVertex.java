@@ -62,6 +62,12 @@ public class PreloadedVertex extends CacheVertex {
         this.accessCheck=accessCheck;
     }
 
+    @Override
+    protected RelationSliceBudget getRelationSliceBudget() {
+        //Preloaded slices cannot be retrieved again
+        return null;
+    }
+
     @Override
     public void addToQueryCache(final SliceQuery query, final EntryList entries) {
         super.addToQueryCache(query, entries);
@@ -0,0 +1,175 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.vertices;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Bounds the memory held by the relation slices which the {@link CacheVertex}s of a transaction cache.
+ * The budget tracks the cached slices of all vertices in access order and evicts the least recently used slices
+ * from their vertices once the total size of the cached slices exceeds the maximum size.
+ * Slices that are larger than the maximum size are not cached at all.
+ * <p>
+ * Each slice is charged the size of its entries plus a fixed overhead for the bookkeeping of the slice, so that
+ * many empty or tiny slices are bounded as well. Slices derived from a cached superset are counted separately even
+ * though they share their entries with the superset, hence the budget overestimates the memory held by the cached
+ * slices.
+ * <p>
+ * The budget only references vertices weakly. The slices of a vertex that was evicted from the vertex cache of the
+ * transaction and garbage collected are dropped from the budget.
+ *
+ * @see org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration#TX_RELATION_CACHE_SIZE
+ */
+public class RelationSliceBudget {
+
+    /**
+     * Estimated number of bytes held per cached slice in addition to its entries, i.e. the map entries in the query
+     * cache of the vertex and in this budget
+     */
+    static final long SLICE_OVERHEAD = 128;
+
+    private final long maxSize;
+    private final LinkedHashMap<CachedSlice, CachedSlice> slices;
+    private final ReferenceQueue<CacheVertex> collectedVertices;
+    private long size;
+
+    /**
+     * @param maxSize maximum size in bytes of the cached slices
+     */
+    public RelationSliceBudget(long maxSize) {
+        Preconditions.checkArgument(maxSize > 0, "Invalid relation slice budget: %s", maxSize);
+        this.maxSize = maxSize;
+        this.slices = new LinkedHashMap<>(16, 0.75f, true);
+        this.collectedVertices = new ReferenceQueue<>();
+        this.size = 0;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the total size in bytes of the currently cached slices
+     */
+    public synchronized long getSize() {
+        expungeCollectedVertices();
+        return size;
+    }
+
+    /**
+     * @return whether the given slice fits into this budget
+     */
+    boolean admits(EntryList entries) {
+        return getSize(entries) <= maxSize;
+    }
+
+    private static long getSize(EntryList entries) {
+        return entries.getByteSize() + SLICE_OVERHEAD;
+    }
+
+    /**
+     * Records that the given vertex cached the result of the given query and evicts the least recently used slices if
+     * the budget is exceeded.
+     * Must not be called while holding the lock on the query cache of a vertex since evicting slices acquires the locks
+     * of other vertices.
+     */
+    void added(CacheVertex vertex, SliceQuery query, EntryList entries) {
+        final CachedSlice slice = new CachedSlice(vertex, query, entries, collectedVertices);
+        final List<CachedSlice> evicted;
+        synchronized (this) {
+            expungeCollectedVertices();
+            final CachedSlice previous = slices.put(slice, slice);
+            if (previous != null) size -= previous.size;
+            size += slice.size;
+            if (size <= maxSize) return;
+            evicted = new ArrayList<>();
+            final Iterator<CachedSlice> iterator = slices.keySet().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                final CachedSlice eldest = iterator.next();
+                if (eldest == slice) continue;
+                iterator.remove();
+                size -= eldest.size;
+                evicted.add(eldest);
+            }
+        }
+        for (final CachedSlice eldest : evicted) {
+            final CacheVertex eldestVertex = eldest.get();
+            if (eldestVertex != null) eldestVertex.evictFromQueryCache(eldest.query, eldest.entries);
+        }
+    }
+
+    /**
+     * Marks the cached result of the given query as recently used
+     */
+    synchronized void accessed(CacheVertex vertex, SliceQuery query) {
+        slices.get(new CachedSlice(vertex, query, null, null));
+    }
+
+    /**
+     * Drops the slices of the vertices which have been garbage collected
+     */
+    private void expungeCollectedVertices() {
+        Reference<? extends CacheVertex> collected;
+        while ((collected = collectedVertices.poll()) != null) {
+            final CachedSlice slice = slices.remove(collected);
+            if (slice != null) size -= slice.size;
+        }
+    }
+
+    /**
+     * A slice cached by a particular vertex, identified by the vertex instance and the query
+     */
+    private static class CachedSlice extends WeakReference<CacheVertex> {
+
+        private final int vertexHash;
+        private final SliceQuery query;
+        private final EntryList entries;
+        private final long size;
+
+        private CachedSlice(CacheVertex vertex, SliceQuery query, EntryList entries, ReferenceQueue<CacheVertex> queue) {
+            super(vertex, queue);
+            this.vertexHash = System.identityHashCode(vertex);
+            this.query = query;
+            this.entries = entries;
+            this.size = entries == null ? 0 : getSize(entries);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * vertexHash + query.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof CachedSlice)) return false;
+            final CachedSlice oth = (CachedSlice) other;
+            final CacheVertex vertex = get();
+            //The slices of a collected vertex are only equal to themselves
+            return vertex != null && vertex == oth.get() && query.equals(oth.query);
+        }
+    }
+
+}
@@ -81,6 +81,23 @@ public interface CQLConfigOptions {
             ConfigOption.Type.MASKABLE,
             false);
 
+    // Multi-key slice queries
+    ConfigOption<Integer> MULTI_QUERY_MAX_IN_FLIGHT = new ConfigOption<>(
+            CQL_NS,
+            "multi-query-max-in-flight",
+            "The maximum number of asynchronous per-key slice statements a single multi-key query keeps in flight at once",
+            ConfigOption.Type.MASKABLE,
+            256,
+            ConfigOption.positiveInt());
+
+    ConfigOption<Boolean> MULTI_QUERY_TOKEN_ORDERED = new ConfigOption<>(
+            CQL_NS,
+            "multi-query-token-ordered",
+            "True to issue the per-key statements of a multi-key query in token order, so that statements " +
+                    "targeting the same replicas are sent back to back",
+            ConfigOption.Type.MASKABLE,
+            false);
+
     // Replication
     ConfigOption<Integer> REPLICATION_FACTOR = new ConfigOption<>(
             CQL_NS,
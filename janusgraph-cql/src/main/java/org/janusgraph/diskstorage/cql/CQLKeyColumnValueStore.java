@@ -46,10 +46,15 @@ import static org.janusgraph.diskstorage.cql.CQLConfigOptions.COMPACTION_STRATEG
 import static org.janusgraph.diskstorage.cql.CQLTransaction.getTransaction;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.function.Function;
 
 import org.janusgraph.diskstorage.BackendException;
@@ -71,10 +76,12 @@ import org.janusgraph.diskstorage.util.StaticArrayBuffer;
 import org.janusgraph.diskstorage.util.StaticArrayEntry.GetColVal;
 import org.janusgraph.diskstorage.util.StaticArrayEntryList;
 
+import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Metadata;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
@@ -83,6 +90,7 @@ import com.datastax.driver.core.exceptions.UnsupportedFeatureException;
 import com.datastax.driver.core.schemabuilder.TableOptions.CompactionOptions;
 import com.datastax.driver.core.schemabuilder.TableOptions.CompressionOptions;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import io.vavr.Lazy;
 import io.vavr.Tuple;
@@ -277,9 +285,56 @@ public class CQLKeyColumnValueStore implements KeyColumnValueStore {
         return result.getValue().get().getOrElseThrow(EXCEPTION_MAPPER);
     }
 
+    /**
+     * Issues one asynchronous slice statement per key and waits for all of them together, so that the latency of a
+     * multi-key query is bounded by the slowest key rather than the sum of all keys. At most
+     * {@link CQLConfigOptions#MULTI_QUERY_MAX_IN_FLIGHT} statements are outstanding at any time.
+     */
     @Override
     public Map<StaticBuffer, EntryList> getSlice(final List<StaticBuffer> keys, final SliceQuery query, final StoreTransaction txh) throws BackendException {
-        throw new UnsupportedOperationException("The CQL backend does not support multi-key queries");
+        final ConsistencyLevel consistencyLevel = getTransaction(txh).getReadConsistencyLevel();
+        final Semaphore inFlight = new Semaphore(this.storeManager.getMultiQueryMaxInFlight());
+        final Map<StaticBuffer, ResultSetFuture> futures = new LinkedHashMap<>(keys.size());
+        try {
+            for (final StaticBuffer key : orderKeys(keys)) {
+                inFlight.acquire();
+                final ResultSetFuture future = this.session.executeAsync(this.getSlice.bind()
+                        .setBytes(KEY_BINDING, key.asByteBuffer())
+                        .setBytes(SLICE_START_BINDING, query.getSliceStart().asByteBuffer())
+                        .setBytes(SLICE_END_BINDING, query.getSliceEnd().asByteBuffer())
+                        .setInt(LIMIT_BINDING, query.getLimit())
+                        .setConsistencyLevel(consistencyLevel));
+                future.addListener(inFlight::release, MoreExecutors.directExecutor());
+                futures.put(key, future);
+            }
+
+            final Map<StaticBuffer, EntryList> result = new HashMap<>(futures.size());
+            for (final Map.Entry<StaticBuffer, ResultSetFuture> entry : futures.entrySet()) {
+                result.put(entry.getKey(), fromResultSet(entry.getValue().get(), this.getter));
+            }
+            return result;
+        } catch (final InterruptedException e) {
+            cancelAll(futures.values());
+            Thread.currentThread().interrupt();
+            throw new PermanentBackendException(e);
+        } catch (final ExecutionException e) {
+            cancelAll(futures.values());
+            throw EXCEPTION_MAPPER.apply(e.getCause());
+        }
+    }
+
+    private List<StaticBuffer> orderKeys(final List<StaticBuffer> keys) {
+        if (!this.storeManager.isMultiQueryTokenOrdered()) {
+            return keys;
+        }
+        final Metadata metadata = this.session.getCluster().getMetadata();
+        return Array.ofAll(keys)
+                .sortBy(key -> metadata.newToken(key.asByteBuffer()))
+                .toJavaList();
+    }
+
+    private static void cancelAll(final Collection<ResultSetFuture> futures) {
+        futures.forEach(future -> future.cancel(true));
     }
 
     /**
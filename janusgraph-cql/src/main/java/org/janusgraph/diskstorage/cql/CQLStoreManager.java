@@ -29,6 +29,8 @@ import static org.janusgraph.diskstorage.cql.CQLConfigOptions.LOCAL_CORE_CONNECT
 import static org.janusgraph.diskstorage.cql.CQLConfigOptions.LOCAL_DATACENTER;
 import static org.janusgraph.diskstorage.cql.CQLConfigOptions.LOCAL_MAX_CONNECTIONS_PER_HOST;
 import static org.janusgraph.diskstorage.cql.CQLConfigOptions.LOCAL_MAX_REQUESTS_PER_CONNECTION;
+import static org.janusgraph.diskstorage.cql.CQLConfigOptions.MULTI_QUERY_MAX_IN_FLIGHT;
+import static org.janusgraph.diskstorage.cql.CQLConfigOptions.MULTI_QUERY_TOKEN_ORDERED;
 import static org.janusgraph.diskstorage.cql.CQLConfigOptions.PROTOCOL_VERSION;
 import static org.janusgraph.diskstorage.cql.CQLConfigOptions.READ_CONSISTENCY;
 import static org.janusgraph.diskstorage.cql.CQLConfigOptions.REMOTE_CORE_CONNECTIONS_PER_HOST;
@@ -126,6 +128,8 @@ public class CQLStoreManager extends DistributedStoreManager implements KeyColum
     private final String keyspace;
     private final int batchSize;
     private final boolean atomicBatch;
+    private final int multiQueryMaxInFlight;
+    private final boolean multiQueryTokenOrdered;
 
     final ExecutorService executorService;
 
@@ -144,6 +148,8 @@ public class CQLStoreManager extends DistributedStoreManager implements KeyColum
         this.keyspace = determineKeyspaceName(configuration);
         this.batchSize = configuration.get(BATCH_STATEMENT_SIZE);
         this.atomicBatch = configuration.get(ATOMIC_BATCH_MUTATE);
+        this.multiQueryMaxInFlight = configuration.get(MULTI_QUERY_MAX_IN_FLIGHT);
+        this.multiQueryTokenOrdered = configuration.get(MULTI_QUERY_TOKEN_ORDERED);
 
         this.executorService = new ThreadPoolExecutor(10,
                 100,
@@ -176,7 +182,7 @@ public class CQLStoreManager extends DistributedStoreManager implements KeyColum
         fb.timestamps(true).cellTTL(true);
         fb.keyConsistent((onlyUseLocalConsistency ? local : global), local);
         fb.optimisticLocking(true);
-        fb.multiQuery(false);
+        fb.multiQuery(true);
 
         final String partitioner = this.cluster.getMetadata().getPartitioner();
         switch (partitioner.substring(partitioner.lastIndexOf('.') + 1)) {
@@ -313,6 +319,14 @@ public class CQLStoreManager extends DistributedStoreManager implements KeyColum
         return this.session;
     }
 
+    int getMultiQueryMaxInFlight() {
+        return this.multiQueryMaxInFlight;
+    }
+
+    boolean isMultiQueryTokenOrdered() {
+        return this.multiQueryTokenOrdered;
+    }
+
     String getKeyspaceName() {
         return this.keyspace;
     }
@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.janusgraph.diskstorage.es.compat.ES6Compat;
 import org.janusgraph.diskstorage.es.rest.util.HttpAuthTypes;
 import org.locationtech.spatial4j.shape.Rectangle;
@@ -81,6 +82,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -90,6 +92,10 @@ import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -134,6 +140,37 @@ public class ElasticSearchIndex implements IndexProvider {
             "Elasticsearch bulk API refresh setting used to control when changes made by this request are made " +
             "visible to search", ConfigOption.Type.MASKABLE, "false");
 
+    public static final ConfigOption<Integer> BULK_CHUNK_SIZE_LIMIT_BYTES =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-chunk-size-limit-bytes",
+            "Maximum size (in bytes) of the body of a single Elasticsearch bulk request. Larger mutations are split " +
+            "into several bulk requests. A single document action that exceeds this size is sent on its own.",
+            ConfigOption.Type.MASKABLE, 10 * 1024 * 1024, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Integer> BULK_CHUNK_MAX_ACTIONS =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-chunk-max-actions",
+            "Maximum number of actions in a single Elasticsearch bulk request.",
+            ConfigOption.Type.MASKABLE, 5000, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Integer> BULK_CONCURRENT_REQUESTS =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-concurrent-requests",
+            "Maximum number of bulk requests that are sent to Elasticsearch concurrently. The actions on the same " +
+            "document are always sent in the same bulk request.",
+            ConfigOption.Type.MASKABLE, 4, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Integer> BULK_RETRY_LIMIT =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-retry-limit",
+            "How often the actions of a bulk request that Elasticsearch rejected because it was overloaded " +
+            "(HTTP status 429) are retried before the mutation fails.",
+            ConfigOption.Type.MASKABLE, 5, ConfigOption.nonnegativeInt());
+
+    private static final long MAX_BULK_RETRY_INITIAL_WAIT_MS = 60000L;
+
+    public static final ConfigOption<Long> BULK_RETRY_INITIAL_WAIT =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-retry-initial-wait",
+            "How long to wait, in milliseconds, before the first retry of rejected bulk actions. The wait time " +
+            "doubles with every further retry. At most " + MAX_BULK_RETRY_INITIAL_WAIT_MS + " milliseconds.",
+            ConfigOption.Type.MASKABLE, 100L, l -> l!=null && l>=0 && l<=MAX_BULK_RETRY_INITIAL_WAIT_MS);
+
     public static final ConfigNamespace ES_CREATE_NS =
             new ConfigNamespace(ELASTICSEARCH_NS, "create", "Settings related to index creation");
 
@@ -171,6 +208,31 @@ public class ElasticSearchIndex implements IndexProvider {
             new ConfigOption<>(ELASTICSEARCH_NS, "scroll-keep-alive",
             "How long (in seconds) elasticsearch should keep alive the scroll context.", ConfigOption.Type.GLOBAL_OFFLINE, 60);
 
+    public static final String PAGINATION_SCROLL = "scroll";
+    public static final String PAGINATION_SEARCH_AFTER = "search-after";
+
+    public static final ConfigOption<String> ES_PAGINATION =
+            new ConfigOption<>(ELASTICSEARCH_NS, "pagination",
+            "How the results of queries that exceed one page are retrieved. \"" + PAGINATION_SCROLL + "\" keeps a " +
+            "scroll context open on the cluster, which provides a consistent view of the index across pages. \"" +
+            PAGINATION_SEARCH_AFTER + "\" (Elasticsearch 5.x and later) requests every page with search_after " +
+            "instead, which keeps no state on the cluster but may reflect index changes made between pages. The " +
+            "results are then sorted by document id, which loads the ids of the index into field data on the cluster.",
+            ConfigOption.Type.MASKABLE, PAGINATION_SCROLL,
+            s -> PAGINATION_SCROLL.equals(s) || PAGINATION_SEARCH_AFTER.equals(s));
+
+    public static final ConfigOption<Boolean> ES_PREFETCH_PAGES =
+            new ConfigOption<>(ELASTICSEARCH_NS, "prefetch-pages",
+            "Whether the next page of a query result is requested in the background while the current page is " +
+            "consumed. This also requests the next page if the query result is not consumed any further.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Integer> ES_PREFETCH_THREADS =
+            new ConfigOption<>(ELASTICSEARCH_NS, "prefetch-threads",
+            "Maximum number of pages that are requested in the background at the same time. If all threads are " +
+            "busy, the next page of a query result is requested once it is consumed.",
+            ConfigOption.Type.MASKABLE, 4, ConfigOption.positiveInt());
+
     public static final ConfigNamespace ES_INGEST_PIPELINES =
             new ConfigNamespace(ELASTICSEARCH_NS, "ingest-pipeline", "Ingest pipeline applicable to a store of an index.");
 
@@ -286,6 +348,8 @@ public class ElasticSearchIndex implements IndexProvider {
     private final boolean useAllField;
     private final boolean useMultitypeIndex;
     private final Map<String, Object> ingestPipelines;
+    private final boolean useSearchAfter;
+    private final ExecutorService prefetchExecutor;
 
     public ElasticSearchIndex(Configuration config) throws BackendException {
         indexName = config.get(INDEX_NAME);
@@ -321,6 +385,14 @@ public class ElasticSearchIndex implements IndexProvider {
                 throw new PermanentBackendException("Unsupported Elasticsearch version: " + client.getMajorVersion());
         }
 
+        useSearchAfter = PAGINATION_SEARCH_AFTER.equals(config.get(ES_PAGINATION));
+        Preconditions.checkArgument(!useSearchAfter || compat.searchAfterTiebreaker() != null,
+                "Pagination with search_after requires Elasticsearch 5.x or later.");
+        //Rejects prefetches while all threads are busy, in which case the page is requested by the consumer
+        prefetchExecutor = config.get(ES_PREFETCH_PAGES) ? new ThreadPoolExecutor(0, config.get(ES_PREFETCH_THREADS),
+                60L, TimeUnit.SECONDS, new SynchronousQueue<>(), new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("ElasticSearchIndex-prefetch-%d").build()) : null;
+
         try {
             client.clusterHealthRequest(config.get(HEALTH_REQUEST_TIMEOUT));
         } catch (final IOException e) {
@@ -1098,14 +1170,19 @@ public class ElasticSearchIndex implements IndexProvider {
             sr.setSize(batchSize);
         }
 
+        final boolean paginate = sr.getSize() >= batchSize;
+        if (paginate && useSearchAfter) sr.addSort(compat.searchAfterTiebreaker(), "asc", null);
+
         ElasticSearchResponse response;
         try {
             final String indexStoreName = getIndexStoreName(query.getStore());
             final String indexType = useMultitypeIndex ? query.getStore() : null;
-            response = client.search(indexStoreName, indexType, compat.createRequestBody(sr, NULL_PARAMETERS),
-                    sr.getSize() >= batchSize);
+            final Map<String,Object> requestBody = compat.createRequestBody(sr, NULL_PARAMETERS);
+            response = client.search(indexStoreName, indexType, requestBody, paginate && !useSearchAfter);
             log.debug("First Executed query [{}] in {} ms", query.getCondition(), response.getTook());
-            final ElasticSearchScroll resultIterator = new ElasticSearchScroll(client, response, sr.getSize());
+            final ElasticSearchScroll resultIterator = paginate && useSearchAfter
+                    ? new ElasticSearchSearchAfter(client, indexStoreName, indexType, requestBody, response, sr.getSize(), prefetchExecutor)
+                    : new ElasticSearchScroll(client, response, sr.getSize(), prefetchExecutor);
             final Stream<RawQuery.Result<String>> toReturn
                     = StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultIterator, Spliterator.ORDERED), false);
             return (query.hasLimit() ? toReturn.limit(query.getLimit()) : toReturn).map(RawQuery.Result::getResult);
@@ -1146,15 +1223,19 @@ public class ElasticSearchIndex implements IndexProvider {
         return null;
     }
 
-    private ElasticSearchResponse runCommonQuery(RawQuery query, BaseTransaction tx, int size,
-                                                 boolean useScroll) throws BackendException{
+    private ElasticSearchRequest getRawRequest(RawQuery query, int size) {
         final ElasticSearchRequest sr = new ElasticSearchRequest();
         sr.setQuery(compat.queryString(query.getQuery()));
         sr.setFrom(0);
         sr.setSize(size);
+        return sr;
+    }
+
+    private ElasticSearchResponse runCommonQuery(RawQuery query, Map<String,Object> requestBody,
+                                                 boolean useScroll) throws BackendException{
         try {
             return client.search(getIndexStoreName(query.getStore()), useMultitypeIndex ? query.getStore() : null,
-                   compat.createRequestBody(sr, query.getParameters()), useScroll);
+                   requestBody, useScroll);
         } catch (final IOException | UncheckedIOException e) {
             throw new PermanentBackendException(e);
         }
@@ -1164,9 +1245,23 @@ public class ElasticSearchIndex implements IndexProvider {
     public Stream<RawQuery.Result<String>> query(RawQuery query, KeyInformation.IndexRetriever information,
                                                  BaseTransaction tx) throws BackendException {
         final int size = query.hasLimit() ? Math.min(query.getLimit() + query.getOffset(), batchSize) : batchSize;
-        final ElasticSearchResponse response = runCommonQuery(query, tx, size, size >= batchSize );
+        final ElasticSearchRequest sr = getRawRequest(query, size);
+        final boolean paginate = size >= batchSize;
+        //Parameters may define their own sort order, which search_after cannot rely on
+        final boolean searchAfter = paginate && useSearchAfter && (query.getParameters() == null
+                || Arrays.stream(query.getParameters()).noneMatch(parameter -> "sort".equals(parameter.key())));
+        if (searchAfter) {
+            sr.addSort("_score", "desc", null);
+            sr.addSort(compat.searchAfterTiebreaker(), "asc", null);
+        }
+        final Map<String,Object> requestBody = compat.createRequestBody(sr, query.getParameters());
+        if (searchAfter) requestBody.put("track_scores", true);
+        final ElasticSearchResponse response = runCommonQuery(query, requestBody, paginate && !searchAfter);
         log.debug("First Executed query [{}] in {} ms", query.getQuery(), response.getTook());
-        final ElasticSearchScroll resultIterator = new ElasticSearchScroll(client, response, size);
+        final ElasticSearchScroll resultIterator = searchAfter
+                ? new ElasticSearchSearchAfter(client, getIndexStoreName(query.getStore()),
+                    useMultitypeIndex ? query.getStore() : null, requestBody, response, size, prefetchExecutor)
+                : new ElasticSearchScroll(client, response, size, prefetchExecutor);
         final Stream<RawQuery.Result<String>> toReturn
                 = StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultIterator, Spliterator.ORDERED),
                 false).skip(query.getOffset());
@@ -1177,7 +1272,8 @@ public class ElasticSearchIndex implements IndexProvider {
     public Long totals(RawQuery query, KeyInformation.IndexRetriever information,
                        BaseTransaction tx) throws BackendException {
         final int size = query.hasLimit() ? Math.min(query.getLimit() + query.getOffset(), batchSize) : batchSize;
-        final ElasticSearchResponse response = runCommonQuery(query, tx, size, false);
+        final ElasticSearchResponse response = runCommonQuery(query,
+                compat.createRequestBody(getRawRequest(query, size), query.getParameters()), false);
         log.debug("Executed query [{}] in {} ms", query.getQuery(), response.getTook());
         return response.getTotal();
     }
@@ -1255,6 +1351,7 @@ public class ElasticSearchIndex implements IndexProvider {
 
     @Override
     public void close() throws BackendException {
+        if (prefetchExecutor != null) prefetchExecutor.shutdownNow();
         try {
             client.close();
         } catch (final IOException e) {
@@ -15,6 +15,7 @@
 package org.janusgraph.diskstorage.es;
 
 import com.google.common.collect.ImmutableMap;
+import org.apache.tinkerpop.shaded.jackson.annotation.JsonInclude;
 import org.apache.tinkerpop.shaded.jackson.annotation.JsonProperty;
 
 import java.util.ArrayList;
@@ -83,6 +84,7 @@ public class ElasticSearchRequest {
         String order;
 
         @JsonProperty("unmapped_type")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
         String unmappedType;
 
         public RestSortInfo(String order, String unmappedType) {
@@ -29,6 +29,8 @@ public class ElasticSearchResponse {
 
     private List<RawQuery.Result<String>> results;
 
+    private List<Object> lastSortValues;
+
     public long getTook() {
         return took;
     }
@@ -57,6 +59,17 @@ public class ElasticSearchResponse {
         return results.size();
     }
 
+    /**
+     * Returns the sort values of the last hit, which continue the pagination with search_after.
+     */
+    public List<Object> getLastSortValues() {
+        return lastSortValues;
+    }
+
+    public void setLastSortValues(List<Object> lastSortValues) {
+        this.lastSortValues = lastSortValues;
+    }
+
     public String getScrollId() {
         return scrollId;
     }
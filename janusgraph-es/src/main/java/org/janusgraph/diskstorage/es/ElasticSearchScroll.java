@@ -18,12 +18,20 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.janusgraph.diskstorage.indexing.RawQuery;
 import org.janusgraph.diskstorage.indexing.RawQuery.Result;
 
 /**
+ * Iterates over the results of a query page by page. If an executor is provided, the next page is requested in the
+ * background while the current one is consumed, so that at most one page is buffered ahead of the consumer. If the
+ * executor rejects the request, the next page is requested once the current one has been consumed.
+ *
  * @author David Clement (david.clement90@laposte.net)
  */
 public class ElasticSearchScroll implements Iterator<RawQuery.Result<String>> {
@@ -33,35 +41,94 @@ public class ElasticSearchScroll implements Iterator<RawQuery.Result<String>> {
     private final ElasticSearchClient client;
     private final String scrollId;
     private final int batchSize;
+    private final Executor prefetchExecutor;
+    private ElasticSearchResponse lastResponse;
+    private CompletableFuture<ElasticSearchResponse> nextResponse;
 
     public ElasticSearchScroll(ElasticSearchClient client, ElasticSearchResponse initialResponse, int nbDocByQuery) {
+        this(client, initialResponse, nbDocByQuery, null);
+    }
+
+    public ElasticSearchScroll(ElasticSearchClient client, ElasticSearchResponse initialResponse, int nbDocByQuery,
+                               Executor prefetchExecutor) {
         queue = new LinkedBlockingQueue<>();
         this.client = client;
         this.scrollId = initialResponse.getScrollId();
         this.batchSize = nbDocByQuery;
+        this.prefetchExecutor = prefetchExecutor;
+        this.lastResponse = initialResponse;
         initialResponse.getResults().forEach(queue::add);
         this.isFinished = initialResponse.numResults() < nbDocByQuery;
     }
 
+    /**
+     * Retrieves the page that follows the given one.
+     */
+    protected ElasticSearchResponse fetch(ElasticSearchResponse previous) throws IOException {
+        //Elasticsearch may return a new scroll id with every page
+        return client.search(previous.getScrollId() != null ? previous.getScrollId() : scrollId);
+    }
+
+    /**
+     * Releases the resources held on the cluster once all pages have been retrieved.
+     */
+    protected void release() throws IOException {
+        client.deleteScroll(lastResponse.getScrollId() != null ? lastResponse.getScrollId() : scrollId);
+    }
+
     @Override
     public boolean hasNext() {
         try {
             if (!queue.isEmpty()) {
+                prefetch();
                 return true;
             }
             if (isFinished) {
                 return false;
             }
-            final ElasticSearchResponse res = client.search(scrollId);
+            final ElasticSearchResponse res = nextPage();
             res.getResults().forEach(queue::add);
+            lastResponse = res;
             isFinished = res.numResults() < batchSize;
-            if (isFinished) client.deleteScroll(scrollId);
+            if (isFinished) release();
+            else prefetch();
             return res.numResults() > 0;
         } catch (final IOException e) {
              throw new UncheckedIOException(e.getMessage(), e);
         }
     }
 
+    private void prefetch() {
+        if (prefetchExecutor == null || nextResponse != null || isFinished) return;
+        final ElasticSearchResponse previous = lastResponse;
+        try {
+            nextResponse = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetch(previous);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e.getMessage(), e);
+                }
+            }, prefetchExecutor);
+        } catch (final RejectedExecutionException e) {
+            nextResponse = null;
+        }
+    }
+
+    private ElasticSearchResponse nextPage() throws IOException {
+        if (nextResponse == null) return fetch(lastResponse);
+        final CompletableFuture<ElasticSearchResponse> response = nextResponse;
+        nextResponse = null;
+        try {
+            return response.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting on next page", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
     @Override
     public Result<String> next() {
          try {
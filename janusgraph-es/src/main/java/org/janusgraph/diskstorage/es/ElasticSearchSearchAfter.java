@@ -0,0 +1,54 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.es;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Iterates over the results of a query with search_after, which re-issues the query for the hits that follow the
+ * last hit of the previous page instead of keeping a scroll context open on the cluster. The request has to be
+ * sorted by a field with a unique value per document.
+ */
+public class ElasticSearchSearchAfter extends ElasticSearchScroll {
+
+    private final ElasticSearchClient client;
+    private final String indexName;
+    private final String type;
+    private final Map<String,Object> request;
+
+    public ElasticSearchSearchAfter(ElasticSearchClient client, String indexName, String type, Map<String,Object> request,
+                                    ElasticSearchResponse initialResponse, int nbDocByQuery, Executor prefetchExecutor) {
+        super(client, initialResponse, nbDocByQuery, prefetchExecutor);
+        this.client = client;
+        this.indexName = indexName;
+        this.type = type;
+        this.request = request;
+    }
+
+    @Override
+    protected ElasticSearchResponse fetch(ElasticSearchResponse previous) throws IOException {
+        final Map<String,Object> nextRequest = new HashMap<>(request);
+        nextRequest.put("search_after", previous.getLastSortValues());
+        return client.search(indexName, type, nextRequest, false);
+    }
+
+    @Override
+    protected void release() {
+        //No state is kept on the cluster
+    }
+}
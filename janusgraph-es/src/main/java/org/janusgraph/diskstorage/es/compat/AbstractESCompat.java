@@ -79,6 +79,14 @@ public abstract class AbstractESCompat {
         return ImmutableMap.builder().put(ES_SCRIPT_KEY, script);
     }
 
+    /**
+     * Returns a field with a unique value per document, which orders hits with equal sort values when paginating
+     * with search_after, or null if search_after is not supported.
+     */
+    public String searchAfterTiebreaker() {
+        return null;
+    }
+
     public Map<String,Object> prepareQuery(Map<String,Object> query) {
         return query;
     }
@@ -28,4 +28,9 @@ public class ES5Compat extends AbstractESCompat {
         return FEATURES;
     }
 
+    @Override
+    public String searchAfterTiebreaker() {
+        return "_uid";
+    }
+
 }
@@ -30,4 +30,9 @@ public class ES6Compat extends AbstractESCompat {
         return FEATURES;
     }
 
+    @Override
+    public String searchAfterTiebreaker() {
+        return "_id";
+    }
+
 }
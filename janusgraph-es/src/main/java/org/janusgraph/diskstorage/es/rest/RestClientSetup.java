@@ -75,6 +75,11 @@ public class RestClientSetup {
         if (config.has(ElasticSearchIndex.BULK_REFRESH)) {
             client.setBulkRefresh(config.get(ElasticSearchIndex.BULK_REFRESH));
         }
+        client.setBulkChunkLimits(config.get(ElasticSearchIndex.BULK_CHUNK_SIZE_LIMIT_BYTES),
+            config.get(ElasticSearchIndex.BULK_CHUNK_MAX_ACTIONS));
+        client.setBulkConcurrentRequests(config.get(ElasticSearchIndex.BULK_CONCURRENT_REQUESTS));
+        client.setBulkRetry(config.get(ElasticSearchIndex.BULK_RETRY_LIMIT),
+            config.get(ElasticSearchIndex.BULK_RETRY_INITIAL_WAIT));
 
         return client;
     }
@@ -17,6 +17,7 @@ package org.janusgraph.diskstorage.es.rest;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
@@ -47,11 +48,19 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -70,6 +79,8 @@ public class RestElasticSearchClient implements ElasticSearchClient {
     private static final String REQUEST_PARAM_BEGINNING = "?";
     private static final String REQUEST_PARAM_SEPARATOR = "&";
 
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
     private static final ObjectMapper mapper;
     private static final ObjectReader mapReader;
     private static final ObjectWriter mapWriter;
@@ -94,6 +105,16 @@ public class RestElasticSearchClient implements ElasticSearchClient {
 
     private String bulkRefresh;
 
+    private int bulkChunkSizeLimitBytes = Integer.MAX_VALUE;
+
+    private int bulkChunkMaxActions = Integer.MAX_VALUE;
+
+    private int bulkRetryLimit = 0;
+
+    private long bulkRetryInitialWaitMs = 0;
+
+    private ExecutorService bulkExecutor;
+
     private final String scrollKeepAlive;
 
     public RestElasticSearchClient(RestClient delegate, int scrollKeepAlive) {
@@ -104,6 +125,7 @@ public class RestElasticSearchClient implements ElasticSearchClient {
 
     @Override
     public void close() throws IOException {
+        if (bulkExecutor != null) bulkExecutor.shutdownNow();
         delegate.close();
     }
 
@@ -236,38 +258,144 @@ public class RestElasticSearchClient implements ElasticSearchClient {
 
     @Override
     public void bulkRequest(List<ElasticSearchMutation> requests, String ingestPipeline) throws IOException {
-        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final StringBuilder builder = new StringBuilder();
+        if (ingestPipeline != null) {
+            APPEND_OP.apply(builder).append("pipeline=").append(ingestPipeline);
+        }
+        if (bulkRefresh != null && !bulkRefresh.toLowerCase().equals("false")) {
+            APPEND_OP.apply(builder).append("refresh=").append(bulkRefresh);
+        }
+        builder.insert(0, REQUEST_SEPARATOR + "_bulk");
+        final String path = builder.toString();
+
+        final List<List<BulkAction>> chunks = getBulkChunks(requests);
+        if (bulkExecutor == null || chunks.size() == 1) {
+            for (final List<BulkAction> chunk : chunks) bulkRequest(path, chunk);
+            return;
+        }
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(chunks.size());
+        for (final List<BulkAction> chunk : chunks) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    bulkRequest(path, chunk);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e.getMessage(), e);
+                }
+            }, bulkExecutor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting on bulk requests", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Serializes the given actions and splits them into chunks that respect the configured size limits. Consecutive
+     * actions on the same document stay in the same chunk, so that they are applied in order.
+     */
+    private List<List<BulkAction>> getBulkChunks(List<ElasticSearchMutation> requests) throws IOException {
+        final List<List<BulkAction>> chunks = new ArrayList<>();
+        List<BulkAction> chunk = new ArrayList<>();
+        long chunkBytes = 0;
+        ElasticSearchMutation previous = null;
         for (final ElasticSearchMutation request : requests) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             final Map actionData = ImmutableMap.of(request.getRequestType().name().toLowerCase(),
                     ImmutableMap.of("_index", request.getIndex(), "_type", request.getType(), "_id", request.getId()));
-                outputStream.write(mapWriter.writeValueAsBytes(actionData));
+            outputStream.write(mapWriter.writeValueAsBytes(actionData));
             outputStream.write("\n".getBytes(UTF8_CHARSET));
             if (request.getSource() != null) {
                 outputStream.write(mapWriter.writeValueAsBytes(request.getSource()));
                 outputStream.write("\n".getBytes(UTF8_CHARSET));
             }
+            final BulkAction action = new BulkAction(request.getIndex() + REQUEST_SEPARATOR + request.getType()
+                    + REQUEST_SEPARATOR + request.getId(), outputStream.toByteArray());
+
+            final boolean sameDocument = previous != null && previous.getId().equals(request.getId())
+                    && previous.getIndex().equals(request.getIndex()) && Objects.equals(previous.getType(), request.getType());
+            if (!chunk.isEmpty() && !sameDocument
+                    && (chunk.size() >= bulkChunkMaxActions || chunkBytes + action.data.length > bulkChunkSizeLimitBytes)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
+            chunk.add(action);
+            chunkBytes += action.data.length;
+            previous = request;
         }
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        return chunks;
+    }
 
-        final StringBuilder builder = new StringBuilder();
-        if (ingestPipeline != null) {
-            APPEND_OP.apply(builder).append("pipeline=").append(ingestPipeline);
-        }
-        if (bulkRefresh != null && !bulkRefresh.toLowerCase().equals("false")) {
-            APPEND_OP.apply(builder).append("refresh=").append(bulkRefresh);
+    /**
+     * A serialized bulk action and the document that it applies to
+     */
+    private static class BulkAction {
+
+        private final String document;
+        private final byte[] data;
+
+        private BulkAction(String document, byte[] data) {
+            this.document = document;
+            this.data = data;
         }
-        builder.insert(0, REQUEST_SEPARATOR + "_bulk");
+    }
 
-        final Response response = performRequest(REQUEST_TYPE_POST, builder.toString(), outputStream.toByteArray());
-        try (final InputStream inputStream = response.getEntity().getContent()) {
-            final RestBulkResponse bulkResponse = mapper.readValue(inputStream, RestBulkResponse.class);
-            final List<Object> errors = bulkResponse.getItems().stream()
-                .flatMap(item -> item.values().stream())
-                .filter(item -> item.getError() != null && item.getStatus() != 404)
-                .map(RestBulkItemResponse::getError).collect(Collectors.toList());
-            if (!errors.isEmpty()) {
-                errors.forEach(error -> log.error("Failed to execute ES query: {}", error));
-                throw new IOException("Failure(s) in Elasticsearch bulk request: " + errors);
+    /**
+     * Sends the given serialized actions as one bulk request. Actions that are rejected because Elasticsearch is
+     * overloaded are retried with an exponential backoff, together with all subsequent actions on the same document
+     * so that they are applied in their original order.
+     */
+    private void bulkRequest(String path, List<BulkAction> actions) throws IOException {
+        List<BulkAction> pending = actions;
+        for (int retry = 0; ; retry++) {
+            final List<BulkAction> rejected = new ArrayList<>();
+            try {
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                for (final BulkAction action : pending) outputStream.write(action.data);
+                final Response response = performRequest(REQUEST_TYPE_POST, path, outputStream.toByteArray());
+                try (final InputStream inputStream = response.getEntity().getContent()) {
+                    final RestBulkResponse bulkResponse = mapper.readValue(inputStream, RestBulkResponse.class);
+                    final List<Object> errors = new ArrayList<>();
+                    final Set<String> rejectedDocuments = new HashSet<>();
+                    for (int i = 0; i < bulkResponse.getItems().size(); i++) {
+                        final BulkAction action = pending.get(i);
+                        for (final RestBulkItemResponse item : bulkResponse.getItems().get(i).values()) {
+                            if (item.getStatus() == HTTP_TOO_MANY_REQUESTS || rejectedDocuments.contains(action.document)) {
+                                rejectedDocuments.add(action.document);
+                                rejected.add(action);
+                            } else if (item.getError() != null && item.getStatus() != 404) {
+                                errors.add(item.getError());
+                            }
+                        }
+                    }
+                    if (!errors.isEmpty()) {
+                        errors.forEach(error -> log.error("Failed to execute ES query: {}", error));
+                        throw new IOException("Failure(s) in Elasticsearch bulk request: " + errors);
+                    }
+                }
+            } catch (final ResponseException e) {
+                if (e.getResponse().getStatusLine().getStatusCode() != HTTP_TOO_MANY_REQUESTS) throw e;
+                rejected.addAll(pending);
             }
+            if (rejected.isEmpty()) return;
+            if (retry >= bulkRetryLimit) {
+                throw new IOException("Elasticsearch rejected " + rejected.size() + " bulk action(s) after " + retry + " retries");
+            }
+            final long waitMs = bulkRetryInitialWaitMs << Math.min(retry, 30);
+            log.debug("Elasticsearch rejected {} bulk action(s), retrying in {} ms", rejected.size(), waitMs);
+            try {
+                Thread.sleep(waitMs);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting to retry bulk request", e);
+            }
+            pending = rejected;
         }
     }
 
@@ -326,6 +454,22 @@ public class RestElasticSearchClient implements ElasticSearchClient {
         this.bulkRefresh = bulkRefresh;
     }
 
+    public void setBulkChunkLimits(int bulkChunkSizeLimitBytes, int bulkChunkMaxActions) {
+        this.bulkChunkSizeLimitBytes = bulkChunkSizeLimitBytes;
+        this.bulkChunkMaxActions = bulkChunkMaxActions;
+    }
+
+    public void setBulkConcurrentRequests(int bulkConcurrentRequests) {
+        if (bulkExecutor != null) bulkExecutor.shutdown();
+        bulkExecutor = bulkConcurrentRequests > 1 ? Executors.newFixedThreadPool(bulkConcurrentRequests,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RestElasticSearchClient-bulk-%d").build()) : null;
+    }
+
+    public void setBulkRetry(int bulkRetryLimit, long bulkRetryInitialWaitMs) {
+        this.bulkRetryLimit = bulkRetryLimit;
+        this.bulkRetryInitialWaitMs = bulkRetryInitialWaitMs;
+    }
+
     private Response performRequest(String method, String path, byte[] requestData) throws IOException {
         final HttpEntity entity = requestData != null ? new ByteArrayEntity(requestData, ContentType.APPLICATION_JSON) : null;
         final Response response = delegate.performRequest(
@@ -40,6 +40,8 @@ public class RestSearchHit {
 
     private Map<String,List<Object>> fields;
 
+    private List<Object> sort;
+
     public String getIndex() {
         return index;
     }
@@ -80,6 +82,14 @@ public class RestSearchHit {
         this.source = source;
     }
 
+    public List<Object> getSort() {
+        return sort;
+    }
+
+    public void setSort(List<Object> sort) {
+        this.sort = sort;
+    }
+
     public void setFields(Map<String, List<Object>> fields) {
         this.fields = fields;
     }
@@ -19,6 +19,7 @@ import org.apache.tinkerpop.shaded.jackson.annotation.JsonProperty;
 import org.janusgraph.diskstorage.es.ElasticSearchResponse;
 import org.janusgraph.diskstorage.indexing.RawQuery;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 @JsonIgnoreProperties(ignoreUnknown=true)
@@ -74,6 +75,12 @@ public class RestSearchResponse extends ElasticSearchResponse {
         return hits.getHits().size();
     }
 
+    @Override
+    public List<Object> getLastSortValues() {
+        final List<RestSearchHit> results = hits.getHits();
+        return results.isEmpty() ? null : results.get(results.size() - 1).getSort();
+    }
+
     @Override
     public String getScrollId() {
         return scrollId;
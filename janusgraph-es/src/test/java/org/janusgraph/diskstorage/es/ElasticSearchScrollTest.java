@@ -0,0 +1,145 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.es;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.google.common.collect.ImmutableMap;
+import org.janusgraph.diskstorage.indexing.RawQuery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ElasticSearchScrollTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    private ElasticSearchClient client;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        client = mock(ElasticSearchClient.class);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static ElasticSearchResponse getPage(String scrollId, int from, int numResults) {
+        final ElasticSearchResponse response = new ElasticSearchResponse();
+        response.setScrollId(scrollId);
+        response.setResults(IntStream.range(from, from + numResults)
+            .mapToObj(i -> new RawQuery.Result<>("doc" + i, 1.0)).collect(Collectors.toList()));
+        response.setLastSortValues(numResults > 0 ? Collections.singletonList(from + numResults - 1) : null);
+        return response;
+    }
+
+    private static List<String> consume(ElasticSearchScroll scroll) {
+        final List<String> results = new ArrayList<>();
+        while (scroll.hasNext()) results.add(scroll.next().getResult());
+        return results;
+    }
+
+    @Test
+    public void testScrollsThroughAllPages() throws Exception {
+        when(client.search("scroll1")).thenReturn(getPage("scroll2", 3, 3));
+        when(client.search("scroll2")).thenReturn(getPage("scroll2", 6, 1));
+        final List<String> results = consume(new ElasticSearchScroll(client, getPage("scroll1", 0, 3), BATCH_SIZE, executor));
+
+        assertEquals(IntStream.range(0, 7).mapToObj(i -> "doc" + i).collect(Collectors.toList()), results);
+        verify(client).search("scroll1");
+        verify(client).search("scroll2");
+        verify(client).deleteScroll("scroll2");
+    }
+
+    @Test
+    public void testPrefetchesNextPage() throws Exception {
+        final CountDownLatch requested = new CountDownLatch(1);
+        when(client.search("scroll1")).thenAnswer(invocation -> {
+            requested.countDown();
+            return getPage("scroll1", 3, 0);
+        });
+        final ElasticSearchScroll scroll = new ElasticSearchScroll(client, getPage("scroll1", 0, 3), BATCH_SIZE, executor);
+        assertTrue(scroll.hasNext());
+        assertEquals("doc0", scroll.next().getResult());
+        //The second page is requested while the first one is still being consumed
+        assertTrue(requested.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("doc1", "doc2"), consume(scroll));
+        verify(client, times(1)).search("scroll1");
+    }
+
+    @Test
+    public void testRequestsPageWhenPrefetchIsRejected() throws Exception {
+        when(client.search("scroll1")).thenReturn(getPage("scroll1", 3, 1));
+        final ElasticSearchScroll scroll = new ElasticSearchScroll(client, getPage("scroll1", 0, 3), BATCH_SIZE,
+            command -> {
+                throw new RejectedExecutionException();
+            });
+        assertEquals(IntStream.range(0, 4).mapToObj(i -> "doc" + i).collect(Collectors.toList()), consume(scroll));
+        verify(client, times(1)).search("scroll1");
+    }
+
+    @Test
+    public void testPropagatesPrefetchFailure() throws Exception {
+        when(client.search("scroll1")).thenThrow(new IOException("Scroll expired"));
+        final ElasticSearchScroll scroll = new ElasticSearchScroll(client, getPage("scroll1", 0, 3), BATCH_SIZE, executor);
+        try {
+            consume(scroll);
+            fail();
+        } catch (UncheckedIOException e) {
+            assertEquals("Scroll expired", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSearchAfterLastHit() throws Exception {
+        final Map<String,Object> request = ImmutableMap.of("size", BATCH_SIZE);
+        when(client.search(eq("index"), isNull(String.class), anyMap(), eq(false)))
+            .thenReturn(getPage(null, 3, 3), getPage(null, 6, 0));
+        final List<String> results = consume(new ElasticSearchSearchAfter(client, "index", null, request,
+            getPage(null, 0, 3), BATCH_SIZE, executor));
+
+        assertEquals(IntStream.range(0, 6).mapToObj(i -> "doc" + i).collect(Collectors.toList()), results);
+        final ArgumentCaptor<Map> requests = ArgumentCaptor.forClass(Map.class);
+        verify(client, times(2)).search(eq("index"), isNull(String.class), requests.capture(), eq(false));
+        assertEquals(Collections.singletonList(2), requests.getAllValues().get(0).get("search_after"));
+        assertEquals(Collections.singletonList(5), requests.getAllValues().get(1).get("search_after"));
+        assertEquals(BATCH_SIZE, requests.getAllValues().get(1).get("size"));
+        verify(client, never()).search(anyString());
+        verify(client, never()).deleteScroll(anyString());
+    }
+
+}
@@ -0,0 +1,172 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.es.rest;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.http.HttpEntity;
+import org.apache.http.StatusLine;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.janusgraph.diskstorage.es.ElasticSearchMutation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class RestElasticSearchClientTest {
+
+    private RestClient restClient;
+    private RestElasticSearchClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        restClient = mock(RestClient.class);
+        final Response versionResponse = getResponse("{\"version\":{\"number\":\"6.0.1\"}}");
+        when(restClient.performRequest("GET", "/")).thenReturn(versionResponse);
+        client = new RestElasticSearchClient(restClient, 60);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+    }
+
+    private static Response getResponse(String body) {
+        final Response response = mock(Response.class);
+        final StatusLine statusLine = mock(StatusLine.class);
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(response.getStatusLine()).thenReturn(statusLine);
+        when(response.getEntity()).thenReturn(new StringEntity(body, ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+    private static Response getBulkResponse(int... statuses) {
+        return getResponse("{\"errors\":false,\"items\":[" + Arrays.stream(statuses)
+            .mapToObj(status -> "{\"index\":{\"status\":" + status + "}}").collect(Collectors.joining(",")) + "]}");
+    }
+
+    private static List<ElasticSearchMutation> getMutations(String... ids) {
+        return Arrays.stream(ids).map(id -> ElasticSearchMutation.createIndexRequest("janusgraph", "doc", id,
+            ImmutableMap.of("name", id))).collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respondToBulkRequests(Response first, Response... others) throws IOException {
+        when(restClient.performRequest(eq("POST"), eq("/_bulk"), any(Map.class), any(HttpEntity.class)))
+            .thenReturn(first, others);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getBulkBodies(int numRequests) throws Exception {
+        final ArgumentCaptor<HttpEntity> entities = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restClient, times(numRequests)).performRequest(eq("POST"), eq("/_bulk"), any(Map.class), entities.capture());
+        final List<String> bodies = new ArrayList<>();
+        for (final HttpEntity entity : entities.getAllValues()) bodies.add(EntityUtils.toString(entity));
+        return bodies;
+    }
+
+    @Test
+    public void testSplitsBulkRequestIntoChunks() throws Exception {
+        respondToBulkRequests(getBulkResponse(201, 201), getBulkResponse(201, 201), getBulkResponse(201));
+        client.setBulkChunkLimits(Integer.MAX_VALUE, 2);
+        client.bulkRequest(getMutations("a", "b", "c", "d", "e"), null);
+
+        final List<String> bodies = getBulkBodies(3);
+        assertTrue(bodies.get(0).contains("\"a\"") && bodies.get(0).contains("\"b\""));
+        assertTrue(bodies.get(2).contains("\"e\"") && !bodies.get(2).contains("\"d\""));
+    }
+
+    @Test
+    public void testKeepsActionsOnSameDocumentTogether() throws Exception {
+        respondToBulkRequests(getBulkResponse(201, 201, 201), getBulkResponse(201));
+        client.setBulkChunkLimits(1, 1);
+        final List<ElasticSearchMutation> mutations = getMutations("a", "a");
+        mutations.add(ElasticSearchMutation.createDeleteRequest("janusgraph", "doc", "a"));
+        mutations.addAll(getMutations("b"));
+        client.bulkRequest(mutations, null);
+
+        final List<String> bodies = getBulkBodies(2);
+        //Two index actions with their sources and the delete action
+        assertEquals(5, bodies.get(0).split("\n").length);
+        assertTrue(bodies.get(1).contains("\"b\"") && !bodies.get(1).contains("\"a\""));
+    }
+
+    @Test
+    public void testRetriesRejectedActions() throws Exception {
+        respondToBulkRequests(getBulkResponse(201, 429, 201), getBulkResponse(201));
+        client.setBulkRetry(3, 1);
+        client.bulkRequest(getMutations("a", "b", "c"), null);
+
+        final List<String> bodies = getBulkBodies(2);
+        assertTrue(bodies.get(1).contains("\"b\""));
+        assertFalse(bodies.get(1).contains("\"a\"") || bodies.get(1).contains("\"c\""));
+    }
+
+    @Test
+    public void testRetriesSubsequentActionsOnRejectedDocument() throws Exception {
+        respondToBulkRequests(getBulkResponse(201, 429, 201, 201), getBulkResponse(201, 201));
+        client.setBulkRetry(3, 1);
+        final List<ElasticSearchMutation> mutations = getMutations("a");
+        mutations.add(ElasticSearchMutation.createIndexRequest("janusgraph", "doc", "b", ImmutableMap.of("name", "b1")));
+        mutations.add(ElasticSearchMutation.createIndexRequest("janusgraph", "doc", "b", ImmutableMap.of("name", "b2")));
+        mutations.addAll(getMutations("c"));
+        client.bulkRequest(mutations, null);
+
+        //The second action on the document succeeded but has to be applied after the rejected one
+        final String retry = getBulkBodies(2).get(1);
+        assertTrue(retry.indexOf("\"b1\"") >= 0 && retry.indexOf("\"b1\"") < retry.indexOf("\"b2\""));
+        assertFalse(retry.contains("\"a\"") || retry.contains("\"c\""));
+    }
+
+    @Test
+    public void testFailsAfterRetryLimit() throws Exception {
+        respondToBulkRequests(getBulkResponse(429), getBulkResponse(429), getBulkResponse(429));
+        client.setBulkRetry(2, 1);
+        try {
+            client.bulkRequest(getMutations("a"), null);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("rejected"));
+        }
+        getBulkBodies(3);
+    }
+
+    @Test
+    public void testSendsChunksConcurrently() throws Exception {
+        respondToBulkRequests(getBulkResponse(201));
+        client.setBulkChunkLimits(Integer.MAX_VALUE, 1);
+        client.setBulkConcurrentRequests(4);
+        final String[] ids = IntStream.range(0, 20).mapToObj(i -> "doc" + i).toArray(String[]::new);
+        client.bulkRequest(getMutations(ids), null);
+
+        final String bodies = String.join("", getBulkBodies(20));
+        for (final String id : ids) assertTrue(bodies.contains("\"" + id + "\""));
+    }
+
+}
@@ -17,7 +17,7 @@ package org.janusgraph.hadoop.formats.util;
 import org.janusgraph.diskstorage.Entry;
 import org.janusgraph.diskstorage.StaticBuffer;
 import org.apache.tinkerpop.gremlin.hadoop.structure.io.VertexWritable;
-import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
+import org.apache.tinkerpop.gremlin.structure.util.star.StarGraph;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
@@ -56,10 +56,10 @@ public class GiraphRecordReader extends RecordReader<NullWritable, VertexWritabl
     public boolean nextKeyValue() throws IOException, InterruptedException {
         while (reader.nextKeyValue()) {
             // TODO janusgraph05 integration -- the duplicate() call may be unnecessary
-            final TinkerVertex maybeNullTinkerVertex =
+            final StarGraph.StarVertex maybeNullStarVertex =
                     deserializer.readHadoopVertex(reader.getCurrentKey(), reader.getCurrentValue());
-            if (null != maybeNullTinkerVertex) {
-                vertex = new VertexWritable(maybeNullTinkerVertex);
+            if (null != maybeNullStarVertex) {
+                vertex = new VertexWritable(maybeNullStarVertex);
                 //vertexQuery.filterRelationsOf(vertex); // TODO reimplement vertex query filtering
                 return true;
             }
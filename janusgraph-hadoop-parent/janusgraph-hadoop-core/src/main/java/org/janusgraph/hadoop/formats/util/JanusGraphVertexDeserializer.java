@@ -14,6 +14,8 @@
 
 package org.janusgraph.hadoop.formats.util;
 
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongSet;
 import com.carrotsearch.hppc.cursors.LongObjectCursor;
 import com.google.common.base.Preconditions;
 import org.janusgraph.core.*;
@@ -26,18 +28,17 @@ import org.janusgraph.graphdb.relations.RelationCache;
 import org.janusgraph.graphdb.types.TypeInspector;
 import org.janusgraph.hadoop.formats.util.input.SystemTypeInspector;
 import org.janusgraph.hadoop.formats.util.input.JanusGraphHadoopSetup;
-import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty;
-import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerEdge;
-import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
-import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
+import org.apache.tinkerpop.gremlin.structure.util.star.StarGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.NoSuchElementException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class JanusGraphVertexDeserializer implements AutoCloseable {
 
@@ -46,6 +47,12 @@ public class JanusGraphVertexDeserializer implements AutoCloseable {
     private final SystemTypeInspector systemTypes;
     private final IDManager idManager;
 
+    /**
+     * Buffers that are reused across the rows read by a thread. A deserializer may be shared by the
+     * record readers of several threads.
+     */
+    private final ThreadLocal<RowBuffer> rowBuffers = ThreadLocal.withInitial(RowBuffer::new);
+
     private static final Logger log =
             LoggerFactory.getLogger(JanusGraphVertexDeserializer.class);
 
@@ -56,23 +63,9 @@ public class JanusGraphVertexDeserializer implements AutoCloseable {
         this.idManager = setup.getIDManager();
     }
 
-    private static Boolean isLoopAdded(Vertex vertex, String label) {
-        Iterator<Vertex> adjacentVertices = vertex.vertices(Direction.BOTH, label);
-
-        while (adjacentVertices.hasNext()) {
-            Vertex adjacentVertex = adjacentVertices.next();
-
-            if(adjacentVertex.equals(vertex)){
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    // Read a single row from the edgestore and create a TinkerVertex corresponding to the row
-    // The neighboring vertices are represented by DetachedVertex instances
-    public TinkerVertex readHadoopVertex(final StaticBuffer key, Iterable<Entry> entries) {
+    // Read a single row from the edgestore and create a StarVertex corresponding to the row
+    // The neighboring vertices are represented by the adjacent vertices of the StarGraph
+    public StarGraph.StarVertex readHadoopVertex(final StaticBuffer key, Iterable<Entry> entries) {
 
         // Convert key to a vertex ID
         final long vertexId = idManager.getKeyID(key);
@@ -86,129 +79,110 @@ public class JanusGraphVertexDeserializer implements AutoCloseable {
             return null;
         }
 
-        // Create TinkerVertex
-        TinkerGraph tg = TinkerGraph.open();
+        final RowBuffer buffer = rowBuffers.get();
+        try {
+            return readHadoopVertex(vertexId, entries, buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
 
-        TinkerVertex tv = null;
+    private StarGraph.StarVertex readHadoopVertex(final long vertexId, Iterable<Entry> entries, RowBuffer buffer) {
+        final RelationReader relationReader = setup.getRelationReader(vertexId);
 
-        // Iterate over edgestore columns to find the vertex's label relation
+        // Decode every edgestore column (relation) of this vertex once. The vertex label relation is not
+        // necessarily the first one, hence the remaining relations are buffered until the label is known.
+        String label = null;
         for (final Entry data : entries) {
-            RelationReader relationReader = setup.getRelationReader(vertexId);
             final RelationCache relation = relationReader.parseRelation(data, false, typeManager);
             if (systemTypes.isVertexLabelSystemType(relation.typeId)) {
                 // Found vertex Label
                 long vertexLabelId = relation.getOtherVertexId();
                 VertexLabel vl = typeManager.getExistingVertexLabel(vertexLabelId);
-                // Create TinkerVertex with this label
-                tv = getOrCreateVertex(vertexId, vl.name(), tg);
+                label = vl.name();
+                continue;
+            }
+            if (systemTypes.isSystemType(relation.typeId)) continue; //Ignore system types
+            final RelationType type = typeManager.getExistingRelationType(relation.typeId);
+            if (((InternalRelationType)type).isInvisibleType()) continue; //Ignore hidden types
+
+            if (type.isEdgeLabel() && idManager.isPartitionedVertex(relation.getOtherVertexId())) {
+                // Partitioned vertex handling
+                Preconditions.checkState(setup.getFilterPartitionedVertices(),
+                        "Read edge incident on a partitioned vertex, but partitioned vertex filtering is disabled.  " +
+                        "Relation ID: %s.  This vertex ID: %s.  Other vertex ID: %s.  Edge label: %s.",
+                        relation.relationId, vertexId, relation.getOtherVertexId(), type.name());
+                log.debug("Skipping edge with ID {} incident on partitioned vertex with ID {} (and nonpartitioned vertex with ID {})",
+                        relation.relationId, relation.getOtherVertexId(), vertexId);
+                continue;
             }
+            buffer.relations.add(relation);
+            buffer.types.add(type);
         }
 
-        // Added this following testing
-        if (null == tv) {
-            tv = getOrCreateVertex(vertexId, null, tg);
+        /*Since we are filtering out system relation types, we might end up with vertices that have no incident relations.
+         This is especially true for schema vertices. Those are filtered out.     */
+        if (buffer.relations.isEmpty()) {
+            log.trace("Vertex {} has no relations", vertexId);
+            return null;
         }
 
-        Preconditions.checkState(null != tv, "Unable to determine vertex label for vertex with ID %s", vertexId);
-
-        // Iterate over and decode edgestore columns (relations) on this vertex
-        for (final Entry data : entries) {
-            try {
-                RelationReader relationReader = setup.getRelationReader(vertexId);
-                final RelationCache relation = relationReader.parseRelation(data, false, typeManager);
-
-                if (systemTypes.isSystemType(relation.typeId)) continue; //Ignore system types
-                final RelationType type = typeManager.getExistingRelationType(relation.typeId);
-                if (((InternalRelationType)type).isInvisibleType()) continue; //Ignore hidden types
-
-                // Decode and create the relation (edge or property)
-                if (type.isPropertyKey()) {
-                    // Decode property
-                    Object value = relation.getValue();
-                    Preconditions.checkNotNull(value);
-                    VertexProperty.Cardinality card = getPropertyKeyCardinality(type.name());
-                    tv.property(card, type.name(), value, T.id, relation.relationId);
+        // Create StarVertex
+        final StarGraph starGraph = StarGraph.open();
+        final StarGraph.StarVertex sv = (StarGraph.StarVertex) (null != label ?
+                starGraph.addVertex(T.id, vertexId, T.label, label) :
+                starGraph.addVertex(T.id, vertexId));
+
+        // Create the decoded relations (edges or properties)
+        for (int i = 0; i < buffer.relations.size(); i++) {
+            final RelationCache relation = buffer.relations.get(i);
+            final RelationType type = buffer.types.get(i);
+            if (type.isPropertyKey()) {
+                // Decode property
+                Object value = relation.getValue();
+                Preconditions.checkNotNull(value);
+                VertexProperty.Cardinality card = getPropertyKeyCardinality((PropertyKey) type);
+                sv.property(card, type.name(), value, T.id, relation.relationId);
+            } else {
+                assert type.isEdgeLabel();
+
+                // Decode edge
+                final Edge se;
+                final long otherVertexId = relation.getOtherVertexId();
+                if (otherVertexId == vertexId) {
+                    // Self-loop edges are stored in both directions but added to the StarVertex in both directions at once
+                    if (!buffer.loops.add(relation.relationId)) continue;
+                    se = sv.addEdge(type.name(), sv, T.id, relation.relationId);
                 } else {
-                    assert type.isEdgeLabel();
-
-                    // Partitioned vertex handling
-                    if (idManager.isPartitionedVertex(relation.getOtherVertexId())) {
-                        Preconditions.checkState(setup.getFilterPartitionedVertices(),
-                                "Read edge incident on a partitioned vertex, but partitioned vertex filtering is disabled.  " +
-                                "Relation ID: %s.  This vertex ID: %s.  Other vertex ID: %s.  Edge label: %s.",
-                                relation.relationId, vertexId, relation.getOtherVertexId(), type.name());
-                        log.debug("Skipping edge with ID {} incident on partitioned vertex with ID {} (and nonpartitioned vertex with ID {})",
-                                relation.relationId, relation.getOtherVertexId(), vertexId);
-                        continue;
-                    }
-
-                    // Decode edge
-                    TinkerEdge te;
-
-                    // We don't know the label of the other vertex, but one must be provided
-                    TinkerVertex adjacentVertex = getOrCreateVertex(relation.getOtherVertexId(), null, tg);
-
-                    // handle self-loop edges
-                    if (tv.equals(adjacentVertex) && isLoopAdded(tv, type.name())) {
-                        continue;
-                    }
-
+                    // We don't know the label of the other vertex
+                    final Vertex adjacentVertex = starGraph.addVertex(T.id, otherVertexId);
                     if (relation.direction.equals(Direction.IN)) {
-                        te = (TinkerEdge)adjacentVertex.addEdge(type.name(), tv, T.id, relation.relationId);
+                        se = adjacentVertex.addEdge(type.name(), sv, T.id, relation.relationId);
                     } else if (relation.direction.equals(Direction.OUT)) {
-                        te = (TinkerEdge)tv.addEdge(type.name(), adjacentVertex, T.id, relation.relationId);
+                        se = sv.addEdge(type.name(), adjacentVertex, T.id, relation.relationId);
                     } else {
                         throw new RuntimeException("Direction.BOTH is not supported");
                     }
+                }
 
-                    if (relation.hasProperties()) {
-                        // Load relation properties
-                        for (final LongObjectCursor<Object> next : relation) {
-                            assert next.value != null;
-                            RelationType rt = typeManager.getExistingRelationType(next.key);
-                            if (rt.isPropertyKey()) {
-                                te.property(rt.name(), next.value);
-                            } else {
-                                throw new RuntimeException("Metaedges are not supported");
-                            }
+                if (relation.hasProperties()) {
+                    // Load relation properties
+                    for (final LongObjectCursor<Object> next : relation) {
+                        assert next.value != null;
+                        RelationType rt = typeManager.getExistingRelationType(next.key);
+                        if (rt.isPropertyKey()) {
+                            se.property(rt.name(), next.value);
+                        } else {
+                            throw new RuntimeException("Metaedges are not supported");
                         }
                     }
                 }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
             }
         }
-
-        /*Since we are filtering out system relation types, we might end up with vertices that have no incident relations.
-         This is especially true for schema vertices. Those are filtered out.     */
-        if (!tv.edges(Direction.BOTH).hasNext() && !tv.properties().hasNext()) {
-            log.trace("Vertex {} has no relations", vertexId);
-            return null;
-        }
-        return tv;
+        return sv;
     }
 
-    public TinkerVertex getOrCreateVertex(final long vertexId, final String label, final TinkerGraph tg) {
-        TinkerVertex v;
-
-        try {
-            v = (TinkerVertex)tg.vertices(vertexId).next();
-        } catch (NoSuchElementException e) {
-            if (null != label) {
-                v = (TinkerVertex) tg.addVertex(T.label, label, T.id, vertexId);
-            } else {
-                v = (TinkerVertex) tg.addVertex(T.id, vertexId);
-            }
-        }
-
-        return v;
-    }
-
-    private VertexProperty.Cardinality getPropertyKeyCardinality(String name) {
-        RelationType rt = typeManager.getRelationType(name);
-        if (null == rt || !rt.isPropertyKey())
-            return VertexProperty.Cardinality.single;
-        PropertyKey pk = typeManager.getExistingPropertyKey(rt.longId());
+    private static VertexProperty.Cardinality getPropertyKeyCardinality(PropertyKey pk) {
         switch (pk.cardinality()) {
             case SINGLE: return VertexProperty.Cardinality.single;
             case LIST: return VertexProperty.Cardinality.list;
@@ -220,4 +194,20 @@ public class JanusGraphVertexDeserializer implements AutoCloseable {
     public void close() {
         setup.close();
     }
+
+    /**
+     * The relations of the row that is currently decoded
+     */
+    private static class RowBuffer {
+
+        private final List<RelationCache> relations = new ArrayList<>();
+        private final List<RelationType> types = new ArrayList<>();
+        private final LongSet loops = new LongHashSet();
+
+        private void clear() {
+            relations.clear();
+            types.clear();
+            loops.clear();
+        }
+    }
 }
@@ -0,0 +1,91 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.hadoop.formats.util;
+
+import org.janusgraph.graphdb.database.RelationReader;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.idmanagement.IDManager;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.janusgraph.graphdb.types.TypeInspector;
+import org.janusgraph.graphdb.types.system.BaseKey;
+import org.janusgraph.graphdb.types.system.BaseLabel;
+import org.janusgraph.hadoop.formats.util.input.JanusGraphHadoopSetupCommon;
+import org.janusgraph.hadoop.formats.util.input.SystemTypeInspector;
+
+/**
+ * Reads the schema from a graph that is opened in the same JVM, so that its rows can be decoded without Hadoop.
+ * Closing the setup closes the graph.
+ */
+class InMemoryHadoopSetup extends JanusGraphHadoopSetupCommon {
+
+    private final StandardJanusGraph graph;
+    private final StandardJanusGraphTx tx;
+
+    InMemoryHadoopSetup(StandardJanusGraph graph) {
+        this.graph = graph;
+        this.tx = (StandardJanusGraphTx) graph.buildTransaction().readOnly().start();
+    }
+
+    @Override
+    public TypeInspector getTypeInspector() {
+        return tx;
+    }
+
+    @Override
+    public SystemTypeInspector getSystemTypeInspector() {
+        return new SystemTypeInspector() {
+            @Override
+            public boolean isSystemType(long typeId) {
+                return IDManager.isSystemRelationTypeId(typeId);
+            }
+
+            @Override
+            public boolean isVertexExistsSystemType(long typeId) {
+                return typeId == BaseKey.VertexExists.longId();
+            }
+
+            @Override
+            public boolean isVertexLabelSystemType(long typeId) {
+                return typeId == BaseLabel.VertexLabelEdge.longId();
+            }
+
+            @Override
+            public boolean isTypeSystemType(long typeId) {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public RelationReader getRelationReader(long vertexId) {
+        return graph.getEdgeSerializer();
+    }
+
+    @Override
+    public IDManager getIDManager() {
+        return graph.getIDManager();
+    }
+
+    @Override
+    public boolean getFilterPartitionedVertices() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        tx.rollback();
+        graph.close();
+    }
+}
@@ -0,0 +1,158 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.hadoop.formats.util;
+
+import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.structure.util.star.StarGraph;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding edgestore rows into {@link StarGraph.StarVertex}s with {@link JanusGraphVertexDeserializer}
+ * against the previous approach of decoding them into a {@link TinkerGraph} that {@link
+ * org.apache.tinkerpop.gremlin.hadoop.structure.io.VertexWritable} then copies into a {@link StarGraph}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.janusgraph.hadoop.formats.util.JanusGraphVertexDeserializerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class JanusGraphVertexDeserializerBenchmark {
+
+    private static final int NUM_VERTICES = 100;
+    private static final SliceQuery FULL_ROW = new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(128));
+
+    @Param({"10", "100"})
+    public int numEdges;
+
+    private StandardJanusGraph graph;
+    private InMemoryHadoopSetup setup;
+    private TinkerGraphVertexReader tinkerGraphReader;
+    private JanusGraphVertexDeserializer deserializer;
+    private final List<StaticBuffer> keys = new ArrayList<>();
+    private final List<EntryList> rows = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+
+        JanusGraphManagement mgmt = graph.openManagement();
+        mgmt.makePropertyKey("name").dataType(String.class).cardinality(Cardinality.SINGLE).make();
+        mgmt.makePropertyKey("tags").dataType(String.class).cardinality(Cardinality.LIST).make();
+        mgmt.makePropertyKey("weight").dataType(Double.class).make();
+        mgmt.makeEdgeLabel("knows").make();
+        mgmt.makeVertexLabel("person").make();
+        mgmt.commit();
+
+        Random random = new Random(42);
+        JanusGraphTransaction tx = graph.newTransaction();
+        List<JanusGraphVertex> vertices = new ArrayList<>(NUM_VERTICES);
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            JanusGraphVertex v = tx.addVertex(T.label, "person", "name", "v" + i);
+            v.property(VertexProperty.Cardinality.list, "tags", "a" + i);
+            v.property(VertexProperty.Cardinality.list, "tags", "b" + i);
+            vertices.add(v);
+        }
+        for (JanusGraphVertex v : vertices) {
+            v.addEdge("knows", v, "weight", random.nextDouble());
+            for (int i = 0; i < numEdges; i++) {
+                v.addEdge("knows", vertices.get(random.nextInt(NUM_VERTICES)), "weight", random.nextDouble());
+            }
+        }
+        tx.commit();
+
+        StandardJanusGraphTx readTx = (StandardJanusGraphTx) graph.buildTransaction().readOnly().start();
+        for (Iterator<Vertex> iterator = readTx.vertices(); iterator.hasNext(); ) {
+            long vertexId = (Long) iterator.next().id();
+            keys.add(graph.getIDManager().getKey(vertexId));
+            rows.add(graph.edgeQuery(vertexId, FULL_ROW, readTx.getTxHandle()));
+        }
+        readTx.rollback();
+
+        setup = new InMemoryHadoopSetup(graph);
+        deserializer = new JanusGraphVertexDeserializer(setup);
+        tinkerGraphReader = new TinkerGraphVertexReader(setup);
+    }
+
+    @TearDown
+    public void tearDown() {
+        deserializer.close();
+    }
+
+    @Benchmark
+    public void starGraph(Blackhole blackhole) {
+        for (int i = 0; i < keys.size(); i++) {
+            blackhole.consume(deserializer.readHadoopVertex(keys.get(i), rows.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void tinkerGraph(Blackhole blackhole) {
+        for (int i = 0; i < keys.size(); i++) {
+            TinkerVertex vertex = tinkerGraphReader.readTinkerVertex(keys.get(i), rows.get(i));
+            blackhole.consume(vertex == null ? null : StarGraph.of(vertex).getStarVertex());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JanusGraphVertexDeserializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
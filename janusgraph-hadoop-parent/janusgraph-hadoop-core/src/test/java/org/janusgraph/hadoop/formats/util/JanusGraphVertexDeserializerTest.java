@@ -0,0 +1,207 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.hadoop.formats.util;
+
+import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.JanusGraphEdge;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.relations.RelationIdentifier;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.structure.util.star.StarGraph;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Decodes the edgestore rows of a small graph with {@link JanusGraphVertexDeserializer} and compares the resulting
+ * {@link StarGraph.StarVertex}s against the previous {@link TinkerGraphVertexReader}.
+ */
+public class JanusGraphVertexDeserializerTest {
+
+    private static final SliceQuery FULL_ROW = new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(128));
+
+    private StandardJanusGraph graph;
+    private JanusGraphVertexDeserializer deserializer;
+    private TinkerGraphVertexReader tinkerGraphReader;
+    private long a, b, c;
+    private final Set<Long> loops = new HashSet<>();
+
+    @Before
+    public void setUp() {
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+
+        JanusGraphManagement mgmt = graph.openManagement();
+        mgmt.makePropertyKey("name").dataType(String.class).cardinality(Cardinality.SINGLE).make();
+        mgmt.makePropertyKey("tags").dataType(String.class).cardinality(Cardinality.LIST).make();
+        mgmt.makePropertyKey("since").dataType(Integer.class).make();
+        mgmt.makePropertyKey("weight").dataType(Double.class).make();
+        mgmt.makeEdgeLabel("knows").make();
+        mgmt.makeEdgeLabel("likes").make();
+        mgmt.makeVertexLabel("person").make();
+        mgmt.commit();
+
+        JanusGraphTransaction tx = graph.newTransaction();
+        JanusGraphVertex va = tx.addVertex(T.label, "person");
+        va.property(VertexProperty.Cardinality.single, "name", "a", "since", 2010);
+        va.property(VertexProperty.Cardinality.list, "tags", "x");
+        va.property(VertexProperty.Cardinality.list, "tags", "y");
+        JanusGraphVertex vb = tx.addVertex(T.label, "person", "name", "b");
+        JanusGraphVertex vc = tx.addVertex("name", "c");
+        va.addEdge("knows", vb, "weight", 0.5);
+        vb.addEdge("knows", va, "weight", 0.25, "since", 2015);
+        va.addEdge("likes", vc);
+        for (int i = 0; i < 3; i++) {
+            JanusGraphEdge loop = va.addEdge("knows", va, "weight", (double) i);
+            loops.add(((RelationIdentifier) loop.id()).getRelationId());
+        }
+        tx.commit();
+        a = va.longId();
+        b = vb.longId();
+        c = vc.longId();
+
+        InMemoryHadoopSetup setup = new InMemoryHadoopSetup(graph);
+        deserializer = new JanusGraphVertexDeserializer(setup);
+        tinkerGraphReader = new TinkerGraphVertexReader(setup);
+    }
+
+    @After
+    public void tearDown() {
+        deserializer.close();
+    }
+
+    @Test
+    public void testDecodesSameVertexAsTinkerGraphReader() {
+        for (long vertexId : new long[]{b, c}) {
+            StarGraph.StarVertex starVertex = readStarVertex(vertexId);
+            TinkerVertex tinkerVertex = readTinkerVertex(vertexId);
+            assertNotNull(starVertex);
+            assertEquals(vertexId, starVertex.id());
+            assertEquals(tinkerVertex.label(), starVertex.label());
+            assertEquals(describeProperties(tinkerVertex), describeProperties(starVertex));
+            assertEquals(describeEdges(tinkerVertex, Direction.OUT), describeEdges(starVertex, Direction.OUT));
+            assertEquals(describeEdges(tinkerVertex, Direction.IN), describeEdges(starVertex, Direction.IN));
+        }
+        assertEquals("person", readStarVertex(b).label());
+        assertEquals(Vertex.DEFAULT_LABEL, readStarVertex(c).label());
+        assertEquals(1, describeEdges(readStarVertex(b), Direction.OUT).size());
+        assertEquals(1, describeEdges(readStarVertex(c), Direction.IN).size());
+    }
+
+    @Test
+    public void testDecodesPropertiesAndEdgesWithSelfLoops() {
+        StarGraph.StarVertex starVertex = readStarVertex(a);
+        TinkerVertex tinkerVertex = readTinkerVertex(a);
+        assertNotNull(starVertex);
+        assertEquals("person", starVertex.label());
+        assertEquals(tinkerVertex.label(), starVertex.label());
+        assertEquals(describeProperties(tinkerVertex), describeProperties(starVertex));
+        assertEquals(3, describeProperties(starVertex).size());
+
+        // The previous reader kept a single self-loop per label, every other edge must be identical
+        for (Direction direction : new Direction[]{Direction.OUT, Direction.IN}) {
+            Set<String> starEdges = describeEdges(starVertex, direction);
+            Set<String> tinkerEdges = describeEdges(tinkerVertex, direction);
+            assertTrue(starEdges.containsAll(tinkerEdges));
+            assertEquals(tinkerEdges.size() + loops.size() - 1, starEdges.size());
+            assertEquals(loops, loopIds(starVertex, direction));
+        }
+        assertEquals(5, describeEdges(starVertex, Direction.OUT).size());
+        assertEquals(4, describeEdges(starVertex, Direction.IN).size());
+    }
+
+    private StarGraph.StarVertex readStarVertex(long vertexId) {
+        return deserializer.readHadoopVertex(graph.getIDManager().getKey(vertexId), readRow(vertexId));
+    }
+
+    private TinkerVertex readTinkerVertex(long vertexId) {
+        return tinkerGraphReader.readTinkerVertex(graph.getIDManager().getKey(vertexId), readRow(vertexId));
+    }
+
+    private EntryList readRow(long vertexId) {
+        StandardJanusGraphTx tx = (StandardJanusGraphTx) graph.buildTransaction().readOnly().start();
+        try {
+            return graph.edgeQuery(vertexId, FULL_ROW, tx.getTxHandle());
+        } finally {
+            tx.rollback();
+        }
+    }
+
+    private static Set<String> describeProperties(Vertex vertex) {
+        Set<String> properties = new TreeSet<>();
+        for (Iterator<VertexProperty<Object>> iterator = vertex.properties(); iterator.hasNext(); ) {
+            VertexProperty<Object> property = iterator.next();
+            TreeMap<String, Object> metaProperties = new TreeMap<>();
+            for (Iterator<Property<Object>> metaIterator = property.properties(); metaIterator.hasNext(); ) {
+                Property<Object> metaProperty = metaIterator.next();
+                metaProperties.put(metaProperty.key(), metaProperty.value());
+            }
+            properties.add(property.key() + "=" + property.value() + "@" + property.id() + metaProperties);
+        }
+        return properties;
+    }
+
+    private static Set<String> describeEdges(Vertex vertex, Direction direction) {
+        Set<String> edges = new TreeSet<>();
+        for (Iterator<Edge> iterator = vertex.edges(direction); iterator.hasNext(); ) {
+            Edge edge = iterator.next();
+            TreeMap<String, Object> properties = new TreeMap<>();
+            for (Iterator<Property<Object>> propertyIterator = edge.properties(); propertyIterator.hasNext(); ) {
+                Property<Object> property = propertyIterator.next();
+                properties.put(property.key(), property.value());
+            }
+            Vertex other = direction == Direction.OUT ? edge.inVertex() : edge.outVertex();
+            edges.add(edge.id() + ":" + edge.label() + ":" + other.id() + properties);
+        }
+        return edges;
+    }
+
+    private static Set<Long> loopIds(Vertex vertex, Direction direction) {
+        Set<Long> ids = new HashSet<>();
+        for (Iterator<Edge> iterator = vertex.edges(direction); iterator.hasNext(); ) {
+            Edge edge = iterator.next();
+            if (edge.outVertex().id().equals(edge.inVertex().id())) ids.add((Long) edge.id());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,102 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.hadoop.formats.util;
+
+import com.carrotsearch.hppc.cursors.LongObjectCursor;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.RelationType;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.graphdb.internal.InternalRelationType;
+import org.janusgraph.graphdb.relations.RelationCache;
+import org.janusgraph.graphdb.types.TypeInspector;
+import org.janusgraph.hadoop.formats.util.input.JanusGraphHadoopSetup;
+import org.janusgraph.hadoop.formats.util.input.SystemTypeInspector;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerEdge;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The previous implementation of {@link JanusGraphVertexDeserializer#readHadoopVertex(StaticBuffer, Iterable)}
+ * which parses every relation twice and adds each row to a new {@link TinkerGraph}. Used as the reference for the
+ * decoded vertices and as the baseline of {@link JanusGraphVertexDeserializerBenchmark}.
+ */
+class TinkerGraphVertexReader {
+
+    private final JanusGraphHadoopSetup setup;
+
+    TinkerGraphVertexReader(JanusGraphHadoopSetup setup) {
+        this.setup = setup;
+    }
+
+    TinkerVertex readTinkerVertex(StaticBuffer key, Iterable<Entry> entries) {
+        final TypeInspector typeManager = setup.getTypeInspector();
+        final SystemTypeInspector systemTypes = setup.getSystemTypeInspector();
+        final long vertexId = setup.getIDManager().getKeyID(key);
+        TinkerGraph tg = TinkerGraph.open();
+        TinkerVertex tv = null;
+        for (final Entry data : entries) {
+            final RelationCache relation = setup.getRelationReader(vertexId).parseRelation(data, false, typeManager);
+            if (systemTypes.isVertexLabelSystemType(relation.typeId)) {
+                tv = getOrCreateVertex(vertexId, typeManager.getExistingVertexLabel(relation.getOtherVertexId()).name(), tg);
+            }
+        }
+        if (null == tv) tv = getOrCreateVertex(vertexId, null, tg);
+        for (final Entry data : entries) {
+            final RelationCache relation = setup.getRelationReader(vertexId).parseRelation(data, false, typeManager);
+            if (systemTypes.isSystemType(relation.typeId)) continue;
+            final RelationType type = typeManager.getExistingRelationType(relation.typeId);
+            if (((InternalRelationType) type).isInvisibleType()) continue;
+            if (type.isPropertyKey()) {
+                VertexProperty.Cardinality card = ((PropertyKey) typeManager.getRelationType(type.name())).cardinality().convert();
+                tv.property(card, type.name(), relation.getValue(), T.id, relation.relationId);
+            } else {
+                TinkerVertex adjacentVertex = getOrCreateVertex(relation.getOtherVertexId(), null, tg);
+                if (tv.equals(adjacentVertex) && isLoopAdded(tv, type.name())) continue;
+                TinkerEdge te = relation.direction == Direction.IN ?
+                        (TinkerEdge) adjacentVertex.addEdge(type.name(), tv, T.id, relation.relationId) :
+                        (TinkerEdge) tv.addEdge(type.name(), adjacentVertex, T.id, relation.relationId);
+                for (final LongObjectCursor<Object> next : relation) {
+                    te.property(typeManager.getExistingRelationType(next.key).name(), next.value);
+                }
+            }
+        }
+        if (!tv.edges(Direction.BOTH).hasNext() && !tv.properties().hasNext()) return null;
+        return tv;
+    }
+
+    private static boolean isLoopAdded(Vertex vertex, String label) {
+        Iterator<Vertex> adjacentVertices = vertex.vertices(Direction.BOTH, label);
+        while (adjacentVertices.hasNext()) {
+            if (adjacentVertices.next().equals(vertex)) return true;
+        }
+        return false;
+    }
+
+    private static TinkerVertex getOrCreateVertex(long vertexId, String label, TinkerGraph tg) {
+        try {
+            return (TinkerVertex) tg.vertices(vertexId).next();
+        } catch (NoSuchElementException e) {
+            return (TinkerVertex) (null != label ? tg.addVertex(T.label, label, T.id, vertexId) : tg.addVertex(T.id, vertexId));
+        }
+    }
+}
@@ -41,16 +41,22 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Here are some areas that might need work:
  * <p/>
  * - batching? (consider HTable#batch, HTable#setAutoFlush(false)
  * - tuning HTable#setWriteBufferSize (?)
- * - writing a server-side filter to replace ColumnCountGetFilter, which drops
- * all columns on the row where it reaches its limit.  This requires getSlice,
- * currently, to impose its limit on the client side.  That obviously won't
- * scale.
+ * - combining the column range and the limit of a slice into a single server-side
+ * filter (done: a FilterList of ColumnRangeFilter and ColumnPaginationFilter replaces
+ * ColumnCountGetFilter, which dropped all columns on the row where it reached its limit)
+ * - multi-key slices are retrieved with one batch per region, in parallel if
+ * storage.hbase.multiget-threads is set
  * - RowMutations for combining Puts+Deletes (need a newer HBase than 0.92 for this)
  * - (maybe) fiddle with HTable#setRegionCachePrefetch and/or #prewarmRegionCache
  * <p/>
@@ -164,15 +170,7 @@ public class HBaseKeyColumnValueStore implements KeyColumnValueStore {
         final Map<StaticBuffer,EntryList> resultMap = new HashMap<>(keys.size());
 
         try {
-            TableMask table = null;
-            final Result[] results;
-
-            try {
-                table = cnx.getTable(tableName);
-                results = table.get(requests);
-            } finally {
-                IOUtils.closeQuietly(table);
-            }
+            final Result[] results = get(requests);
 
             if (results == null)
                 return KCVSUtil.emptyResults(keys);
@@ -180,19 +178,7 @@ public class HBaseKeyColumnValueStore implements KeyColumnValueStore {
             assert results.length==keys.size();
 
             for (int i = 0; i < results.length; i++) {
-                final Result result = results[i];
-                NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> f = result.getMap();
-
-                if (f == null) { // no result for this key
-                    resultMap.put(keys.get(i), EntryList.EMPTY_LIST);
-                    continue;
-                }
-
-                // actual key with <timestamp, value>
-                NavigableMap<byte[], NavigableMap<Long, byte[]>> r = f.get(columnFamilyBytes);
-                resultMap.put(keys.get(i), (r == null)
-                                            ? EntryList.EMPTY_LIST
-                                            : StaticArrayEntryList.ofBytes(r.entrySet(), entryGetter));
+                resultMap.put(keys.get(i), toEntryList(results[i]));
             }
 
             return resultMap;
@@ -205,6 +191,100 @@ public class HBaseKeyColumnValueStore implements KeyColumnValueStore {
         }
     }
 
+    /**
+     * Retrieves the rows with one batch per region. The batches of all but the first region are submitted to the
+     * multi-get executor of the store manager while the calling thread retrieves the first one. The batches are awaited
+     * in the order in which they complete, so that the first failed batch cancels all batches that are still pending.
+     */
+    private Result[] get(List<Get> requests) throws IOException {
+        final ExecutorService executor = storeManager.getMultiGetExecutor();
+        if (executor == null || requests.size() < 2)
+            return getBatch(requests);
+
+        final List<byte[]> rows = new ArrayList<>(requests.size());
+        for (Get request : requests) rows.add(request.getRow());
+        final List<List<Integer>> groups = new ArrayList<>(groupByRegion(rows, storeManager.getRegionStartKeys()));
+        if (groups.size() < 2)
+            return getBatch(requests);
+
+        final Result[] results = new Result[requests.size()];
+        final CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        final List<Future<Void>> futures = new ArrayList<>(groups.size() - 1);
+        try {
+            for (List<Integer> group : groups.subList(1, groups.size())) {
+                futures.add(completionService.submit(() -> {
+                    getGroup(requests, group, results);
+                    return null;
+                }));
+            }
+            getGroup(requests, groups.get(0), results);
+            for (int i = 0; i < futures.size(); i++) {
+                completionService.take().get();
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException) new InterruptedIOException("Interrupted while retrieving rows").initCause(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        } finally {
+            //Stop the batches of the other regions if one failed, no-op if all have completed
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void getGroup(List<Get> requests, List<Integer> group, Result[] results) throws IOException {
+        final List<Get> batch = new ArrayList<>(group.size());
+        for (Integer position : group) batch.add(requests.get(position));
+        final Result[] batchResults = getBatch(batch);
+        for (int i = 0; i < group.size(); i++) {
+            results[group.get(i)] = batchResults == null ? null : batchResults[i];
+        }
+    }
+
+    private Result[] getBatch(List<Get> requests) throws IOException {
+        TableMask table = null;
+        try {
+            table = cnx.getTable(tableName);
+            return table.get(requests);
+        } finally {
+            IOUtils.closeQuietly(table);
+        }
+    }
+
+    /**
+     * Groups the positions of the given rows by the region that contains them.
+     *
+     * @param startKeys sorted start keys of the regions
+     */
+    static Collection<List<Integer>> groupByRegion(List<byte[]> rows, byte[][] startKeys) {
+        final Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            int region = Arrays.binarySearch(startKeys, rows.get(i), Bytes.BYTES_COMPARATOR);
+            // a row that is not a start key belongs to the region with the next smaller start key
+            if (region < 0) region = Math.max(0, -region - 2);
+            groups.computeIfAbsent(region, r -> new ArrayList<>()).add(i);
+        }
+        return groups.values();
+    }
+
+    private EntryList toEntryList(Result result) {
+        if (result == null) return EntryList.EMPTY_LIST;
+        NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> f = result.getMap();
+
+        if (f == null) // no result for this key
+            return EntryList.EMPTY_LIST;
+
+        // actual key with <timestamp, value>
+        NavigableMap<byte[], NavigableMap<Long, byte[]>> r = f.get(columnFamilyBytes);
+        return (r == null) ? EntryList.EMPTY_LIST : StaticArrayEntryList.ofBytes(r.entrySet(), entryGetter);
+    }
+
     private void mutateMany(Map<StaticBuffer, KCVMutation> mutations, StoreTransaction txh) throws BackendException {
         storeManager.mutateMany(ImmutableMap.of(storeName, mutations), txh);
     }
@@ -27,6 +27,7 @@ import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.GR
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -34,6 +35,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
@@ -42,6 +45,7 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HColumnDescriptor;
@@ -238,6 +242,13 @@ public class HBaseStoreManager extends DistributedStoreManager implements KeyCol
             "at runtime.  Setting this option forces JanusGraph to instead reflectively load and instantiate the specified class.",
             ConfigOption.Type.MASKABLE, String.class);
 
+    public static final ConfigOption<Integer> MULTIGET_THREADS =
+            new ConfigOption<>(HBASE_NS, "multiget-threads",
+            "The number of threads that retrieve the rows of multi-key slice queries in parallel. The rows are grouped " +
+            "by the region that stores them and each group is retrieved with a single batch. " +
+            "Set to 0 to retrieve all rows of a multi-key slice query with a single batch.",
+            ConfigOption.Type.MASKABLE, 0, ConfigOption.nonnegativeInt());
+
     public static final int PORT_DEFAULT = 9160;
 
     public static final TimestampProviders PREFERRED_TIMESTAMPS = TimestampProviders.MILLI;
@@ -247,6 +258,9 @@ public class HBaseStoreManager extends DistributedStoreManager implements KeyCol
 
     private static final StaticBuffer FOUR_ZERO_BYTES = BufferUtil.zeroBuffer(4);
 
+    // Regions split and move, hence the region boundaries used to group multi-key slice queries are refreshed periodically
+    private static final long REGION_BOUNDARIES_REFRESH_MS = 60000;
+
     // Immutable instance fields
     private final BiMap<String, String> shortCfNameMap;
     private final String tableName;
@@ -257,6 +271,7 @@ public class HBaseStoreManager extends DistributedStoreManager implements KeyCol
     private final boolean shortCfNames;
     private final boolean skipSchemaCheck;
     private final HBaseCompat compat;
+    private final ExecutorService multiGetExecutor;
     // Cached return value of getDeployment() as requesting it can be expensive.
     private Deployment deployment = null;
 
@@ -264,6 +279,7 @@ public class HBaseStoreManager extends DistributedStoreManager implements KeyCol
 
     // Mutable instance state
     private final ConcurrentMap<String, HBaseKeyColumnValueStore> openStores;
+    private volatile RegionBoundaries regionBoundaries = null;
 
     public HBaseStoreManager(org.janusgraph.diskstorage.configuration.Configuration config) throws BackendException {
         super(config, PORT_DEFAULT);
@@ -341,6 +357,10 @@ public class HBaseStoreManager extends DistributedStoreManager implements KeyCol
         logger.debug("End of HBase config key=value pairs");
 
         openStores = new ConcurrentHashMap<>();
+
+        final int multiGetThreads = config.get(MULTIGET_THREADS);
+        multiGetExecutor = multiGetThreads > 0 ? Executors.newFixedThreadPool(multiGetThreads, new ThreadFactoryBuilder()
+            .setDaemon(true).setNameFormat("JanusGraphHBase-multiget-%d").build()) : null;
     }
 
     public static BiMap<String, String> createShortCfMap(Configuration config) {
@@ -390,6 +410,8 @@ public class HBaseStoreManager extends DistributedStoreManager implements KeyCol
     @Override
     public void close() {
         openStores.clear();
+        if (multiGetExecutor != null)
+            multiGetExecutor.shutdownNow();
         if (logger.isTraceEnabled())
             openManagers.remove(this);
         IOUtils.closeQuietly(cnx);
@@ -522,6 +544,45 @@ public class HBaseStoreManager extends DistributedStoreManager implements KeyCol
         }
     }
 
+    /**
+     * Returns the executor that retrieves the rows of multi-key slice queries in parallel or null if the rows
+     * are retrieved with a single batch.
+     */
+    ExecutorService getMultiGetExecutor() {
+        return multiGetExecutor;
+    }
+
+    /**
+     * Returns the sorted start keys of the regions of the table. The start keys are cached and may therefore
+     * not reflect recent splits or merges of regions.
+     */
+    byte[][] getRegionStartKeys() throws IOException {
+        RegionBoundaries boundaries = regionBoundaries;
+        final long now = System.currentTimeMillis();
+        if (boundaries == null || now - boundaries.loadedAt > REGION_BOUNDARIES_REFRESH_MS) {
+            List<HRegionLocation> locations = cnx.getRegionLocations(tableName);
+            byte[][] startKeys = new byte[locations.size()][];
+            for (int i = 0; i < startKeys.length; i++) {
+                startKeys[i] = locations.get(i).getRegionInfo().getStartKey();
+            }
+            Arrays.sort(startKeys, Bytes.BYTES_COMPARATOR);
+            boundaries = new RegionBoundaries(startKeys, now);
+            regionBoundaries = boundaries;
+        }
+        return boundaries.startKeys;
+    }
+
+    private static class RegionBoundaries {
+
+        private final byte[][] startKeys;
+        private final long loadedAt;
+
+        private RegionBoundaries(byte[][] startKeys, long loadedAt) {
+            this.startKeys = startKeys;
+            this.loadedAt = loadedAt;
+        }
+    }
+
     @Override
     public List<KeyRange> getLocalKeyPartition() throws BackendException {
         List<KeyRange> result = new LinkedList<>();
@@ -14,6 +14,7 @@
 
 package org.janusgraph.diskstorage.hbase;
 
+import org.apache.hadoop.hbase.util.Bytes;
 import org.janusgraph.HBaseStorageSetup;
 import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.KeyColumnValueStoreTest;
@@ -26,6 +27,9 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class HBaseStoreTest extends KeyColumnValueStoreTest {
 
@@ -60,6 +64,29 @@ public class HBaseStoreTest extends KeyColumnValueStoreTest {
         return openStorageManager(HBaseStorageSetup.getHBaseConfiguration().set(GraphDatabaseConfiguration.DROP_ON_CLEAR, true));
     }
 
+    @Test
+    public void testGetSlicesWithParallelMultiGet() throws Exception {
+        close();
+        manager = openStorageManager(HBaseStorageSetup.getHBaseConfiguration("multiget")
+            .set(HBaseStoreManager.MULTIGET_THREADS, 4)
+            .set(HBaseStoreManager.REGION_COUNT, 8));
+        manager.clearStorage();
+        store = manager.openDatabase(storeName);
+        tx = startTx();
+        super.testGetSlices();
+    }
+
+    @Test
+    public void rowsShouldBeGroupedByRegion() {
+        final byte[][] startKeys = {new byte[0], Bytes.toBytes("b"), Bytes.toBytes("d")};
+        final List<byte[]> rows = new ArrayList<>();
+        for (String row : new String[]{"a", "b", "c", "e", "", "d", "bb"}) {
+            rows.add(Bytes.toBytes(row));
+        }
+        final List<List<Integer>> groups = new ArrayList<>(HBaseKeyColumnValueStore.groupByRegion(rows, startKeys));
+        assertEquals(Arrays.asList(Arrays.asList(0, 4), Arrays.asList(1, 2, 6), Arrays.asList(3, 5)), groups);
+    }
+
     @Test
     public void tableShouldEqualSuppliedTableName() throws BackendException {
         final HBaseStoreManager mgr = openStorageManager("randomTableName");
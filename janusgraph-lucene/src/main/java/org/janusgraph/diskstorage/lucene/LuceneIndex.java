@@ -15,19 +15,26 @@
 package org.janusgraph.diskstorage.lucene;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.locationtech.spatial4j.context.SpatialContext;
 import org.locationtech.spatial4j.shape.Shape;
 
 import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.JanusGraphException;
 import org.janusgraph.core.schema.Mapping;
 import org.janusgraph.graphdb.internal.Order;
 import org.janusgraph.core.attribute.*;
 import org.janusgraph.diskstorage.*;
+import org.janusgraph.diskstorage.configuration.ConfigNamespace;
+import org.janusgraph.diskstorage.configuration.ConfigOption;
 import org.janusgraph.diskstorage.configuration.Configuration;
 import org.janusgraph.diskstorage.indexing.*;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.configuration.PreInitializeConfigOptions;
 import org.janusgraph.graphdb.database.serialize.AttributeUtil;
 import org.janusgraph.graphdb.query.JanusGraphPredicate;
 import org.janusgraph.graphdb.query.condition.*;
@@ -58,6 +65,8 @@ import org.apache.lucene.spatial.query.SpatialOperation;
 import org.apache.lucene.spatial.vector.PointVectorStrategy;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.QueryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,21 +77,57 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
+@PreInitializeConfigOptions
 public class LuceneIndex implements IndexProvider {
     private static final Logger log = LoggerFactory.getLogger(LuceneIndex.class);
 
+    public static final ConfigNamespace LUCENE_NS =
+            new ConfigNamespace(GraphDatabaseConfiguration.INDEX_NS, "lucene", "Lucene index configuration");
+
+    public static final ConfigOption<Duration> REFRESH_INTERVAL =
+            new ConfigOption<>(LUCENE_NS, "refresh-interval",
+            "Interval at which the pooled index searchers are refreshed in the background to reflect index changes " +
+            "that were not made through this instance. If set to 0, a searcher is checked for changes whenever a " +
+            "transaction first reads from its store. Changes made through this instance are visible once committed.",
+            ConfigOption.Type.MASKABLE, Duration.ZERO);
+
+    public static final ConfigOption<Duration> COMMIT_INTERVAL =
+            new ConfigOption<>(LUCENE_NS, "commit-interval",
+            "Maximum time that the changes of a transaction wait to be committed to disk together with the changes of " +
+            "concurrent transactions. Transactions return once their changes have been committed. If set to a positive " +
+            "interval, concurrent transactions also apply their changes in parallel unless they update the same " +
+            "documents. If set to 0, transactions apply and commit their changes one at a time.",
+            ConfigOption.Type.MASKABLE, Duration.ZERO);
+
+    public static final ConfigOption<Integer> COMMIT_BATCH_SIZE =
+            new ConfigOption<>(LUCENE_NS, "commit-batch-size",
+            "Number of waiting transactions that triggers a group commit before the commit interval has elapsed",
+            ConfigOption.Type.MASKABLE, 100, ConfigOption.positiveInt());
+
+    private static final int DOCUMENT_LOCK_STRIPES = 1024;
+
     private static final String DOCID = "_____elementid";
     private static final String GEOID = "_____geo";
 
@@ -107,9 +152,33 @@ public class LuceneIndex implements IndexProvider {
 
     private static final Map<Geo, SpatialOperation> SPATIAL_PREDICATES = spatialPredicates();
 
-    private final Map<String, IndexWriter> writers = new HashMap<>(4);
+    private final Map<String, IndexWriter> writers = new ConcurrentHashMap<>(4);
     private final ReentrantLock writerLock = new ReentrantLock();
 
+    /**
+     * Transactions apply their changes while holding the read lock, commits hold the write lock so that they never
+     * persist a transaction that is only partially applied. Without group commits, transactions hold the write lock
+     * to apply and commit their changes one at a time.
+     */
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    /**
+     * Serializes concurrent updates of the same document, which are applied as read-modify-write operations
+     */
+    private final Striped<Lock> documentLocks = Striped.lock(DOCUMENT_LOCK_STRIPES);
+    private final GroupCommitter groupCommitter;
+
+    /**
+     * Pooled searchers for each store that queries read from. They only see committed changes and are refreshed
+     * after every commit, which only opens the changed segments.
+     */
+    private final Map<String, SearcherManager> searcherManagers = new ConcurrentHashMap<>(4);
+    /**
+     * Near real-time searchers on the writer of each store, which also see uncommitted changes. They are only used to
+     * read the current version of the documents that are updated.
+     */
+    private final Map<String, SearcherManager> writerSearcherManagers = new ConcurrentHashMap<>(4);
+    private final ScheduledExecutorService refreshExecutor;
+
     private final Map<String, SpatialStrategy> spatial = new ConcurrentHashMap<>(12);
     private final SpatialContext ctx = Geoshape.getSpatialContext();
 
@@ -118,7 +187,7 @@ public class LuceneIndex implements IndexProvider {
     /**
      * lazy cache for the delegating analyzers used for writting or querrying for each store
      */
-    private final Map<String, LuceneCustomAnalyzer> delegatingAnalyzers = new HashMap<>();
+    private final Map<String, LuceneCustomAnalyzer> delegatingAnalyzers = new ConcurrentHashMap<>();
 
     public LuceneIndex(Configuration config) {
         final String dir = config.get(GraphDatabaseConfiguration.INDEX_DIRECTORY);
@@ -128,6 +197,21 @@ public class LuceneIndex implements IndexProvider {
         }
         basePath = directory.getAbsolutePath();
         log.debug("Configured Lucene to use base directory [{}]", basePath);
+
+        final Duration refreshInterval = config.get(REFRESH_INTERVAL);
+        Preconditions.checkArgument(!refreshInterval.isNegative(), "Invalid refresh interval: %s", refreshInterval);
+        if (refreshInterval.isZero()) {
+            refreshExecutor = null;
+        } else {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("LuceneIndex-refresh-%d").build());
+            refreshExecutor.scheduleWithFixedDelay(this::refreshSearchers,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        final Duration commitInterval = config.get(COMMIT_INTERVAL);
+        Preconditions.checkArgument(!commitInterval.isNegative(), "Invalid commit interval: %s", commitInterval);
+        groupCommitter = commitInterval.isZero() ? null : new GroupCommitter(commitInterval, config.get(COMMIT_BATCH_SIZE));
     }
 
     private Directory getStoreDirectory(String store) throws BackendException {
@@ -146,20 +230,102 @@ public class LuceneIndex implements IndexProvider {
     }
 
     private IndexWriter getWriter(String store, KeyInformation.IndexRetriever informations) throws BackendException {
-        Preconditions.checkArgument(writerLock.isHeldByCurrentThread());
         IndexWriter writer = writers.get(store);
-        if (writer == null) {
-            final LuceneCustomAnalyzer analyzer = delegatingAnalyzerFor(store, informations);
-            final IndexWriterConfig iwc = new IndexWriterConfig(analyzer);
-            iwc.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        if (writer != null) return writer;
+        writerLock.lock();
+        try {
+            writer = writers.get(store);
+            if (writer == null) writer = createWriter(store, informations);
+        } finally {
+            writerLock.unlock();
+        }
+        return writer;
+    }
+
+    private IndexWriter createWriter(String store, KeyInformation.IndexRetriever informations) throws BackendException {
+        Preconditions.checkArgument(writerLock.isHeldByCurrentThread());
+        final LuceneCustomAnalyzer analyzer = delegatingAnalyzerFor(store, informations);
+        final IndexWriterConfig iwc = new IndexWriterConfig(analyzer);
+        iwc.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        try {
+            final IndexWriter writer = new IndexWriter(getStoreDirectory(store), iwc);
+            writerSearcherManagers.put(store, new SearcherManager(writer, null));
+            writers.put(store, writer);
+            return writer;
+        } catch (final IOException e) {
+            throw new PermanentBackendException("Could not create writer", e);
+        }
+    }
+
+    /**
+     * Returns the searcher manager of the given store, or null if the store does not contain an index yet.
+     */
+    private SearcherManager getSearcherManager(String store) throws BackendException {
+        SearcherManager manager = searcherManagers.get(store);
+        if (manager == null) {
+            synchronized (searcherManagers) {
+                manager = searcherManagers.get(store);
+                if (manager == null) {
+                    try {
+                        manager = new SearcherManager(getStoreDirectory(store), null);
+                    } catch (final IndexNotFoundException e) {
+                        return null;
+                    } catch (final IOException e) {
+                        throw new PermanentBackendException("Could not open index reader on store: " + store, e);
+                    }
+                    searcherManagers.put(store, manager);
+                }
+            }
+        }
+        return manager;
+    }
+
+    /**
+     * Acquires a searcher of the given store, which has to be released with {@link #releaseSearcher(IndexSearcher)},
+     * or returns null if the store does not contain an index yet.
+     */
+    private IndexSearcher acquireSearcher(String store) throws BackendException {
+        final SearcherManager manager = getSearcherManager(store);
+        if (manager == null) return null;
+        try {
+            if (refreshExecutor == null) manager.maybeRefresh();
+            return manager.acquire();
+        } catch (final IOException e) {
+            throw new PermanentBackendException("Could not open index reader on store: " + store, e);
+        }
+    }
+
+    /**
+     * Acquires a near real-time searcher on the writer of the given store, which also sees uncommitted changes.
+     * It has to be released with {@link #releaseSearcher(IndexSearcher)}.
+     */
+    private IndexSearcher acquireWriterSearcher(String store) throws IOException {
+        final SearcherManager manager = writerSearcherManagers.get(store);
+        manager.maybeRefreshBlocking();
+        return manager.acquire();
+    }
+
+    private static void releaseSearcher(IndexSearcher searcher) throws IOException {
+        //Equivalent to SearcherManager#release, which also works if the manager has been replaced or closed since
+        searcher.getIndexReader().decRef();
+    }
+
+    /**
+     * Makes the committed changes of the given store visible to searchers acquired from now on.
+     */
+    private void refreshSearcher(String store) throws IOException {
+        final SearcherManager manager = searcherManagers.get(store);
+        if (manager != null) manager.maybeRefreshBlocking();
+    }
+
+    private void refreshSearchers() {
+        for (final Map.Entry<String, SearcherManager> manager : searcherManagers.entrySet()) {
             try {
-                writer = new IndexWriter(getStoreDirectory(store), iwc);
-                writers.put(store, writer);
-            } catch (final IOException e) {
-                throw new PermanentBackendException("Could not create writer", e);
+                manager.getValue().maybeRefresh();
+            } catch (final IOException | RuntimeException e) {
+                log.warn("Could not refresh searcher on store: {}", manager.getKey(), e);
             }
         }
-        return writer;
     }
 
     private SpatialStrategy getSpatialStrategy(String key, KeyInformation ki) {
@@ -206,29 +372,87 @@ public class LuceneIndex implements IndexProvider {
             "Specified illegal mapping [%s] for data type [%s]", map, dataType);
     }
 
+    /**
+     * Locks all given documents. Concurrent transactions only wait for each other if they update the same documents
+     * (or documents that share a lock stripe), since the stripes are always acquired in the same order.
+     */
+    private List<Lock> lockDocuments(Map<String, ? extends Map<String, ?>> documents) {
+        final List<String> documentKeys = new ArrayList<>();
+        for (final Map.Entry<String, ? extends Map<String, ?>> stores : documents.entrySet()) {
+            for (final String documentId : stores.getValue().keySet()) {
+                documentKeys.add(stores.getKey() + File.separator + documentId);
+            }
+        }
+        final List<Lock> locks = new ArrayList<>(documentKeys.size());
+        for (final Lock lock : documentLocks.bulkGet(documentKeys)) {
+            lock.lock();
+            locks.add(lock);
+        }
+        return locks;
+    }
+
+    private static void unlockDocuments(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) locks.get(i).unlock();
+    }
+
+    /**
+     * Applies the changes of a transaction to the writers of its stores
+     */
+    private interface IndexUpdate {
+        void apply() throws IOException, BackendException;
+    }
+
+    /**
+     * Applies the given update of the given documents and makes it durable and visible to searchers acquired from
+     * now on. Commits only persist updates that have been applied completely.
+     */
+    private void update(Map<String, ? extends Map<String, ?>> documents, IndexUpdate update) throws IOException, BackendException {
+        if (groupCommitter == null) {
+            commitLock.writeLock().lock();
+            try {
+                update.apply();
+                for (final String store : documents.keySet()) writers.get(store).commit();
+            } finally {
+                commitLock.writeLock().unlock();
+            }
+        } else {
+            commitLock.readLock().lock();
+            try {
+                final List<Lock> locks = lockDocuments(documents);
+                try {
+                    update.apply();
+                } finally {
+                    unlockDocuments(locks);
+                }
+            } finally {
+                commitLock.readLock().unlock();
+            }
+            groupCommitter.commit(documents.keySet());
+        }
+        for (final String store : documents.keySet()) refreshSearcher(store);
+    }
+
     @Override
     public void mutate(Map<String, Map<String, IndexMutation>> mutations, KeyInformation.IndexRetriever information, BaseTransaction tx) throws BackendException {
         final Transaction ltx = (Transaction) tx;
-        writerLock.lock();
         try {
-            for (final Map.Entry<String, Map<String, IndexMutation>> stores : mutations.entrySet()) {
-                mutateStores(stores, information);
-            }
+            update(mutations, () -> {
+                for (final Map.Entry<String, Map<String, IndexMutation>> stores : mutations.entrySet()) {
+                    mutateStores(stores, information);
+                }
+            });
             ltx.postCommit();
         } catch (final IOException e) {
             throw new TemporaryBackendException("Could not update Lucene index", e);
-        } finally {
-            writerLock.unlock();
         }
     }
 
     private void mutateStores(Map.Entry<String, Map<String, IndexMutation>> stores, KeyInformation.IndexRetriever information) throws IOException, BackendException {
-        IndexReader reader = null;
+        IndexSearcher searcher = null;
+        final String storeName = stores.getKey();
         try {
-            final String storeName = stores.getKey();
             final IndexWriter writer = getWriter(storeName, information);
-            reader = DirectoryReader.open(writer, true, true);
-            final IndexSearcher searcher = new IndexSearcher(reader);
+            searcher = acquireWriterSearcher(storeName);
             for (final Map.Entry<String, IndexMutation> entry : stores.getValue().entrySet()) {
                 final String documentId = entry.getKey();
                 final IndexMutation mutation = entry.getValue();
@@ -263,47 +487,51 @@ public class LuceneIndex implements IndexProvider {
                 //write the old document to the index with the modifications
                 writer.updateDocument(new Term(DOCID, documentId), doc);
             }
-            writer.commit();
         } finally {
-            IOUtils.closeQuietly(reader);
+            if (searcher != null) releaseSearcher(searcher);
         }
     }
 
     @Override
     public void restore(Map<String, Map<String, List<IndexEntry>>> documents, KeyInformation.IndexRetriever information, BaseTransaction tx) throws BackendException {
-        writerLock.lock();
         try {
-            for (final Map.Entry<String, Map<String, List<IndexEntry>>> stores : documents.entrySet()) {
-                final String store = stores.getKey();
-                final IndexWriter writer = getWriter(store, information);
-                final IndexReader reader = DirectoryReader.open(writer, true, true);
-                final IndexSearcher searcher = new IndexSearcher(reader);
+            update(documents, () -> {
+                for (final Map.Entry<String, Map<String, List<IndexEntry>>> stores : documents.entrySet()) {
+                    restoreStore(stores, information);
+                }
+            });
+            tx.commit();
+        } catch (final IOException e) {
+            throw new TemporaryBackendException("Could not update Lucene index", e);
+        }
+    }
 
-                for (final Map.Entry<String, List<IndexEntry>> entry : stores.getValue().entrySet()) {
-                    final String docID = entry.getKey();
-                    final List<IndexEntry> content = entry.getValue();
+    private void restoreStore(Map.Entry<String, Map<String, List<IndexEntry>>> stores, KeyInformation.IndexRetriever information) throws IOException, BackendException {
+        IndexSearcher searcher = null;
+        final String store = stores.getKey();
+        try {
+            final IndexWriter writer = getWriter(store, information);
+            searcher = acquireWriterSearcher(store);
+            for (final Map.Entry<String, List<IndexEntry>> entry : stores.getValue().entrySet()) {
+                final String docID = entry.getKey();
+                final List<IndexEntry> content = entry.getValue();
 
-                    if (content == null || content.isEmpty()) {
-                        if (log.isTraceEnabled())
-                            log.trace("Deleting document [{}]", docID);
+                if (content == null || content.isEmpty()) {
+                    if (log.isTraceEnabled())
+                        log.trace("Deleting document [{}]", docID);
 
-                        writer.deleteDocuments(new Term(DOCID, docID));
-                        continue;
-                    }
+                    writer.deleteDocuments(new Term(DOCID, docID));
+                    continue;
+                }
 
-                    final Pair<Document, Map<String, Shape>> docAndGeo = retrieveOrCreate(docID, searcher);
-                    addToDocument(store, docID, docAndGeo.getKey(), content, docAndGeo.getValue(), information);
+                final Pair<Document, Map<String, Shape>> docAndGeo = retrieveOrCreate(docID, searcher);
+                addToDocument(store, docID, docAndGeo.getKey(), content, docAndGeo.getValue(), information);
 
-                    //write the old document to the index with the modifications
-                    writer.updateDocument(new Term(DOCID, docID), docAndGeo.getKey());
-                }
-                writer.commit();
+                //write the old document to the index with the modifications
+                writer.updateDocument(new Term(DOCID, docID), docAndGeo.getKey());
             }
-            tx.commit();
-        } catch (final IOException e) {
-            throw new TemporaryBackendException("Could not update Lucene index", e);
         } finally {
-            writerLock.unlock();
+            if (searcher != null) releaseSearcher(searcher);
         }
     }
 
@@ -321,6 +549,7 @@ public class LuceneIndex implements IndexProvider {
 
             doc = new Document();
             doc.add(new StringField(DOCID, docID, Field.Store.YES));
+            doc.add(new BinaryDocValuesField(DOCID, new BytesRef(docID)));
         } else {
             if (log.isTraceEnabled())
                 log.trace("Updating existing document for [{}]", docID);
@@ -337,6 +566,8 @@ public class LuceneIndex implements IndexProvider {
                     }
                 }
             }
+            //doc values are not part of the retrieved document
+            doc.add(new BinaryDocValuesField(DOCID, new BytesRef(docID)));
         }
 
         return new ImmutablePair<>(doc, geoFields);
@@ -455,7 +686,8 @@ public class LuceneIndex implements IndexProvider {
         final SearchParams searchParams = convertQuery(query.getCondition(), information.get(store), delegatingAnalyzer);
 
         try {
-            final IndexSearcher searcher = ((Transaction) tx).getSearcher(query.getStore());
+            final Transaction ltx = (Transaction) tx;
+            final IndexSearcher searcher = ltx.getSearcher(query.getStore());
             if (searcher == null) {
                 return Collections.unmodifiableList(new ArrayList<String>()).stream(); //Index does not yet exist
             }
@@ -463,20 +695,113 @@ public class LuceneIndex implements IndexProvider {
             if (null == q)
                 q = new MatchAllDocsQuery();
 
+            if (query.getOrder().isEmpty()) {
+                //Stream the matches in index order instead of scoring and collecting all of them first
+                final DocumentIdIterator ids = ltx.register(new DocumentIdIterator(searcher, searcher.createNormalizedWeight(q, false)));
+                final Stream<String> result = StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids, Spliterator.ORDERED), false)
+                    .onClose(ids::close);
+                return query.hasLimit() ? result.limit(query.getLimit()) : result;
+            }
             final long time = System.currentTimeMillis();
             final TopDocs docs = searcher.search(q, query.hasLimit() ? query.getLimit() : Integer.MAX_VALUE - 1, getSortOrder(query));
             log.debug("Executed query [{}] in {} ms", q, System.currentTimeMillis() - time);
-            final List<String> result = new ArrayList<>(docs.scoreDocs.length);
-            for (int i = 0; i < docs.scoreDocs.length; i++) {
-                final IndexableField field = searcher.doc(docs.scoreDocs[i].doc).getField(DOCID);
-                result.add(field == null ? null : field.stringValue());
-            }
-            return result.stream();
+            return getDocumentIds(searcher, docs.scoreDocs).stream();
         } catch (final IOException e) {
             throw new TemporaryBackendException("Could not execute Lucene query", e);
         }
     }
 
+    /**
+     * Returns the element ids of the given hits in the same order. The documents are visited in increasing order so
+     * that the ids can be read from the doc values of each segment.
+     */
+    private static List<String> getDocumentIds(IndexSearcher searcher, ScoreDoc[] hits) throws IOException {
+        final Integer[] order = new Integer[hits.length];
+        for (int i = 0; i < hits.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> hits[i].doc));
+
+        final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        final String[] ids = new String[hits.length];
+        LeafReaderContext leaf = null;
+        BinaryDocValues values = null;
+        for (final int i : order) {
+            final int doc = hits[i].doc;
+            if (leaf == null || doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                values = leaf.reader().getBinaryDocValues(DOCID);
+            }
+            ids[i] = getDocumentId(leaf, values, doc - leaf.docBase);
+        }
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * Documents that were indexed before the element ids were added as doc values only contain the stored field.
+     */
+    private static String getDocumentId(LeafReaderContext leaf, BinaryDocValues values, int doc) throws IOException {
+        if (values != null && values.advanceExact(doc)) return values.binaryValue().utf8ToString();
+        final IndexableField field = leaf.reader().document(doc).getField(DOCID);
+        return field == null ? null : field.stringValue();
+    }
+
+    /**
+     * Lazily iterates over the element ids of all live documents that match a query, segment by segment and without
+     * scoring them.
+     * <p>
+     * The iterator reads from the searcher of its transaction, which is released when the transaction ends. Hence the
+     * transaction closes all of its iterators first, and reading from a closed iterator fails. Read errors are thrown
+     * as {@link JanusGraphException} caused by a {@link BackendException}, like errors of the query itself.
+     */
+    private static class DocumentIdIterator extends AbstractIterator<String> {
+
+        private final Weight weight;
+        private final Iterator<LeafReaderContext> leaves;
+        private volatile boolean closed = false;
+
+        private LeafReaderContext leaf;
+        private DocIdSetIterator docs;
+        private Bits liveDocs;
+        private BinaryDocValues values;
+
+        private DocumentIdIterator(IndexSearcher searcher, Weight weight) {
+            this.weight = weight;
+            this.leaves = searcher.getIndexReader().leaves().iterator();
+        }
+
+        @Override
+        protected String computeNext() {
+            if (closed) {
+                throw new JanusGraphException("Could not execute operation due to backend exception",
+                    new PermanentBackendException("Lucene index transaction has been closed"));
+            }
+            try {
+                while (true) {
+                    if (docs != null) {
+                        for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+                            if (liveDocs == null || liveDocs.get(doc)) return getDocumentId(leaf, values, doc);
+                        }
+                        docs = null;
+                    }
+                    if (!leaves.hasNext()) return endOfData();
+                    leaf = leaves.next();
+                    final Scorer scorer = weight.scorer(leaf);
+                    if (scorer != null) {
+                        docs = scorer.iterator();
+                        liveDocs = leaf.reader().getLiveDocs();
+                        values = leaf.reader().getBinaryDocValues(DOCID);
+                    }
+                }
+            } catch (final IOException e) {
+                throw new JanusGraphException("Could not execute operation due to backend exception",
+                    new TemporaryBackendException("Could not execute Lucene query", e));
+            }
+        }
+
+        private void close() {
+            closed = true;
+        }
+    }
+
     private static Query numericQuery(String key, Cmp relation, Number value) {
         switch (relation) {
             case EQUAL:
@@ -571,10 +896,8 @@ public class LuceneIndex implements IndexProvider {
     }
 
     private LuceneCustomAnalyzer delegatingAnalyzerFor(String store, KeyInformation.IndexRetriever information2) {
-        if (!delegatingAnalyzers.containsKey(store)) {
-            delegatingAnalyzers.put(store, new LuceneCustomAnalyzer(store, information2, Analyzer.PER_FIELD_REUSE_STRATEGY));
-        }
-        return delegatingAnalyzers.get(store);
+        return delegatingAnalyzers.computeIfAbsent(store,
+            s -> new LuceneCustomAnalyzer(s, information2, Analyzer.PER_FIELD_REUSE_STRATEGY));
     }
 
     private SearchParams convertQuery(Condition<?> condition, final KeyInformation.StoreRetriever information, final LuceneCustomAnalyzer delegatingAnalyzer) {
@@ -721,10 +1044,10 @@ public class LuceneIndex implements IndexProvider {
             else adjustedLimit = Integer.MAX_VALUE - 1;
             final TopDocs docs = searcher.search(q, adjustedLimit);
             log.debug("Executed query [{}] in {} ms", q, System.currentTimeMillis() - time);
-            final List<RawQuery.Result<String>> result = new ArrayList<>(docs.scoreDocs.length);
+            final List<String> ids = getDocumentIds(searcher, docs.scoreDocs);
+            final List<RawQuery.Result<String>> result = new ArrayList<>(Math.max(0, docs.scoreDocs.length - offset));
             for (int i = offset; i < docs.scoreDocs.length; i++) {
-                final IndexableField field = searcher.doc(docs.scoreDocs[i].doc).getField(DOCID);
-                result.add(new RawQuery.Result<>(field == null ? null : field.stringValue(), docs.scoreDocs[i].score));
+                result.add(new RawQuery.Result<>(ids.get(i), docs.scoreDocs[i].score));
             }
             return result.stream();
         } catch (final IOException e) {
@@ -821,15 +1144,32 @@ public class LuceneIndex implements IndexProvider {
 
     @Override
     public void close() throws BackendException {
+        if (groupCommitter != null) groupCommitter.close();
+        if (refreshExecutor != null) refreshExecutor.shutdownNow();
+        closeSearcherManagers();
         try {
+            for (final SearcherManager manager : writerSearcherManagers.values()) manager.close();
             for (final IndexWriter w : writers.values()) w.close();
         } catch (final IOException e) {
             throw new PermanentBackendException("Could not close writers", e);
         }
     }
 
+    private void closeSearcherManagers() throws BackendException {
+        synchronized (searcherManagers) {
+            try {
+                for (final SearcherManager manager : searcherManagers.values()) manager.close();
+            } catch (final IOException e) {
+                throw new PermanentBackendException("Could not close searchers", e);
+            } finally {
+                searcherManagers.clear();
+            }
+        }
+    }
+
     @Override
     public void clearStorage() throws BackendException {
+        closeSearcherManagers();
         try {
             FileUtils.deleteDirectory(new File(basePath));
         } catch (final IOException e) {
@@ -850,11 +1190,108 @@ public class LuceneIndex implements IndexProvider {
         }
     }
 
+    /**
+     * Commits the changes of concurrent transactions together, so that they share the cost of syncing the index files
+     * to disk. A commit starts once the commit interval has elapsed since the first waiting transaction or once enough
+     * transactions are waiting, and waits for transactions that are still applying their changes. Transactions block
+     * until the commit that covers their changes has completed.
+     */
+    private class GroupCommitter implements Runnable {
+
+        private final long intervalNanos;
+        private final int batchSize;
+        private final Thread thread;
+
+        private Set<String> pendingStores = new HashSet<>();
+        private CompletableFuture<Void> pendingCommit = new CompletableFuture<>();
+        private int pendingCount = 0;
+        private boolean closed = false;
+
+        private GroupCommitter(Duration interval, int batchSize) {
+            this.intervalNanos = interval.toNanos();
+            this.batchSize = batchSize;
+            thread = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("LuceneIndex-commit-%d").build()
+                .newThread(this);
+            thread.start();
+        }
+
+        private void commit(Collection<String> stores) throws BackendException {
+            final CompletableFuture<Void> commit;
+            synchronized (this) {
+                Preconditions.checkState(!closed, "Lucene index has been closed");
+                pendingStores.addAll(stores);
+                commit = pendingCommit;
+                pendingCount++;
+                if (pendingCount == 1 || pendingCount >= batchSize) notifyAll();
+            }
+            try {
+                commit.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PermanentBackendException("Interrupted while waiting for Lucene index commit", e);
+            } catch (final ExecutionException e) {
+                throw new TemporaryBackendException("Could not commit Lucene index", e.getCause());
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Set<String> stores;
+                final CompletableFuture<Void> commit;
+                synchronized (this) {
+                    try {
+                        while (pendingCount == 0 && !closed) wait();
+                        final long deadline = System.nanoTime() + intervalNanos;
+                        long remaining;
+                        while (pendingCount < batchSize && !closed && (remaining = deadline - System.nanoTime()) > 0) {
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        }
+                    } catch (final InterruptedException e) {
+                        closed = true;
+                    }
+                    if (pendingCount == 0) return;
+                    stores = pendingStores;
+                    commit = pendingCommit;
+                    pendingStores = new HashSet<>();
+                    pendingCommit = new CompletableFuture<>();
+                    pendingCount = 0;
+                }
+                commitLock.writeLock().lock();
+                try {
+                    for (final String store : stores) writers.get(store).commit();
+                    commit.complete(null);
+                } catch (final IOException | RuntimeException e) {
+                    commit.completeExceptionally(e);
+                } finally {
+                    commitLock.writeLock().unlock();
+                }
+            }
+        }
+
+        /**
+         * Commits the changes of all waiting transactions and stops the committer.
+         */
+        private void close() throws BackendException {
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PermanentBackendException("Interrupted while waiting for Lucene index commit", e);
+            }
+        }
+    }
+
     private class Transaction implements BaseTransactionConfigurable {
 
         private final BaseTransactionConfig config;
         private final Set<String> updatedStores = Sets.newHashSet();
         private final Map<String, IndexSearcher> searchers = new HashMap<>(4);
+        private final List<DocumentIdIterator> iterators = new ArrayList<>();
 
         private Transaction(BaseTransactionConfig config) {
             this.config = config;
@@ -862,24 +1299,23 @@ public class LuceneIndex implements IndexProvider {
 
         private synchronized IndexSearcher getSearcher(String store) throws BackendException {
             IndexSearcher searcher = searchers.get(store);
-            if (searcher == null) {
-                final IndexReader reader;
-                try {
-                    reader = DirectoryReader.open(getStoreDirectory(store));
-                    searcher = new IndexSearcher(reader);
-                } catch (final IndexNotFoundException e) {
-                    searcher = null;
-                } catch (final IOException e) {
-                    throw new PermanentBackendException("Could not open index reader on store: " + store, e);
-                }
+            if (searcher == null && !searchers.containsKey(store)) {
+                searcher = acquireSearcher(store);
                 searchers.put(store, searcher);
             }
             return searcher;
         }
 
+        /**
+         * Registers an iterator over the results of a query so that it is closed before the searchers are released
+         */
+        private synchronized DocumentIdIterator register(DocumentIdIterator iterator) {
+            iterators.add(iterator);
+            return iterator;
+        }
+
         public void postCommit() throws BackendException {
             close();
-            searchers.clear();
         }
 
 
@@ -893,13 +1329,17 @@ public class LuceneIndex implements IndexProvider {
             close();
         }
 
-        private void close() throws BackendException {
+        private synchronized void close() throws BackendException {
+            for (final DocumentIdIterator iterator : iterators) iterator.close();
+            iterators.clear();
             try {
                 for (final IndexSearcher searcher : searchers.values()) {
-                    if (searcher != null) searcher.getIndexReader().close();
+                    if (searcher != null) releaseSearcher(searcher);
                 }
             } catch (final IOException e) {
                 throw new PermanentBackendException("Could not close searcher", e);
+            } finally {
+                searchers.clear();
             }
         }
 
@@ -16,15 +16,23 @@ package org.janusgraph.diskstorage.lucene;
 
 import org.janusgraph.StorageSetup;
 import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.JanusGraphException;
 import org.janusgraph.core.schema.Parameter;
 import org.janusgraph.core.attribute.*;
 import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.configuration.Configuration;
 import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.indexing.IndexEntry;
 import org.janusgraph.diskstorage.indexing.IndexProvider;
 import org.janusgraph.diskstorage.indexing.IndexProviderTest;
+import org.janusgraph.diskstorage.indexing.IndexQuery;
+import org.janusgraph.diskstorage.indexing.IndexTransaction;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
 import org.janusgraph.core.schema.Mapping;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.internal.Order;
+import org.janusgraph.graphdb.query.condition.PredicateCondition;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -32,13 +40,30 @@ import org.junit.rules.TestName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -151,4 +176,211 @@ public class LuceneIndexTest extends IndexProviderTest {
         String expected = "field" + REPLACEMENT_CHAR + "name" + REPLACEMENT_CHAR + "with" + REPLACEMENT_CHAR + "spaces";
         assertEquals(expected, index.mapKey2Field("field name with spaces", null));
     }
+
+    @Test
+    public void testSearchersReflectCommittedChanges() throws Exception {
+        final String store = "vertex";
+        final IndexQuery query = new IndexQuery(store, PredicateCondition.of(TEXT, Text.CONTAINS, "world"));
+        initialize(store);
+        add(store, "doc1", getTextDocument("Hello world", 1), true);
+        newTx();
+
+        //A second instance only reads the store, so that it does not use the writer of the first one
+        final IndexProvider reader = openIndex();
+        try {
+            final IndexTransaction readerTx = openTx(reader);
+            assertEquals(1, readerTx.queryStream(query).count());
+
+            final IndexTransaction openedTx = openTx();
+            assertEquals(1, openedTx.queryStream(query).count());
+            add(store, "doc2", getTextDocument("Tomorrow is the world", 2), true);
+            newTx();
+
+            //Transactions keep reading from the same point in time until they end
+            assertEquals(1, openedTx.queryStream(query).count());
+            assertEquals(1, readerTx.queryStream(query).count());
+            openedTx.commit();
+            readerTx.commit();
+
+            assertEquals(2, tx.queryStream(query).count());
+            final IndexTransaction refreshedTx = openTx(reader);
+            assertEquals(2, refreshedTx.queryStream(query).count());
+            refreshedTx.commit();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testUncommittedChangesAreNotVisible() throws Exception {
+        final String store = "vertex";
+        final IndexQuery query = new IndexQuery(store, PredicateCondition.of(TEXT, Text.CONTAINS, "world"));
+        //The first transaction waits for a second one before its changes are committed
+        final IndexProvider groupCommitIndex = openGroupCommitIndex(Duration.ofSeconds(30), 2);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> first = executor.submit(() -> {
+                final IndexTransaction writeTx = openTx(groupCommitIndex);
+                writeTx.add(store, "doc1", new IndexEntry(TEXT, "Hello world"), true);
+                writeTx.commit();
+                return null;
+            });
+            Thread.sleep(500);
+            assertFalse(first.isDone());
+            final IndexTransaction readTx = openTx(groupCommitIndex);
+            assertEquals(0, readTx.queryStream(query).count());
+            readTx.commit();
+
+            final IndexTransaction secondTx = openTx(groupCommitIndex);
+            secondTx.add(store, "doc2", new IndexEntry(TEXT, "Tomorrow is the world"), true);
+            secondTx.commit();
+            first.get();
+            final IndexTransaction committedTx = openTx(groupCommitIndex);
+            assertEquals(2, committedTx.queryStream(query).count());
+            committedTx.commit();
+        } finally {
+            executor.shutdownNow();
+            groupCommitIndex.close();
+        }
+    }
+
+    @Test
+    public void testGroupCommitOfConcurrentTransactions() throws Exception {
+        final String store = "vertex";
+        final int numThreads = 8, numTx = 25;
+        final IndexProvider groupCommitIndex = openGroupCommitIndex(Duration.ofMillis(50), numThreads / 2);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>(numThreads);
+            for (int t = 0; t < numThreads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < numTx; i++) {
+                        final IndexTransaction writeTx = openTx(groupCommitIndex);
+                        writeTx.add(store, "doc" + thread + "-" + i, new IndexEntry(TEXT, "Hello world " + i), true);
+                        writeTx.commit();
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) future.get();
+
+            final IndexTransaction readTx = openTx(groupCommitIndex);
+            assertEquals(numThreads * numTx, readTx.queryStream(new IndexQuery(store,
+                PredicateCondition.of(TEXT, Text.CONTAINS, "world"))).count());
+            readTx.commit();
+        } finally {
+            executor.shutdownNow();
+            groupCommitIndex.close();
+        }
+        //All changes have been committed to disk
+        assertEquals(numThreads * numTx, tx.queryStream(new IndexQuery(store,
+            PredicateCondition.of(TEXT, Text.CONTAINS, "hello"))).count());
+    }
+
+    @Test
+    public void testGroupCommitOnlyPersistsCompleteTransactions() throws Exception {
+        final String store = "vertex";
+        final int numThreads = 4, numTx = 20, docsPerTx = 20;
+        final IndexQuery query = new IndexQuery(store, PredicateCondition.of(TEXT, Text.CONTAINS, "world"));
+        final IndexProvider groupCommitIndex = openGroupCommitIndex(Duration.ofMillis(1), 1);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>(numThreads);
+            for (int t = 0; t < numThreads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < numTx; i++) {
+                        final IndexTransaction writeTx = openTx(groupCommitIndex);
+                        for (int d = 0; d < docsPerTx; d++) {
+                            writeTx.add(store, "doc" + thread + "-" + i + "-" + d, new IndexEntry(TEXT, "Hello world"), true);
+                        }
+                        writeTx.commit();
+                    }
+                    return null;
+                }));
+            }
+            //Queries only see committed changes, which have to consist of complete transactions
+            boolean done;
+            do {
+                done = futures.stream().allMatch(Future::isDone);
+                final IndexTransaction readTx = openTx(groupCommitIndex);
+                final long count = readTx.queryStream(query).count();
+                readTx.commit();
+                assertEquals(0, count % docsPerTx);
+                if (done) assertEquals(numThreads * numTx * docsPerTx, count);
+            } while (!done);
+            for (final Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdownNow();
+            groupCommitIndex.close();
+        }
+    }
+
+    @Test
+    public void testStreamsIdsOfLiveDocuments() throws Exception {
+        final String store = "vertex";
+        final int numDocs = 500;
+        initialize(store);
+        final Set<String> expected = new HashSet<>();
+        for (int i = 0; i < numDocs; i++) {
+            add(store, "doc" + i, getTextDocument("Hello world", i), true);
+            expected.add("doc" + i);
+            //Spread the documents over several segments
+            if (i % 100 == 99) newTx();
+        }
+        newTx();
+        for (int i = 0; i < numDocs; i += 10) {
+            tx.delete(store, "doc" + i, TEXT, "Hello world", true);
+            expected.remove("doc" + i);
+        }
+        tx.add(store, "doc1", new IndexEntry(WEIGHT, 1.0), false);
+        newTx();
+
+        final IndexQuery query = new IndexQuery(store, PredicateCondition.of(TEXT, Text.CONTAINS, "world"));
+        assertEquals(expected, tx.queryStream(query).collect(Collectors.toSet()));
+        final Set<String> limited = tx.queryStream(new IndexQuery(store, query.getCondition(), 50)).collect(Collectors.toSet());
+        assertEquals(50, limited.size());
+        assertTrue(expected.containsAll(limited));
+        //Ordered queries retrieve the ids of the top hits
+        assertEquals(Arrays.asList("doc499", "doc498"), tx.queryStream(new IndexQuery(store, query.getCondition(),
+            ImmutableList.of(new IndexQuery.OrderEntry(TIME, Order.DESC, Long.class)), 2)).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testStreamOfEndedTransactionFails() throws Exception {
+        final String store = "vertex";
+        initialize(store);
+        add(store, "doc1", getTextDocument("Hello world", 1), true);
+        newTx();
+        final IndexTransaction readTx = openTx(index);
+        final Iterator<String> ids = readTx.queryStream(new IndexQuery(store,
+            PredicateCondition.of(TEXT, Text.CONTAINS, "world"))).iterator();
+        //The searcher of the transaction is released when it ends
+        readTx.commit();
+        try {
+            ids.hasNext();
+            fail();
+        } catch (final JanusGraphException e) {
+            assertTrue(e.getCause() instanceof BackendException);
+        }
+    }
+
+    private IndexProvider openGroupCommitIndex(Duration commitInterval, int commitBatchSize) {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.INDEX_DIRECTORY, StorageSetup.getHomeDir("lucene"), "lucene");
+        config.set(LuceneIndex.COMMIT_INTERVAL, commitInterval, "lucene");
+        config.set(LuceneIndex.COMMIT_BATCH_SIZE, commitBatchSize, "lucene");
+        return new LuceneIndex(config.restrictTo("lucene"));
+    }
+
+    private IndexTransaction openTx(IndexProvider provider) throws BackendException {
+        return new IndexTransaction(provider, indexRetriever, StandardBaseTransactionConfig.of(TimestampProviders.MILLI),
+            Duration.ofMillis(2000L));
+    }
+
+    private Multimap<String, Object> getTextDocument(String text, long time) {
+        return getDocument(text, time, 5.2, Geoshape.point(48.0, 0.0), Geoshape.point(48.0, 0.0),
+            Arrays.asList("1", "2"), Sets.newHashSet("1", "2"), Instant.ofEpochSecond(time));
+    }
 }
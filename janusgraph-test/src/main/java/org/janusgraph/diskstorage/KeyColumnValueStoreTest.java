@@ -1191,10 +1191,32 @@ public abstract class KeyColumnValueStoreTest extends AbstractKCVSTest {
         SimpleScanJob.runBasicTests(keys, columns, runner);
     }
 
+    @Test
+    public void scanTestWithSegments() throws Exception {
+        int keys = 1000, columns = 40;
+        String[][] values = KeyValueStoreUtil.generateData(keys, columns);
+        //Make it only half the number of columns for every 2nd key
+        for (int i = 0; i < values.length; i++) {
+            if (i%2==0) values[i]=Arrays.copyOf(values[i],columns/2);
+        }
+        loadValues(values);
+        clopen();
+
+        StandardScanner scanner = new StandardScanner(manager);
+        SimpleScanJobRunner runner = (ScanJob job, Configuration jobConf, String rootNSName) -> runSimpleJob(scanner, job, jobConf, 4);
+
+        SimpleScanJob.runBasicTests(keys, columns, runner);
+    }
+
     private ScanMetrics runSimpleJob(StandardScanner scanner, ScanJob job, Configuration jobConf) throws BackendException, ExecutionException, InterruptedException {
+        return runSimpleJob(scanner, job, jobConf, 1);
+    }
+
+    private ScanMetrics runSimpleJob(StandardScanner scanner, ScanJob job, Configuration jobConf, int numSegments) throws BackendException, ExecutionException, InterruptedException {
         StandardScanner.Builder jobBuilder = scanner.build();
         jobBuilder.setStoreName(store.getName());
         jobBuilder.setJobConfiguration(jobConf);
+        jobBuilder.setNumSegments(numSegments);
         jobBuilder.setNumProcessingThreads(2);
         jobBuilder.setWorkBlockSize(100);
         jobBuilder.setTimestampProvider(times);
@@ -46,9 +46,20 @@ public abstract class KCVSLogTest extends LogTest {
         //To ensure that the write order is preserved in reading, we need to ensure that all writes go to the same partition
         //otherwise readers will independently read from the partitions out-of-order by design to avoid having to synchronize
         config.set(KCVSLogManager.LOG_FIXED_PARTITION, requiresOrderPreserving, LOG_NAME);
+        configureLog(config);
         return new KCVSLogManager(storeManager,config.restrictTo(LOG_NAME));
     }
 
+    /**
+     * Allows subclasses to set additional options on the configuration of the log manager. Log options must be set
+     * for the umbrella {@link #LOG_NAME}.
+     *
+     * @param config
+     */
+    protected void configureLog(ModifiableConfiguration config) {
+        //Nothing to configure by default
+    }
+
     @Override
     public void setup() throws Exception {
         StoreManager m = openStorageManager();
@@ -3995,6 +3995,14 @@ public abstract class JanusGraphTest extends JanusGraphBaseTest {
         assertCount(superV * numV, t);
         metrics = t.asAdmin().getSideEffects().get("~metrics");
 
+        //Verify that batches smaller than the number of incoming traversers return the same results
+        clopen(option(USE_MULTIQUERY), true, option(MULTIQUERY_BATCH_SIZE), 3);
+        gts = graph.traversal();
+
+        assertNumStep(superV * (numV / 5), 2, gts.V().has("id", sid).outE("knows").has("weight", 1), JanusGraphStep.class, JanusGraphVertexStep.class);
+        assertNumStep(superV * numV, 2, gts.V().has("id", sid).out("knows"), JanusGraphStep.class, JanusGraphVertexStep.class);
+        assertNumStep(superV * numV, 2, gts.V().has("id", sid).values("names"), JanusGraphStep.class, JanusGraphPropertiesStep.class);
+        assertNumStep(superV * numV, 3, gts.V().has("id", sid).outE("knows").values("weight"), JanusGraphStep.class, JanusGraphVertexStep.class, JanusGraphPropertiesStep.class);
     }
 
     private static void assertNumStep(int expectedResults, int expectedSteps, GraphTraversal traversal, Class<? extends Step>... expectedStepTypes) {
@@ -0,0 +1,115 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage;
+
+import org.janusgraph.diskstorage.indexing.IndexTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.janusgraph.util.stats.MetricManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class BackendTransactionTest {
+
+    private static final String GROUP = "backendtx";
+    private static final long COMMIT_TIME_MS = 300;
+
+    private ExecutorService threadPool;
+    private CacheTransaction storeTx;
+    private BaseTransactionConfig txConfig;
+
+    @Before
+    public void setup() {
+        threadPool = Executors.newFixedThreadPool(4);
+        storeTx = mock(CacheTransaction.class);
+        txConfig = new StandardBaseTransactionConfig.Builder().groupName(GROUP)
+            .timestampProvider(TimestampProviders.MICRO).build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPool.shutdownNow();
+    }
+
+    private static IndexTransaction getSlowIndexTx() throws BackendException {
+        final IndexTransaction itx = mock(IndexTransaction.class);
+        doAnswer(invocation -> {
+            Thread.sleep(COMMIT_TIME_MS);
+            return null;
+        }).when(itx).commit();
+        return itx;
+    }
+
+    private BackendTransaction getBackendTx(Map<String, IndexTransaction> indexTx) {
+        return new BackendTransaction(storeTx, txConfig, null, null, null, null, null, indexTx, threadPool);
+    }
+
+    @Test
+    public void testCommitsIndexesInParallel() throws Exception {
+        final Map<String, IndexTransaction> indexTx = new HashMap<>();
+        for (int i = 0; i < 3; i++) indexTx.put("index" + i, getSlowIndexTx());
+        final long start = System.nanoTime();
+        final Map<String, Throwable> exceptions = getBackendTx(indexTx).commitIndexes();
+        final long durationMS = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(exceptions.isEmpty());
+        assertTrue("Took " + durationMS + " ms", durationMS < 2 * COMMIT_TIME_MS);
+        for (Map.Entry<String, IndexTransaction> entry : indexTx.entrySet()) {
+            verify(entry.getValue()).commit();
+            assertEquals(1, MetricManager.INSTANCE.getTimer(GROUP, "index", entry.getKey(), "commit", "time").getCount());
+        }
+    }
+
+    @Test
+    public void testReportsFailuresPerIndex() throws Exception {
+        final Map<String, IndexTransaction> indexTx = new HashMap<>();
+        final IndexTransaction failing = mock(IndexTransaction.class);
+        final BackendException failure = new PermanentBackendException("Index unavailable");
+        doThrow(failure).when(failing).commit();
+        indexTx.put("failing", failing);
+        indexTx.put("working", getSlowIndexTx());
+
+        final Map<String, Throwable> exceptions = getBackendTx(indexTx).commitIndexes();
+        assertEquals(1, exceptions.size());
+        assertSame(failure, exceptions.get("failing"));
+        verify(indexTx.get("working")).commit();
+
+        try {
+            getBackendTx(indexTx).commit();
+            fail();
+        } catch (BackendException e) {
+            assertSame(failure, e);
+        }
+        verify(storeTx).commit();
+    }
+
+}
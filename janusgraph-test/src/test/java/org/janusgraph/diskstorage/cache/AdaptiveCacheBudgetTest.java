@@ -0,0 +1,148 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.cache;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.AdaptiveCacheBudget;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.ExpirationKCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.janusgraph.diskstorage.cache.KCVSCacheTest.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveCacheBudgetTest {
+
+    private static final long BUDGET = 1024*1024; //1 MB
+    private static final int NUM_COLS = 10;
+    //Each cached result takes up about 850 bytes, so that the index keys need about half of the budget
+    private static final int EDGE_KEYS = 100, INDEX_KEYS = 600;
+
+    private KeyColumnValueStoreManager storeManager;
+    private ExpirationKCVSCache edgeCache;
+    private ExpirationKCVSCache indexCache;
+    private AdaptiveCacheBudget budget;
+
+    @Before
+    public void setup() throws Exception {
+        storeManager = new InMemoryStoreManager();
+        edgeCache = getCache("edgestore", EDGE_KEYS);
+        indexCache = getCache("graphindex", INDEX_KEYS);
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        if (budget != null) budget.close();
+        edgeCache.close();
+        indexCache.close();
+        storeManager.close();
+    }
+
+    private ExpirationKCVSCache getCache(String name, int numKeys) throws BackendException {
+        final KeyColumnValueStore store = storeManager.openDatabase(name);
+        final StoreTransaction tx = getStoreTx();
+        for (int i=1;i<=numKeys;i++) {
+            final List<Entry> adds = new ArrayList<>(NUM_COLS);
+            for (int j=1;j<=NUM_COLS;j++) adds.add(getEntry(j,j));
+            store.mutate(BufferUtil.getIntBuffer(i),adds,KeyColumnValueStore.NO_DELETIONS,tx);
+        }
+        tx.commit();
+        return new ExpirationKCVSCache(store,name,Duration.ofDays(1).toMillis(),0,BUDGET);
+    }
+
+    private StoreTransaction getStoreTx() throws BackendException {
+        return storeManager.beginTransaction(StandardBaseTransactionConfig.of(times));
+    }
+
+    private void read(ExpirationKCVSCache cache, int numKeys) throws BackendException {
+        final CacheTransaction tx = new CacheTransaction(getStoreTx(), storeManager, 1024, MAX_WRITE_TIME, false);
+        for (int i=1;i<=numKeys;i++) {
+            assertEquals(NUM_COLS, cache.getSlice(getQuery(i,0,NUM_COLS+1),tx).size());
+        }
+        tx.commit();
+    }
+
+    @Test
+    public void testSplitsBudget() {
+        budget = new AdaptiveCacheBudget(edgeCache,indexCache,BUDGET,0.8,Duration.ZERO);
+        assertEquals(0.8, budget.getShare(), 0.0);
+        assertEquals(BUDGET, edgeCache.getMaximumByteSize() + indexCache.getMaximumByteSize());
+        assertEquals(Math.round(BUDGET*0.8), edgeCache.getMaximumByteSize());
+        //Not enough retrievals to measure the hit rate
+        assertFalse(budget.rebalance());
+        assertEquals(0.8, budget.getShare(), 0.0);
+    }
+
+    @Test
+    public void testWaitsForCachesToSettle() throws Exception {
+        read(indexCache,INDEX_KEYS);
+        budget = new AdaptiveCacheBudget(edgeCache,indexCache,BUDGET,0.8,Duration.ZERO);
+        //The index cache still holds more than its new capacity since none of its entries has been replaced
+        assertTrue(indexCache.getByteSize() > indexCache.getMaximumByteSize());
+        for (int i=0;i<2;i++) {
+            read(edgeCache,EDGE_KEYS);
+            read(indexCache,INDEX_KEYS);
+        }
+        assertFalse(budget.rebalance());
+        assertEquals(0.8, budget.getShare(), 0.0);
+
+        indexCache.clearCache();
+        for (int i=0;i<2;i++) {
+            read(edgeCache,EDGE_KEYS);
+            read(indexCache,INDEX_KEYS);
+        }
+        assertTrue(indexCache.getByteSize() <= indexCache.getMaximumByteSize());
+        assertTrue(budget.rebalance());
+    }
+
+    @Test
+    public void testMovesCapacityToIndexStore() throws Exception {
+        budget = new AdaptiveCacheBudget(edgeCache,indexCache,BUDGET,0.8,Duration.ZERO);
+        //A lookup heavy workload: a small set of edge store keys and a set of index keys that does not fit into 20%
+        final double initialShare = budget.getShare();
+        int adjustments = 0;
+        for (int round=0;round<40;round++) {
+            for (int i=0;i<2;i++) {
+                read(edgeCache,EDGE_KEYS);
+                read(indexCache,INDEX_KEYS);
+            }
+            if (budget.rebalance()) adjustments++;
+            assertEquals(BUDGET, edgeCache.getMaximumByteSize() + indexCache.getMaximumByteSize());
+        }
+        assertTrue(adjustments >= 10);
+        assertTrue(budget.getShare() < initialShare - 0.3);
+
+        final long misses = indexCache.getMissCount();
+        for (int round=0;round<3;round++) read(indexCache,INDEX_KEYS);
+        //Most index retrievals hit the cache now
+        assertTrue(indexCache.getMissCount() - misses < 3*INDEX_KEYS/2);
+    }
+
+}
@@ -0,0 +1,191 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.cache;
+
+import com.google.common.collect.ImmutableList;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.PermanentBackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.ExpirationKCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.janusgraph.diskstorage.cache.KCVSCacheTest.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the background persistence of mutation chunks by a batch loading {@link CacheTransaction}.
+ */
+public class CacheTransactionPipelineTest {
+
+    private static final int CHUNK_SIZE = 10;
+
+    private GatedStoreManager storeManager;
+    private KCVSCache cache;
+    private ExecutorService flushExecutor;
+
+    @Before
+    public void setup() throws Exception {
+        storeManager = new GatedStoreManager();
+        cache = new ExpirationKCVSCache(storeManager.openDatabase(STORE_NAME),"cache",Duration.ofDays(1).toMillis(),0,1024*1024);
+        flushExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        storeManager.gate.release(1000);
+        flushExecutor.shutdownNow();
+        cache.close();
+        storeManager.close();
+    }
+
+    private CacheTransaction getCacheTx(int pipelineDepth) throws BackendException {
+        return new CacheTransaction(storeManager.beginTransaction(StandardBaseTransactionConfig.of(times)),
+            storeManager, CHUNK_SIZE, MAX_WRITE_TIME, true, 2, pipelineDepth, flushExecutor);
+    }
+
+    private void add(CacheTransaction tx, int key) throws BackendException {
+        cache.mutateEntries(BufferUtil.getIntBuffer(key), ImmutableList.of(getEntry(1,1)), KCVSCache.NO_DELETIONS, tx);
+    }
+
+    @Test
+    public void testPersistsAllChunksOnCommit() throws Exception {
+        storeManager.gate.release(1000);
+        final int numKeys = 10*CHUNK_SIZE+5;
+        final CacheTransaction tx = getCacheTx(2);
+        for (int i=1;i<=numKeys;i++) add(tx,i);
+        tx.commit();
+        assertEquals(11,storeManager.mutateManyCalls.get());
+
+        final CacheTransaction readTx = new CacheTransaction(storeManager.beginTransaction(StandardBaseTransactionConfig.of(times)),
+            storeManager, CHUNK_SIZE, MAX_WRITE_TIME, false);
+        for (int i=1;i<=numKeys;i++) {
+            assertEquals(1,cache.getSlice(getQuery(i,0,2),readTx).size());
+        }
+        readTx.commit();
+    }
+
+    @Test
+    public void testBlocksWhenPipelineIsFull() throws Exception {
+        final CacheTransaction tx = getCacheTx(1);
+        final Thread writer = new Thread(() -> {
+            try {
+                //The first chunk is being persisted, so that submitting the second one blocks
+                for (int i=1;i<=3*CHUNK_SIZE;i++) add(tx,i);
+            } catch (BackendException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        writer.join(500);
+        assertTrue(writer.isAlive());
+        assertEquals(1,storeManager.mutateManyCalls.get());
+
+        storeManager.gate.release(1000);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(writer.isAlive());
+        tx.commit();
+        assertEquals(3,storeManager.mutateManyCalls.get());
+    }
+
+    @Test
+    public void testFailureSurfacesOnCommit() throws Exception {
+        storeManager.gate.release(1000);
+        storeManager.fail = true;
+        final CacheTransaction tx = getCacheTx(2);
+        for (int i=1;i<=CHUNK_SIZE;i++) add(tx,i);
+        try {
+            tx.commit();
+            fail();
+        } catch (JanusGraphException e) {
+            assertTrue(e.getCause() instanceof PermanentBackendException);
+        }
+    }
+
+    @Test
+    public void testRollbackWaitsForRunningChunk() throws Exception {
+        final CacheTransaction tx = getCacheTx(2);
+        for (int i=1;i<=2*CHUNK_SIZE;i++) add(tx,i);
+        final Thread rollback = new Thread(() -> {
+            try {
+                tx.rollback();
+            } catch (BackendException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        rollback.start();
+        rollback.join(500);
+        //The first chunk is still being persisted with the transaction
+        assertTrue(rollback.isAlive());
+
+        storeManager.gate.release(1000);
+        rollback.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(rollback.isAlive());
+        //The second chunk was discarded
+        assertEquals(1,storeManager.mutateManyCalls.get());
+    }
+
+    @Test
+    public void testTransactionsShareExecutor() throws Exception {
+        storeManager.gate.release(1000);
+        final CacheTransaction[] txs = new CacheTransaction[5];
+        for (int t=0;t<txs.length;t++) txs[t] = getCacheTx(1);
+        for (int i=1;i<=3*CHUNK_SIZE;i++) {
+            for (int t=0;t<txs.length;t++) add(txs[t],t*1000+i);
+        }
+        for (CacheTransaction tx : txs) tx.commit();
+        assertEquals(3*txs.length,storeManager.mutateManyCalls.get());
+    }
+
+    private static class GatedStoreManager extends InMemoryStoreManager {
+
+        private final Semaphore gate = new Semaphore(0);
+        private final AtomicInteger mutateManyCalls = new AtomicInteger(0);
+        private volatile boolean fail = false;
+
+        @Override
+        public void mutateMany(Map<String, Map<StaticBuffer, KCVMutation>> mutations, StoreTransaction txh) throws BackendException {
+            mutateManyCalls.incrementAndGet();
+            try {
+                gate.acquire();
+            } catch (InterruptedException e) {
+                throw new PermanentBackendException(e);
+            }
+            if (fail) throw new PermanentBackendException("Injected failure");
+            super.mutateMany(mutations, txh);
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.ExpirationKCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
 import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.util.stats.MetricManager;
 
 
 import org.junit.Test;
@@ -35,6 +36,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -42,6 +44,7 @@ import static org.junit.Assert.assertEquals;
 public class ExpirationCacheTest extends KCVSCacheTest {
 
     public static final String METRICS_STRING = "metrics";
+    public static final String METRICS_GROUP = "org.janusgraph.expirationcachetest";
     public static final long CACHE_SIZE = 1024*1024*48; //48 MB
 
     @Override
@@ -147,6 +150,43 @@ public class ExpirationCacheTest extends KCVSCacheTest {
         assertEquals(0,store.getSliceCalls());
     }
 
+    @Test
+    public void testCleanupOnlyInvalidatesExpiredKeys() throws Exception {
+        final int minCleanupTriggerCalls = 5;
+        final int numKeys = 100, numCols = 10;
+        loadStore(numKeys,numCols);
+        cache = new ExpirationKCVSCache(store,METRICS_GROUP,METRICS_STRING,Duration.ofDays(200).toMillis(),0,CACHE_SIZE);
+
+        final StaticBuffer key = BufferUtil.getIntBuffer(81);
+        final List<StaticBuffer> keys = new ArrayList<>();
+        keys.add(key);
+        keys.add(BufferUtil.getIntBuffer(37));
+        keys.add(BufferUtil.getIntBuffer(2));
+        SliceQuery query = getQuery(2,8);
+        verifyResults(key,keys,query,6);
+
+        CacheTransaction tx = getCacheTx();
+        cache.mutateEntries(key,KeyColumnValueStore.NO_ADDITIONS, Lists.newArrayList(getEntry(4,4)),tx);
+        tx.commit();
+        for (int t=0; t<minCleanupTriggerCalls;t++) {
+            assertEquals(5,cache.getSlice(new KeySliceQuery(key,query),tx).size());
+        }
+        //wait for the cleanup thread to complete its run
+        final Instant deadline = times.getTime().plus(Duration.ofSeconds(10));
+        while (MetricManager.INSTANCE.getTimer(METRICS_GROUP,METRICS_STRING,ExpirationKCVSCache.METRICS_CLEANUP).getCount()==0) {
+            assertTrue(times.getTime().isBefore(deadline));
+            times.sleepFor(Duration.ofMillis(10));
+        }
+        //only the single cached query of the mutated key got invalidated...
+        assertEquals(1,MetricManager.INSTANCE.getCounter(METRICS_GROUP,METRICS_STRING,ExpirationKCVSCache.METRICS_INVALIDATED).getCount());
+        //...while the other keys are still served from the cache
+        store.resetCounter();
+        tx = getCacheTx();
+        assertEquals(6,cache.getSlice(keys.subList(1,3),query,tx).get(keys.get(1)).size());
+        tx.commit();
+        assertEquals(0,store.getSliceCalls());
+    }
+
     private void verifyResults(StaticBuffer key, List<StaticBuffer> keys, SliceQuery query, int expectedResults) throws Exception {
         CacheTransaction tx = getCacheTx();
         assertEquals(expectedResults,cache.getSlice(new KeySliceQuery(key,query),tx).size());
@@ -0,0 +1,203 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.cache;
+
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.OffHeapEntryListCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.OffHeapKCVSCache;
+import org.janusgraph.diskstorage.util.StaticArrayEntryList;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapCacheTest extends KCVSCacheTest {
+
+    public static final String METRICS_STRING = "metrics";
+    public static final long CACHE_SIZE = 1024*1024*48; //48 MB
+
+    //Small enough for one segment with 16 pages of 4 KB
+    private static final long SMALL_CACHE_SIZE = 1024*64;
+
+    @Override
+    public KCVSCache getCache(KeyColumnValueStore store) {
+        return new OffHeapKCVSCache(store,null,METRICS_STRING,Duration.ofDays(1).toMillis(),0,CACHE_SIZE);
+    }
+
+    @Test
+    public void testAllocatesLazily() throws Exception {
+        assertEquals(0,((OffHeapKCVSCache)cache).getAllocatedBytes());
+        loadStore(10,10);
+        assertEquals(10,cache.getSlice(getQuery(1,0,11),getCacheTx()).size());
+        assertTrue(((OffHeapKCVSCache)cache).getAllocatedBytes()>0);
+        cache.clearCache();
+        assertEquals(0,((OffHeapKCVSCache)cache).getAllocatedBytes());
+    }
+
+    @Test
+    public void testScanDoesNotEvictHotEntries() throws Exception {
+        final List<KeySliceQuery> removed = new ArrayList<>();
+        final OffHeapEntryListCache offHeap = new OffHeapEntryListCache(SMALL_CACHE_SIZE,Duration.ofDays(1).toMillis(),1,removed::add);
+        final int numHot = 100, numScan = 1000, hotAccesses = 10;
+        for (int a=0;a<hotAccesses;a++) {
+            for (int i=0;i<numHot;i++) {
+                assertEquals(10,offHeap.get(getQuery(i,0,10),() -> getEntries(10)).size());
+            }
+        }
+        assertEquals(numHot,offHeap.size());
+        for (int i=numHot;i<numHot+numScan;i++) {
+            assertEquals(10,offHeap.get(getQuery(i,0,10),() -> getEntries(10)).size());
+        }
+        //The cache holds 256 entries of this size, but one-off reads must not displace the frequently read entries
+        for (int i=0;i<numHot;i++) {
+            assertTrue(offHeap.contains(getQuery(i,0,10)));
+        }
+        assertTrue(offHeap.size()<=SMALL_CACHE_SIZE/256);
+        for (KeySliceQuery query : removed) assertFalse(offHeap.contains(query));
+    }
+
+    @Test
+    public void testReassignsPagesToNewSizeClass() throws Exception {
+        final List<KeySliceQuery> removed = new ArrayList<>();
+        final OffHeapEntryListCache offHeap = new OffHeapEntryListCache(SMALL_CACHE_SIZE,Duration.ofDays(1).toMillis(),1,removed::add);
+        //Fill all pages with entries of one size class
+        for (int i=0;i<SMALL_CACHE_SIZE/256;i++) offHeap.put(getQuery(i,0,10),getEntries(10));
+        assertEquals(SMALL_CACHE_SIZE,offHeap.getAllocatedBytes());
+        assertTrue(removed.isEmpty());
+
+        final KeySliceQuery large = getQuery(-1,0,50);
+        for (int a=0;a<5;a++) assertNull(offHeap.getIfPresent(large));
+        offHeap.put(large,getEntries(50));
+        assertEquals(50,offHeap.getIfPresent(large).size());
+        assertEquals(SMALL_CACHE_SIZE,offHeap.getAllocatedBytes());
+        assertFalse(removed.isEmpty());
+        for (KeySliceQuery query : removed) assertFalse(offHeap.contains(query));
+    }
+
+    @Test
+    public void testShrinkReleasesMemory() throws Exception {
+        final List<KeySliceQuery> removed = new ArrayList<>();
+        final long[] capacity = {SMALL_CACHE_SIZE};
+        final OffHeapEntryListCache offHeap = new OffHeapEntryListCache(() -> capacity[0],Duration.ofDays(1).toMillis(),1,removed::add);
+        for (int i=0;i<SMALL_CACHE_SIZE/256;i++) offHeap.put(getQuery(i,0,10),getEntries(10));
+        assertEquals(SMALL_CACHE_SIZE,offHeap.getAllocatedBytes());
+
+        capacity[0] = SMALL_CACHE_SIZE/4;
+        offHeap.cleanUp();
+        assertEquals(SMALL_CACHE_SIZE/4,offHeap.getAllocatedBytes());
+        assertEquals(SMALL_CACHE_SIZE/4/256,offHeap.size());
+        assertEquals(SMALL_CACHE_SIZE/256-offHeap.size(),removed.size());
+        for (KeySliceQuery query : removed) assertFalse(offHeap.contains(query));
+
+        //Released pages are reused once the capacity grows again
+        capacity[0] = SMALL_CACHE_SIZE;
+        for (int i=0;i<SMALL_CACHE_SIZE/256;i++) offHeap.put(getQuery(i,0,10),getEntries(10));
+        assertEquals(SMALL_CACHE_SIZE,offHeap.getAllocatedBytes());
+        assertEquals(SMALL_CACHE_SIZE/256,offHeap.size());
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        final List<KeySliceQuery> removed = new ArrayList<>();
+        final OffHeapEntryListCache offHeap = new OffHeapEntryListCache(SMALL_CACHE_SIZE,100,1,removed::add);
+        final KeySliceQuery query = getQuery(1,0,10);
+        offHeap.put(query,getEntries(10));
+        assertNotNull(offHeap.getIfPresent(query));
+        Thread.sleep(150);
+        assertNull(offHeap.getIfPresent(query));
+        assertEquals(1,removed.size());
+        assertEquals(query,removed.get(0));
+        assertEquals(0,offHeap.size());
+    }
+
+    @Test
+    public void testCleanUpRemovesExpiredEntriesInWriteOrder() throws Exception {
+        final List<KeySliceQuery> removed = new ArrayList<>();
+        final OffHeapEntryListCache offHeap = new OffHeapEntryListCache(SMALL_CACHE_SIZE,200,1,removed::add);
+        final KeySliceQuery first = getQuery(1,0,10), second = getQuery(2,0,10);
+        offHeap.put(first,getEntries(10));
+        offHeap.put(second,getEntries(10));
+        Thread.sleep(120);
+        //Rewriting the first entry makes it expire after the second one
+        offHeap.put(first,getEntries(10));
+        Thread.sleep(120);
+        offHeap.cleanUp();
+        assertEquals(1,removed.size());
+        assertEquals(second,removed.get(0));
+        assertTrue(offHeap.contains(first));
+        Thread.sleep(120);
+        offHeap.cleanUp();
+        assertEquals(2,removed.size());
+        assertEquals(0,offHeap.size());
+    }
+
+    @Test
+    public void testExpiredEntriesAreRemovedInBackground() throws Exception {
+        loadStore(10,10);
+        final InspectableOffHeapKCVSCache expiringCache = new InspectableOffHeapKCVSCache(store,100);
+        cache = expiringCache;
+        final KeySliceQuery query = getQuery(1,0,11);
+        assertEquals(10,expiringCache.getSlice(query,getCacheTx()).size());
+        assertTrue(expiringCache.isCached(query));
+        //The cleanup thread removes the expired entry without any further access to the cache
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (expiringCache.isCached(query) && System.currentTimeMillis() < deadline) Thread.sleep(50);
+        assertFalse(expiringCache.isCached(query));
+    }
+
+    @Test
+    public void testOversizedEntriesAreNotCached() throws Exception {
+        final List<KeySliceQuery> removed = new ArrayList<>();
+        final OffHeapEntryListCache offHeap = new OffHeapEntryListCache(SMALL_CACHE_SIZE,Duration.ofDays(1).toMillis(),1,removed::add);
+        final KeySliceQuery query = getQuery(1,0,1000);
+        offHeap.put(query,getEntries(10));
+        //Replacing a cached result with one that does not fit into a page removes it
+        offHeap.put(query,getEntries(1000));
+        assertNull(offHeap.getIfPresent(query));
+        assertEquals(1,removed.size());
+        offHeap.put(query,EntryList.EMPTY_LIST);
+        assertTrue(offHeap.getIfPresent(query).isEmpty());
+    }
+
+    private static EntryList getEntries(int numCols) {
+        final List<Entry> entries = new ArrayList<>(numCols);
+        for (int j=1;j<=numCols;j++) entries.add(getEntry(j,j));
+        return StaticArrayEntryList.of(entries);
+    }
+
+    private static class InspectableOffHeapKCVSCache extends OffHeapKCVSCache {
+
+        private InspectableOffHeapKCVSCache(KeyColumnValueStore store, long cacheTimeMS) {
+            super(store,null,METRICS_STRING,cacheTimeMS,0,CACHE_SIZE);
+        }
+
+        @Override
+        public boolean isCached(KeySliceQuery query) {
+            return super.isCached(query);
+        }
+    }
+
+}
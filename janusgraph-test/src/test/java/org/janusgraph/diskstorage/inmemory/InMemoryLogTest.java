@@ -0,0 +1,135 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.inmemory;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.StoreMetaData;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVSProxy;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.log.KCVSLogTest;
+import org.janusgraph.diskstorage.log.Log;
+import org.janusgraph.diskstorage.log.LogManager;
+import org.janusgraph.diskstorage.log.Message;
+import org.janusgraph.diskstorage.log.MessageReader;
+import org.janusgraph.diskstorage.log.ReadMarker;
+import org.janusgraph.diskstorage.log.kcvs.KCVSLog;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.util.stats.MetricManager;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the {@link KCVSLogTest} against the in-memory store with adaptive read intervals and metrics enabled.
+ */
+public class InMemoryLogTest extends KCVSLogTest {
+
+    private static final String METRICS_PREFIX = "inmemorylog";
+
+    private final AtomicInteger mutateManyCalls = new AtomicInteger(0);
+
+    /**
+     * Keeps the stored messages across log managers so that logs can be reopened within a test
+     */
+    private final InMemoryStoreManager storeManager = new InMemoryStoreManager() {
+        @Override
+        public void mutateMany(Map<String, Map<StaticBuffer, KCVMutation>> mutations, StoreTransaction txh) throws BackendException {
+            mutateManyCalls.incrementAndGet();
+            super.mutateMany(mutations, txh);
+        }
+
+        @Override
+        public KeyColumnValueStore openDatabase(String name, StoreMetaData.Container metaData) throws BackendException {
+            return new KCVSProxy(super.openDatabase(name, metaData)) {
+                @Override
+                public void close() {
+                    //Do nothing, closing an in-memory store discards its data
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            //Do nothing, the stores are discarded with the test instance
+        }
+    };
+
+    @Override
+    public KeyColumnValueStoreManager openStorageManager() {
+        return storeManager;
+    }
+
+    @Override
+    protected void configureLog(ModifiableConfiguration config) {
+        config.set(KCVSLog.LOG_ADAPTIVE_READ_INTERVAL, true, LOG_NAME);
+        config.set(KCVSLog.LOG_MIN_READ_INTERVAL, Duration.ofMillis(50L), LOG_NAME);
+        config.set(GraphDatabaseConfiguration.BASIC_METRICS, true);
+        config.set(GraphDatabaseConfiguration.METRICS_PREFIX, METRICS_PREFIX);
+    }
+
+    @Test
+    public void testSharedSenderAndMetrics() throws Exception {
+        final LogManager manager = openLogManager("metrics", false);
+        try {
+            final Log first = manager.openLog("metrics1");
+            final Log second = manager.openLog("metrics2");
+            final CountDownLatch received = new CountDownLatch(4);
+            final MessageReader reader = new MessageReader() {
+                @Override
+                public void read(Message message) {
+                    received.countDown();
+                }
+
+                @Override
+                public void updateState() {}
+            };
+            first.registerReader(ReadMarker.fromNow(), reader);
+            second.registerReader(ReadMarker.fromNow(), reader);
+            final int mutateManyBefore = mutateManyCalls.get();
+            final int numMessages = 4;
+            for (int i = 0; i < numMessages / 2; i++) {
+                first.add(BufferUtil.getLongBuffer(i));
+                second.add(BufferUtil.getLongBuffer(i));
+            }
+            assertTrue(received.await(30, TimeUnit.SECONDS));
+            //The messages of both logs go through the shared sender, which sends them in at most one batch each
+            //and usually fewer, depending on how the adds line up with the send delay
+            final int batches = mutateManyCalls.get() - mutateManyBefore;
+            assertTrue(batches >= 1 && batches <= numMessages);
+            for (String logName : new String[]{"metrics1", "metrics2"}) {
+                assertEquals(2, MetricManager.INSTANCE.getCounter(METRICS_PREFIX, "log", logName, "send", "messages").getCount());
+                assertEquals(2, MetricManager.INSTANCE.getCounter(METRICS_PREFIX, "log", logName, "read", "messages").getCount());
+                assertEquals(2, MetricManager.INSTANCE.getHistogram(METRICS_PREFIX, "log", logName, "read", "lag").getCount());
+            }
+        } finally {
+            manager.close();
+        }
+    }
+
+}
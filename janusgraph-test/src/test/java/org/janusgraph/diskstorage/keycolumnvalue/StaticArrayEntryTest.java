@@ -228,6 +228,36 @@ public class StaticArrayEntryTest {
         }
     }
 
+    @Test
+    public void testEntryListSerialization() {
+        final Map<Integer,Long> entries = new HashMap<>();
+        for (int i=0;i<50;i++) entries.put(i*2+7,Math.round(Math.random()/2*Long.MAX_VALUE));
+
+        EntryList[] el = new EntryList[3];
+        el[0] = StaticArrayEntryList.ofBytes(entries.entrySet(), ByteEntryGetter.INSTANCE);
+        //Lists built from an iterator may hold more data than they use
+        el[1] = StaticArrayEntryList.ofByteBuffer(entries.entrySet().iterator(), BBEntryGetter.SCHEMA_INSTANCE);
+        el[2] = EntryList.EMPTY_LIST;
+
+        for (final EntryList anEl : el) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(StaticArrayEntryList.getSerializedSize(anEl) + 8);
+            buffer.putLong(42);
+            StaticArrayEntryList.writeTo(anEl, buffer);
+            assertEquals(buffer.capacity(), buffer.position());
+            buffer.flip();
+            assertEquals(42, buffer.getLong());
+            final EntryList copy = StaticArrayEntryList.readFrom(buffer);
+            assertFalse(buffer.hasRemaining());
+            assertEquals(anEl.size(), copy.size());
+            for (int i=0;i<anEl.size();i++) {
+                assertEquals(anEl.get(i), copy.get(i));
+                assertEquals(anEl.get(i).getValuePosition(), copy.get(i).getValuePosition());
+                assertEquals(anEl.get(i).getMetaData(), copy.get(i).getMetaData());
+                checkEntry(copy.get(i), entries);
+            }
+        }
+    }
+
     @Test
     public void testTTLMetadata() {
         WriteBuffer wb = new WriteByteBuffer(128);
@@ -0,0 +1,427 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
+import org.janusgraph.diskstorage.configuration.backend.CommonsConfiguration;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyRange;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link StandardScanner} jobs that read the store in several key ranges, resume from checkpoints and are throttled.
+ */
+public class StandardScannerTest {
+
+    private static final int NUM_KEYS = 2000;
+
+    private static final SliceQuery ALL_COLUMNS = new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(4));
+    private static final SliceQuery EVEN_COLUMN = new SliceQuery(BufferUtil.getIntBuffer(0), BufferUtil.getIntBuffer(1));
+
+    private InMemoryStoreManager manager;
+    private final List<StaticBuffer> keys = new ArrayList<>(NUM_KEYS);
+
+    @Before
+    public void setup() throws BackendException {
+        manager = new InMemoryStoreManager();
+        KeyColumnValueStore store = manager.openDatabase("scanstore");
+        StoreTransaction tx = getTx();
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_KEYS; i++) {
+            StaticBuffer key = BufferUtil.getLongBuffer(random.nextLong());
+            keys.add(key);
+            List<Entry> additions = new ArrayList<>();
+            additions.add(StaticArrayEntry.of(BufferUtil.getIntBuffer(1), BufferUtil.getIntBuffer(i)));
+            //Only every second key has a column matching the second query
+            if (i % 2 == 0) additions.add(StaticArrayEntry.of(BufferUtil.getIntBuffer(0), BufferUtil.getIntBuffer(i)));
+            store.mutate(key, additions, KeyColumnValueStore.NO_DELETIONS, tx);
+        }
+        tx.commit();
+    }
+
+    @After
+    public void shutdown() throws BackendException {
+        manager.close();
+    }
+
+    private StoreTransaction getTx() throws BackendException {
+        return manager.beginTransaction(new StandardBaseTransactionConfig.Builder()
+            .timestampProvider(TimestampProviders.MICRO).build());
+    }
+
+    @Test
+    public void testKeyRanges() {
+        List<KeyRange> ranges = StandardScannerExecutor.getKeyRanges(3);
+        assertEquals(3, ranges.size());
+        assertEquals(BufferUtil.zeroBuffer(1), ranges.get(0).getStart());
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1).getEnd(), ranges.get(i).getStart());
+            assertTrue(ranges.get(i - 1).getStart().compareTo(ranges.get(i).getStart()) < 0);
+        }
+        assertEquals(BufferUtil.oneBuffer(128), ranges.get(2).getEnd());
+        assertEquals(1, StandardScannerExecutor.getKeyRanges(1).size());
+    }
+
+    @Test
+    public void testScanInSegments() throws Exception {
+        for (int numSegments : new int[]{1, 3, 8}) {
+            StandardScanner scanner = new StandardScanner(manager);
+            AligningJob job = new AligningJob();
+            ScanMetrics metrics = scanner.build()
+                .setStoreName("scanstore")
+                .setTimestampProvider(TimestampProviders.MICRO)
+                .setNumProcessingThreads(4)
+                .setNumSegments(numSegments)
+                .setJob(job)
+                .execute().get();
+            assertEquals(NUM_KEYS, metrics.get(ScanMetrics.Metric.SUCCESS));
+            assertEquals(0, metrics.get(ScanMetrics.Metric.FAILURE));
+            assertEquals(NUM_KEYS, metrics.getCustom(AligningJob.KEYS));
+            assertEquals(NUM_KEYS / 2, metrics.getCustom(AligningJob.EVEN_KEYS));
+            assertEquals(NUM_KEYS, job.seenKeys.size());
+            assertTrue(job.seenKeys.containsAll(keys));
+            assertEquals(1.0, metrics.getProgress(), 0.0);
+        }
+    }
+
+    private StandardScanner.Builder buildCheckpointedJob(StandardScanner scanner, ScanJob job, WriteConfiguration checkpoints) {
+        return scanner.build()
+            .setStoreName("scanstore")
+            .setTimestampProvider(TimestampProviders.MICRO)
+            .setNumProcessingThreads(2)
+            .setNumSegments(4)
+            .setCheckpointStore(checkpoints, Duration.ofMillis(100))
+            .setCheckpointId("testjob")
+            .setJob(job);
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+        WriteConfiguration checkpoints = new CommonsConfiguration();
+        List<KeyRange> ranges = StandardScannerExecutor.getKeyRanges(4);
+        //The first segment resumes in the middle, the last two have been completed
+        StaticBuffer resumeKey = BufferUtil.getIntBuffer(0x20000000);
+        checkpoints.set(StandardScannerExecutor.getCheckpointKey("testjob"), new ScanCheckpoint(new StaticBuffer[]{
+            resumeKey, ranges.get(1).getStart(), ranges.get(2).getEnd(), ranges.get(3).getEnd()}).encode());
+
+        AligningJob job = new AligningJob();
+        ScanMetrics metrics = buildCheckpointedJob(new StandardScanner(manager), job, checkpoints).execute().get();
+        int expected = 0;
+        for (StaticBuffer key : keys) {
+            boolean scanned = key.compareTo(ranges.get(2).getStart()) < 0 && key.compareTo(resumeKey) >= 0;
+            assertEquals(scanned, job.seenKeys.contains(key));
+            if (scanned) expected++;
+        }
+        assertTrue(expected > 0);
+        assertEquals(expected, metrics.get(ScanMetrics.Metric.SUCCESS));
+        //Completed jobs remove their checkpoint
+        assertNull(checkpoints.get(StandardScannerExecutor.getCheckpointKey("testjob"), String.class));
+    }
+
+    @Test
+    public void testRecordCheckpointOfInterruptedJob() throws Exception {
+        WriteConfiguration checkpoints = new CommonsConfiguration();
+        StandardScanner scanner = new StandardScanner(manager);
+        CountDownLatch started = new CountDownLatch(NUM_KEYS / 4);
+        AligningJob job = new AligningJob(ConcurrentHashMap.newKeySet(), false, started);
+        JanusGraphManagement.IndexJobFuture future = buildCheckpointedJob(scanner, job, checkpoints).execute();
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        future.cancel(true);
+        String checkpointKey = StandardScannerExecutor.getCheckpointKey("testjob");
+        //The final checkpoint is recorded once the rows that have already been read are processed
+        int processed;
+        do {
+            processed = job.seenKeys.size();
+            Thread.sleep(500);
+        } while (processed < job.seenKeys.size());
+        Thread.sleep(500);
+        assertNotNull(checkpoints.get(checkpointKey, String.class));
+        ScanCheckpoint checkpoint = ScanCheckpoint.decode(checkpoints.get(checkpointKey, String.class));
+        assertTrue(processed < NUM_KEYS);
+
+        //Keys before the resume keys have been processed
+        List<KeyRange> ranges = StandardScannerExecutor.getKeyRanges(4);
+        for (StaticBuffer key : keys) {
+            for (int i = 0; i < ranges.size(); i++) {
+                if (key.compareTo(ranges.get(i).getStart()) >= 0 && key.compareTo(ranges.get(i).getEnd()) < 0
+                    && key.compareTo(checkpoint.getResumeKey(i)) < 0) {
+                    assertTrue(job.seenKeys.contains(key));
+                }
+            }
+        }
+
+        AligningJob resumed = new AligningJob(job.seenKeys, true);
+        ScanMetrics metrics = buildCheckpointedJob(scanner, resumed, checkpoints).execute().get();
+        assertTrue(metrics.get(ScanMetrics.Metric.SUCCESS) < NUM_KEYS);
+        assertEquals(0, metrics.get(ScanMetrics.Metric.FAILURE));
+        assertTrue(job.seenKeys.containsAll(keys));
+        assertNull(checkpoints.get(checkpointKey, String.class));
+    }
+
+    /**
+     * Returns the resume key recorded for the segment that contains the given key
+     */
+    private StaticBuffer getResumeKey(WriteConfiguration checkpoints, StaticBuffer key) {
+        String encoded = checkpoints.get(StandardScannerExecutor.getCheckpointKey("testjob"), String.class);
+        assertNotNull(encoded);
+        ScanCheckpoint checkpoint = ScanCheckpoint.decode(encoded);
+        List<KeyRange> ranges = StandardScannerExecutor.getKeyRanges(4);
+        for (int i = 0; i < ranges.size(); i++) {
+            if (key.compareTo(ranges.get(i).getStart()) >= 0 && key.compareTo(ranges.get(i).getEnd()) < 0) {
+                return checkpoint.getResumeKey(i);
+            }
+        }
+        throw new AssertionError("No segment contains key " + key);
+    }
+
+    @Test
+    public void testFailedRowIsNotCheckpointed() throws Exception {
+        WriteConfiguration checkpoints = new CommonsConfiguration();
+        StaticBuffer failingKey = keys.get(0);
+        ScanMetrics metrics = buildCheckpointedJob(new StandardScanner(manager), new FailingJob(failingKey, false), checkpoints)
+            .execute().get();
+        assertEquals(1, metrics.get(ScanMetrics.Metric.FAILURE));
+        //The job has to resume from the failed row
+        assertEquals(failingKey, getResumeKey(checkpoints, failingKey));
+
+        AligningJob resumed = new AligningJob();
+        buildCheckpointedJob(new StandardScanner(manager), resumed, checkpoints).execute().get();
+        assertTrue(resumed.seenKeys.contains(failingKey));
+        assertNull(checkpoints.get(StandardScannerExecutor.getCheckpointKey("testjob"), String.class));
+    }
+
+    @Test
+    public void testFailedCommitIsNotCheckpointed() throws Exception {
+        WriteConfiguration checkpoints = new CommonsConfiguration();
+        StaticBuffer failingKey = keys.get(0);
+        buildCheckpointedJob(new StandardScanner(manager), new FailingJob(failingKey, true), checkpoints)
+            .setWorkBlockSize(10).execute().get();
+        //The rows of the work block that failed to commit have to be scanned again
+        assertTrue(getResumeKey(checkpoints, failingKey).compareTo(failingKey) <= 0);
+    }
+
+    @Test
+    public void testThrottledScan() throws Exception {
+        ModifiableConfiguration jobConfig = GraphDatabaseConfiguration.buildJobConfiguration();
+        jobConfig.set(GraphDatabaseConfiguration.JOB_THROTTLE_ROWS, 1000L);
+        AligningJob job = new AligningJob();
+        long start = System.currentTimeMillis();
+        ScanMetrics metrics = new StandardScanner(manager).build()
+            .setStoreName("scanstore")
+            .setTimestampProvider(TimestampProviders.MICRO)
+            .setNumProcessingThreads(4)
+            .setJobConfiguration(jobConfig)
+            .setJob(job)
+            .execute().get();
+        assertEquals(NUM_KEYS, metrics.get(ScanMetrics.Metric.SUCCESS));
+        assertTrue(System.currentTimeMillis() - start >= NUM_KEYS / 1000 * 900);
+    }
+
+    @Test
+    public void testAdaptiveThrottle() {
+        Timer readLatency = new Timer();
+        Counter readTime = new Counter();
+        ScanThrottle throttle = new ScanThrottle(1000, 0, readLatency, readTime, Duration.ofMillis(10));
+        //No reads by other transactions
+        throttle.adapt();
+        assertEquals(1.0, throttle.getRateFactor(), 0.0);
+        recordRead(readLatency, readTime, 50);
+        throttle.adapt();
+        assertEquals(0.5, throttle.getRateFactor(), 0.0);
+        recordRead(readLatency, readTime, 50);
+        throttle.adapt();
+        assertEquals(0.25, throttle.getRateFactor(), 0.0);
+        //Recovers once the load on the storage backend is gone
+        for (int i = 0; i < 10; i++) throttle.adapt();
+        assertEquals(1.0, throttle.getRateFactor(), 0.0);
+    }
+
+    @Test
+    public void testAdaptiveThrottleIgnoresEarlierLatencies() {
+        Timer readLatency = new Timer();
+        Counter readTime = new Counter();
+        ScanThrottle throttle = new ScanThrottle(1000, 0, readLatency, readTime, Duration.ofMillis(10));
+        recordRead(readLatency, readTime, 50);
+        throttle.adapt();
+        assertEquals(0.5, throttle.getRateFactor(), 0.0);
+        //The mean over all recorded reads still exceeds the target but the reads since the last adjustment do not
+        recordRead(readLatency, readTime, 1);
+        throttle.adapt();
+        assertEquals(0.6, throttle.getRateFactor(), 1e-9);
+        recordRead(readLatency, readTime, 30);
+        recordRead(readLatency, readTime, 1);
+        throttle.adapt();
+        assertEquals(0.3, throttle.getRateFactor(), 1e-9);
+    }
+
+    private static void recordRead(Timer readLatency, Counter readTime, long millis) {
+        readLatency.update(millis, TimeUnit.MILLISECONDS);
+        readTime.inc(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Fails to process the given key or to commit the work block that contains it
+     */
+    private static class FailingJob implements ScanJob {
+
+        private final StaticBuffer failingKey;
+        private final boolean failCommit;
+        private boolean blockContainsKey = false;
+
+        private FailingJob(StaticBuffer failingKey, boolean failCommit) {
+            this.failingKey = failingKey;
+            this.failCommit = failCommit;
+        }
+
+        @Override
+        public void process(StaticBuffer key, Map<SliceQuery, EntryList> entries, ScanMetrics metrics) {
+            if (!key.equals(failingKey)) return;
+            if (!failCommit) throw new IllegalStateException("Failed to process " + key);
+            blockContainsKey = true;
+        }
+
+        @Override
+        public void workerIterationEnd(ScanMetrics metrics) {
+            if (blockContainsKey) {
+                //Only fail once as the work block is ended again when the processor terminates
+                blockContainsKey = false;
+                throw new IllegalStateException("Failed to commit " + failingKey);
+            }
+        }
+
+        @Override
+        public List<SliceQuery> getQueries() {
+            return ImmutableList.of(ALL_COLUMNS);
+        }
+
+        @Override
+        public FailingJob clone() {
+            return new FailingJob(failingKey, failCommit);
+        }
+    }
+
+    /**
+     * Verifies that the rows of both queries are aligned by key and records every processed key
+     */
+    private static class AligningJob implements ScanJob {
+
+        private static final String KEYS = "keys";
+        private static final String EVEN_KEYS = "even";
+
+        private final Set<StaticBuffer> seenKeys;
+        private final boolean allowRepeats;
+        //If set, every processed key counts down the latch and processing is slowed down
+        private final CountDownLatch processedLatch;
+
+        private AligningJob() {
+            this(ConcurrentHashMap.newKeySet(), false);
+        }
+
+        private AligningJob(Set<StaticBuffer> seenKeys, boolean allowRepeats) {
+            this(seenKeys, allowRepeats, null);
+        }
+
+        private AligningJob(Set<StaticBuffer> seenKeys, boolean allowRepeats, CountDownLatch processedLatch) {
+            this.seenKeys = seenKeys;
+            this.allowRepeats = allowRepeats;
+            this.processedLatch = processedLatch;
+        }
+
+        @Override
+        public void process(StaticBuffer key, Map<SliceQuery, EntryList> entries, ScanMetrics metrics) {
+            assertTrue("Key processed twice: " + key, seenKeys.add(key) || allowRepeats);
+            EntryList all = entries.get(ALL_COLUMNS);
+            EntryList even = entries.get(EVEN_COLUMN);
+            int value = all.get(all.size() - 1).getValue().getInt(0);
+            assertEquals(value % 2 == 0 ? 2 : 1, all.size());
+            if (value % 2 == 0) {
+                assertEquals(1, even.size());
+                assertEquals(value, even.get(0).getValue().getInt(0));
+                metrics.incrementCustom(EVEN_KEYS);
+            } else {
+                assertTrue(even.isEmpty());
+            }
+            metrics.incrementCustom(KEYS);
+            if (processedLatch != null) {
+                processedLatch.countDown();
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void workerIterationStart(Configuration jobConfiguration, Configuration graphConfiguration, ScanMetrics metrics) {
+        }
+
+        @Override
+        public void workerIterationEnd(ScanMetrics metrics) {
+        }
+
+        @Override
+        public List<SliceQuery> getQueries() {
+            return ImmutableList.of(ALL_COLUMNS, EVEN_COLUMN);
+        }
+
+        @Override
+        public Predicate<StaticBuffer> getKeyFilter() {
+            return k -> true;
+        }
+
+        @Override
+        public AligningJob clone() {
+            return new AligningJob(seenKeys, allowRepeats, processedLatch);
+        }
+    }
+
+}
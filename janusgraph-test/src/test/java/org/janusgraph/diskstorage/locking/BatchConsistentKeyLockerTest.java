@@ -0,0 +1,189 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.locking;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.StoreMetaData;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVSProxy;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StandardStoreFeatures;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreFeatures;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.locking.consistentkey.ConsistentKeyLocker;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.KeyColumn;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.janusgraph.util.stats.MetricManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests a {@link ConsistentKeyLocker} that writes and checks the locks of a transaction in batches.
+ */
+public class BatchConsistentKeyLockerTest {
+
+    private static final String GROUP = "batchlocker";
+    private static final String LOCK_STORE = "lockstore";
+    //Local lock mediators are shared JVM-wide by name, so each test uses its own to not inherit leftover locks
+    private static final AtomicInteger TEST_COUNTER = new AtomicInteger(0);
+
+    private CountingStoreManager manager;
+    private ConsistentKeyLocker locker;
+    private ConsistentKeyLocker otherLocker;
+    private final List<StoreTransaction> txs = new ArrayList<>();
+
+    @Before
+    public void setup() throws BackendException {
+        manager = new CountingStoreManager();
+        final int testId = TEST_COUNTER.incrementAndGet();
+        locker = getLocker(testId, "inst1");
+        otherLocker = getLocker(testId, "inst2");
+    }
+
+    @After
+    public void shutdown() throws BackendException {
+        //Release the locks of failed tests as well
+        try {
+            for (StoreTransaction tx : txs) {
+                locker.deleteLocks(tx);
+                otherLocker.deleteLocks(tx);
+            }
+        } finally {
+            manager.close();
+        }
+    }
+
+    private ConsistentKeyLocker getLocker(int testId, String rid) throws BackendException {
+        return new ConsistentKeyLocker.Builder(manager.openDatabase(LOCK_STORE), manager)
+            .rid(new StaticArrayBuffer(rid.getBytes()))
+            .times(TimestampProviders.MICRO)
+            .mediatorName(GROUP + testId + rid)
+            .lockWait(Duration.ofMillis(10))
+            .batchLocking(true)
+            .build();
+    }
+
+    private StoreTransaction getTx() throws BackendException {
+        final StoreTransaction tx = manager.beginTransaction(new StandardBaseTransactionConfig.Builder().groupName(GROUP)
+            .timestampProvider(TimestampProviders.MICRO).build());
+        txs.add(tx);
+        return tx;
+    }
+
+    private static KeyColumn getLockID(int i) {
+        return new KeyColumn(BufferUtil.getIntBuffer(i), BufferUtil.getIntBuffer(0));
+    }
+
+    @Test
+    public void testWritesAndChecksLocksInBatch() throws BackendException {
+        final StoreTransaction tx = getTx();
+        for (int i = 0; i < 50; i++) locker.writeLock(getLockID(i), tx);
+        //Claims are only written when the locks are checked
+        assertEquals(0, manager.mutateManyCalls.get());
+
+        locker.checkLocks(tx);
+        assertEquals(1, manager.mutateManyCalls.get());
+        assertEquals(1, manager.multiQueryCalls.get());
+        //Checked locks are not checked again
+        locker.checkLocks(tx);
+        assertEquals(1, manager.mutateManyCalls.get());
+        assertEquals(1, manager.multiQueryCalls.get());
+
+        locker.deleteLocks(tx);
+        final StoreTransaction otherTx = getTx();
+        otherLocker.writeLock(getLockID(0), otherTx);
+        otherLocker.checkLocks(otherTx);
+        otherLocker.deleteLocks(otherTx);
+    }
+
+    @Test
+    public void testDetectsContention() throws BackendException {
+        final long contention = MetricManager.INSTANCE.getCounter(GROUP, "locks", "check", "contention").getCount();
+        final StoreTransaction tx = getTx();
+        final StoreTransaction otherTx = getTx();
+        locker.writeLock(getLockID(1), tx);
+        otherLocker.writeLock(getLockID(1), otherTx);
+        otherLocker.writeLock(getLockID(2), otherTx);
+
+        locker.checkLocks(tx);
+        try {
+            otherLocker.checkLocks(otherTx);
+            fail();
+        } catch (TemporaryLockingException e) {
+            assertEquals(contention + 1, MetricManager.INSTANCE.getCounter(GROUP, "locks", "check", "contention").getCount());
+        }
+        locker.deleteLocks(tx);
+        otherLocker.deleteLocks(otherTx);
+    }
+
+    @Test
+    public void testReleasesUnwrittenLocks() throws BackendException {
+        final StoreTransaction tx = getTx();
+        locker.writeLock(getLockID(1), tx);
+        locker.deleteLocks(tx);
+        assertEquals(0, manager.mutateManyCalls.get());
+
+        final StoreTransaction otherTx = getTx();
+        locker.writeLock(getLockID(1), otherTx);
+        locker.checkLocks(otherTx);
+        locker.deleteLocks(otherTx);
+    }
+
+    private static class CountingStoreManager extends InMemoryStoreManager {
+
+        private final AtomicInteger mutateManyCalls = new AtomicInteger(0);
+        private final AtomicInteger multiQueryCalls = new AtomicInteger(0);
+
+        @Override
+        public StoreFeatures getFeatures() {
+            return new StandardStoreFeatures.Builder(super.getFeatures()).batchMutation(true).multiQuery(true).build();
+        }
+
+        @Override
+        public void mutateMany(Map<String, Map<StaticBuffer, KCVMutation>> mutations, StoreTransaction txh) throws BackendException {
+            mutateManyCalls.incrementAndGet();
+            super.mutateMany(mutations, txh);
+        }
+
+        @Override
+        public KeyColumnValueStore openDatabase(String name, StoreMetaData.Container metaData) throws BackendException {
+            return new KCVSProxy(super.openDatabase(name, metaData)) {
+                @Override
+                public Map<StaticBuffer, EntryList> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws BackendException {
+                    multiQueryCalls.incrementAndGet();
+                    return super.getSlice(keys, query, txh);
+                }
+            };
+        }
+    }
+
+}
@@ -19,6 +19,8 @@ import org.janusgraph.diskstorage.configuration.Configuration;
 import org.apache.commons.lang.StringUtils;
 import org.junit.Test;
 
+import java.time.Duration;
+
 import static org.junit.Assert.assertFalse;
 
 /**
@@ -31,5 +33,9 @@ public class GraphDatabaseConfigurationTest {
         assertFalse(StringUtils.containsAny(GraphDatabaseConfiguration.getOrGenerateUniqueInstanceId(Configuration.EMPTY), ConfigElement.ILLEGAL_CHARS));
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdaptiveCacheSplitIntervalMustBePositive() {
+        GraphDatabaseConfiguration.DB_CACHE_ADAPTIVE_SPLIT_INTERVAL.verify(Duration.ZERO);
+    }
 
 }
@@ -0,0 +1,118 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.cache;
+
+import com.google.common.collect.Iterables;
+import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.internal.JanusGraphSchemaCategory;
+import org.janusgraph.graphdb.types.TypeDefinitionCategory;
+import org.janusgraph.graphdb.types.vertices.PropertyKeyVertex;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the schema definitions that the {@link StandardSchemaCache} shares between transactions.
+ */
+public class StandardSchemaCacheTest {
+
+    private StandardJanusGraph graph;
+    private long nameId;
+
+    @Before
+    public void setup() {
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+
+        JanusGraphManagement mgmt = graph.openManagement();
+        PropertyKey name = mgmt.makePropertyKey("name").dataType(String.class).cardinality(Cardinality.SINGLE).make();
+        mgmt.buildIndex("byName", Vertex.class).addKey(name).buildCompositeIndex();
+        nameId = name.longId();
+        mgmt.commit();
+    }
+
+    @After
+    public void shutdown() {
+        if (graph != null && graph.isOpen()) graph.close();
+    }
+
+    private PropertyKeyVertex getNameKey(JanusGraphTransaction tx) {
+        return (PropertyKeyVertex) tx.getPropertyKey("name");
+    }
+
+    @Test
+    public void testSharesDefinitionsBetweenTransactions() {
+        SchemaCache cache = graph.getSchemaCache();
+        JanusGraphTransaction tx1 = graph.newTransaction();
+        PropertyKeyVertex key1 = getNameKey(tx1);
+        assertEquals(Cardinality.SINGLE, key1.cardinality());
+        SchemaDefinition definition = cache.getSchemaDefinition(nameId);
+        assertNotNull(definition);
+        assertEquals(1, definition.getRelated(Direction.IN).get(TypeDefinitionCategory.INDEX_FIELD).size());
+
+        JanusGraphTransaction tx2 = graph.newTransaction();
+        PropertyKeyVertex key2 = getNameKey(tx2);
+        assertEquals("name", key2.name());
+        //Both transactions use the same parsed definition but resolve related schema elements on their own
+        assertSame(key1.getDefinition(), key2.getDefinition());
+        assertEquals(1, Iterables.size(key2.getKeyIndexes()));
+        assertSame(definition, cache.getSchemaDefinition(nameId));
+        tx1.rollback();
+        tx2.rollback();
+    }
+
+    @Test
+    public void testExpiresDefinitions() {
+        SchemaCache cache = graph.getSchemaCache();
+        JanusGraphTransaction tx = graph.newTransaction();
+        getNameKey(tx).getDefinition();
+        tx.rollback();
+        SchemaDefinition definition = cache.getSchemaDefinition(nameId);
+        assertNotNull(definition);
+
+        //Definitions parsed before an element was expired are not shared anymore
+        long version = cache.getSchemaVersion();
+        cache.expireSchemaElement(nameId);
+        assertNull(cache.getSchemaDefinition(nameId));
+        cache.putSchemaDefinition(nameId, definition, version);
+        assertNull(cache.getSchemaDefinition(nameId));
+
+        JanusGraphManagement mgmt = graph.openManagement();
+        mgmt.changeName(mgmt.getPropertyKey("name"), "fullname");
+        mgmt.commit();
+        tx = graph.newTransaction();
+        assertNull(tx.getPropertyKey("name"));
+        assertEquals("fullname", tx.getPropertyKey("fullname").name());
+        assertEquals(JanusGraphSchemaCategory.getRelationTypeName("fullname"), cache.getSchemaDefinition(nameId).getName());
+        tx.rollback();
+    }
+
+}
@@ -23,11 +23,13 @@ import static org.easymock.EasyMock.*;
 import java.time.Duration;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.IDAuthority;
 import org.janusgraph.diskstorage.IDBlock;
 import org.janusgraph.diskstorage.TemporaryBackendException;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyRange;
+import org.janusgraph.graphdb.database.idassigner.IDBlockPrefetcher;
 import org.janusgraph.graphdb.database.idassigner.IDBlockSizer;
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
@@ -38,6 +40,7 @@ import org.janusgraph.graphdb.database.idassigner.IDPoolExhaustedException;
 import org.janusgraph.graphdb.database.idassigner.StandardIDPool;
 import org.janusgraph.util.datastructures.IntHashSet;
 import org.janusgraph.util.datastructures.IntSet;
+import org.janusgraph.util.stats.MetricManager;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -228,6 +231,81 @@ public class IDPoolTest {
         }
     }
 
+    @Test
+    public void testPrefetchedBlocks() {
+        final AtomicInteger blockRequests = new AtomicInteger();
+        final MockIDAuthority idAuthority = new MockIDAuthority(100, Integer.MAX_VALUE, 50) {
+            @Override
+            public IDBlock getIDBlock(int partition, int idNamespace, Duration timeout) throws BackendException {
+                blockRequests.incrementAndGet();
+                return super.getIDBlock(partition, idNamespace, timeout);
+            }
+        };
+        try (final IDBlockPrefetcher prefetcher = new IDBlockPrefetcher(4, 3, false, "idpooltest")) {
+            final long stalls = MetricManager.INSTANCE.getTimer("idpooltest", "ids", "stall", "time").getCount();
+            final StandardIDPool pool = new StandardIDPool(idAuthority, 0, 1, Integer.MAX_VALUE, Duration.ofMillis(2000), 0.2, prefetcher);
+            final IntSet ids = new IntHashSet(1000);
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(ids.add((int) pool.nextID()));
+            }
+            pool.close();
+            //At least the first block had to be waited for
+            assertTrue(MetricManager.INSTANCE.getTimer("idpooltest", "ids", "stall", "time").getCount() > stalls);
+            assertTrue(blockRequests.get() >= 10 && blockRequests.get() <= 13);
+        }
+    }
+
+    @Test
+    public void testSingleBlockPrefetcherUsesPoolThread() {
+        try (final IDBlockPrefetcher prefetcher = new IDBlockPrefetcher(1, 1, true, null)) {
+            final StandardIDPool pool = new StandardIDPool(new MockIDAuthority(100), 0, 1, Integer.MAX_VALUE,
+                Duration.ofMillis(2000), 0.2, prefetcher);
+            final IntSet ids = new IntHashSet(300);
+            for (int i = 0; i < 300; i++) {
+                assertTrue(ids.add((int) pool.nextID()));
+            }
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testRenewTimeoutExcludesQueueTime() {
+        try (final IDBlockPrefetcher prefetcher = new IDBlockPrefetcher(1, 2, false, null)) {
+            final StandardIDPool slowPool = new StandardIDPool(new MockIDAuthority(100, Integer.MAX_VALUE, 300),
+                0, 1, Integer.MAX_VALUE, Duration.ofMillis(2000), 0.2, prefetcher);
+            final StandardIDPool fastPool = new StandardIDPool(new MockIDAuthority(100),
+                0, 2, Integer.MAX_VALUE, Duration.ofMillis(200), 0.2, prefetcher);
+            //Queues the second block of the slow pool on the only thread
+            slowPool.nextID();
+            //Waits longer than its renew timeout for the thread, but retrieves its block in time
+            fastPool.nextID();
+            slowPool.close();
+            fastPool.close();
+        }
+    }
+
+    @Test
+    public void testAdaptiveBlockSize() {
+        try (final IDBlockPrefetcher prefetcher = new IDBlockPrefetcher(1, 1, true, null)) {
+            assertEquals(100, prefetcher.getBlockSize(1, 100, 100000));
+            prefetcher.stalled(1, Duration.ofMillis(10));
+            assertEquals(200, prefetcher.getBlockSize(1, 100, 100000));
+            assertEquals(100, prefetcher.getBlockSize(2, 100, 100000));
+            for (int i = 0; i < 10; i++) prefetcher.stalled(1, Duration.ofMillis(10));
+            assertEquals(1600, prefetcher.getBlockSize(1, 100, 100000));
+            //Block sizes never exceed the limit
+            assertEquals(100, prefetcher.getBlockSize(1, 100, 1000));
+            prefetcher.blockConsumed(1, Duration.ofSeconds(1));
+            assertEquals(1600, prefetcher.getBlockSize(1, 100, 100000));
+            prefetcher.blockConsumed(1, Duration.ofMinutes(5));
+            assertEquals(800, prefetcher.getBlockSize(1, 100, 100000));
+        }
+        try (final IDBlockPrefetcher prefetcher = new IDBlockPrefetcher(1, 1, false, null)) {
+            prefetcher.stalled(1, Duration.ofMillis(10));
+            assertEquals(100, prefetcher.getBlockSize(1, 100, 100000));
+        }
+    }
+
     interface IDPoolFactory {
         StandardIDPool get(int partitionID);
     }
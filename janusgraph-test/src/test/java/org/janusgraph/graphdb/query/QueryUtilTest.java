@@ -0,0 +1,129 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.query;
+
+import com.google.common.collect.ImmutableSet;
+import org.janusgraph.core.JanusGraphException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QueryUtilTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static QueryUtil.IndexCall<Object> ids(long from, long to, AtomicInteger calls) {
+        return limit -> {
+            calls.incrementAndGet();
+            return LongStream.range(from, to).limit(limit).boxed().collect(Collectors.toList());
+        };
+    }
+
+    @Test
+    public void testIntersectsIds() {
+        final AtomicInteger calls = new AtomicInteger();
+        final List<QueryUtil.IndexCall<Object>> retrievals = Arrays.asList(ids(0, 50000, calls), ids(40000, 90000, calls));
+        for (ExecutorService exe : Arrays.asList(null, executor)) {
+            final Set<Object> results = QueryUtil.processIntersectingRetrievals(retrievals, Integer.MAX_VALUE, exe);
+            assertEquals(10000, results.size());
+            assertTrue(results.contains(40000L));
+            assertTrue(results.contains(49999L));
+            assertFalse(results.contains(39999L));
+            assertFalse(results.contains(50000L));
+            assertFalse(results.contains("40000"));
+        }
+    }
+
+    @Test
+    public void testIntersectsOtherElements() {
+        final List<QueryUtil.IndexCall<Object>> retrievals = Arrays.asList(
+            limit -> Arrays.asList("a", "b", 1L), limit -> Arrays.asList("b", "c", 1L));
+        assertEquals(ImmutableSet.of("b", 1L), QueryUtil.processIntersectingRetrievals(retrievals, 10, executor));
+    }
+
+    @Test
+    public void testKeepsOrderOfFirstResult() {
+        final List<QueryUtil.IndexCall<Object>> idRetrievals = Arrays.asList(
+            limit -> Arrays.asList(5L, 3L, 9L, 1L, 7L), limit -> Arrays.asList(1L, 3L, 5L, 7L, 8L, 10L, 11L));
+        final List<QueryUtil.IndexCall<Object>> retrievals = Arrays.asList(
+            limit -> Arrays.asList("c", "e", "a", "b"), limit -> Arrays.asList("a", "b", "c", "d", "f", "g"));
+        for (ExecutorService exe : Arrays.asList(null, executor)) {
+            assertEquals(Arrays.asList(5L, 3L, 1L, 7L), new ArrayList<>(QueryUtil.processIntersectingRetrievals(idRetrievals, 10, exe)));
+            assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<>(QueryUtil.processIntersectingRetrievals(retrievals, 10, exe)));
+        }
+    }
+
+    @Test
+    public void testRetrievesMoreResultsUntilLimit() {
+        final List<Integer> limits = new ArrayList<>();
+        final List<QueryUtil.IndexCall<Object>> retrievals = Arrays.asList(
+            limit -> {
+                limits.add(limit);
+                return LongStream.range(0, 1000).limit(limit).boxed().collect(Collectors.toList());
+            },
+            limit -> LongStream.range(0, 1000).filter(i -> i % 10 == 0).boxed().collect(Collectors.toList()));
+        //The first round only retrieves 20 results, which contain two common ones
+        assertTrue(QueryUtil.processIntersectingRetrievals(retrievals, 10).size() >= 10);
+        assertTrue(limits.size() > 1);
+    }
+
+    @Test
+    public void testStopsOnEmptyIntersection() {
+        final AtomicInteger calls = new AtomicInteger();
+        final List<QueryUtil.IndexCall<Object>> retrievals = Arrays.asList(ids(0, 100, calls), ids(200, 300, calls), ids(0, 100, calls));
+        assertTrue(QueryUtil.processIntersectingRetrievals(retrievals, 1000).isEmpty());
+        //The last retrieval is not needed since both complete results do not intersect
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testPropagatesFailure() {
+        final List<QueryUtil.IndexCall<Object>> retrievals = Arrays.asList(ids(0, 100, new AtomicInteger()), limit -> {
+            throw new IllegalStateException("Index unavailable");
+        });
+        try {
+            QueryUtil.processIntersectingRetrievals(retrievals, 10, executor);
+            fail();
+        } catch (JanusGraphException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+}
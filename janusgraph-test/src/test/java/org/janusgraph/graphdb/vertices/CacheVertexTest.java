@@ -0,0 +1,117 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.vertices;
+
+import com.google.common.collect.Iterables;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the relation slice cache of {@link CacheVertex} with a bounded transaction-wide size.
+ */
+public class CacheVertexTest {
+
+    private static final int NUM_VERTICES = 20;
+    private static final int NUM_EDGES = 50;
+    private static final long RELATION_CACHE_SIZE = 4096;
+
+    private StandardJanusGraph graph;
+    private final long[] vertexIds = new long[NUM_VERTICES];
+
+    @Before
+    public void setup() {
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.TX_RELATION_CACHE_SIZE, RELATION_CACHE_SIZE);
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+
+        JanusGraphTransaction tx = graph.newTransaction();
+        JanusGraphVertex hub = tx.addVertex();
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            JanusGraphVertex v = tx.addVertex();
+            for (int j = 0; j < NUM_EDGES; j++) v.addEdge("knows", hub, "weight", j);
+            vertexIds[i] = (Long) v.id();
+        }
+        tx.commit();
+    }
+
+    @After
+    public void shutdown() {
+        if (graph != null && graph.isOpen()) graph.close();
+    }
+
+    @Test
+    public void testEvictsSlicesBeyondBudget() {
+        StandardJanusGraphTx tx = (StandardJanusGraphTx) graph.newTransaction();
+        RelationSliceBudget budget = tx.getRelationSliceBudget();
+        assertEquals(RELATION_CACHE_SIZE, budget.getMaxSize());
+        for (int round = 0; round < 2; round++) {
+            for (long vertexId : vertexIds) {
+                JanusGraphVertex v = tx.getVertex(vertexId);
+                assertEquals(NUM_EDGES, Iterables.size(v.query().direction(Direction.OUT).labels("knows").edges()));
+                assertTrue(budget.getSize() <= RELATION_CACHE_SIZE);
+            }
+        }
+        //The slices of the least recently used vertex have been evicted while the last vertex kept its slices
+        assertEquals(0, ((CacheVertex) tx.getVertex(vertexIds[0])).getQueryCacheSize());
+        assertTrue(((CacheVertex) tx.getVertex(vertexIds[NUM_VERTICES - 1])).getQueryCacheSize() > 0);
+        tx.rollback();
+    }
+
+    @Test
+    public void testEvictsEmptySlicesBeyondBudget() {
+        final long maxSize = 10 * RelationSliceBudget.SLICE_OVERHEAD;
+        StandardJanusGraphTx tx = (StandardJanusGraphTx) graph.buildTransaction().relationCacheSize(maxSize).start();
+        RelationSliceBudget budget = tx.getRelationSliceBudget();
+        for (long vertexId : vertexIds) {
+            JanusGraphVertex v = tx.getVertex(vertexId);
+            assertEquals(0, Iterables.size(v.query().direction(Direction.IN).labels("knows").edges()));
+            assertTrue(budget.getSize() > 0 && budget.getSize() <= maxSize);
+        }
+        //Empty slices are charged as well, so those of the least recently used vertex have been evicted
+        assertEquals(0, ((CacheVertex) tx.getVertex(vertexIds[0])).getQueryCacheSize());
+        assertTrue(((CacheVertex) tx.getVertex(vertexIds[NUM_VERTICES - 1])).getQueryCacheSize() > 0);
+        tx.rollback();
+    }
+
+    @Test
+    public void testUnboundedByDefault() {
+        StandardJanusGraphTx tx = (StandardJanusGraphTx) graph.buildTransaction().relationCacheSize(0).start();
+        assertNull(tx.getRelationSliceBudget());
+        for (long vertexId : vertexIds) {
+            JanusGraphVertex v = tx.getVertex(vertexId);
+            assertEquals(NUM_EDGES, Iterables.size(v.query().direction(Direction.OUT).labels("knows").edges()));
+        }
+        for (long vertexId : vertexIds) {
+            assertTrue(((CacheVertex) tx.getVertex(vertexId)).getQueryCacheSize() > 0);
+        }
+        tx.rollback();
+    }
+
+}